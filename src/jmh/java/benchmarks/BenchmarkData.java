@@ -0,0 +1,79 @@
+package benchmarks;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Создает одинаковые при каждом запуске коллекции для бенчмарков.
+ */
+final class BenchmarkData {
+    /**
+     * Хранит начальное значение генератора случайных чисел.
+     */
+    static final long SEED = 42;
+    /**
+     * Хранит слова, из которых составляются названия и описания (русские и английские).
+     */
+    private static final String[] WORDS = {
+            "Кино", "Ария", "Сплин", "Алиса", "Аквариум", "Звери", "Ленинград", "Мумий", "Тролль", "Пикник",
+            "Beatles", "Abba", "Queen", "Nirvana", "Muse", "Eagles", "Metallica", "Radiohead", "Kiss", "Doors"
+    };
+    /**
+     * Хранит названия студий.
+     */
+    private static final String[] STUDIOS = {"Мелодия", "Abbey Road", "Sun Studio", "Electric Lady", "Союз"};
+    /**
+     * Хранит дату, от которой отсчитываются даты создания (все даты создания не раньше нее).
+     */
+    static final ZonedDateTime EPOCH = ZonedDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneId.of("Europe/Moscow"));
+
+    private BenchmarkData(){
+    }
+
+    /**
+     * Создает коллекцию с ключами от 1 до size.
+     * @param size Количество элементов
+     * @return коллекция
+     */
+    static TreeMap<Long, MusicBand> bands(int size){
+        Random random = new Random(SEED);
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = 1; key <= size; key++){
+            bands.put(key, band(key, random));
+        }
+        return bands;
+    }
+
+    /**
+     * Создает элемент со случайными значениями полей.
+     * @param key Ключ и id элемента
+     * @param random Генератор случайных чисел
+     * @return элемент
+     */
+    static MusicBand band(long key, Random random){
+        return band(key, random, EPOCH.plusSeconds(random.nextInt(20 * 365 * 24 * 3600)));
+    }
+
+    /**
+     * Создает элемент с указанной датой создания и случайными значениями остальных полей.
+     * @param key Ключ и id элемента
+     * @param random Генератор случайных чисел
+     * @param creationDate Дата создания
+     * @return элемент
+     */
+    static MusicBand band(long key, Random random, ZonedDateTime creationDate){
+        MusicGenre[] genres = MusicGenre.values();
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1000);
+        String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        return new MusicBand(key, name, new Coordinates(random.nextInt(1000) / 4.0, random.nextInt(1000)),
+                creationDate, 1 + random.nextInt(20), description,
+                genres[random.nextInt(genres.length)], new Studio(STUDIOS[random.nextInt(STUDIOS.length)]));
+    }
+}
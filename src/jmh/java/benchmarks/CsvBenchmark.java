@@ -0,0 +1,80 @@
+package benchmarks;
+
+import classes.MusicBand;
+import org.openjdk.jmh.annotations.*;
+import utils.ReaderCSV;
+import utils.WriterCSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет чтение коллекции из CSV-файла ({@link ReaderCSV#loadFromFile}) и запись в него ({@link WriterCSV#loadToFile}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvBenchmark {
+    /**
+     * Хранит количество элементов в файле.
+     */
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+    /**
+     * Хранит записываемую коллекцию.
+     */
+    private TreeMap<Long, MusicBand> bands;
+    /**
+     * Хранит файл, из которого читается коллекция.
+     */
+    private File source;
+    /**
+     * Хранит файл, в который записывается коллекция.
+     */
+    private File target;
+
+    /**
+     * Создает коллекцию и файл с ней.
+     * @throws IOException если временный файл недоступен для записи
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException{
+        bands = BenchmarkData.bands(size);
+        source = Files.createTempFile("bench-load", ".csv").toFile();
+        target = Files.createTempFile("bench-save", ".csv").toFile();
+        WriterCSV.loadToFile(source, bands);
+    }
+
+    /**
+     * Удаляет временные файлы.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        source.delete();
+        target.delete();
+    }
+
+    /**
+     * Читает коллекцию из файла.
+     * @return коллекция
+     */
+    @Benchmark
+    public TreeMap<Long, MusicBand> loadFromFile(){
+        return ReaderCSV.loadFromFile(source);
+    }
+
+    /**
+     * Записывает коллекцию в файл (со сбросом на диск).
+     * @throws IOException если файл недоступен для записи
+     */
+    @Benchmark
+    public void loadToFile() throws IOException{
+        WriterCSV.loadToFile(target, bands);
+    }
+}
@@ -0,0 +1,32 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.Console;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет разбор строки команды {@link Console#parseCommand(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseCommandBenchmark {
+    /**
+     * Хранит разбираемую строку.
+     */
+    @Param({"show", "insert 12345", "  filter_starts_with_name   Кино  ", "where genre = JAZZ and numberOfParticipants > 3"})
+    public String line;
+
+    /**
+     * Разбирает строку команды.
+     * @return название команды и аргумент
+     */
+    @Benchmark
+    public Console.CommandInput parseCommand(){
+        return Console.parseCommand(line);
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import engine.Result;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет команды, не изменяющие коллекцию или изменяющие один элемент: filter_starts_with_name, сортировку
+ * print_ascending, replace_if_lower, а также {@link MusicBand#toString()} и {@link MusicBand#compareByDateAndName}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    /**
+     * Хранит количество элементов коллекции.
+     */
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+    /**
+     * Хранит ядро с коллекцией.
+     */
+    private CollectionEngine engine;
+    /**
+     * Хранит элементы коллекции в порядке ключей.
+     */
+    private List<MusicBand> bands;
+    /**
+     * Хранит генератор случайных чисел для выбора элементов.
+     */
+    private Random random;
+    /**
+     * Хранит номер следующего элемента для {@link QueryBenchmark#musicBandToString()}.
+     */
+    private int next;
+    /**
+     * Хранит номер следующей даты создания для {@link QueryBenchmark#replace_if_lower()}: каждая следующая раньше
+     * всех предыдущих, поэтому элемент всегда заменяется.
+     */
+    private long replacement;
+
+    /**
+     * Создает ядро с коллекцией.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        engine = new CollectionEngine(BenchmarkData.bands(size), null);
+        bands = new ArrayList<>(engine.show());
+        random = new Random(BenchmarkData.SEED);
+    }
+
+    /**
+     * Выбирает элементы с названием, начинающимся с "Кино" (около 1/20 коллекции).
+     * @return найденные элементы
+     */
+    @Benchmark
+    public List<MusicBand> filter_starts_with_name(){
+        return engine.filter_starts_with_name("Кино");
+    }
+
+    /**
+     * Упорядочивает коллекцию по названию.
+     * @return упорядоченные элементы
+     */
+    @Benchmark
+    public List<MusicBand> print_ascending(){
+        return engine.print_ascending();
+    }
+
+    /**
+     * Заменяет случайный элемент элементом с более ранней датой создания.
+     * @return результат замены
+     */
+    @Benchmark
+    public Result<MusicBand> replace_if_lower(){
+        long key = 1 + random.nextInt(size);
+        return engine.replace_if_lower(key, BenchmarkData.band(key, random, BenchmarkData.EPOCH.minusSeconds(++replacement)));
+    }
+
+    /**
+     * Возвращает строковое представление элементов по очереди (при коллекции больше кэша представлений
+     * каждое представление вычисляется заново).
+     * @return строковое представление
+     */
+    @Benchmark
+    public String musicBandToString(){
+        MusicBand band = bands.get(next);
+        next = next + 1 == bands.size() ? 0 : next + 1;
+        return band.toString();
+    }
+
+    /**
+     * Сравнивает два случайных элемента по дате создания и названию.
+     * @return результат сравнения
+     */
+    @Benchmark
+    public int compareByDateAndName(){
+        return MusicBand.compareByDateAndName.compare(bands.get(random.nextInt(size)), bands.get(random.nextInt(size)));
+    }
+}
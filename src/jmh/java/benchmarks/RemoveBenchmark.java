@@ -0,0 +1,78 @@
+package benchmarks;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import engine.Result;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет команды, удаляющие часть коллекции: remove_lower и remove_lower_key. Каждое измерение выполняется
+ * над новой копией коллекции (ее создание не входит в измерение) и удаляет около половины элементов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RemoveBenchmark {
+    /**
+     * Хранит количество элементов коллекции.
+     */
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+    /**
+     * Хранит исходную коллекцию.
+     */
+    private TreeMap<Long, MusicBand> bands;
+    /**
+     * Хранит элемент со средней датой создания: remove_lower удаляет элементы, созданные позже него.
+     */
+    private MusicBand median;
+    /**
+     * Хранит ядро с копией коллекции для очередного измерения.
+     */
+    private CollectionEngine engine;
+
+    /**
+     * Создает исходную коллекцию.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        bands = BenchmarkData.bands(size);
+        List<MusicBand> byDate = new ArrayList<>(bands.values());
+        byDate.sort(MusicBand.compareByDateAndName);
+        median = byDate.get(size / 2);
+    }
+
+    /**
+     * Создает ядро с копией исходной коллекции.
+     */
+    @Setup(Level.Invocation)
+    public void copy(){
+        engine = new CollectionEngine(new TreeMap<>(bands), null);
+    }
+
+    /**
+     * Удаляет элементы, созданные позже среднего.
+     * @return количество удаленных элементов
+     */
+    @Benchmark
+    public Result<Integer> remove_lower(){
+        return engine.remove_lower(median);
+    }
+
+    /**
+     * Удаляет элементы с ключами меньше среднего.
+     * @return количество удаленных элементов
+     */
+    @Benchmark
+    public Result<Integer> remove_lower_key(){
+        return engine.remove_lower_key((long) size / 2);
+    }
+}
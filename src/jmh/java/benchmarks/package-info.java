@@ -0,0 +1,15 @@
+/**
+ * Пакет содержит бенчмарки JMH для чтения и записи CSV-файла, команд над коллекцией, строкового представления
+ * и сравнения элементов, а также разбора команд.
+ * <p>
+ * Бенчмарки собираются только в профиле Maven {@code jmh}:
+ * <pre>
+ * mvn -Pjmh package
+ * java -jar target/benchmarks.jar                          # все бенчмарки, все размеры коллекции
+ * java -jar target/benchmarks.jar QueryBenchmark -p size=1000,100000 -rf json -rff after.json
+ * </pre>
+ * Размер коллекции задается параметром {@code size} от 1 000 до 10 000 000 элементов. Для размера 10 000 000
+ * нужна куча около 8 ГБ ({@code -jvmArgs -Xmx8g}). Коллекции создаются {@link benchmarks.BenchmarkData} с фиксированным
+ * начальным значением генератора случайных чисел, поэтому результаты до и после изменения сравнимы.
+ */
+package benchmarks;
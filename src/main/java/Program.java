@@ -1,19 +1,44 @@
-import classes.Coordinates;
-import classes.MusicBand;
-import classes.MusicGenre;
-import classes.Studio;
 import commands.*;
+import engine.CollectionEngine;
+import events.CommandEvent;
+import http.HttpApi;
+import replication.ReplicationFollower;
+import replication.ReplicationPrimary;
+import server.Server;
 import utils.CommandMap;
+import utils.CommandStats;
 import utils.Console;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Главный класс приложения для управления коллекцией музыкальных групп.
  * <p>
- * Содержит точку входа {@link #main(String[])} и запускает интерактивный режим.
+ * Содержит точку входа {@link #main(String[])} и запускает интерактивный или пакетный режим.
+ * <p>
+ * Пакетный режим включается флагом {@code --batch} или автоматически, если стандартный ввод не является терминалом
+ * (флаг {@code --interactive} принудительно включает интерактивный режим). В пакетном режиме приглашения для ввода
+ * не выводятся, элементы читаются в формате скрипта, вывод буферизуется, а в конце в стандартный поток ошибок
+ * выводится количество выполненных команд и скорость выполнения.
+ * <p>
+ * Флаг {@code --server [host:]port} запускает вместо консоли сервер {@link server.Server}, обслуживающий коллекцию по сети
+ * (по умолчанию на адресе localhost; адрес {@code unix:путь} - сокет Unix для клиентов на том же хосте), флаг {@code --binary-server [host:]port} - такой же сервер с двоичным протоколом
+ * {@link server.BinaryProtocol}. Флаг {@code --http [host:]port} запускает HTTP/JSON API {@link http.HttpApi}.
+ * <p>
+ * Флаг {@code --replicate адрес} передает изменения коллекции репликам ({@link replication.ReplicationPrimary}),
+ * флаг {@code --follow адрес} делает процесс репликой основного процесса с этим адресом ({@link replication.ReplicationFollower}):
+ * коллекция реплики доступна только для чтения. Флаги сочетаются с любым режимом работы.
+ * <p>
+ * Флаг {@code --collation язык} (например {@code ru-RU}) включает сортировку названий по правилам языка
+ * в командах print_ascending и print_descending ({@link engine.CollectionEngine#setCollation(Locale)}).
  *
  * @see classes Основная сущность приложения
  * @see commands Исполняемые команды
@@ -21,66 +46,333 @@ import java.util.*;
 public class Program {
     /**
      * Точка входа в программу.
-     * @param args список строк - путей к файлам.
+     * @param args список строк - путей к файлам и флагов {@code --batch}, {@code --interactive}, {@code --server [host:]port},
+     * {@code --binary-server [host:]port}, {@code --http [host:]port}, {@code --replicate адрес}, {@code --follow адрес}, {@code --collation язык}.
      */
     public static void main(String[] args){
-        if (args.length < 1){
+        boolean batchMode = !isStdinTerminal();
+        String serverAddress = null;
+        Server.Protocol serverProtocol = Server.Protocol.TEXT;
+        String httpAddress = null;
+        String replicateAddress = null;
+        String followAddress = null;
+        Locale collation = null;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch")) {
+                batchMode = true;
+            } else if (args[i].equals("--interactive")) {
+                batchMode = false;
+            } else if (args[i].equals("--server") && i + 1 < args.length) {
+                serverAddress = args[++i];
+                serverProtocol = Server.Protocol.TEXT;
+            } else if (args[i].equals("--binary-server") && i + 1 < args.length) {
+                serverAddress = args[++i];
+                serverProtocol = Server.Protocol.BINARY;
+            } else if (args[i].equals("--http") && i + 1 < args.length) {
+                httpAddress = args[++i];
+            } else if (args[i].equals("--replicate") && i + 1 < args.length) {
+                replicateAddress = args[++i];
+            } else if (args[i].equals("--follow") && i + 1 < args.length) {
+                followAddress = args[++i];
+            } else if (args[i].equals("--collation") && i + 1 < args.length) {
+                collation = Locale.forLanguageTag(args[++i]);
+                if (collation.getLanguage().isEmpty()) {
+                    System.err.println("Error: '" + args[i] + "' is not a valid language tag, expected e.g. 'ru-RU'");
+                    System.exit(1);
+                }
+            } else {
+                paths.add(args[i]);
+            }
+        }
+
+        if (paths.size() < 1){
             System.err.println("Error: expected at least 1 argument: 'file_csv' and optional 'file_script1 file_script2 ...'");
             System.exit(1);
         }
 
-        fileIsReadableAndWriteable(args[0]);
-        File file_csv = new File(args[0]);
+        fileIsReadableAndWriteable(paths.get(0));
+        File file_csv = new File(paths.get(0));
 
         List<File> scriptFiles = new ArrayList<>();
-        for (int i = 1; i < args.length; i++) {
-            fileIsReadable(args[i]);
-            scriptFiles.add(new File(args[i]));
+        for (int i = 1; i < paths.size(); i++) {
+            fileIsReadable(paths.get(i));
+            scriptFiles.add(new File(paths.get(i)));
+        }
+
+        if (replicateAddress != null && followAddress != null) {
+            System.err.println("Error: '--replicate' and '--follow' cannot be used together");
+            System.exit(1);
         }
 
-        MusicBand band = new MusicBand("Name", new Coordinates(2.765, 2), 2, "description", MusicGenre.POST_ROCK, new Studio("studio name"));
+        if (serverAddress != null) {
+            CollectionEngine engine = new Executor(file_csv, scriptFiles).getEngine();
+            engine.setCollation(collation);
+            startReplication(engine, replicateAddress, followAddress);
+            runServer(engine, serverAddress, serverProtocol);
+            return;
+        }
+        if (httpAddress != null) {
+            CollectionEngine engine = new Executor(file_csv, scriptFiles).getEngine();
+            engine.setCollation(collation);
+            startReplication(engine, replicateAddress, followAddress);
+            runHttp(engine, httpAddress);
+            return;
+        }
 
-        TreeMap<Long, MusicBand> musicBands = new TreeMap<>();
-        musicBands.put(2L, band);
+        if (batchMode) {
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false, Charset.defaultCharset()));
+        }
+        Console console = new Console(System.in, batchMode);
 
-        Executor executor = new Executor(file_csv, scriptFiles);
+        Executor executor = new Executor(file_csv, scriptFiles, console);
+        executor.getEngine().setCollation(collation);
+        startReplication(executor.getEngine(), replicateAddress, followAddress);
 
         Map<String, Command> commands = CommandMap.createMapWithCommands(executor);
+        Lock lock = executor.getEngine().getLock().writeLock();
 
-        Command command;
-        CommandWithArgument commandWithArgument;
+        if (batchMode) {
+            runBatch(console, commands, lock, executor);
+        } else {
+            runInteractive(console, commands, lock, executor);
+        }
+    }
 
-        Console console = new Console();
+    /**
+     * Запускает основной процесс репликации или реплику, если указан соответствующий адрес.
+     * Завершает программу, если адрес некорректен или недоступен.
+     * @param engine Ядро с коллекцией
+     * @param replicateAddress Адрес для соединений реплик ({@code [host:]port} или {@code unix:путь}) или null
+     * @param followAddress Адрес основного процесса или null
+     */
+    private static void startReplication(CollectionEngine engine, String replicateAddress, String followAddress){
+        String address = replicateAddress != null ? replicateAddress : followAddress;
+        if (address == null) {
+            return;
+        }
+        try {
+            SocketAddress socketAddress = Server.parseAddress(address);
+            if (replicateAddress != null) {
+                ReplicationPrimary primary = new ReplicationPrimary(engine, socketAddress);
+                primary.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(primary::stop));
+                System.err.printf("Replication: accepting replicas on %s\n", primary.getLocalAddress());
+            } else {
+                new ReplicationFollower(engine, socketAddress).start();
+                System.err.printf("Replication: following %s, the collection is read-only\n", socketAddress);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.printf("Invalid address '%s': %s\n", address, e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Replication error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
 
+    /**
+     * Запускает сервер {@link server.Server} над указанным ядром и обслуживает соединения до завершения программы.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес в формате {@code [host:]port} или {@code unix:путь}
+     * @param protocol Протокол сервера
+     */
+    private static void runServer(engine.CollectionEngine engine, String address, Server.Protocol protocol){
+        try {
+            SocketAddress socketAddress = Server.parseAddress(address);
+            Server server = new Server(engine, socketAddress, protocol);
+            server.bind();
+            if (socketAddress instanceof UnixDomainSocketAddress) {
+                // Иначе после завершения по сигналу файл сокета останется и следующий запуск не сможет его занять
+                Path socketPath = ((UnixDomainSocketAddress) socketAddress).getPath();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        Files.deleteIfExists(socketPath);
+                    } catch (IOException ignored) {
+                    }
+                }));
+            }
+            System.out.printf("Server is listening on %s\n", server.getLocalAddress());
+            server.run();
+        } catch (IllegalArgumentException e) {
+            System.err.printf("Invalid address '%s': %s\n", address, e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Запускает HTTP/JSON API {@link http.HttpApi} над указанным ядром. Запросы обслуживаются до завершения программы.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес в формате {@code [host:]port}
+     */
+    private static void runHttp(engine.CollectionEngine engine, String address){
+        try {
+            HttpApi api = new HttpApi(engine, parseAddress(address));
+            api.start();
+            System.out.printf("HTTP API is listening on http://%s:%d\n", api.getAddress().getHostString(), api.getAddress().getPort());
+        } catch (IOException e) {
+            System.err.println("HTTP server error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Разбирает адрес в формате {@code [host:]port}. Если host не указан, используется localhost.
+     * Завершает программу, если порт не является числом.
+     * @param address Адрес
+     * @return адрес сокета
+     */
+    private static InetSocketAddress parseAddress(String address){
+        int colon = address.lastIndexOf(':');
+        String host = colon < 0 ? "localhost" : address.substring(0, colon);
+        try {
+            return new InetSocketAddress(host, Integer.parseInt(address.substring(colon + 1)));
+        } catch (IllegalArgumentException e) {
+            System.err.printf("Invalid address '%s'\n", address);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Проверяет, является ли стандартный ввод терминалом. В Linux проверяется файл, на который указывает
+     * {@code /proc/self/fd/0}, поэтому перенаправление только стандартного вывода не включает пакетный режим.
+     * В других системах используется {@link System#console()}, который равен {@code null}, если перенаправлен
+     * ввод или вывод; в этом случае интерактивный режим включается флагом {@code --interactive}.
+     * @return true, если стандартный ввод - терминал
+     */
+    private static boolean isStdinTerminal(){
+        try{
+            String target = Files.readSymbolicLink(Path.of("/proc/self/fd/0")).toString();
+            return target.startsWith("/dev/pts/") || target.startsWith("/dev/tty") || target.equals("/dev/console");
+        }catch(IOException | UnsupportedOperationException | SecurityException e){
+            return System.console() != null;
+        }
+    }
+
+    /**
+     * Читает и выполняет команды в интерактивном режиме до конца ввода.
+     * @param console Объект для чтения команд
+     * @param commands Коллекция доступных команд
+     * @param lock Блокировка записи ядра, под которой выполняется каждая команда
+     * @param executor Приемник команд (ядро и статистика задержек команд)
+     */
+    private static void runInteractive(Console console, Map<String, Command> commands, Lock lock, Executor executor){
         System.out.println("To see a list of possible commands, enter \"help\"");
         while(true){
-            Console.CommandInput input;
-
-            input = console.readCommand();
+            Console.CommandInput input = console.readCommand();
 
             if(input == null){
                 System.out.println("Input is complete");
                 commands.get("exit").execute();
             }
 
-            if(!Console.isValidCommand(input.command)){
-                System.out.printf("There is no command '%s'\n", input.command);
+            executeCommand(input, commands, lock, executor, console);
+        }
+    }
+
+    /**
+     * Читает и выполняет команды в пакетном режиме до конца ввода, после чего выводит итоговую статистику
+     * в стандартный поток ошибок и завершает программу.
+     * @param console Объект для чтения команд
+     * @param commands Коллекция доступных команд
+     * @param lock Блокировка записи ядра, под которой выполняется каждая команда
+     * @param executor Приемник команд (ядро и статистика задержек команд)
+     */
+    private static void runBatch(Console console, Map<String, Command> commands, Lock lock, Executor executor){
+        long executed = 0;
+        long failed = 0;
+        long start = System.nanoTime();
+        Console.CommandInput input;
+        while((input = console.readCommand()) != null){
+            if(input.command.isEmpty()){
                 continue;
             }
+            if(input.command.equals("exit")){
+                break;
+            }
+            executed++;
+            int errorsBefore = executor.getErrors();
+            if(!executeCommand(input, commands, lock, executor, console) || executor.getErrors() > errorsBefore){
+                failed++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Input is complete");
+        System.out.flush();
+        System.err.printf("Batch mode: %d commands (%d failed) in %.3f s, %.0f commands/s\n",
+                executed, failed, seconds, seconds > 0 ? executed / seconds : 0.0);
+        commands.get("exit").execute();
+    }
+
+    /**
+     * Выполняет одну команду, учитывает время ее выполнения (вместе с ожиданием блокировки) в статистике
+     * и записывает событие JFR {@link events.CommandEvent}.
+     * @param input Название команды и ее аргумент
+     * @param commands Коллекция доступных команд
+     * @param lock Блокировка записи ядра: реплика применяет изменения в другом потоке
+     * @param executor Приемник команд (ядро и статистика задержек команд)
+     * @param console Объект для чтения команд и элементов
+     * @return false если команда не найдена или аргумент команды не соответствует ограничениям
+     */
+    private static boolean executeCommand(Console.CommandInput input, Map<String, Command> commands, Lock lock, Executor executor, Console console){
+        if(!Console.isValidCommand(input.command)){
+            System.out.printf("There is no command '%s'\n", input.command);
+            return false;
+        }
+        CollectionEngine engine = executor.getEngine();
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        lock.lock();
+        long changedBefore = engine.changedRows();
+        try {
+            return executeLocked(input, commands, console);
+        } finally {
+            long changed = engine.changedRows() - changedBefore;
+            lock.unlock();
+            executor.getStats().record(CommandStats.Source.INTERACTIVE, input.command, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.name = input.command;
+                event.argument = input.argument;
+                event.source = CommandStats.Source.INTERACTIVE.toString();
+                event.rowsAffected = changed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Выполняет существующую команду под блокировкой ядра. Если в пакетном режиме аргумент команды с элементом
+     * неверен, элемент все равно считывается, чтобы его строки не выполнялись как команды.
+     * @param input Название команды и ее аргумент
+     * @param commands Коллекция доступных команд
+     * @param console Объект для чтения команд и элементов
+     * @return false если аргумент команды не соответствует ограничениям
+     */
+    private static boolean executeLocked(Console.CommandInput input, Map<String, Command> commands, Console console){
 
-            command = commands.get(input.command);
-            if(!Console.isCommandWithArgument(command)){
-                command.execute();
-            }else{
-                try {
-                    commandWithArgument = (CommandWithArgument) command;
-                    commandWithArgument.setArgument(input.argument);
-                    commandWithArgument.execute();
-                }catch(IllegalArgumentException e){
-                    System.err.println("Error: " + e.getMessage());
+        Command command = commands.get(input.command);
+        if(!Console.isCommandWithArgument(command)){
+            command.execute();
+        }else{
+            CommandWithArgument commandWithArgument = (CommandWithArgument) command;
+            try {
+                commandWithArgument.setArgument(input.argument);
+            }catch(IllegalArgumentException e){
+                System.err.println("Error: " + e.getMessage());
+                if(console.isBatchMode() && Console.isElementCommand(input.command)){
+                    console.readMusicBand();
                 }
+                return false;
             }
+            commandWithArgument.execute();
         }
+        return true;
     }
 
     public static boolean isValidFilename(String path) {
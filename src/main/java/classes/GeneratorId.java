@@ -1,15 +1,18 @@
 package classes;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Класс, представляющий генератор уникальных id типа {@code Long}.
  * <p>
- * Значения начинаются с 1 и увеличиваются на 1 при каждом вызове {@ling #generatId()}
+ * Значения начинаются с 1 и увеличиваются на 1 при каждом вызове {@ling #generatId()}.
+ * Счетчик можно использовать из нескольких потоков (элементы создаются параллельно при чтении CSV-файла).
  */
 class GeneratorId{
     /**
      * Счётчик id.
      */
-    private static Long id = 1L;
+    private static final AtomicLong id = new AtomicLong(1);
 
     /**
      * Возвращает текущее значение счетчика и увеличивает его на 1.
@@ -17,7 +20,7 @@ class GeneratorId{
      * @return id положительное целое значение
      */
     public static Long generateId(){
-        return id++;
+        return id.getAndIncrement();
     }
 
     /**
@@ -26,9 +29,7 @@ class GeneratorId{
      * @param newId целое число
      */
     public static void setId(Long newId){
-        if (id < newId){
-            id = newId;
-        }
+        id.accumulateAndGet(newId, Math::max);
     }
 
 }
\ No newline at end of file
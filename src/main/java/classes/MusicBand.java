@@ -1,5 +1,7 @@
 package classes;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
@@ -101,6 +103,31 @@ public final class MusicBand implements Comparable<MusicBand>{
      * </ul>
      */
     private Studio studio;
+    /**
+     * Ключ сравнения названия, вычисленный объектом {@link MusicBand#collationKeyCollator} (кэш, сбрасывается при изменении названия).
+     */
+    private transient volatile CollationKey collationKey;
+    /**
+     * Объект {@link Collator}, которым вычислен {@link MusicBand#collationKey}.
+     */
+    private transient volatile Collator collationKeyCollator;
+    /**
+     * Строковое представление группы ({@link MusicBand#toString()}), сохраненное в кэше {@link RenderCache}
+     * ({@code null}, если его нет в кэше). Сбрасывается при изменении любого поля.
+     */
+    private transient volatile String rendered;
+    /**
+     * Признак обращения к сохраненному строковому представлению после последнего прохода вытеснения {@link RenderCache}.
+     */
+    private transient volatile boolean renderReferenced;
+    /**
+     * Номер ячейки кэша {@link RenderCache}, которую занимает группа (-1, если не занимает).
+     */
+    private transient int renderSlot = -1;
+    /**
+     * Хранит формат даты создания в строковом представлении.
+     */
+    private static final DateTimeFormatter CREATION_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z");
 
     /**
      * Создает новую музыкальную группу по указанным параметрам. Значение id и дата создания генерируется автоматически.
@@ -167,6 +194,7 @@ public final class MusicBand implements Comparable<MusicBand>{
      */
     public void setId(Long id){
         this.id = id;
+        this.rendered = null;
     }
 
     /**
@@ -192,6 +220,8 @@ public final class MusicBand implements Comparable<MusicBand>{
             throw new IllegalArgumentException("Name value cannot be empty or null");
         }else{
             this.name = name;
+            this.collationKey = null;
+            this.rendered = null;
         }
     }
 
@@ -201,6 +231,22 @@ public final class MusicBand implements Comparable<MusicBand>{
      */
     public String getName(){return name;}
 
+    /**
+     * Возвращает ключ сравнения названия с учетом правил языка. Ключ вычисляется один раз и хранится до изменения
+     * названия, поэтому сортировка по ключам не разбирает строки при каждом сравнении.
+     * @param collator Объект, задающий правила сравнения
+     * @return ключ сравнения названия
+     */
+    public CollationKey getCollationKey(Collator collator){
+        CollationKey key = collationKey;
+        if(key == null || collationKeyCollator != collator){
+            key = collator.getCollationKey(name);
+            collationKeyCollator = collator;
+            collationKey = key;
+        }
+        return key;
+    }
+
     /**
      * Устанавливает переданное значение в качестве координат группы.
      * <p>
@@ -216,6 +262,7 @@ public final class MusicBand implements Comparable<MusicBand>{
             throw new IllegalArgumentException("Coordinates value cannot be null");
         }else{
             this.coordinates = coordinates;
+            this.rendered = null;
         }
     }
 
@@ -248,6 +295,7 @@ public final class MusicBand implements Comparable<MusicBand>{
             throw new IllegalArgumentException("Number of participants should be a positive number");
         }else{
             this.numberOfParticipants = numberOfParticipants;
+            this.rendered = null;
         }
     }
 
@@ -274,6 +322,7 @@ public final class MusicBand implements Comparable<MusicBand>{
             throw new IllegalArgumentException("Description cannot be empty or null");
         }else{
             this.description = description;
+            this.rendered = null;
         }
     }
 
@@ -303,6 +352,7 @@ public final class MusicBand implements Comparable<MusicBand>{
             throw new IllegalArgumentException("Music genre cannot be null");
         }else{
             this.genre = genre;
+            this.rendered = null;
         }
     }
 
@@ -328,6 +378,7 @@ public final class MusicBand implements Comparable<MusicBand>{
             throw new IllegalArgumentException("Studio cannot be null");
         }else{
             this.studio = studio;
+            this.rendered = null;
         }
     }
 
@@ -366,6 +417,19 @@ public final class MusicBand implements Comparable<MusicBand>{
         return name.compareTo(other_band.getName());
     }
 
+    /**
+     * Возвращает строковое представление группы, если оно сохранено в кэше {@link RenderCache}, не создавая его
+     * и не отмечая обращение к кэшу.
+     * @return строковое представление или {@code null}, если его нет в кэше
+     */
+    public String getCachedString(){return rendered;}
+
+    /**
+     * Возвращает наибольшее количество строковых представлений, сохраняемых в кэше {@link RenderCache}.
+     * @return емкость кэша
+     */
+    static int getRenderCacheCapacity(){return RenderCache.CAPACITY;}
+
     /**
      * Возвращает строковое представление музыкальной группы в многострочном формате.
      * <p>
@@ -388,21 +452,85 @@ public final class MusicBand implements Comparable<MusicBand>{
      * <ul>
      *   <li>Дата форматируется по шаблону "dd-MM-yyyy HH-mm-ss z"</li>
      *   <li>Поля-объекты выводятся через их собственные {@code toString()}</li>
+     *   <li>Строка сохраняется в кэше {@link RenderCache} до изменения любого поля или вытеснения из кэша,
+     *   поэтому повторный вывод неизменной группы не форматирует ее заново</li>
      * </ul>
      */
     @Override
     public String toString(){
-        return String.format("MusicBand[\n" +
-                "id=%d\n" +
-                "name=%s\n" +
-                "coordinates=%s\n" +
-                "creationDate=%s\n" +
-                "numberOfParticipants=%d\n" +
-                "description=%s\n" +
-                "genre=%s\n" +
-                "studio=%s\n" +
-                "]",
-                id, name, coordinates, creationDate.format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z")), numberOfParticipants, description, genre, studio);
+        String text = rendered;
+        if(text != null){
+            if(!renderReferenced){
+                renderReferenced = true;
+            }
+            return text;
+        }
+        text = new StringBuilder(160 + name.length() + description.length())
+                .append("MusicBand[\n")
+                .append("id=").append(id).append('\n')
+                .append("name=").append(name).append('\n')
+                .append("coordinates=").append(coordinates).append('\n')
+                .append("creationDate=").append(creationDate.format(CREATION_DATE_FORMATTER)).append('\n')
+                .append("numberOfParticipants=").append(numberOfParticipants).append('\n')
+                .append("description=").append(description).append('\n')
+                .append("genre=").append(genre).append('\n')
+                .append("studio=").append(studio).append('\n')
+                .append(']')
+                .toString();
+        rendered = text;
+        RenderCache.admit(this);
+        return text;
+    }
+
+    /**
+     * Кэш строковых представлений групп ограниченного размера: хранит не больше {@link RenderCache#CAPACITY}
+     * представлений и вытесняет их по алгоритму CLOCK. Группы, к представлениям которых обращались после
+     * последнего прохода стрелки, получают второй шанс; остальные теряют сохраненное представление.
+     * <p>
+     * Чтение сохраненного представления не использует блокировок; блокировка нужна только при добавлении в кэш.
+     * Кэш хранит ссылки на группы в занятых ячейках, поэтому удаленная из коллекции группа освобождается после
+     * вытеснения (память ограничена размером кэша).
+     */
+    private static final class RenderCache {
+        /**
+         * Хранит наибольшее количество сохраненных представлений (степень двойки).
+         */
+        private static final int CAPACITY = 1 << 16;
+        /**
+         * Хранит группы, представления которых сохранены, по ячейкам.
+         */
+        private static final MusicBand[] slots = new MusicBand[CAPACITY];
+        /**
+         * Хранит позицию стрелки - следующую ячейку-кандидат на вытеснение.
+         */
+        private static int hand;
+
+        /**
+         * Добавляет в кэш группу с только что сохраненным представлением, при необходимости вытесняя другую.
+         * @param band Группа
+         */
+        private static synchronized void admit(MusicBand band){
+            if(band.renderSlot >= 0 && slots[band.renderSlot] == band){
+                return;
+            }
+            while(true){
+                MusicBand occupant = slots[hand];
+                if(occupant == null){
+                    break;
+                }
+                if(!occupant.renderReferenced){
+                    occupant.rendered = null;
+                    occupant.renderSlot = -1;
+                    break;
+                }
+                occupant.renderReferenced = false;
+                hand = (hand + 1) & (CAPACITY - 1);
+            }
+            slots[hand] = band;
+            band.renderSlot = hand;
+            band.renderReferenced = false;
+            hand = (hand + 1) & (CAPACITY - 1);
+        }
     }
 
     /**
@@ -0,0 +1,46 @@
+package commands;
+
+/**
+ * Команда начинает транзакцию.
+ * <p>
+ * Реализует интерфейс {@link Command}
+ * @see Command
+ * @see Executor
+ */
+public class Begin implements Command{
+    /**
+     * Хранит имя команды (в данном случае "begin").
+     */
+    private final String commandName = "begin";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Создает объект {@link Begin} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Begin(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#begin()} у объекта executor.
+     */
+    @Override
+    public void execute() {
+        executor.begin();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "begin")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+}
@@ -0,0 +1,46 @@
+package commands;
+
+/**
+ * Команда фиксирует транзакцию.
+ * <p>
+ * Реализует интерфейс {@link Command}
+ * @see Command
+ * @see Executor
+ */
+public class Commit implements Command{
+    /**
+     * Хранит имя команды (в данном случае "commit").
+     */
+    private final String commandName = "commit";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Создает объект {@link Commit} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Commit(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#commit()} у объекта executor.
+     */
+    @Override
+    public void execute() {
+        executor.commit();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "commit")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+}
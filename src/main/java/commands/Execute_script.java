@@ -23,6 +23,10 @@ public class Execute_script implements CommandWithArgument<File> {
      * Хранит аргумент команды - файл скрипта.
      */
     private File scriptFile;
+    /**
+     * Хранит признак атомарного выполнения скрипта (флаг {@code --atomic}).
+     */
+    private boolean atomic;
 
     /**
      * Создает объект {@link Execute_script} по указанному аргументу типа {@link Executor}.
@@ -35,7 +39,7 @@ public class Execute_script implements CommandWithArgument<File> {
     /**
      * {@inheritDoc}
      * Реализация метода {@link Command#execute()}.
-     * Проверяет рекурсию и вызывает метод {@link Executor#execute_script(File)} у объекта executor.
+     * Проверяет рекурсию и вызывает метод {@link Executor#execute_script(File, boolean)} у объекта executor.
      */
     @Override
     public void execute(){
@@ -56,13 +60,13 @@ public class Execute_script implements CommandWithArgument<File> {
             return;
         }
 
-        executor.execute_script(scriptFile);
+        executor.execute_script(scriptFile, atomic);
     }
 
     /**
      * {@inheritDoc}
      * Реализация метода {@link CommandWithArgument#setArgument(String)}.
-     * Устанавливает аргумент команды - файл скрипта.
+     * Устанавливает аргумент команды - файл скрипта и необязательный флаг {@code --atomic} после имени файла.
      * @param argument имя файла скрипта в виде строки
      * @throws IllegalArgumentException если файл не существует или недоступен для чтения
      */
@@ -72,7 +76,12 @@ public class Execute_script implements CommandWithArgument<File> {
             throw new IllegalArgumentException("Script file name cannot be null or empty");
         }
 
-        scriptFile = new File(argument.trim());
+        String fileName = argument.trim();
+        atomic = fileName.endsWith(" --atomic");
+        if (atomic) {
+            fileName = fileName.substring(0, fileName.length() - " --atomic".length()).trim();
+        }
+        scriptFile = new File(fileName);
 
         if (!scriptFile.exists()) {
             throw new IllegalArgumentException("Script file '" + argument + "' does not exist");
@@ -1,37 +1,47 @@
 package commands;
 
 import classes.MusicBand;
+import engine.CollectionEngine;
+import engine.CollectionInfo;
+import engine.ChangeEvent;
+import engine.CsvImport;
+import engine.JsonExport;
+import engine.NameMatch;
+import engine.Result;
+import engine.ResultCode;
+import events.CommandEvent;
+import events.ScriptEvent;
+import query.Expression;
+import query.GroupBy;
+import query.Ranking;
 import utils.*;
 import utils.Console;
 
 import java.io.*;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-
-import static classes.MusicBand.compareByDateAndName;
+import java.util.concurrent.Flow;
 
 
 /**
- * Класс для работы с коллекцией объектов типа {@link classes.MusicBand}.
+ * Класс для работы с коллекцией объектов типа {@link classes.MusicBand} из консоли.
  * <p>
+ * Операции над коллекцией выполняет {@link engine.CollectionEngine}, а этот класс считывает элементы из консоли
+ * или скрипта и выводит результаты операций на консоль.
+ * @see engine.CollectionEngine
  * @see classes.MusicBand
  * @see utils.CommandMap
  * @see utils.Console
  */
 public class Executor {
     /**
-     * Хранит коллекцию типа {@link java.util.TreeMap} значений типа {@link classes.MusicBand}.
+     * Хранит ядро {@link engine.CollectionEngine}, владеющее коллекцией значений типа {@link classes.MusicBand}.
      */
-    private TreeMap<Long, MusicBand> musicBands;
+    private final CollectionEngine engine;
     /**
      * Хранит коллекцию типа {@link java.util.TreeMap}. Ключ - имя команды, значение - команда.
      */
     private final Map<String, Command> commands = CommandMap.createMapWithCommands(this);
-    /**
-     * Хранит дату создания коллекции.
-     */
-    private final ZonedDateTime initializationDate;
     /**
      * Хранит ссылку на CSV-файл с коллекцией.
      */
@@ -43,7 +53,7 @@ public class Executor {
     /**
      * Хранит объект типа {@link utils.Console} для чтения команд из консоли.
      */
-    private final Console console = new Console();
+    private final Console console;
     /**
      * Хранит объект типа {@link utils.Console} для чтения команд из скрипта.
      */
@@ -52,24 +62,79 @@ public class Executor {
     private final List<File> scriptFiles;
 
     private final Set<File> executingScripts = new HashSet<>();
+    /**
+     * Хранит количество ошибок (неизвестная команда, неверный аргумент, неверный элемент, недоступный скрипт),
+     * возникших при выполнении команд. Используется для отката атомарно выполняемых скриптов и подсчета неудачных команд
+     * в пакетном режиме.
+     */
+    private int errors;
+    /**
+     * Хранит признак выполнения атомарного скрипта: команды begin, commit и rollback в нем и во вложенных скриптах
+     * не выполняются, чтобы не завершить транзакцию скрипта раньше его конца.
+     */
+    private boolean inAtomicScript;
+    /**
+     * Хранит подписчика, выводящего события изменения коллекции на консоль ({@code null}, если команда watch не активна).
+     */
+    private Watcher watcher;
+    /**
+     * Хранит наибольшее время ожидания вывода уже опубликованных событий при завершении команды watch (мс).
+     */
+    private static final long WATCH_DRAIN_MILLIS = 1000;
+    /**
+     * Хранит названия команд управления транзакцией, недоступных в атомарном скрипте.
+     */
+    private static final Set<String> TRANSACTION_COMMANDS = Set.of("begin", "commit", "rollback");
+    /**
+     * Хранит статистику задержек команд, выполненных из консоли и из скриптов.
+     */
+    private final CommandStats stats = new CommandStats();
 
 
 
     /**
      * Создает объект типа {@link Executor} по указанным параметрам.
-     * Присваивает значение переменной initializationDate.
-     * Считывает данные из файла file_csv и сохраняет их в переменную musicBands.
+     * Создает ядро {@link engine.CollectionEngine}, которое считывает данные из файла file_csv.
      * <p>
      * @param file_csv Ссылка типа {@link java.io.File} на CSV-файл для хранения коллекции.
 //     * @param file_script Ссылка типа {@link java.io.File} на файл, содержащий скрипт.
      */
     public Executor(File file_csv, List<File> scriptFiles){
+        this(file_csv, scriptFiles, new Console());
+    }
+
+    /**
+     * Создает объект типа {@link Executor}, читающий элементы коллекции с помощью указанного объекта {@link utils.Console}.
+     * <p>
+     * @param file_csv Ссылка типа {@link java.io.File} на CSV-файл для хранения коллекции.
+     * @param scriptFiles Список файлов со скриптами
+     * @param console Объект для чтения элементов коллекции (должен быть тем же, из которого читаются команды)
+     */
+    public Executor(File file_csv, List<File> scriptFiles, Console console){
+        this.console = console;
         this.file_csv = file_csv;
         this.scriptFiles = scriptFiles;
-        initializationDate = ZonedDateTime.now();
-        musicBands = ReaderCSV.loadFromFile(file_csv);
+        engine = new CollectionEngine(file_csv);
     }
 
+    /**
+     * Возвращает ядро, выполняющее операции над коллекцией без вывода на консоль.
+     * @return ядро {@link engine.CollectionEngine}
+     */
+    public CollectionEngine getEngine(){return engine;}
+
+    /**
+     * Возвращает статистику задержек команд, которую выводит команда stats.
+     * @return статистика {@link utils.CommandStats}
+     */
+    public CommandStats getStats(){return stats;}
+
+    /**
+     * Возвращает количество ошибок, возникших при выполнении команд (в том числе пропущенных команд с элементом).
+     * @return количество ошибок
+     */
+    public int getErrors(){return errors;}
+
 
 
     /**
@@ -84,33 +149,51 @@ public class Executor {
                 "-remove_key null : удалить элемент из коллекции по его ключу\n" +
                 "-clear : очистить коллекцию\n" +
                 "-save : сохранить коллекцию в файл\n" +
-                "-execute_script file_name : считать и исполнить скрипт из указанного файла. В скрипте содержатся команды в таком же виде, в котором их вводит пользователь в интерактивном режиме.\n" +
+                "-import_csv file_name [--on-conflict skip|overwrite|newer] : добавить элементы из CSV-файла (строки с имеющимися id по умолчанию пропускаются, overwrite - заменяют элемент, newer - заменяют, если дата создания позже)\n" +
+                "-export file_name [json|ndjson] [--gzip] : записать коллекцию в файл массивом JSON или в формате NDJSON (по объекту на строке), с флагом --gzip - со сжатием\n" +
+                "-execute_script file_name [--atomic] : считать и исполнить скрипт из указанного файла. В скрипте содержатся команды в таком же виде, в котором их вводит пользователь в интерактивном режиме. С флагом --atomic скрипт выполняется в транзакции и при ошибке не изменяет коллекцию\n" +
                 "-exit : завершить программу (без сохранения в файл)\n" +
                 "-remove_lower {element} : удалить из коллекции все элементы, меньшие, чем заданный (по дате создания и имени)\n" +
                 "-replace_if_lower null {element} : заменить значение по ключу, если новое значение меньше старого (по дате создания и имени)\n" +
                 "-remove_lower_key null : удалить из коллекции все элементы, ключ которых меньше, чем заданный\n" +
                 "-filter_starts_with_name name : вывести элементы, значение поля name которых начинается с заданной подстроки\n" +
+                "-search_name name : вывести до 10 элементов с названиями, наиболее похожими на заданное (допускаются опечатки)\n" +
+                "-search_description words : вывести элементы, в описании которых встречаются все слова (без учета регистра)\n" +
+                "-where condition : вывести элементы, удовлетворяющие условию, например genre = JAZZ and numberOfParticipants > 3 and name ^= \"M\" " +
+                "(поля id, name, x, y, numberOfParticipants, description, genre, studio; операции = != < <= > >= ^= *=; and, or, not, скобки)\n" +
+                "-explain where condition : вывести план выполнения команды where (индекс или полный просмотр)\n" +
+                "-group_by field [function ...] : сгруппировать элементы по значению поля и вывести для каждой группы функции count, sum(field), avg(field), min(field), max(field), например group_by genre count avg(numberOfParticipants)\n" +
+                "-top N by field : вывести N элементов с наибольшими значениями поля (при равенстве - по возрастанию ключа)\n" +
+                "-oldest N : вывести N элементов с самыми ранними датами создания\n" +
+                "-newest N : вывести N элементов с самыми поздними датами создания\n" +
                 "-print_ascending : вывести элементы коллекции в порядке возрастания\n" +
-                "-print_descending : вывести элементы коллекции в порядке убывания");
+                "-print_descending : вывести элементы коллекции в порядке убывания\n" +
+                "-watch : начать или прекратить вывод изменений коллекции (добавление, замена, удаление элементов) по мере их применения\n" +
+                "-stats [reset] : вывести количество выполнений, скорость и задержки p50, p90, p99, max каждой команды отдельно для консоли и скриптов; с аргументом reset - сбросить статистику\n" +
+                "-memory [N] : вывести оценку памяти, занятой коллекцией и индексами (по частям и по кодировкам строк); с аргументом N - прогноз памяти после добавления N элементов\n" +
+                "-begin : начать транзакцию (изменения не попадают в коллекцию до commit)\n" +
+                "-commit : зафиксировать транзакцию\n" +
+                "-rollback : отменить все изменения транзакции");
     }
 
     /**
      * Выводит на консоль информацию о коллекции musicBands.
      */
     public void info() {
-        if(musicBands == null){
-            System.out.println("The collection is 'null'");
-        }
-        else if(!musicBands.isEmpty()) {
-            System.out.printf("Type: TreeMap<Long, MusicBand>\n" +
+        CollectionInfo info = engine.info();
+        if(info.getSize() != 0) {
+            System.out.printf("Type: %s\n" +
                     "Initialization date: %s\n" +
                     "Size of collection: %d\n" +
                     "First key: %d\n" +
-                    "Last key: %d\n", initializationDate.format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z")), musicBands.size(), musicBands.firstKey(), musicBands.lastKey());
+                    "Last key: %d\n", info.getType(), info.getInitializationDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z")), info.getSize(), info.getFirstKey(), info.getLastKey());
         }else{
-            System.out.printf("Type: TreeMap<Long, MusicBand>\n" +
+            System.out.printf("Type: %s\n" +
                     "Initialization date: %s\n" +
-                    "Size of collection: 0\n", initializationDate.format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z")));
+                    "Size of collection: 0\n", info.getType(), info.getInitializationDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z")));
+        }
+        if(info.getReplication() != null){
+            System.out.printf("Replication: %s\n", info.getReplication());
         }
     }
 
@@ -118,12 +201,10 @@ public class Executor {
      * Выводит на консоль все элементы коллекции musicBands в строковом представлении.
      */
     public void show(){
-        if(musicBands == null){
-            System.out.println("The collection is 'null'");
-        }
-        else if(!musicBands.isEmpty()) {
-            System.out.printf("The collection contains %d items:\n", musicBands.size());
-            for (MusicBand band : musicBands.values()) {
+        Collection<MusicBand> bands = engine.show();
+        if(!bands.isEmpty()) {
+            System.out.printf("The collection contains %d items:\n", bands.size());
+            for (MusicBand band : bands) {
                 System.out.println(band);
             }
         }else{
@@ -135,13 +216,12 @@ public class Executor {
      * Удаляет все элементы коллекции musicBands.
      */
     public void clear(){
-        if(musicBands == null){
-            System.out.println("The collection is 'null'");
+        if(rejectIfReadOnly()){
+            return;
         }
-        else if(!musicBands.isEmpty()){
-            int sizeBefore = musicBands.size();
-            musicBands.clear();
-            System.out.printf("The collection was successfully cleared. %d elements removed\n", sizeBefore);
+        Result<Integer> result = engine.clear();
+        if(result.isOk()){
+            System.out.printf("The collection was successfully cleared. %d elements removed\n", result.getValue());
         }else{
             System.out.println("The collection is empty");
         }
@@ -152,164 +232,405 @@ public class Executor {
      */
     public void save(){
         try {
-            WriterCSV.loadToFile(file_csv, musicBands);
+            engine.save();
             System.out.printf("The collection was successfully saved to the file '%s'\n", file_csv);
         }catch (IOException e){
             System.err.printf("Saving to a file failed: %s", e.getMessage());
         }
     }
 
+    /**
+     * Подписывает получателя на события изменения коллекции (см. {@link CollectionEngine#changes()}).
+     * События доставляются в отдельном потоке; получатель запрашивает их через {@link Flow.Subscription#request(long)}
+     * и не задерживает выполнение команд.
+     * @param subscriber Получатель событий
+     */
+    public void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber){
+        engine.changes().subscribe(subscriber);
+    }
+
+    /**
+     * Начинает или прекращает вывод событий изменения коллекции на консоль.
+     */
+    public void watch(){
+        if(watcher == null){
+            watcher = new Watcher(engine.lastChangeSequence());
+            subscribe(watcher);
+            System.out.println("Watching collection changes. Enter 'watch' again to stop");
+        }else{
+            watcher.awaitSequence(engine.lastChangeSequence(), WATCH_DRAIN_MILLIS);
+            watcher.cancel();
+            System.out.printf("Stopped watching collection changes: %d shown, %d missed\n", watcher.shown, watcher.missed);
+            watcher = null;
+        }
+    }
+
+    /**
+     * Выводит статистику задержек выполненных команд или сбрасывает ее.
+     * @param reset true - сбросить статистику
+     */
+    public void stats(boolean reset){
+        if(reset){
+            stats.reset();
+            System.out.println("Command statistics reset");
+        }else{
+            System.out.print(stats.describe());
+        }
+    }
+
+    /**
+     * Выводит оценку памяти, удерживаемой коллекцией, и прогноз памяти после добавления элементов.
+     * @param more Количество добавляемых элементов (0 - без прогноза)
+     */
+    public void memory(long more){
+        System.out.print(engine.memory().describe(more));
+    }
+
+    /**
+     * Записывает коллекцию в файл в формате JSON или NDJSON и выводит скорость записи и степень сжатия.
+     * @param request Файл, формат и признак сжатия
+     */
+    public void export(JsonExport request){
+        try {
+            System.out.print(engine.export(request).getValue().describe());
+        }catch (IOException e){
+            System.err.println("Export to a file failed: " + e.getMessage());
+            errors++;
+        }
+    }
+
+    /**
+     * Добавляет в коллекцию элементы из CSV-файла и выводит количество добавленных, замененных, пропущенных
+     * и отклоненных строк.
+     * @param request Файл и правило для строк с имеющимися id
+     */
+    public void import_csv(CsvImport request){
+        if(rejectIfReadOnly()){
+            return;
+        }
+        try {
+            System.out.print(engine.import_csv(request).getValue().describe());
+        }catch (IOException e){
+            System.err.println("Import from a file failed: " + e.getMessage());
+            errors++;
+        }
+    }
+
     /**
      * Завершает выполнение программы.
      */
     public void exit(){
         System.out.println("Shutting down...");
+        System.out.flush();
         System.exit(0);
     }
 
     /**
-     * Выводит все элементы коллекции {@link Executor#musicBands} на консоль в порядке возрастания.
+     * Выводит все элементы коллекции {@link Executor#engine} на консоль в порядке возрастания.
      */
     public void print_ascending(){
-        if(musicBands == null){
-            System.out.println("The collection is 'null'");
-        }else if(musicBands.isEmpty()){
+        if(engine.size() == 0){
             System.out.println("The collection is empty");
         }else{
             System.out.println("Collection elements in ascending order (by 'name'):");
-            ArrayList<MusicBand> bands = new ArrayList<>(musicBands.values());
-            Collections.sort(bands);
-            for(MusicBand band : bands){
+            for(MusicBand band : engine.print_ascending()){
                 System.out.println(band);
             }
         }
     }
 
     /**
-     * Выводит все элементы коллекции {@link Executor#musicBands} на консоль в порядке убывания.
+     * Выводит все элементы коллекции {@link Executor#engine} на консоль в порядке убывания.
      */
     public void print_descending(){
-        if(musicBands == null){
-            System.out.println("The collection is 'null'");
-        }else if(musicBands.isEmpty()){
+        if(engine.size() == 0){
             System.out.println("The collection is empty");
         }else{
             System.out.println("Collection elements in descending order (by 'name'):");
-            ArrayList<MusicBand> bands = new ArrayList<>(musicBands.values());
-            Collections.sort(bands, Collections.reverseOrder());
-            for(MusicBand band : bands){
+            for(MusicBand band : engine.print_descending()){
                 System.out.println(band);
             }
         }
     }
 
     /**
-     * Удаляет из коллекции {@link Executor#musicBands} элемент по указанному ключу.
+     * Удаляет из коллекции {@link Executor#engine} элемент по указанному ключу.
      * @param key Ключ удаляемого элемента
      */
     public void remove_key(Long key){
-        MusicBand band = musicBands.remove(key);
-        if(band == null){
-            System.out.printf("The element with the key %d to was not found\n", key);
-        }else{
+        if(rejectIfReadOnly()){
+            return;
+        }
+        if(engine.remove_key(key).isOk()){
             System.out.printf("The item with the key %d to has been successfully deleted\n", key);
+        }else{
+            System.out.printf("The element with the key %d to was not found\n", key);
         }
     }
 
     /**
-     * Удаляет из коллекции {@link Executor#musicBands} все элементы, ключ которых меньше, чем заданный.
+     * Удаляет из коллекции {@link Executor#engine} все элементы, ключ которых меньше, чем заданный.
      * @param key Граничное значение ключа
      */
     public void remove_lower_key(Long key){
-        int sizeBefore = musicBands.size();
-        musicBands.headMap(key, false).clear();
-        int sizeAfter = musicBands.size();
-        System.out.printf("Successfully deleted %d items\n", sizeBefore-sizeAfter);
+        if(rejectIfReadOnly()){
+            return;
+        }
+        System.out.printf("Successfully deleted %d items\n", engine.remove_lower_key(key).getValue());
     }
 
     /**
-     * Выводит на консоль все элементы коллекции {@link Executor#musicBands}, значение поля name которых начинается с заданной подстроки.
-     * @param name Подстрока, с которой начинаются названия искомых групп из коллекции {@link Executor#musicBands}
+     * Выводит на консоль все элементы коллекции {@link Executor#engine}, значение поля name которых начинается с заданной подстроки.
+     * @param name Подстрока, с которой начинаются названия искомых групп из коллекции {@link Executor#engine}
      */
     public void filter_starts_with_name(String name){
-        ArrayList<MusicBand> bands = new ArrayList<>();
-        for(MusicBand band : musicBands.values()){
-            if(band.getName().startsWith(name)){
-                bands.add(band);
-            }
-        }
+        List<MusicBand> bands = engine.filter_starts_with_name(name);
         System.out.printf("Found %d music groups whose names start with \"%s\"\n", bands.size(), name);
         for(MusicBand band : bands){
             System.out.println(band);
         }
     }
 
+    /**
+     * Выводит элементы с названиями, наиболее похожими на заданное.
+     * @param name Название с возможными опечатками
+     */
+    public void search_name(String name){
+        List<NameMatch> matches = engine.search_name(name, NameMatch.LIMIT);
+        System.out.printf("Found %d music groups with names similar to \"%s\"\n", matches.size(), name.trim());
+        for(NameMatch match : matches){
+            System.out.println(match.describe());
+            System.out.println(match.getBand());
+        }
+    }
+
+    /**
+     * Выводит элементы, в описании которых встречаются все слова.
+     * @param words Слова через пробел
+     */
+    public void search_description(String words){
+        List<MusicBand> bands = engine.search_description(words);
+        System.out.printf("Found %d music groups whose description contains \"%s\"\n", bands.size(), words.trim());
+        for(MusicBand band : bands){
+            System.out.println(band);
+        }
+    }
+
+    /**
+     * Выводит элементы, удовлетворяющие условию.
+     * @param expression Условие
+     */
+    public void where(Expression expression){
+        List<MusicBand> bands = engine.where(expression);
+        System.out.printf("Found %d music groups where %s\n", bands.size(), expression);
+        for(MusicBand band : bands){
+            System.out.println(band);
+        }
+    }
+
+    /**
+     * Выводит план выполнения условия команды where.
+     * @param expression Условие
+     */
+    public void explain(Expression expression){
+        System.out.print(engine.plan(expression).describe());
+    }
+
+    /**
+     * Выводит значения агрегатных функций для групп элементов с одинаковым значением поля.
+     * @param groupBy Поле группировки и агрегатные функции
+     */
+    public void group_by(GroupBy groupBy){
+        System.out.print(engine.groupBy(groupBy).describe());
+    }
+
+    /**
+     * Выводит элементы с наибольшими значениями поля.
+     * @param ranking Количество элементов и поле
+     */
+    public void top(Ranking ranking){
+        printBands(String.format("Top %d music groups by %s", ranking.getCount(), ranking.getField()),
+                engine.top(ranking.getField(), ranking.getCount()));
+    }
+
+    /**
+     * Выводит элементы с самыми ранними датами создания.
+     * @param count Количество элементов
+     */
+    public void oldest(int count){
+        printBands(String.format("%d oldest music groups", count), engine.oldest(count));
+    }
+
+    /**
+     * Выводит элементы с самыми поздними датами создания.
+     * @param count Количество элементов
+     */
+    public void newest(int count){
+        printBands(String.format("%d newest music groups", count), engine.newest(count));
+    }
+
+    /**
+     * Выводит заголовок и элементы.
+     * @param title Заголовок
+     * @param bands Элементы
+     */
+    private void printBands(String title, List<MusicBand> bands){
+        System.out.println(title);
+        for(MusicBand band : bands){
+            System.out.println(band);
+        }
+    }
+
     /**
      * Вставляет элемент по указанному ключу.
+     * В пакетном режиме элемент считывается до проверки ключа, чтобы его строки не выполнялись как команды.
      * @param key Ключ для нового элемента
      */
     public void insert(Long key){
-        if(musicBands.containsKey(key)){
+        if(console.isBatchMode()){
+            printInsertResult(engine.insert(key, console.readMusicBand()), key);
+            return;
+        }
+        if(rejectIfReadOnly()){
+            return;
+        }
+        if(engine.containsKey(key)){
             System.out.println("The collection already contain the key: " + key);
         }else{
-            MusicBand band = console.readMusicBand();
-            band.setId(key);
-            musicBands.put(key, band);
-            System.out.println("The music band was successfully inserted to the collection");
+            printInsertResult(engine.insert(key, console.readMusicBand()), key);
         }
     }
 
     /**
-     * Заменяет в коллекции {@link Executor#musicBands} старый элемент по указанному ключу на новый.
+     * Заменяет в коллекции {@link Executor#engine} старый элемент по указанному ключу на новый.
+     * В пакетном режиме элемент считывается до проверки ключа.
      * @param id Идентификатор элемента, который нужно заменить
      */
     public void update(Long id){
-        if(!musicBands.containsKey(id)){
+        if(console.isBatchMode()){
+            printUpdateResult(engine.update(id, console.readMusicBand()), id);
+            return;
+        }
+        if(rejectIfReadOnly()){
+            return;
+        }
+        if(!engine.containsKey(id)){
             System.out.println("The collection doesn't contain the key " + id);
         }else{
-            MusicBand band = console.readMusicBand();
-            band.setId(id);
-            musicBands.put(id, band);
-            System.out.printf("The band with ID %d was successfully updated\n", id);
+            printUpdateResult(engine.update(id, console.readMusicBand()), id);
         }
     }
 
     /**
-     * Удаляет из коллекции {@link Executor#musicBands} все элементы меньшие, чем заданный.
+     * Удаляет из коллекции {@link Executor#engine} все элементы меньшие, чем заданный.
+     * В пакетном режиме элемент считывается и при пустой коллекции.
      */
     public void remove_lower(){
-        if(musicBands.isEmpty()){
+        if(console.isBatchMode()){
+            printRemoveLowerResult(engine.remove_lower(console.readMusicBand()));
+            return;
+        }
+        if(rejectIfReadOnly()){
+            return;
+        }
+        if(engine.size() == 0){
             System.out.println("The collection is empty");
             return;
         }
-        MusicBand band = console.readMusicBand();
-        Long sizeBefore = Long.valueOf(musicBands.size());
-        musicBands.headMap(Long.MAX_VALUE).values().removeIf(musicBand -> compareByDateAndName.compare(musicBand, band) > 0);
-        Long sizeAfter = Long.valueOf(musicBands.size());
-        System.out.printf("%d bands were successfully removed\n", sizeBefore-sizeAfter);
+        printRemoveLowerResult(engine.remove_lower(console.readMusicBand()));
     }
 
     /**
-     * Заменяет элемент коллекции {@link Executor#musicBands} по ключу, если новое значение меньше старого.
+     * Заменяет элемент коллекции {@link Executor#engine} по ключу, если новое значение меньше старого.
+     * В пакетном режиме элемент считывается до проверки ключа.
      * @param key Ключ элемента, который нужно перезаписать
      */
     public void replace_if_lower(Long key){
-        if(musicBands.isEmpty()){
+        if(console.isBatchMode()){
+            printReplaceIfLowerResult(engine.replace_if_lower(key, console.readMusicBand()), key);
+            return;
+        }
+        if(rejectIfReadOnly()){
+            return;
+        }
+        if(engine.size() == 0){
             System.out.println("The collection is empty");
             return;
         }
-        if(!musicBands.containsKey(key)){
+        if(!engine.containsKey(key)){
             System.out.println("The collection doesn't contain the key " + key);
             return;
         }
-        MusicBand oldBand = musicBands.get(key);
-        MusicBand newBand = console.readMusicBand();
-        newBand.setId(key);
-        if(compareByDateAndName.compare(oldBand, newBand) > 0){
-            musicBands.put(key, newBand);
-            System.out.printf("The band that key is %d was successfully replaced\n", key);
+        printReplaceIfLowerResult(engine.replace_if_lower(key, console.readMusicBand()), key);
+    }
+
+    /**
+     * Начинает транзакцию.
+     */
+    public void begin(){
+        if(rejectIfReadOnly()){
+            return;
+        }
+        if(engine.begin().isOk()){
+            System.out.println("Transaction started. Changes will be applied to the collection on 'commit'");
+        }else{
+            System.out.println("The transaction has already been started");
+        }
+    }
+
+    /**
+     * Фиксирует транзакцию: применяет ее изменения к коллекции.
+     */
+    public void commit(){
+        Result<Integer> result = engine.commit();
+        if(result.isOk()){
+            System.out.printf("Transaction committed. %d changes applied\n", result.getValue());
+        }else{
+            System.out.println("There is no active transaction");
+        }
+    }
+
+    /**
+     * Откатывает транзакцию: отменяет все ее изменения.
+     */
+    public void rollback(){
+        Result<Integer> result = engine.rollback();
+        if(result.isOk()){
+            System.out.printf("Transaction rolled back. %d changes discarded\n", result.getValue());
         }else{
-            System.out.printf("The band that key is %d wasn't replaced\n", key);
+            System.out.println("There is no active transaction");
+        }
+    }
+
+    /**
+     * Выполняет команды из файла со скриптом. Если atomic равно true, скрипт выполняется в транзакции:
+     * при отсутствии ошибок изменения фиксируются, иначе - отменяются. Если транзакция уже начата,
+     * скрипт выполняется внутри нее. Команды begin, commit и rollback в атомарном скрипте считаются ошибками.
+     * @param scriptFile Файл со скриптом
+     * @param atomic true - выполнить скрипт атомарно
+     */
+    public void execute_script(File scriptFile, boolean atomic){
+        if(!atomic){
+            execute_script(scriptFile);
+            return;
+        }
+        boolean outerAtomic = inAtomicScript;
+        inAtomicScript = true;
+        try{
+            if(engine.inTransaction()){
+                execute_script(scriptFile);
+                return;
+            }
+            engine.begin();
+            int errorsBefore = errors;
+            execute_script(scriptFile);
+            if(errors == errorsBefore){
+                System.out.printf("Script '%s' committed. %d changes applied\n", scriptFile.getName(), engine.commit().getValue());
+            }else{
+                System.out.printf("Script '%s' failed with %d errors. %d changes rolled back\n", scriptFile.getName(), errors - errorsBefore, engine.rollback().getValue());
+            }
+        }finally{
+            inAtomicScript = outerAtomic;
         }
     }
 
@@ -319,10 +640,12 @@ public class Executor {
     public void execute_script(File scriptFile){
         if (!scriptFile.exists()) {
             System.err.println("Error: script file '" + scriptFile.getName() + "' does not exist");
+            errors++;
             return;
         }
         if (!scriptFile.canRead()) {
             System.err.println("Error: script file '" + scriptFile.getName() + "' is not readable");
+            errors++;
             return;
         }
 
@@ -330,6 +653,7 @@ public class Executor {
             File canonicalFile = scriptFile.getCanonicalFile();
             if (executingScripts.contains(canonicalFile)) {
                 System.err.println("Error: recursive script execution detected for file: " + scriptFile.getName());
+                errors++;
                 return;
             }
             executingScripts.add(canonicalFile);
@@ -338,6 +662,9 @@ public class Executor {
             return;
         }
 
+        ScriptEvent event = new ScriptEvent();
+        event.begin();
+        int lines = 0;
         try(FileInputStream fileInputStream = new FileInputStream(scriptFile)){
             Console consoleScript = new Console(fileInputStream);
 
@@ -355,99 +682,46 @@ public class Executor {
                 Console.CommandInput input = Console.parseCommand(s);
                 if(!Console.isValidCommand(input.command)){
                     System.out.printf("There is no command '%s'\n", input.command);
+                    errors++;
                     continue;
                 }
-
-                if(input.command.equals("remove_lower")){
-                    if(musicBands.isEmpty()){
-                        System.out.println("The collection is empty");
-                        continue;
-                    }
-                    MusicBand band = consoleScript.readMusicBandFromScript();
-                    Long sizeBefore = Long.valueOf(musicBands.size());
-                    musicBands.headMap(Long.MAX_VALUE).values().removeIf(musicBand -> compareByDateAndName.compare(musicBand, band) > 0);
-                    Long sizeAfter = Long.valueOf(musicBands.size());
-                    System.out.printf("%d bands were successfully removed\n", sizeBefore-sizeAfter);
+                if(inAtomicScript && TRANSACTION_COMMANDS.contains(input.command)){
+                    System.out.printf("Error occurred during script execution: '%s' cannot be used in an atomic script\n", input.command);
+                    errors++;
                     continue;
                 }
 
-                Command command = commands.get(input.command);
-                if(Console.isCommandWithArgument(command)){
-                    CommandWithArgument commandWithArg = (CommandWithArgument) command;
-                    try{
-                        commandWithArg.setArgument(input.argument);
-                    }catch (IllegalArgumentException e){
-                        System.out.println("Error occurred during script execution: " + e.getMessage());
-                        continue;
-                    }
-                    if(input.command.equals("insert")){
-                        Long key = (Long) commandWithArg.getArgument();
-                        if(musicBands.containsKey(key)){
-                            System.out.println("The collection already contain the key: " + key);
-                        }else{
-                            MusicBand band = consoleScript.readMusicBandFromScript();
-                            if(band == null){
-                                System.out.println("The read music band is null. Command \"insert\" failed");
-                                continue;
-                            }
-                            band.setId(key);
-                            musicBands.put(key, band);
-                            System.out.println("The music band was successfully inserted to the collection");
-                        }
-                        continue;
-                    }
-                    if(input.command.equals("update")){
-                        Long id = (Long) commandWithArg.getArgument();
-                        if(!musicBands.containsKey(id)){
-                            System.out.println("The collection doesn't contain the key " + id);
-                        }else{
-                            MusicBand band = consoleScript.readMusicBand();
-                            if(band == null){
-                                System.out.println("The read music band is null. Command \"update\" failed");
-                                continue;
-                            }
-                            band.setId(id);
-                            musicBands.put(id, band);
-                            System.out.printf("The band with ID %d was successfully updated\n", id);
-                        }
-                        continue;
-                    }
-                    if(input.command.equals("replace_if_lower")){
-                        Long key = (Long) commandWithArg.getArgument();
-                        if(musicBands.isEmpty()){
-                            System.out.println("The collection is empty");
-                            continue;
-                        }
-                        if(!musicBands.containsKey(key)){
-                            System.out.println("The collection doesn't contain the key " + key);
-                            continue;
-                        }
-                        MusicBand oldBand = musicBands.get(key);
-                        MusicBand newBand = consoleScript.readMusicBandFromScript();
-                        if(newBand == null){
-                            System.out.println("The read music band is null. Command \"replace_if_lower\" failed");
-                            continue;
-                        }
-                        newBand.setId(key);
-                        if(compareByDateAndName.compare(oldBand, newBand) > 0){
-                            musicBands.put(key, newBand);
-                            System.out.printf("The band that key is %d was successfully replaced\n", key);
-                        }else{
-                            System.out.printf("The band that key is %d wasn't replaced\n", key);
-                        }
-                        continue;
-                    }
-                    commandWithArg.execute();
-                }else{
-                    command.execute();
+                CommandEvent commandEvent = new CommandEvent();
+                commandEvent.begin();
+                long changedBefore = engine.changedRows();
+                long start = System.nanoTime();
+                executeScriptCommand(input, consoleScript);
+                stats.record(CommandStats.Source.SCRIPT, input.command, System.nanoTime() - start);
+                commandEvent.end();
+                if(commandEvent.shouldCommit()){
+                    commandEvent.name = input.command;
+                    commandEvent.argument = input.argument;
+                    commandEvent.source = CommandStats.Source.SCRIPT.toString();
+                    commandEvent.rowsAffected = engine.changedRows() - changedBefore;
+                    commandEvent.commit();
                 }
             }
+            lines = consoleScript.getLineNumber();
             System.out.printf("Execution of the script from the '%s' file is complete\n", scriptFile.getName());
         }catch(FileNotFoundException e){
             System.err.println("File for script was not found: " + scriptFile.getName());
+            errors++;
         }catch(IOException e){
             System.err.println("IO error while reading script '" + scriptFile.getName() + "': " + e.getMessage());
+            errors++;
         } finally {
+            event.end();
+            if(event.shouldCommit()){
+                event.file = scriptFile.getPath();
+                event.lines = lines;
+                event.depth = executingScripts.size();
+                event.commit();
+            }
             // Удаляем скрипт из списка выполняемых
             try {
                 executingScripts.remove(scriptFile.getCanonicalFile());
@@ -457,6 +731,151 @@ public class Executor {
         }
     }
 
+    /**
+     * Выполняет одну команду скрипта, считывая элементы для нее из того же скрипта. Элемент считывается до проверки
+     * аргумента и ключа, чтобы его строки не выполнялись как команды. Невалидный элемент, вставка по имеющемуся ключу
+     * и изменение отсутствующего элемента считаются ошибками скрипта (атомарный скрипт отменяется).
+     * @param input Название существующей команды и ее аргумент
+     * @param consoleScript Объект для чтения скрипта
+     * @see ExecutorLoadTest
+     */
+    void executeScriptCommand(Console.CommandInput input, Console consoleScript){
+        MusicBand band = null;
+        if(Console.isElementCommand(input.command)){
+            band = consoleScript.readMusicBandFromScript();
+            if(band == null){
+                System.out.printf("Error occurred during script execution: the element of '%s' is invalid\n", input.command);
+                errors++;
+                return;
+            }
+        }
+        if(input.command.equals("remove_lower")){
+            printRemoveLowerResult(engine.remove_lower(band));
+            return;
+        }
+
+        Command command = commands.get(input.command);
+        if(Console.isCommandWithArgument(command)){
+            CommandWithArgument commandWithArg = (CommandWithArgument) command;
+            try{
+                commandWithArg.setArgument(input.argument);
+            }catch (IllegalArgumentException e){
+                System.out.println("Error occurred during script execution: " + e.getMessage());
+                errors++;
+                return;
+            }
+            switch (input.command){
+                case "insert" -> {
+                    Long key = (Long) commandWithArg.getArgument();
+                    printInsertResult(engine.insert(key, band), key);
+                }
+                case "update" -> {
+                    Long id = (Long) commandWithArg.getArgument();
+                    printUpdateResult(engine.update(id, band), id);
+                }
+                case "replace_if_lower" -> {
+                    Long key = (Long) commandWithArg.getArgument();
+                    printReplaceIfLowerResult(engine.replace_if_lower(key, band), key);
+                }
+                default -> commandWithArg.execute();
+            }
+        }else{
+            command.execute();
+        }
+    }
+
+    /**
+     * Проверяет, доступна ли коллекция только для чтения (процесс - реплика), и если да - выводит сообщение об этом.
+     * @return true, если команда, изменяющая коллекцию, не может быть выполнена
+     */
+    private boolean rejectIfReadOnly(){
+        if(!engine.isReadOnly()){
+            return false;
+        }
+        System.out.println("The collection is read-only: this process is a replica");
+        errors++;
+        return true;
+    }
+
+    /**
+     * Выводит на консоль результат команды insert.
+     * @param result Результат выполнения {@link CollectionEngine#insert(Long, MusicBand)}
+     * @param key Ключ нового элемента
+     */
+    private void printInsertResult(Result<MusicBand> result, Long key){
+        switch (result.getCode()){
+            case OK -> System.out.println("The music band was successfully inserted to the collection");
+            case KEY_EXISTS -> {
+                System.out.println("The collection already contain the key: " + key);
+                errors++;
+            }
+            default -> printFailure("insert", result.getCode());
+        }
+    }
+
+    /**
+     * Выводит на консоль результат команды update.
+     * @param result Результат выполнения {@link CollectionEngine#update(Long, MusicBand)}
+     * @param id Ключ обновляемого элемента
+     */
+    private void printUpdateResult(Result<MusicBand> result, Long id){
+        switch (result.getCode()){
+            case OK -> System.out.printf("The band with ID %d was successfully updated\n", id);
+            case KEY_NOT_FOUND -> {
+                System.out.println("The collection doesn't contain the key " + id);
+                errors++;
+            }
+            default -> printFailure("update", result.getCode());
+        }
+    }
+
+    /**
+     * Выводит на консоль результат команды remove_lower.
+     * @param result Результат выполнения {@link CollectionEngine#remove_lower(MusicBand)}
+     */
+    private void printRemoveLowerResult(Result<Integer> result){
+        switch (result.getCode()){
+            case OK -> System.out.printf("%d bands were successfully removed\n", result.getValue());
+            case EMPTY -> System.out.println("The collection is empty");
+            default -> printFailure("remove_lower", result.getCode());
+        }
+    }
+
+    /**
+     * Выводит на консоль результат команды replace_if_lower.
+     * @param result Результат выполнения {@link CollectionEngine#replace_if_lower(Long, MusicBand)}
+     * @param key Ключ заменяемого элемента
+     */
+    private void printReplaceIfLowerResult(Result<MusicBand> result, Long key){
+        switch (result.getCode()){
+            case OK -> System.out.printf("The band that key is %d was successfully replaced\n", key);
+            case NOT_REPLACED -> System.out.printf("The band that key is %d wasn't replaced\n", key);
+            case EMPTY -> {
+                System.out.println("The collection is empty");
+                errors++;
+            }
+            case KEY_NOT_FOUND -> {
+                System.out.println("The collection doesn't contain the key " + key);
+                errors++;
+            }
+            default -> printFailure("replace_if_lower", result.getCode());
+        }
+    }
+
+    /**
+     * Выводит сообщение о неудачном выполнении команды с элементом и учитывает ошибку.
+     * @param command Название команды
+     * @param code Код результата
+     */
+    private void printFailure(String command, ResultCode code){
+        switch (code){
+            case INVALID_ELEMENT -> System.out.printf("The read music band is null. Command \"%s\" failed\n", command);
+            case READ_ONLY -> System.out.println("The collection is read-only: this process is a replica");
+            default -> System.out.printf("Command \"%s\" failed: %s\n", command, code);
+        }
+        errors++;
+    }
+
     /**
      * Выполняет все скрипты, переданные через аргументы командной строки.
      */
@@ -474,4 +893,104 @@ public class Executor {
             return executingScripts.contains(scriptFile);
         }
     }
+
+    /**
+     * Подписчик команды watch: выводит события изменения коллекции на консоль по одному, запрашивая следующее
+     * после вывода предыдущего. Пропущенные события (подписчик не успевал их выводить) определяются по номерам.
+     */
+    private static final class Watcher implements Flow.Subscriber<ChangeEvent> {
+        /**
+         * Хранит подписку ({@code null} до ее получения).
+         */
+        private volatile Flow.Subscription subscription;
+        /**
+         * Хранит признак отмены подписки.
+         */
+        private volatile boolean cancelled;
+        /**
+         * Хранит номер последнего полученного события.
+         */
+        private volatile long lastSequence;
+        /**
+         * Хранит количество выведенных событий.
+         */
+        private volatile long shown;
+        /**
+         * Хранит количество пропущенных событий.
+         */
+        private volatile long missed;
+
+        /**
+         * Создает подписчика.
+         * @param lastSequence Номер последнего события, опубликованного до подписки
+         */
+        private Watcher(long lastSequence){
+            this.lastSequence = lastSequence;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription){
+            this.subscription = subscription;
+            if(cancelled){
+                subscription.cancel();
+            }else{
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(ChangeEvent event){
+            if(event.getSequence() > lastSequence + 1){
+                long skipped = event.getSequence() - lastSequence - 1;
+                missed += skipped;
+                System.out.printf("[watch] %d changes missed\n", skipped);
+            }
+            System.out.println("[watch] " + event);
+            shown++;
+            synchronized (this){
+                lastSequence = event.getSequence();
+                notifyAll();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable){
+            System.err.println("[watch] Change subscription failed: " + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete(){
+        }
+
+        /**
+         * Ожидает вывода события с указанным номером.
+         * @param sequence Номер события
+         * @param timeoutMillis Наибольшее время ожидания (мс)
+         */
+        private synchronized void awaitSequence(long sequence, long timeoutMillis){
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            long remaining = timeoutMillis;
+            while(lastSequence < sequence && remaining > 0){
+                try{
+                    wait(remaining);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Отменяет подписку.
+         */
+        private void cancel(){
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if(current != null){
+                current.cancel();
+            }
+        }
+    }
 }
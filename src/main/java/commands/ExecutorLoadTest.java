@@ -0,0 +1,366 @@
+package commands;
+
+import utils.Console;
+import utils.LatencyHistogram;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест для {@link Executor}: выполняет смесь команд с заданной частотой на нескольких потоках
+ * так же, как их выполняет консоль, - под блокировкой записи ядра, с выводом результатов (в пустой поток).
+ * <p>
+ * Команды и элементы берутся из скрипта (например созданного {@link utils.DatasetGenerator}): каждая команда
+ * insert, update, remove_key и filter_starts_with_name выбирается из команд того же вида в скрипте по очереди
+ * (insert получает новый ключ, элемент берется из скрипта), show и save не требуют аргументов.
+ * Коллекция загружается из временной копии CSV-файла, поэтому команда save перезаписывает копию, а не исходный файл;
+ * копия удаляется при завершении.
+ * <p>
+ * Нагрузка подается по открытой модели: каждый поток выполняет команды по расписанию с интервалом
+ * {@code threads / rate} и не ждет завершения предыдущей команды, чтобы запланировать следующую. Задержка
+ * считается от запланированного момента, а не от фактического начала команды (поправка на координированное
+ * пропускание, coordinated omission): если система не успевает, задержка растет вместе с очередью,
+ * как ее увидели бы клиенты. Время выполнения самой команды выводится отдельно.
+ * <p>
+ * Можно указать несколько частот через запятую: они проверяются по очереди, после каждой выводится отчет
+ * и признак насыщения (достигнутая частота меньше 95% заданной или p99 с поправкой больше p99 времени выполнения
+ * в 10 раз).
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar commands.ExecutorLoadTest bands.csv script.txt [--rate 1000,2000] [--threads 4]
+ * [--duration 10] [--mix insert=30,update=20,remove_key=15,filter_starts_with_name=30,show=1,save=1] [--seed 42]}
+ */
+public class ExecutorLoadTest {
+    /**
+     * Хранит команды, после которых в скрипте следуют 7 строк элемента.
+     */
+    private static final List<String> ELEMENT_COMMANDS = List.of("insert", "update", "replace_if_lower", "remove_lower");
+    /**
+     * Хранит смесь команд по умолчанию (веса в процентах).
+     */
+    private static final String DEFAULT_MIX = "insert=30,update=20,remove_key=15,filter_starts_with_name=30,show=1,save=1";
+    /**
+     * Хранит команды, которые можно включить в смесь.
+     */
+    private static final List<String> MIX_COMMANDS = List.of("insert", "update", "remove_key", "filter_starts_with_name", "show", "save");
+
+    /**
+     * Команда скрипта с элементом, который считывается вместе с ней.
+     */
+    private static final class Operation {
+        /**
+         * Хранит название команды и аргумент.
+         */
+        private final Console.CommandInput input;
+        /**
+         * Хранит строки элемента в кодировке по умолчанию (пустой массив, если элемента нет).
+         */
+        private final byte[] element;
+
+        /**
+         * Создает команду.
+         * @param input Название команды и аргумент
+         * @param element Строки элемента
+         */
+        private Operation(Console.CommandInput input, byte[] element){
+            this.input = input;
+            this.element = element;
+        }
+    }
+
+    /**
+     * Хранит приемник команд.
+     */
+    private final Executor executor;
+    /**
+     * Хранит блокировку записи ядра, под которой выполняется каждая команда.
+     */
+    private final Lock lock;
+    /**
+     * Хранит команды скрипта по видам.
+     */
+    private final Map<String, List<Operation>> operations;
+    /**
+     * Хранит номер следующей команды каждого вида (общий для всех потоков).
+     */
+    private final Map<String, AtomicLong> cursors = new LinkedHashMap<>();
+    /**
+     * Хранит виды команд смеси.
+     */
+    private final String[] mixCommands;
+    /**
+     * Хранит накопленные веса видов команд смеси.
+     */
+    private final int[] mixWeights;
+    /**
+     * Хранит следующий ключ для команды insert.
+     */
+    private final AtomicLong nextKey;
+
+    /**
+     * Создает нагрузочный тест.
+     * @param executor Приемник команд
+     * @param operations Команды скрипта по видам
+     * @param mix Веса видов команд
+     */
+    private ExecutorLoadTest(Executor executor, Map<String, List<Operation>> operations, Map<String, Integer> mix){
+        this.executor = executor;
+        this.lock = executor.getEngine().getLock().writeLock();
+        this.operations = operations;
+        Long lastKey = executor.getEngine().info().getLastKey();
+        this.nextKey = new AtomicLong(lastKey == null ? 1 : lastKey + 1);
+        mixCommands = mix.keySet().toArray(new String[0]);
+        mixWeights = new int[mixCommands.length];
+        int total = 0;
+        for(int i = 0; i < mixCommands.length; i++){
+            total += mix.get(mixCommands[i]);
+            mixWeights[i] = total;
+            cursors.put(mixCommands[i], new AtomicLong());
+        }
+    }
+
+    /**
+     * Запускает нагрузочный тест.
+     * @param args CSV-файл, скрипт и флаги {@code --rate}, {@code --threads}, {@code --duration}, {@code --mix}, {@code --seed}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        if(args.length < 2){
+            System.err.println("Usage: commands.ExecutorLoadTest file.csv script [--rate N[,N...]] [--threads N] [--duration seconds] " +
+                    "[--mix command=weight,...] [--seed N]");
+            System.exit(1);
+        }
+        File csv = new File(args[0]);
+        File script = new File(args[1]);
+        long[] rates = {1000};
+        int threads = 4;
+        double duration = 10;
+        String mixText = DEFAULT_MIX;
+        long seed = 42;
+        Map<String, List<Operation>> operations = readScript(script);
+        Map<String, Integer> mix = null;
+        try{
+            for(int i = 2; i < args.length; i++){
+                if(args[i].equals("--rate") && i + 1 < args.length){
+                    rates = Arrays.stream(args[++i].split(",")).mapToLong(Long::parseLong).toArray();
+                }else if(args[i].equals("--threads") && i + 1 < args.length){
+                    threads = Integer.parseInt(args[++i]);
+                }else if(args[i].equals("--duration") && i + 1 < args.length){
+                    duration = Double.parseDouble(args[++i]);
+                }else if(args[i].equals("--mix") && i + 1 < args.length){
+                    mixText = args[++i];
+                }else if(args[i].equals("--seed") && i + 1 < args.length){
+                    seed = Long.parseLong(args[++i]);
+                }else{
+                    throw new IllegalArgumentException("unknown argument '" + args[i] + "'");
+                }
+            }
+            if(threads < 1 || duration <= 0 || Arrays.stream(rates).anyMatch(rate -> rate < 1)){
+                throw new IllegalArgumentException("rates, threads and duration should be positive");
+            }
+            mix = parseMix(mixText, operations);
+        }catch(IllegalArgumentException e){
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+
+        System.err.printf("Loading '%s'...%n", csv);
+        Path copy = Files.createTempFile("load-test", ".csv");
+        copy.toFile().deleteOnExit();
+        Files.copy(csv.toPath(), copy, StandardCopyOption.REPLACE_EXISTING);
+        Executor executor = new Executor(copy.toFile(), List.of());
+        ExecutorLoadTest test = new ExecutorLoadTest(executor, operations, mix);
+        System.out.printf("Collection: %d bands, threads: %d, duration: %.1f s, mix: %s%n",
+                executor.getEngine().size(), threads, duration, mix);
+        for(long rate : rates){
+            test.run(rate, threads, (long) (duration * 1e9), seed);
+        }
+    }
+
+    /**
+     * Считывает команды скрипта и группирует их по видам. Элементы команд insert, update, replace_if_lower
+     * и remove_lower сохраняются вместе с командой.
+     * @param script Файл скрипта
+     * @return команды по видам
+     * @throws IOException если файл недоступен для чтения
+     */
+    private static Map<String, List<Operation>> readScript(File script) throws IOException{
+        Charset charset = Charset.defaultCharset();
+        List<String> lines = Files.readAllLines(script.toPath(), charset);
+        Map<String, List<Operation>> operations = new LinkedHashMap<>();
+        for(int i = 0; i < lines.size(); i++){
+            if(lines.get(i).isBlank()){
+                continue;
+            }
+            Console.CommandInput input = Console.parseCommand(lines.get(i));
+            byte[] element = new byte[0];
+            if(ELEMENT_COMMANDS.contains(input.command)){
+                int end = Math.min(lines.size(), i + 8);
+                element = (String.join("\n", lines.subList(i + 1, end)) + "\n").getBytes(charset);
+                i = end - 1;
+            }
+            operations.computeIfAbsent(input.command, command -> new ArrayList<>()).add(new Operation(input, element));
+        }
+        return operations;
+    }
+
+    /**
+     * Разбирает смесь команд вида {@code insert=30,show=1}. Команды с нулевым весом не включаются;
+     * команды, которых нет в скрипте (кроме show и save), не включаются с предупреждением.
+     * @param text Смесь команд
+     * @param operations Команды скрипта по видам
+     * @return веса видов команд
+     * @throws IllegalArgumentException если смесь не соответствует формату или пуста
+     */
+    private static Map<String, Integer> parseMix(String text, Map<String, List<Operation>> operations){
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for(String part : text.split(",")){
+            String[] pair = part.trim().split("=");
+            if(pair.length != 2 || !MIX_COMMANDS.contains(pair[0])){
+                throw new IllegalArgumentException("Invalid mix entry '" + part + "', expected one of " + MIX_COMMANDS + " with a weight, e.g. insert=30");
+            }
+            int weight = Integer.parseInt(pair[1]);
+            if(weight <= 0){
+                continue;
+            }
+            if(!pair[0].equals("show") && !pair[0].equals("save") && !operations.containsKey(pair[0])){
+                System.err.printf("Warning: the script has no '%s' commands, they are excluded from the mix%n", pair[0]);
+                continue;
+            }
+            mix.put(pair[0], weight);
+        }
+        if(mix.isEmpty()){
+            throw new IllegalArgumentException("The mix has no commands to run");
+        }
+        return mix;
+    }
+
+    /**
+     * Выполняет команды с заданной частотой в течение указанного времени и выводит отчет.
+     * @param rate Частота команд в секунду (на все потоки)
+     * @param threads Количество потоков
+     * @param durationNanos Длительность в наносекундах
+     * @param seed Начальное значение генераторов случайных чисел потоков
+     */
+    private void run(long rate, int threads, long durationNanos, long seed) throws InterruptedException{
+        Map<String, LatencyHistogram> corrected = new LinkedHashMap<>();
+        for(String command : mixCommands){
+            corrected.put(command, new LatencyHistogram());
+        }
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram service = new LatencyHistogram();
+        long interval = Math.max(1, (long) (1e9 * threads / rate));
+        CountDownLatch done = new CountDownLatch(threads);
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime() + 10_000_000L;
+        long end = start + durationNanos;
+        for(int t = 0; t < threads; t++){
+            SplittableRandom random = new SplittableRandom(seed + t);
+            long first = start + interval * t / threads;
+            Thread thread = new Thread(() -> {
+                try{
+                    for(long intended = first; intended < end; intended += interval){
+                        long now;
+                        while((now = System.nanoTime()) < intended){
+                            LockSupport.parkNanos(intended - now);
+                        }
+                        String command = pick(random);
+                        execute(command);
+                        long finished = System.nanoTime();
+                        corrected.get(command).record(finished - intended);
+                        all.record(finished - intended);
+                        service.record(finished - now);
+                    }
+                }finally{
+                    done.countDown();
+                }
+            }, "load-" + t);
+            thread.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.setOut(out);
+
+        double achieved = all.getCount() / seconds;
+        System.out.printf("%nTarget rate: %d commands/s, achieved: %.0f commands/s (%d commands in %.2f s)%n",
+                rate, achieved, all.getCount(), seconds);
+        System.out.printf("%-28s %10s %12s %12s %12s %12s %12s%n", "latency, us", "count", "p50", "p90", "p99", "p99.9", "max");
+        for(Map.Entry<String, LatencyHistogram> entry : corrected.entrySet()){
+            printRow(entry.getKey(), entry.getValue());
+        }
+        printRow("all (corrected)", all);
+        printRow("all (service time)", service);
+        boolean saturated = achieved < 0.95 * rate
+                || all.getValueAtPercentile(99) > 10 * Math.max(service.getValueAtPercentile(99), 1);
+        System.out.println(saturated
+                ? "SATURATED: commands queue up, latency is dominated by waiting"
+                : "Not saturated");
+    }
+
+    /**
+     * Выводит строку отчета с процентилями задержки.
+     * @param name Название строки
+     * @param histogram Гистограмма задержек
+     */
+    private static void printRow(String name, LatencyHistogram histogram){
+        System.out.printf("%-28s %10d %12.1f %12.1f %12.1f %12.1f %12.1f%n", name, histogram.getCount(),
+                histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(90) / 1e3,
+                histogram.getValueAtPercentile(99) / 1e3, histogram.getValueAtPercentile(99.9) / 1e3,
+                histogram.getMax() / 1e3);
+    }
+
+    /**
+     * Выбирает вид команды по весам смеси.
+     * @param random Генератор случайных чисел потока
+     * @return вид команды
+     */
+    private String pick(SplittableRandom random){
+        int value = random.nextInt(mixWeights[mixWeights.length - 1]);
+        int i = 0;
+        while(value >= mixWeights[i]){
+            i++;
+        }
+        return mixCommands[i];
+    }
+
+    /**
+     * Выполняет команду указанного вида под блокировкой записи ядра, как консоль.
+     * @param command Вид команды
+     */
+    private void execute(String command){
+        Console.CommandInput input;
+        byte[] element = new byte[0];
+        if(command.equals("show") || command.equals("save")){
+            input = new Console.CommandInput(command, null);
+        }else{
+            List<Operation> candidates = operations.get(command);
+            Operation operation = candidates.get((int) (cursors.get(command).getAndIncrement() % candidates.size()));
+            input = command.equals("insert")
+                    ? new Console.CommandInput(command, String.valueOf(nextKey.getAndIncrement()))
+                    : operation.input;
+            element = operation.element;
+        }
+        lock.lock();
+        try{
+            executor.executeScriptCommand(input, new Console(new ByteArrayInputStream(element)));
+        }finally{
+            lock.unlock();
+        }
+    }
+}
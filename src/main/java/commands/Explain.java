@@ -0,0 +1,95 @@
+package commands;
+
+import query.Expression;
+import query.QueryParser;
+
+/**
+ * Команда выводит план выполнения команды where, не выполняя ее: {@code explain where условие}. Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Explain implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "explain")
+     */
+    private final String commandName = "explain";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - разобранное условие команды where.
+     */
+    private Expression argument;
+
+    /**
+     * Создает объект {@link Explain} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Explain(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#explain(Expression)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.explain(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Разбирает условие команды where и устанавливает его в качестве аргумента команды.
+     * <p>
+     * @param argument Строка {@code where условие}
+     * @throws IllegalArgumentException если строка не начинается со слова where или условие содержит ошибку
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        this.argument = parseExplained(commandName, argument);
+    }
+
+    /**
+     * Разбирает аргумент команды explain.
+     * @param commandName Название команды для сообщения об ошибке
+     * @param argument Строка {@code where условие}
+     * @return разобранное условие
+     * @throws IllegalArgumentException если строка не начинается со слова where или условие содержит ошибку
+     */
+    public static Expression parseExplained(String commandName, String argument){
+        String[] parts = argument == null ? new String[0] : argument.trim().split("\\s+", 2);
+        if(parts.length < 2 || !parts[0].equals("where")){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: expected 'explain where condition'");
+        }
+        try{
+            return QueryParser.parse(parts[1]);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "explain")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (разобранное условие {@link Expression})
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public Expression getArgument(){return argument;}
+}
@@ -0,0 +1,80 @@
+package commands;
+
+import engine.JsonExport;
+
+/**
+ * Команда записывает коллекцию в файл в формате JSON или NDJSON: {@code export файл [json|ndjson] [--gzip]}.
+ * Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Export implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "export")
+     */
+    private final String commandName = "export";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - файл, формат и признак сжатия.
+     */
+    private JsonExport argument;
+
+    /**
+     * Создает объект {@link Export} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Export(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#export(JsonExport)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.export(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Разбирает имя файла, формат и флаг сжатия и устанавливает их в качестве аргумента команды.
+     * <p>
+     * @param argument Строка {@code файл [json|ndjson] [--gzip]}, например {@code bands.ndjson.gz ndjson --gzip}
+     * @throws IllegalArgumentException если имя файла не указано или аргумент не соответствует формату
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        try{
+            this.argument = JsonExport.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "export")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (файл, формат и признак сжатия {@link JsonExport})
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public JsonExport getArgument(){return argument;}
+}
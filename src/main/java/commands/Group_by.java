@@ -0,0 +1,79 @@
+package commands;
+
+import query.GroupBy;
+
+/**
+ * Команда группирует элементы по значению поля и выводит агрегатные функции групп (см. {@link GroupBy}). Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Group_by implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "group_by")
+     */
+    private final String commandName = "group_by";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - поле группировки и агрегатные функции.
+     */
+    private GroupBy argument;
+
+    /**
+     * Создает объект {@link Group_by} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Group_by(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#group_by(GroupBy)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.group_by(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Разбирает поле группировки и агрегатные функции и устанавливает их в качестве аргумента команды.
+     * <p>
+     * @param argument Строка {@code поле [функция ...]}, например {@code genre count avg(numberOfParticipants)}
+     * @throws IllegalArgumentException если поле или функция указаны неверно
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        try{
+            this.argument = GroupBy.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "group_by")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (поле группировки и агрегатные функции {@link GroupBy})
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public GroupBy getArgument(){return argument;}
+}
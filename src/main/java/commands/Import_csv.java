@@ -0,0 +1,80 @@
+package commands;
+
+import engine.CsvImport;
+
+/**
+ * Команда добавляет в коллекцию элементы из CSV-файла: {@code import_csv файл [--on-conflict skip|overwrite|newer]}.
+ * Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Import_csv implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "import_csv")
+     */
+    private final String commandName = "import_csv";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - файл и правило для строк с имеющимися id.
+     */
+    private CsvImport argument;
+
+    /**
+     * Создает объект {@link Import_csv} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Import_csv(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#import_csv(CsvImport)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.import_csv(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Разбирает имя файла и правило и устанавливает их в качестве аргумента команды.
+     * <p>
+     * @param argument Строка {@code файл [--on-conflict правило]}, например {@code bands.csv --on-conflict newer}
+     * @throws IllegalArgumentException если файл недоступен для чтения или правило указано неверно
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        try{
+            this.argument = CsvImport.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "import_csv")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (файл и правило {@link CsvImport})
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public CsvImport getArgument(){return argument;}
+}
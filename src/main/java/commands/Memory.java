@@ -0,0 +1,84 @@
+package commands;
+
+/**
+ * Команда выводит оценку памяти, удерживаемой коллекцией и индексами, и прогноз памяти после добавления
+ * N элементов: {@code memory [N]}. Команда имеет необязательный аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Memory implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "memory")
+     */
+    private final String commandName = "memory";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - количество добавляемых элементов для прогноза (0 - без прогноза).
+     */
+    private long argument;
+
+    /**
+     * Создает объект {@link Memory} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Memory(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#memory(long)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.memory(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * <p>
+     * @param argument {@code null} для оценки без прогноза или неотрицательное число добавляемых элементов
+     * @throws IllegalArgumentException если аргумент не является неотрицательным числом типа Long
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        if(argument == null || argument.isBlank()){
+            this.argument = 0;
+            return;
+        }
+        long arg;
+        try{
+            arg = Long.parseLong(argument.trim());
+            if(arg < 0) throw new NumberFormatException();
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: '" + argument.trim() + "' is not a non-negative Long number.");
+        }
+        this.argument = arg;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "memory")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (количество добавляемых элементов для прогноза)
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public Long getArgument(){return argument;}
+}
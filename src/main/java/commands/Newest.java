@@ -0,0 +1,79 @@
+package commands;
+
+import query.Ranking;
+
+/**
+ * Команда выводит N элементов с самыми поздними датами создания: {@code newest N}. Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Newest implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "newest")
+     */
+    private final String commandName = "newest";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - количество элементов.
+     */
+    private Integer argument;
+
+    /**
+     * Создает объект {@link Newest} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Newest(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#newest(int)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.newest(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Устанавливает количество элементов в качестве аргумента команды.
+     * <p>
+     * @param argument Количество элементов
+     * @throws IllegalArgumentException если аргумент не является положительным числом типа int
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        try{
+            this.argument = Ranking.parseCount(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "newest")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (количество элементов)
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public Integer getArgument(){return argument;}
+}
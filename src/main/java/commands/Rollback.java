@@ -0,0 +1,46 @@
+package commands;
+
+/**
+ * Команда откатывает транзакцию.
+ * <p>
+ * Реализует интерфейс {@link Command}
+ * @see Command
+ * @see Executor
+ */
+public class Rollback implements Command{
+    /**
+     * Хранит имя команды (в данном случае "rollback").
+     */
+    private final String commandName = "rollback";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Создает объект {@link Rollback} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Rollback(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#rollback()} у объекта executor.
+     */
+    @Override
+    public void execute() {
+        executor.rollback();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "rollback")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+}
@@ -0,0 +1,83 @@
+package commands;
+
+import engine.TextIndex;
+
+/**
+ * Команда выводит элементы, в описании которых встречаются все указанные слова (без учета регистра). Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Search_description implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "search_description")
+     */
+    private final String commandName = "search_description";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды.
+     */
+    private String argument;
+
+    /**
+     * Создает объект {@link Search_description} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Search_description(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#search_description(String)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.search_description(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Устанавливает переданное значение в качестве аргумента команды.
+     * <p>
+     * @param argument Аргумент команды Search_description
+     * @apiNote Ограничения для аргумента:
+     * <ul>
+     *     <li>Не может быть {@code null}</li>
+     *     <li>Должен содержать хотя бы одно слово из букв или цифр</li>
+     * </ul>
+     * @throws IllegalArgumentException если переданное значение не соответствует ограничениям для аргумента.
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        if(argument == null || TextIndex.terms(argument).isEmpty()){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: at least one word expected");
+        }
+        this.argument = argument;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "search_description")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (значение типа {@link String}
+     * <p>
+     * @return аргумент команды (значение типа {@link String}
+     */
+    @Override
+    public String getArgument(){return argument;}
+}
@@ -0,0 +1,79 @@
+package commands;
+
+/**
+ * Команда выводит статистику задержек выполненных команд или сбрасывает ее: {@code stats [reset]}.
+ * Команда имеет необязательный аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Stats implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "stats")
+     */
+    private final String commandName = "stats";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - признак сброса статистики.
+     */
+    private boolean argument;
+
+    /**
+     * Создает объект {@link Stats} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Stats(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#stats(boolean)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.stats(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * <p>
+     * @param argument {@code null} для вывода статистики или {@code reset} для ее сброса
+     * @throws IllegalArgumentException если аргумент отличается от {@code reset}
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        if(argument == null || argument.isBlank()){
+            this.argument = false;
+        }else if(argument.trim().equals("reset")){
+            this.argument = true;
+        }else{
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: expected no argument or 'reset', got '" + argument.trim() + "'");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "stats")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (признак сброса статистики)
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public Boolean getArgument(){return argument;}
+}
@@ -0,0 +1,79 @@
+package commands;
+
+import query.Ranking;
+
+/**
+ * Команда выводит N элементов с наибольшими значениями поля: {@code top N by поле}. Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Top implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "top")
+     */
+    private final String commandName = "top";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - количество элементов и поле.
+     */
+    private Ranking argument;
+
+    /**
+     * Создает объект {@link Top} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Top(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#top(Ranking)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.top(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Разбирает количество элементов и поле и устанавливает их в качестве аргумента команды.
+     * <p>
+     * @param argument Строка {@code N by поле}, например {@code 10 by numberOfParticipants}
+     * @throws IllegalArgumentException если строка не соответствует формату
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        try{
+            this.argument = Ranking.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "top")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (количество элементов и поле {@link Ranking})
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public Ranking getArgument(){return argument;}
+}
@@ -0,0 +1,47 @@
+package commands;
+
+/**
+ * Команда начинает или прекращает вывод изменений коллекции на консоль.
+ * <p>
+ * Реализует интерфейс {@link Command}
+ * @see Command
+ * @see Executor
+ */
+public class Watch implements Command{
+    /**
+     * Хранит имя команды (в данном случае "watch").
+     */
+    private final String commandName = "watch";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+
+    /**
+     * Создает объект {@link Watch} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Watch(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#watch()} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.watch();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "watch")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+}
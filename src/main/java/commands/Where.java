@@ -0,0 +1,80 @@
+package commands;
+
+import query.Expression;
+import query.QueryParser;
+
+/**
+ * Команда выводит элементы, удовлетворяющие условию (см. описание пакета {@link query}). Команда имеет аргумент.
+ * <p>
+ * Реализует интерфейс {@link CommandWithArgument}
+ * @see Command
+ * @see CommandWithArgument
+ * @see Executor
+ */
+public class Where implements CommandWithArgument{
+    /**
+     * Хранит имя команды (в данном случае "where")
+     */
+    private final String commandName = "where";
+    /**
+     * Хранит объект типа {@link Executor}, содержащий реализацию команды.
+     */
+    private final Executor executor;
+    /**
+     * Хранит аргумент команды - разобранное условие.
+     */
+    private Expression argument;
+
+    /**
+     * Создает объект {@link Where} по указанному аргументу типа {@link Executor}.
+     * @param executor Приемник команд
+     */
+    public Where(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#execute()}.
+     * Вызывает метод {@link Executor#where(Expression)} у объекта executor.
+     */
+    @Override
+    public void execute(){
+        executor.where(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link CommandWithArgument#setArgument(String)}.
+     * Разбирает условие и устанавливает его в качестве аргумента команды.
+     * <p>
+     * @param argument Условие, например {@code genre = JAZZ and numberOfParticipants > 3}
+     * @throws IllegalArgumentException если условие пустое или содержит ошибку
+     */
+    @Override
+    public void setArgument(String argument) throws IllegalArgumentException{
+        try{
+            this.argument = QueryParser.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + commandName + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Реализация метода {@link Command#getCommandName()}.
+     * Возвращает имя команды.
+     * <p>
+     * @return имя команды (в данном случае "where")
+     */
+    @Override
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает аргумент команды (разобранное условие {@link Expression})
+     * <p>
+     * @return аргумент команды
+     */
+    @Override
+    public Expression getArgument(){return argument;}
+}
@@ -0,0 +1,270 @@
+package engine;
+
+import classes.MusicBand;
+import query.Aggregate;
+import query.Field;
+import query.GroupBy;
+import query.QueryParser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Результат команды group_by: значения агрегатных функций для каждой группы элементов с одинаковым значением поля.
+ * <p>
+ * Большие коллекции (от {@link QueryPlan#PARALLEL_SCAN_THRESHOLD} элементов) обрабатываются параллельным потоком
+ * в общем пуле {@link java.util.concurrent.ForkJoinPool}: каждая задача накапливает собственные частичные итоги
+ * ({@link Partial}) без синхронизации, а в конце частичные итоги объединяются. Для среднего накапливаются сумма
+ * и количество, поэтому объединение не зависит от того, как коллекция разделена между задачами.
+ * <p>
+ * Целочисленные поля (типов {@link Field.Type#LONG} и {@link Field.Type#INT}) накапливаются в long, поэтому суммы,
+ * наименьшие и наибольшие значения точны и для значений больше 2^53; в double накапливается только поле x.
+ */
+public final class Aggregation {
+    /**
+     * Хранит аргумент команды.
+     */
+    private final GroupBy groupBy;
+    /**
+     * Хранит количество обработанных элементов.
+     */
+    private final int size;
+    /**
+     * Хранит итоги групп по возрастанию значения поля группировки.
+     */
+    private final TreeMap<Object, Accumulator> groups;
+
+    /**
+     * Создает результат.
+     * @param groupBy Аргумент команды
+     * @param size Количество обработанных элементов
+     * @param groups Итоги групп
+     */
+    private Aggregation(GroupBy groupBy, int size, TreeMap<Object, Accumulator> groups){
+        this.groupBy = groupBy;
+        this.size = size;
+        this.groups = groups;
+    }
+
+    /**
+     * Группирует элементы хранилища и вычисляет агрегатные функции.
+     * @param groupBy Аргумент команды
+     * @param store Хранилище
+     * @return результат
+     */
+    static Aggregation compute(GroupBy groupBy, BandStore store){
+        Field key = groupBy.getKey();
+        Field[] fields = groupBy.getAggregates().stream().map(Aggregate::getField).toArray(Field[]::new);
+        int size = store.size();
+        Stream<MusicBand> bands = size >= QueryPlan.PARALLEL_SCAN_THRESHOLD ? store.values().parallelStream() : store.values().stream();
+        Partial partial = bands.collect(() -> new Partial(key, fields), Partial::add, Partial::merge);
+        return new Aggregation(groupBy, size, new TreeMap<>(partial.groups));
+    }
+
+    /**
+     * Возвращает количество групп.
+     * @return количество групп
+     */
+    public int getGroupCount(){return groups.size();}
+
+    /**
+     * Возвращает описание результата: заголовок и строку для каждой группы.
+     * @return описание (каждая строка завершается переводом строки)
+     */
+    public String describe(){
+        Field key = groupBy.getKey();
+        StringBuilder text = new StringBuilder();
+        text.append("Grouped ").append(size).append(" music groups by ").append(key)
+                .append(" into ").append(groups.size()).append(" groups\n");
+        for(Map.Entry<Object, Accumulator> entry : groups.entrySet()){
+            Object value = entry.getKey();
+            text.append(key).append('=').append(value instanceof String ? QueryParser.quote((String) value) : value).append(':');
+            Accumulator accumulator = entry.getValue();
+            int i = 0;
+            for(Aggregate aggregate : groupBy.getAggregates()){
+                text.append(i == 0 ? " " : ", ").append(aggregate).append('=').append(format(aggregate, accumulator, i));
+                i++;
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Форматирует значение агрегатной функции группы.
+     * @param aggregate Агрегатная функция
+     * @param accumulator Итоги группы
+     * @param index Номер функции в аргументе команды
+     * @return значение функции
+     */
+    private static String format(Aggregate aggregate, Accumulator accumulator, int index){
+        if(aggregate.getFunction() == Aggregate.Function.COUNT){
+            return String.valueOf(accumulator.count);
+        }
+        if(isIntegral(aggregate.getField())){
+            return switch (aggregate.getFunction()){
+                case AVG -> String.format("%.2f", (double) accumulator.longSum[index] / accumulator.count);
+                case MIN -> String.valueOf(accumulator.longMin[index]);
+                case MAX -> String.valueOf(accumulator.longMax[index]);
+                default -> String.valueOf(accumulator.longSum[index]);
+            };
+        }
+        double value = switch (aggregate.getFunction()){
+            case AVG -> accumulator.doubleSum[index] / accumulator.count;
+            case MIN -> accumulator.doubleMin[index];
+            case MAX -> accumulator.doubleMax[index];
+            default -> accumulator.doubleSum[index];
+        };
+        return String.format("%.2f", value);
+    }
+
+    /**
+     * Проверяет, накапливаются ли значения поля в long.
+     * @param field Поле функции ({@code null} для count)
+     * @return true для полей типов {@link Field.Type#LONG} и {@link Field.Type#INT}
+     */
+    private static boolean isIntegral(Field field){
+        return field != null && (field.getType() == Field.Type.LONG || field.getType() == Field.Type.INT);
+    }
+
+    /**
+     * Итоги одной группы.
+     */
+    private static final class Accumulator {
+        /**
+         * Хранит количество элементов.
+         */
+        private long count;
+        /**
+         * Хранит суммы значений целочисленных полей функций (по номеру функции).
+         */
+        private final long[] longSum;
+        /**
+         * Хранит наименьшие значения целочисленных полей функций.
+         */
+        private final long[] longMin;
+        /**
+         * Хранит наибольшие значения целочисленных полей функций.
+         */
+        private final long[] longMax;
+        /**
+         * Хранит суммы значений полей функций типа double (по номеру функции).
+         */
+        private final double[] doubleSum;
+        /**
+         * Хранит наименьшие значения полей функций типа double.
+         */
+        private final double[] doubleMin;
+        /**
+         * Хранит наибольшие значения полей функций типа double.
+         */
+        private final double[] doubleMax;
+
+        /**
+         * Создает пустые итоги.
+         * @param length Количество функций
+         */
+        private Accumulator(int length){
+            longSum = new long[length];
+            longMin = new long[length];
+            longMax = new long[length];
+            doubleSum = new double[length];
+            doubleMin = new double[length];
+            doubleMax = new double[length];
+            Arrays.fill(longMin, Long.MAX_VALUE);
+            Arrays.fill(longMax, Long.MIN_VALUE);
+            Arrays.fill(doubleMin, Double.POSITIVE_INFINITY);
+            Arrays.fill(doubleMax, Double.NEGATIVE_INFINITY);
+        }
+
+        /**
+         * Добавляет итоги другой группы.
+         * @param other Итоги
+         */
+        private void merge(Accumulator other){
+            count += other.count;
+            for(int i = 0; i < longSum.length; i++){
+                longSum[i] += other.longSum[i];
+                longMin[i] = Math.min(longMin[i], other.longMin[i]);
+                longMax[i] = Math.max(longMax[i], other.longMax[i]);
+                doubleSum[i] += other.doubleSum[i];
+                doubleMin[i] = Math.min(doubleMin[i], other.doubleMin[i]);
+                doubleMax[i] = Math.max(doubleMax[i], other.doubleMax[i]);
+            }
+        }
+    }
+
+    /**
+     * Частичные итоги одной задачи параллельного потока. Используется только одним потоком до объединения.
+     */
+    private static final class Partial {
+        /**
+         * Хранит поле группировки.
+         */
+        private final Field key;
+        /**
+         * Хранит поля функций ({@code null} для count).
+         */
+        private final Field[] fields;
+        /**
+         * Хранит признаки того, что значения поля функции накапливаются в long (по номеру функции).
+         */
+        private final boolean[] integral;
+        /**
+         * Хранит итоги групп по значению поля группировки.
+         */
+        private final Map<Object, Accumulator> groups = new HashMap<>();
+
+        /**
+         * Создает пустые частичные итоги.
+         * @param key Поле группировки
+         * @param fields Поля функций
+         */
+        private Partial(Field key, Field[] fields){
+            this.key = key;
+            this.fields = fields;
+            integral = new boolean[fields.length];
+            for(int i = 0; i < fields.length; i++){
+                integral[i] = isIntegral(fields[i]);
+            }
+        }
+
+        /**
+         * Учитывает элемент.
+         * @param band Элемент
+         */
+        private void add(MusicBand band){
+            Accumulator accumulator = groups.computeIfAbsent(key.getValue(band), value -> new Accumulator(fields.length));
+            accumulator.count++;
+            for(int i = 0; i < fields.length; i++){
+                if(integral[i]){
+                    long value = fields[i].getLong(band);
+                    accumulator.longSum[i] += value;
+                    accumulator.longMin[i] = Math.min(accumulator.longMin[i], value);
+                    accumulator.longMax[i] = Math.max(accumulator.longMax[i], value);
+                }else if(fields[i] != null){
+                    double value = fields[i].getNumber(band);
+                    accumulator.doubleSum[i] += value;
+                    accumulator.doubleMin[i] = Math.min(accumulator.doubleMin[i], value);
+                    accumulator.doubleMax[i] = Math.max(accumulator.doubleMax[i], value);
+                }
+            }
+        }
+
+        /**
+         * Добавляет частичные итоги другой задачи.
+         * @param other Частичные итоги
+         */
+        private void merge(Partial other){
+            for(Map.Entry<Object, Accumulator> entry : other.groups.entrySet()){
+                Accumulator accumulator = groups.putIfAbsent(entry.getKey(), entry.getValue());
+                if(accumulator != null){
+                    accumulator.merge(entry.getValue());
+                }
+            }
+        }
+    }
+}
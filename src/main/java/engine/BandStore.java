@@ -0,0 +1,110 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Predicate;
+
+/**
+ * Хранилище элементов коллекции, упорядоченных по ключу.
+ * <p>
+ * Содержит только те операции, которые использует {@link CollectionEngine}. Реализации:
+ * <ul>
+ *     <li>{@link TreeMapStore} - коллекция {@link java.util.TreeMap}</li>
+ *     <li>{@link Transaction} - локальные изменения транзакции поверх коллекции {@link java.util.TreeMap}</li>
+ * </ul>
+ */
+interface BandStore {
+    /**
+     * Возвращает количество элементов.
+     * @return количество элементов
+     */
+    int size();
+
+    /**
+     * Проверяет, содержит ли хранилище элемент с указанным ключом.
+     * @param key Ключ элемента
+     * @return true если элемент с указанным ключом есть
+     */
+    boolean containsKey(Long key);
+
+    /**
+     * Возвращает элемент по указанному ключу.
+     * @param key Ключ элемента
+     * @return элемент или {@code null}, если элемента с таким ключом нет
+     */
+    MusicBand get(Long key);
+
+    /**
+     * Сохраняет элемент по указанному ключу.
+     * @param key Ключ элемента
+     * @param band Элемент (не {@code null})
+     * @return предыдущий элемент или {@code null}
+     */
+    MusicBand put(Long key, MusicBand band);
+
+    /**
+     * Сохраняет несколько элементов, как последовательность вызовов {@link BandStore#put(Long, MusicBand)}.
+     * Реализация может применить изменения одним пакетом.
+     * @param bands Элементы по ключам
+     */
+    default void putAll(SortedMap<Long, MusicBand> bands){
+        for(Map.Entry<Long, MusicBand> entry : bands.entrySet()){
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Удаляет элемент по указанному ключу.
+     * @param key Ключ элемента
+     * @return удаленный элемент или {@code null}
+     */
+    MusicBand remove(Long key);
+
+    /**
+     * Возвращает элементы в порядке возрастания ключей.
+     * @return представление элементов (без копирования)
+     */
+    Collection<MusicBand> values();
+
+    /**
+     * Возвращает элементы, ключ которых больше указанного, в порядке возрастания ключей.
+     * @param key Граничное значение ключа (не включается)
+     * @return представление элементов (без копирования)
+     */
+    Iterable<MusicBand> tailValues(Long key);
+
+    /**
+     * Удаляет все элементы, удовлетворяющие условию.
+     * @param filter Условие удаления
+     * @return количество удаленных элементов
+     */
+    int removeIf(Predicate<MusicBand> filter);
+
+    /**
+     * Удаляет все элементы, ключ которых меньше указанного.
+     * @param key Граничное значение ключа
+     * @return количество удаленных элементов
+     */
+    int removeHead(Long key);
+
+    /**
+     * Удаляет все элементы.
+     * @return количество удаленных элементов
+     */
+    int clear();
+
+    /**
+     * Возвращает наименьший ключ.
+     * @return наименьший ключ или {@code null}, если хранилище пусто
+     */
+    Long firstKey();
+
+    /**
+     * Возвращает наибольший ключ.
+     * @return наибольший ключ или {@code null}, если хранилище пусто
+     */
+    Long lastKey();
+}
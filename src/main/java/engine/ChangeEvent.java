@@ -0,0 +1,122 @@
+package engine;
+
+import classes.MusicBand;
+
+/**
+ * Событие изменения коллекции для подписчиков {@link CollectionEngine#changes()}.
+ * <p>
+ * В отличие от {@link Mutation}, событие различает добавление и замену элемента и содержит прежний элемент,
+ * что нужно получателям, которые поддерживают собственные копии данных (кэши, поисковые индексы).
+ * События нумеруются подряд; пропуск номеров означает, что подписчик не успевал обрабатывать события
+ * и часть из них была отброшена.
+ */
+public final class ChangeEvent {
+    /**
+     * Вид события.
+     */
+    public enum Type {
+        /** Добавление элемента */
+        INSERT,
+        /** Замена элемента по ключу */
+        UPDATE,
+        /** Удаление элемента по ключу */
+        REMOVE,
+        /** Удаление всех элементов, ключ которых меньше заданного */
+        REMOVE_RANGE,
+        /** Удаление всех элементов */
+        CLEAR
+    }
+
+    /**
+     * Хранит номер события.
+     */
+    private final long sequence;
+    /**
+     * Хранит вид события.
+     */
+    private final Type type;
+    /**
+     * Хранит ключ (для {@link Type#REMOVE_RANGE} - граничное значение, не включается; {@code null} для {@link Type#CLEAR}).
+     */
+    private final Long key;
+    /**
+     * Хранит новый элемент ({@code null}, кроме {@link Type#INSERT} и {@link Type#UPDATE}).
+     */
+    private final MusicBand band;
+    /**
+     * Хранит прежний элемент ({@code null}, кроме {@link Type#UPDATE} и {@link Type#REMOVE}).
+     */
+    private final MusicBand previous;
+
+    /**
+     * Создает событие.
+     * @param sequence Номер события
+     * @param type Вид события
+     * @param key Ключ
+     * @param band Новый элемент
+     * @param previous Прежний элемент
+     */
+    private ChangeEvent(long sequence, Type type, Long key, MusicBand band, MusicBand previous){
+        this.sequence = sequence;
+        this.type = type;
+        this.key = key;
+        this.band = band;
+        this.previous = previous;
+    }
+
+    /**
+     * Создает событие по изменению коллекции.
+     * @param sequence Номер события
+     * @param mutation Изменение
+     * @return событие
+     */
+    static ChangeEvent of(long sequence, Mutation mutation){
+        return switch (mutation.getType()){
+            case PUT -> new ChangeEvent(sequence, mutation.getPrevious() == null ? Type.INSERT : Type.UPDATE,
+                    mutation.getKey(), mutation.getBand(), mutation.getPrevious());
+            case REMOVE -> new ChangeEvent(sequence, Type.REMOVE, mutation.getKey(), null, mutation.getPrevious());
+            case REMOVE_LOWER_KEY -> new ChangeEvent(sequence, Type.REMOVE_RANGE, mutation.getKey(), null, null);
+            case CLEAR -> new ChangeEvent(sequence, Type.CLEAR, null, null, null);
+        };
+    }
+
+    /**
+     * Возвращает номер события.
+     * @return номер (события одного источника нумеруются подряд, начиная с 1)
+     */
+    public long getSequence(){return sequence;}
+
+    /**
+     * Возвращает вид события.
+     * @return вид события
+     */
+    public Type getType(){return type;}
+
+    /**
+     * Возвращает ключ.
+     * @return ключ элемента, граничное значение для {@link Type#REMOVE_RANGE} или {@code null} для {@link Type#CLEAR}
+     */
+    public Long getKey(){return key;}
+
+    /**
+     * Возвращает новый элемент.
+     * @return элемент для {@link Type#INSERT} и {@link Type#UPDATE}, иначе {@code null}
+     */
+    public MusicBand getBand(){return band;}
+
+    /**
+     * Возвращает прежний элемент.
+     * @return замененный элемент для {@link Type#UPDATE}, удаленный для {@link Type#REMOVE}, иначе {@code null}
+     */
+    public MusicBand getPrevious(){return previous;}
+
+    @Override
+    public String toString(){
+        return "#" + sequence + " " + switch (type){
+            case INSERT, UPDATE -> type + " key=" + key + ": " + band;
+            case REMOVE -> type + " key=" + key;
+            case REMOVE_RANGE -> type + " key < " + key;
+            case CLEAR -> type.toString();
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Источник событий изменения коллекции {@link ChangeEvent} по протоколу {@link java.util.concurrent.Flow}.
+ * <p>
+ * События доставляются подписчикам через {@link SubmissionPublisher}: у каждого подписчика свой буфер
+ * на {@link ChangeFeed#BUFFER_SIZE} событий, и подписчик получает не больше событий, чем запросил.
+ * Поток, изменивший коллекцию, только кладет событие в буферы и не ждет подписчиков: если буфер медленного
+ * подписчика заполнен, событие для него отбрасывается (подписчик узнает об этом по пропуску номеров).
+ * <p>
+ * Источник регистрируется получателем изменений хранилища только при наличии подписчиков: без них изменения
+ * не создаются ({@link TreeMapStore}) и запись в коллекцию не замедляется.
+ */
+final class ChangeFeed implements Flow.Publisher<ChangeEvent>, MutationListener {
+    /**
+     * Хранит размер буфера событий каждого подписчика.
+     */
+    static final int BUFFER_SIZE = 1024;
+    /**
+     * Хранит хранилище, изменения которого публикуются.
+     */
+    private final TreeMapStore store;
+    /**
+     * Хранит объект, доставляющий события подписчикам.
+     */
+    private final SubmissionPublisher<ChangeEvent> publisher;
+    /**
+     * Хранит признак регистрации источника получателем изменений хранилища.
+     */
+    private boolean attached;
+    /**
+     * Хранит номер последнего события (изменяется только потоком, изменяющим коллекцию).
+     */
+    private volatile long sequence;
+
+    /**
+     * Создает источник событий над хранилищем. Потоки доставки создаются по мере появления подписчиков.
+     * @param store Хранилище
+     */
+    ChangeFeed(TreeMapStore store){
+        this.store = store;
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new SubmissionPublisher<>(executor, BUFFER_SIZE);
+    }
+
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber){
+        publisher.subscribe(subscriber);
+        if(!attached){
+            store.addListener(this);
+            attached = true;
+        }
+    }
+
+    @Override
+    public void onMutation(Mutation mutation){
+        if(!publisher.hasSubscribers()){
+            detach();
+            return;
+        }
+        long next = sequence + 1;
+        sequence = next;
+        publisher.offer(ChangeEvent.of(next, mutation), (subscriber, event) -> false);
+    }
+
+    /**
+     * Возвращает номер последнего опубликованного события.
+     * @return номер события или 0, если событий не было
+     */
+    long getSequence(){return sequence;}
+
+    /**
+     * Отменяет регистрацию источника, если все подписчики отменили подписку.
+     */
+    private synchronized void detach(){
+        if(attached && !publisher.hasSubscribers()){
+            store.removeListener(this);
+            attached = false;
+        }
+    }
+}
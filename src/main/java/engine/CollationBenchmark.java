@@ -0,0 +1,120 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+
+import java.text.Collator;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Измеряет время упорядочивания элементов по названию: сравнением строк по кодам символов, сравнением
+ * объектом {@link Collator}, сортировкой по заранее вычисленным ключам сравнения и чтением из индекса по этим ключам
+ * (так работает print_ascending в режиме {@code --collation}).
+ * <p>
+ * Названия составляются из русских и английских слов в разном регистре, часть из них начинается с ё и е.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar engine.CollationBenchmark [bands] [languageTag]}
+ */
+public class CollationBenchmark {
+    /**
+     * Хранит словарь названий.
+     */
+    private static final String[] WORDS = {
+            "Кино", "ёлка", "Ежи", "алиса", "Аквариум", "звери", "Сплин", "би-2", "Ленинград", "ария",
+            "Beatles", "abba", "Queen", "nirvana", "Muse", "eagles", "Östra", "Zebra", "Émile", "kiss"
+    };
+    /**
+     * Хранит количество повторов каждого измерения.
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Запускает измерение.
+     * @param args количество элементов и язык
+     */
+    public static void main(String[] args){
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Locale locale = Locale.forLanguageTag(args.length > 1 ? args[1] : "ru-RU");
+        TreeMap<Long, MusicBand> bands = generate(size, new Random(42));
+        Collator collator = Collator.getInstance(locale);
+        List<MusicBand> values = new ArrayList<>(bands.values());
+
+        System.out.printf("Bands: %d, locale: %s%n", size, locale.toLanguageTag());
+        System.out.printf("%-28s %12s%n", "method", "best, ms");
+        measure("String.compareTo", () -> sorted(values, Comparator.naturalOrder()));
+        measure("Collator.compare", () -> sorted(values, (a, b) -> collator.compare(a.getName(), b.getName())));
+
+        // Первое обращение вычисляет ключи, последующие используют сохраненные в элементах
+        long begin = System.nanoTime();
+        for(MusicBand band : values){
+            band.getCollationKey(collator);
+        }
+        System.out.printf("%-28s %12.1f%n", "computing collation keys", (System.nanoTime() - begin) / 1e6);
+        List<MusicBand> byKeys = sorted(values, Comparator.comparing(band -> band.getCollationKey(collator)));
+        measure("sort by cached keys", () -> sorted(values, Comparator.comparing(band -> band.getCollationKey(collator))));
+
+        TreeMapStore store = new TreeMapStore(bands);
+        begin = System.nanoTime();
+        store.setCollator(collator);
+        System.out.printf("%-28s %12.1f%n", "collation index build", (System.nanoTime() - begin) / 1e6);
+        List<MusicBand> fromIndex = TopK.fromIndex(store.getCollationIndex().range(null, false, null, false), Integer.MAX_VALUE);
+        measure("read from collation index",
+                () -> TopK.fromIndex(store.getCollationIndex().range(null, false, null, false), Integer.MAX_VALUE));
+        if(!fromIndex.equals(byKeys)){
+            throw new IllegalStateException("Index order differs from sort by collation keys");
+        }
+    }
+
+    /**
+     * Выполняет действие несколько раз и выводит наименьшее время.
+     * @param name Описание действия
+     * @param action Действие
+     */
+    private static void measure(String name, Runnable action){
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < RUNS; i++){
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %12.1f%n", name, best / 1e6);
+    }
+
+    /**
+     * Возвращает новый упорядоченный список элементов.
+     * @param values Элементы
+     * @param order Порядок
+     * @return упорядоченный список
+     */
+    private static List<MusicBand> sorted(List<MusicBand> values, Comparator<MusicBand> order){
+        List<MusicBand> copy = new ArrayList<>(values);
+        copy.sort(order);
+        return copy;
+    }
+
+    /**
+     * Создает коллекцию со случайными названиями.
+     * @param size Количество элементов
+     * @param random Генератор случайных чисел
+     * @return коллекция
+     */
+    private static TreeMap<Long, MusicBand> generate(int size, Random random){
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        ZonedDateTime now = ZonedDateTime.now();
+        MusicGenre[] genres = MusicGenre.values();
+        for(long key = 1; key <= size; key++){
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1000);
+            bands.put(key, new MusicBand(key, random.nextInt(3) == 0 ? name.toUpperCase() : name, new Coordinates(1.0, 1), now,
+                    1 + random.nextInt(50), "description", genres[random.nextInt(genres.length)], new Studio("studio")));
+        }
+        return bands;
+    }
+}
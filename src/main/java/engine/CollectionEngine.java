@@ -0,0 +1,705 @@
+package engine;
+
+import classes.MusicBand;
+import query.Expression;
+import query.Field;
+import query.GroupBy;
+import utils.ReaderCSV;
+import utils.WriterCSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static classes.MusicBand.compareByDateAndName;
+
+/**
+ * Консольно-независимое ядро для работы с коллекцией объектов типа {@link classes.MusicBand}.
+ * <p>
+ * Методы класса не выводят ничего на консоль, не читают данные из консоли и не завершают программу,
+ * а возвращают типизированные результаты ({@link Result}, {@link CollectionInfo}, списки элементов).
+ * Названия методов совпадают с названиями соответствующих команд.
+ * <p>
+ * После вызова {@link CollectionEngine#begin()} все изменения накапливаются в транзакции и не видны в коллекции
+ * до вызова {@link CollectionEngine#commit()}; {@link CollectionEngine#rollback()} отменяет их.
+ * <p>
+ * Ядро не потокобезопасно. Если к нему обращаются несколько потоков (сетевые адаптеры, репликация), каждое обращение
+ * выполняется под блокировкой {@link CollectionEngine#getLock()}. О зафиксированных изменениях сообщается получателям
+ * {@link MutationListener}; в режиме "только чтение" команды, изменяющие коллекцию, возвращают {@link ResultCode#READ_ONLY},
+ * а изменения применяются только через {@link CollectionEngine#apply(Mutation)}.
+ * @see commands.Executor
+ * @see Result
+ */
+public class CollectionEngine {
+    /**
+     * Хранит коллекцию типа {@link java.util.TreeMap} значений типа {@link classes.MusicBand}.
+     */
+    private final TreeMap<Long, MusicBand> musicBands;
+    /**
+     * Хранит хранилище, через которое выполняются операции: сама коллекция или активная транзакция.
+     */
+    private BandStore store;
+    /**
+     * Хранит хранилище {@link TreeMapStore} над коллекцией, используемое вне транзакции.
+     */
+    private final TreeMapStore committed;
+    /**
+     * Хранит активную транзакцию ({@code null}, если транзакция не начата).
+     */
+    private Transaction transaction;
+    /**
+     * Хранит дату создания коллекции.
+     */
+    private final ZonedDateTime initializationDate;
+    /**
+     * Хранит ссылку на CSV-файл с коллекцией (может быть {@code null}).
+     */
+    private final File file_csv;
+    /**
+     * Хранит блокировку, разделяющую доступ к ядру между потоками.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Хранит признак режима "только чтение".
+     */
+    private volatile boolean readOnly;
+    /**
+     * Хранит источник описания состояния репликации ({@code null}, если репликация не настроена).
+     */
+    private volatile Supplier<String> replicationStatus;
+    /**
+     * Хранит источник данных журнала репликации для оценки памяти ({@code null}, если процесс не основной в репликации).
+     */
+    private volatile Supplier<ReplicationFootprint> replicationFootprint;
+    /**
+     * Хранит правила сравнения названий ({@code null} - сравнение по кодам символов).
+     */
+    private Collator collator;
+    /**
+     * Хранит язык правил сравнения названий ({@code null} - сравнение по кодам символов).
+     */
+    private Locale collationLocale;
+    /**
+     * Хранит источник событий изменения коллекции.
+     */
+    private final ChangeFeed changeFeed;
+    /**
+     * Хранит количество элементов, добавленных, замененных или удаленных командами ядра (изменяется под блокировкой записи).
+     */
+    private long changedRows;
+
+    /**
+     * Создает ядро и считывает коллекцию из указанного CSV-файла.
+     * @param file_csv CSV-файл для хранения коллекции
+     */
+    public CollectionEngine(File file_csv){
+        this(ReaderCSV.loadFromFile(file_csv), file_csv);
+    }
+
+    /**
+     * Создает ядро над указанной коллекцией.
+     * @param musicBands Коллекция музыкальных групп (не может быть {@code null})
+     * @param file_csv CSV-файл для сохранения коллекции (может быть {@code null}, если сохранение не требуется)
+     * @throws IllegalArgumentException если коллекция равна {@code null}
+     */
+    public CollectionEngine(TreeMap<Long, MusicBand> musicBands, File file_csv){
+        if(musicBands == null){
+            throw new IllegalArgumentException("Collection cannot be null");
+        }
+        this.musicBands = musicBands;
+        this.committed = new TreeMapStore(musicBands);
+        this.store = committed;
+        this.changeFeed = new ChangeFeed(committed);
+        this.file_csv = file_csv;
+        initializationDate = ZonedDateTime.now();
+    }
+
+    /**
+     * Возвращает информацию о коллекции.
+     * @return снимок информации о коллекции
+     */
+    public CollectionInfo info(){
+        Supplier<String> replication = replicationStatus;
+        return new CollectionInfo("TreeMap<Long, MusicBand>", initializationDate, store.size(), store.firstKey(), store.lastKey(),
+                replication == null ? null : replication.get());
+    }
+
+    /**
+     * Оценивает память, удерживаемую коллекцией, ее индексами и, в основном процессе репликации, журналом изменений,
+     * по модели размещения объектов. Изменения незафиксированной транзакции не учитываются.
+     * @return оценка памяти
+     */
+    public MemoryEstimate memory(){
+        Supplier<ReplicationFootprint> replication = replicationFootprint;
+        return MemoryEstimate.compute(musicBands, committed, replication == null ? null : replication.get());
+    }
+
+    /**
+     * Возвращает все элементы коллекции в порядке возрастания ключей.
+     * @return неизменяемое представление элементов коллекции (без копирования)
+     */
+    public Collection<MusicBand> show(){
+        return Collections.unmodifiableCollection(store.values());
+    }
+
+    /**
+     * Возвращает страницу элементов коллекции в порядке возрастания ключей.
+     * <p>
+     * Пример: {@code show(null, 100)} - первые 100 элементов, {@code show(lastKey, 100)} - следующие 100 элементов
+     * после элемента с ключом lastKey. Стоимость не зависит от номера страницы.
+     * @param afterKey Ключ, после которого начинается страница ({@code null} - с начала коллекции)
+     * @param limit Максимальное количество элементов на странице
+     * @return новый список элементов страницы
+     */
+    public List<MusicBand> show(Long afterKey, int limit){
+        Iterable<MusicBand> values = afterKey == null ? store.values() : store.tailValues(afterKey);
+        ArrayList<MusicBand> page = new ArrayList<>(Math.min(limit, 1024));
+        for(MusicBand band : values){
+            if(page.size() >= limit){
+                break;
+            }
+            page.add(band);
+        }
+        return page;
+    }
+
+    /**
+     * Возвращает количество элементов коллекции.
+     * @return количество элементов коллекции
+     */
+    public int size(){return store.size();}
+
+    /**
+     * Проверяет, содержит ли коллекция элемент с указанным ключом.
+     * @param key Ключ элемента
+     * @return true если коллекция содержит элемент с указанным ключом
+     */
+    public boolean containsKey(Long key){return store.containsKey(key);}
+
+    /**
+     * Возвращает элемент коллекции по указанному ключу.
+     * @param key Ключ элемента
+     * @return элемент коллекции или {@code null}, если элемента с таким ключом нет
+     */
+    public MusicBand get(Long key){return store.get(key);}
+
+    /**
+     * Удаляет все элементы коллекции.
+     * @return {@link ResultCode#EMPTY}, если коллекция пуста, иначе {@link ResultCode#OK} и количество удаленных элементов
+     */
+    public Result<Integer> clear(){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY, 0);
+        }
+        if(store.size() == 0){
+            return Result.of(ResultCode.EMPTY, 0);
+        }
+        int removed = store.clear();
+        changedRows += removed;
+        return Result.ok(removed);
+    }
+
+    /**
+     * Сохраняет коллекцию в CSV-файл. Изменения незафиксированной транзакции не сохраняются.
+     * @return {@link ResultCode#OK} и файл, в который сохранена коллекция
+     * @throws IOException если файл недоступен для записи
+     * @throws IllegalStateException если ядро создано без CSV-файла
+     */
+    public Result<File> save() throws IOException{
+        if(file_csv == null){
+            throw new IllegalStateException("The collection has no CSV file to save to");
+        }
+        WriterCSV.loadToFile(file_csv, musicBands);
+        return Result.ok(file_csv);
+    }
+
+    /**
+     * Записывает коллекцию в файл в формате JSON или NDJSON. Изменения незафиксированной транзакции не записываются.
+     * @param request Файл, формат и признак сжатия
+     * @return {@link ResultCode#OK} и количество записанных элементов, размер до и после сжатия и скорость записи
+     * @throws IOException если файл недоступен для записи
+     */
+    public Result<ExportSummary> export(JsonExport request) throws IOException{
+        return Result.ok(ExportSummary.write(request, musicBands.values()));
+    }
+
+    /**
+     * Возвращает элементы коллекции, отсортированные в порядке возрастания (по названию группы).
+     * @return новый список элементов
+     */
+    public List<MusicBand> print_ascending(){
+        return sortedByName(false);
+    }
+
+    /**
+     * Возвращает элементы коллекции, отсортированные в порядке убывания (по названию группы).
+     * @return новый список элементов
+     */
+    public List<MusicBand> print_descending(){
+        return sortedByName(true);
+    }
+
+    /**
+     * Возвращает элементы, упорядоченные по названию; элементы с равными названиями - по возрастанию ключа.
+     * В режиме сортировки с учетом языка названия сравниваются по ключам {@link java.text.CollationKey}: вне транзакции
+     * элементы читаются из индекса по этим ключам без сортировки, во время транзакции сортируются по ключам,
+     * вычисленным один раз для каждого элемента.
+     * @param descending true - по убыванию названий
+     * @return новый список элементов
+     */
+    private List<MusicBand> sortedByName(boolean descending){
+        if(collator != null && store == committed){
+            NavigableMap<CollationKey, TreeMap<Long, MusicBand>> groups = committed.getCollationIndex().range(null, false, null, false);
+            return TopK.fromIndex(descending ? groups.descendingMap() : groups, Integer.MAX_VALUE);
+        }
+        ArrayList<MusicBand> bands = new ArrayList<>(store.values());
+        Comparator<MusicBand> order;
+        if(collator == null){
+            order = Comparator.naturalOrder();
+        }else{
+            Collator current = collator;
+            order = Comparator.comparing(band -> band.getCollationKey(current));
+        }
+        bands.sort(descending ? order.reversed() : order);
+        return bands;
+    }
+
+    /**
+     * Включает сортировку названий по правилам языка (команды print_ascending и print_descending)
+     * или возвращает сравнение строк по кодам символов.
+     * @param locale Язык или {@code null} - сравнение по кодам символов ({@link String#compareTo(String)})
+     */
+    public void setCollation(Locale locale){
+        collator = locale == null ? null : Collator.getInstance(locale);
+        collationLocale = locale;
+        committed.setCollator(collator);
+    }
+
+    /**
+     * Возвращает язык, по правилам которого сортируются названия.
+     * @return язык или {@code null}, если названия сравниваются по кодам символов
+     */
+    public Locale getCollation(){return collationLocale;}
+
+    /**
+     * Удаляет элемент по указанному ключу.
+     * @param key Ключ удаляемого элемента
+     * @return {@link ResultCode#OK} и удаленный элемент или {@link ResultCode#KEY_NOT_FOUND}
+     */
+    public Result<MusicBand> remove_key(Long key){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY);
+        }
+        MusicBand band = store.remove(key);
+        if(band == null){
+            return Result.of(ResultCode.KEY_NOT_FOUND);
+        }
+        changedRows++;
+        return Result.ok(band);
+    }
+
+    /**
+     * Удаляет все элементы, ключ которых меньше, чем заданный.
+     * @param key Граничное значение ключа
+     * @return {@link ResultCode#OK} и количество удаленных элементов
+     */
+    public Result<Integer> remove_lower_key(Long key){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY, 0);
+        }
+        int removed = store.removeHead(key);
+        changedRows += removed;
+        return Result.ok(removed);
+    }
+
+    /**
+     * Возвращает элементы, значение поля name которых начинается с заданной подстроки.
+     * @param name Подстрока, с которой начинаются названия искомых групп
+     * @return новый список найденных элементов в порядке возрастания ключей
+     */
+    public List<MusicBand> filter_starts_with_name(String name){
+        ArrayList<MusicBand> bands = new ArrayList<>();
+        for(MusicBand band : store.values()){
+            if(band.getName().startsWith(name)){
+                bands.add(band);
+            }
+        }
+        return bands;
+    }
+
+    /**
+     * Выбирает план выполнения условия команды where (индекс или полный просмотр), не выполняя его.
+     * @param expression Условие
+     * @return план выполнения
+     */
+    public QueryPlan plan(Expression expression){
+        return QueryPlan.create(expression, committed, store);
+    }
+
+    /**
+     * Возвращает элементы, удовлетворяющие условию.
+     * @param expression Условие
+     * @return новый список найденных элементов в порядке возрастания ключей
+     * @see QueryPlan
+     */
+    public List<MusicBand> where(Expression expression){
+        return plan(expression).execute();
+    }
+
+    /**
+     * Возвращает элементы, в описании которых встречаются все слова запроса (без учета регистра, ё не отличается от е).
+     * Вне транзакции поиск выполняется по инвертированному индексу {@link TextIndex}, во время транзакции -
+     * просмотром коллекции.
+     * @param query Слова через пробел
+     * @return новый список найденных элементов в порядке возрастания ключей
+     */
+    public List<MusicBand> search_description(String query){
+        Set<String> terms = TextIndex.terms(query);
+        ArrayList<MusicBand> bands = new ArrayList<>();
+        if(terms.isEmpty()){
+            return bands;
+        }
+        if(store != committed){
+            for(MusicBand band : store.values()){
+                if(TextIndex.terms(band.getDescription()).containsAll(terms)){
+                    bands.add(band);
+                }
+            }
+            return bands;
+        }
+        for(long key : committed.getDescriptionIndex().search(terms)){
+            bands.add(committed.get(key));
+        }
+        return bands;
+    }
+
+    /**
+     * Находит элементы с названиями, похожими на запрос (с опечатками, без учета регистра).
+     * Вне транзакции кандидаты выбираются по индексу триграмм {@link TrigramIndex}, во время транзакции
+     * сходство вычисляется для всех элементов.
+     * @param query Запрос
+     * @param limit Наибольшее количество результатов
+     * @return не более limit результатов по убыванию сходства, затем по возрастанию расстояния редактирования и ключа
+     */
+    public List<NameMatch> search_name(String query, int limit){
+        if(store == committed){
+            return committed.searchName(query, limit);
+        }
+        String normalized = TrigramIndex.normalize(query);
+        long[] trigrams = TrigramIndex.trigrams(normalized);
+        List<NameMatch> matches = new ArrayList<>();
+        if(trigrams.length == 0){
+            return matches;
+        }
+        for(MusicBand band : store.values()){
+            NameMatch match = TrigramIndex.score(normalized, trigrams, band);
+            if(match != null){
+                matches.add(match);
+            }
+        }
+        matches.sort(NameMatch.ORDER);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Группирует элементы по значению поля и вычисляет агрегатные функции для каждой группы.
+     * Большие коллекции обрабатываются параллельно.
+     * @param groupBy Поле группировки и агрегатные функции
+     * @return результат группировки
+     * @see Aggregation
+     */
+    public Aggregation groupBy(GroupBy groupBy){
+        return Aggregation.compute(groupBy, store);
+    }
+
+    /**
+     * Возвращает элементы с наибольшими значениями поля. Элементы с равными значениями упорядочены по возрастанию ключа.
+     * Вне транзакции элементы читаются из индекса поля (для ключа и индексируемых полей),
+     * иначе выбираются кучей из count элементов без сортировки коллекции.
+     * @param field Поле
+     * @param count Количество элементов
+     * @return новый список не более чем из count элементов по убыванию значения поля
+     */
+    public List<MusicBand> top(Field field, int count){
+        if(store == committed){
+            if(field == Field.ID){
+                return TopK.first(committed.keyRange(null, false, null, false).descendingMap().values(), count);
+            }
+            SecondaryIndex<?> index = committed.getIndex(field);
+            if(index != null){
+                return TopK.fromIndex(index.range(null, false, null, false).descendingMap(), count);
+            }
+        }
+        return TopK.select(store.values(), TopK.descending(field), count);
+    }
+
+    /**
+     * Возвращает элементы с самыми ранними датами создания. Элементы с равными датами упорядочены по возрастанию ключа.
+     * @param count Количество элементов
+     * @return новый список не более чем из count элементов по возрастанию даты создания
+     */
+    public List<MusicBand> oldest(int count){
+        return TopK.select(store.values(), Comparator.comparing(MusicBand::getCreationDate).thenComparing(MusicBand::getId), count);
+    }
+
+    /**
+     * Возвращает элементы с самыми поздними датами создания. Элементы с равными датами упорядочены по возрастанию ключа.
+     * @param count Количество элементов
+     * @return новый список не более чем из count элементов по убыванию даты создания
+     */
+    public List<MusicBand> newest(int count){
+        return TopK.select(store.values(), Comparator.comparing(MusicBand::getCreationDate).reversed().thenComparing(MusicBand::getId), count);
+    }
+
+    /**
+     * Вставляет элемент по указанному ключу. Значение id элемента заменяется на ключ.
+     * @param key Ключ для нового элемента
+     * @param band Новый элемент
+     * @return {@link ResultCode#OK} и вставленный элемент, {@link ResultCode#KEY_EXISTS} или {@link ResultCode#INVALID_ELEMENT}
+     */
+    public Result<MusicBand> insert(Long key, MusicBand band){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY);
+        }
+        if(store.containsKey(key)){
+            return Result.of(ResultCode.KEY_EXISTS);
+        }
+        if(band == null){
+            return Result.of(ResultCode.INVALID_ELEMENT);
+        }
+        band.setId(key);
+        store.put(key, band);
+        changedRows++;
+        return Result.ok(band);
+    }
+
+    /**
+     * Заменяет элемент с указанным ключом на новый. Значение id нового элемента заменяется на ключ.
+     * @param id Ключ элемента, который нужно заменить
+     * @param band Новый элемент
+     * @return {@link ResultCode#OK} и замененный (старый) элемент, {@link ResultCode#KEY_NOT_FOUND} или {@link ResultCode#INVALID_ELEMENT}
+     */
+    public Result<MusicBand> update(Long id, MusicBand band){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY);
+        }
+        if(!store.containsKey(id)){
+            return Result.of(ResultCode.KEY_NOT_FOUND);
+        }
+        if(band == null){
+            return Result.of(ResultCode.INVALID_ELEMENT);
+        }
+        band.setId(id);
+        changedRows++;
+        return Result.ok(store.put(id, band));
+    }
+
+    /**
+     * Удаляет все элементы, сравнение которых с заданным по {@link MusicBand#compareByDateAndName} дает положительный результат.
+     * @param band Элемент для сравнения
+     * @return {@link ResultCode#OK} и количество удаленных элементов, {@link ResultCode#EMPTY} или {@link ResultCode#INVALID_ELEMENT}
+     */
+    public Result<Integer> remove_lower(MusicBand band){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY, 0);
+        }
+        if(store.size() == 0){
+            return Result.of(ResultCode.EMPTY, 0);
+        }
+        if(band == null){
+            return Result.of(ResultCode.INVALID_ELEMENT, 0);
+        }
+        int removed = store.removeIf(musicBand -> compareByDateAndName.compare(musicBand, band) > 0);
+        changedRows += removed;
+        return Result.ok(removed);
+    }
+
+    /**
+     * Заменяет элемент по ключу, если новое значение меньше старого (по {@link MusicBand#compareByDateAndName}).
+     * @param key Ключ элемента, который нужно перезаписать
+     * @param band Новый элемент
+     * @return {@link ResultCode#OK} и новый элемент, {@link ResultCode#NOT_REPLACED}, {@link ResultCode#EMPTY},
+     * {@link ResultCode#KEY_NOT_FOUND} или {@link ResultCode#INVALID_ELEMENT}
+     */
+    public Result<MusicBand> replace_if_lower(Long key, MusicBand band){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY);
+        }
+        if(store.size() == 0){
+            return Result.of(ResultCode.EMPTY);
+        }
+        MusicBand oldBand = store.get(key);
+        if(oldBand == null){
+            return Result.of(ResultCode.KEY_NOT_FOUND);
+        }
+        if(band == null){
+            return Result.of(ResultCode.INVALID_ELEMENT);
+        }
+        band.setId(key);
+        if(compareByDateAndName.compare(oldBand, band) > 0){
+            store.put(key, band);
+            changedRows++;
+            return Result.ok(band);
+        }
+        return Result.of(ResultCode.NOT_REPLACED, oldBand);
+    }
+
+    /**
+     * Добавляет в коллекцию элементы из CSV-файла. Строки файла преобразуются в элементы параллельно,
+     * изменения применяются одним пакетом (во время транзакции - к транзакции).
+     * @param request Файл и правило для строк, id которых уже есть в коллекции
+     * @return {@link ResultCode#OK} и количество добавленных, замененных, пропущенных и отклоненных строк
+     * или {@link ResultCode#READ_ONLY}
+     * @throws IOException если файл недоступен для чтения или нарушен формат CSV
+     */
+    public Result<ImportSummary> import_csv(CsvImport request) throws IOException{
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY);
+        }
+        ImportSummary summary = ImportSummary.merge(request, store);
+        changedRows += summary.getInserted() + summary.getReplaced();
+        return Result.ok(summary);
+    }
+
+    /**
+     * Начинает транзакцию. До фиксации изменения видны только через этот объект и не попадают в коллекцию.
+     * @return {@link ResultCode#OK}, {@link ResultCode#TRANSACTION_ACTIVE}, если транзакция уже начата,
+     * или {@link ResultCode#READ_ONLY}
+     */
+    public Result<Void> begin(){
+        if(readOnly){
+            return Result.of(ResultCode.READ_ONLY);
+        }
+        if(transaction != null){
+            return Result.of(ResultCode.TRANSACTION_ACTIVE);
+        }
+        transaction = new Transaction(musicBands);
+        store = transaction;
+        return Result.ok(null);
+    }
+
+    /**
+     * Фиксирует транзакцию: применяет все ее изменения к коллекции за один вызов.
+     * @return {@link ResultCode#OK} и количество примененных изменений или {@link ResultCode#NO_TRANSACTION}
+     */
+    public Result<Integer> commit(){
+        if(transaction == null){
+            return Result.of(ResultCode.NO_TRANSACTION, 0);
+        }
+        int operations = transaction.commit(committed);
+        transaction = null;
+        store = committed;
+        return Result.ok(operations);
+    }
+
+    /**
+     * Откатывает транзакцию: отбрасывает все ее изменения, коллекция не изменяется.
+     * @return {@link ResultCode#OK} и количество отмененных изменений или {@link ResultCode#NO_TRANSACTION}
+     */
+    public Result<Integer> rollback(){
+        if(transaction == null){
+            return Result.of(ResultCode.NO_TRANSACTION, 0);
+        }
+        int operations = transaction.getOperations();
+        transaction = null;
+        store = committed;
+        return Result.ok(operations);
+    }
+
+    /**
+     * Проверяет, начата ли транзакция.
+     * @return true если транзакция начата и не зафиксирована или не отменена
+     */
+    public boolean inTransaction(){return transaction != null;}
+
+    /**
+     * Добавляет получателя изменений. Получатель узнает об изменениях, примененных вне транзакции,
+     * и об изменениях транзакции при ее фиксации.
+     * @param listener Получатель изменений
+     */
+    public void addMutationListener(MutationListener listener){committed.addListener(listener);}
+
+    /**
+     * Удаляет получателя изменений.
+     * @param listener Получатель изменений
+     */
+    public void removeMutationListener(MutationListener listener){committed.removeListener(listener);}
+
+    /**
+     * Возвращает источник событий изменения коллекции. Подписчик получает события об изменениях, примененных
+     * вне транзакции, об изменениях транзакции при ее фиксации и об изменениях, полученных от другого процесса.
+     * Подписчик, который не успевает обрабатывать события, пропускает часть из них, но не задерживает изменения коллекции.
+     * @return источник событий
+     */
+    public Flow.Publisher<ChangeEvent> changes(){return changeFeed;}
+
+    /**
+     * Возвращает номер последнего события изменения коллекции, переданного подписчикам.
+     * @return номер события ({@link ChangeEvent#getSequence()}) или 0, если событий не было
+     */
+    public long lastChangeSequence(){return changeFeed.getSequence();}
+
+    /**
+     * Возвращает количество элементов, добавленных, замененных или удаленных командами ядра с момента его создания,
+     * включая изменения в транзакциях (фиксация и откат транзакции, а также изменения от основного процесса
+     * репликации не учитываются). Разность значений до и после команды - количество измененных ею элементов.
+     * @return количество элементов
+     */
+    public long changedRows(){return changedRows;}
+
+    /**
+     * Применяет изменение к зафиксированному состоянию коллекции, в том числе в режиме "только чтение".
+     * Используется для применения изменений, полученных от другого процесса.
+     * @param mutation Изменение
+     * @throws IllegalStateException если начата транзакция
+     */
+    public void apply(Mutation mutation){
+        if(transaction != null){
+            throw new IllegalStateException("Cannot apply a mutation during a transaction");
+        }
+        switch (mutation.getType()){
+            case PUT -> committed.put(mutation.getKey(), mutation.getBand());
+            case REMOVE -> committed.remove(mutation.getKey());
+            case REMOVE_LOWER_KEY -> committed.removeHead(mutation.getKey());
+            case CLEAR -> committed.clear();
+        }
+    }
+
+    /**
+     * Включает или выключает режим "только чтение".
+     * @param readOnly true - команды, изменяющие коллекцию, возвращают {@link ResultCode#READ_ONLY}
+     */
+    public void setReadOnly(boolean readOnly){this.readOnly = readOnly;}
+
+    /**
+     * Проверяет, включен ли режим "только чтение".
+     * @return true, если коллекцию можно изменить только через {@link CollectionEngine#apply(Mutation)}
+     */
+    public boolean isReadOnly(){return readOnly;}
+
+    /**
+     * Устанавливает источник описания состояния репликации, которое выводится командой info.
+     * @param replicationStatus Источник описания или {@code null}
+     */
+    public void setReplicationStatus(Supplier<String> replicationStatus){this.replicationStatus = replicationStatus;}
+
+    /**
+     * Устанавливает источник данных журнала репликации, которые учитываются командой memory.
+     * @param replicationFootprint Источник данных или {@code null}
+     */
+    public void setReplicationFootprint(Supplier<ReplicationFootprint> replicationFootprint){this.replicationFootprint = replicationFootprint;}
+
+    /**
+     * Возвращает блокировку для потоков, разделяющих ядро: чтения выполняются под блокировкой чтения,
+     * команды, которые могут изменить коллекцию, - под блокировкой записи.
+     * @return блокировка ядра
+     */
+    public ReadWriteLock getLock(){return lock;}
+}
@@ -0,0 +1,100 @@
+package engine;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Неизменяемый снимок информации о коллекции: тип, дата инициализации, размер, первый и последний ключ
+ * и состояние репликации.
+ */
+public final class CollectionInfo {
+    /**
+     * Тип коллекции.
+     */
+    private final String type;
+    /**
+     * Дата инициализации коллекции.
+     */
+    private final ZonedDateTime initializationDate;
+    /**
+     * Количество элементов коллекции.
+     */
+    private final int size;
+    /**
+     * Первый ключ коллекции ({@code null}, если коллекция пуста).
+     */
+    private final Long firstKey;
+    /**
+     * Последний ключ коллекции ({@code null}, если коллекция пуста).
+     */
+    private final Long lastKey;
+    /**
+     * Состояние репликации ({@code null}, если репликация не настроена).
+     */
+    private final String replication;
+
+    /**
+     * Создает снимок информации о коллекции по указанным параметрам.
+     * @param type Тип коллекции
+     * @param initializationDate Дата инициализации коллекции
+     * @param size Количество элементов коллекции
+     * @param firstKey Первый ключ коллекции (может быть {@code null})
+     * @param lastKey Последний ключ коллекции (может быть {@code null})
+     */
+    public CollectionInfo(String type, ZonedDateTime initializationDate, int size, Long firstKey, Long lastKey){
+        this(type, initializationDate, size, firstKey, lastKey, null);
+    }
+
+    /**
+     * Создает снимок информации о коллекции по указанным параметрам.
+     * @param type Тип коллекции
+     * @param initializationDate Дата инициализации коллекции
+     * @param size Количество элементов коллекции
+     * @param firstKey Первый ключ коллекции (может быть {@code null})
+     * @param lastKey Последний ключ коллекции (может быть {@code null})
+     * @param replication Состояние репликации (может быть {@code null})
+     */
+    public CollectionInfo(String type, ZonedDateTime initializationDate, int size, Long firstKey, Long lastKey, String replication){
+        this.type = type;
+        this.initializationDate = initializationDate;
+        this.size = size;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
+        this.replication = replication;
+    }
+
+    /**
+     * Возвращает тип коллекции.
+     * @return тип коллекции
+     */
+    public String getType(){return type;}
+
+    /**
+     * Возвращает дату инициализации коллекции.
+     * @return дата инициализации коллекции
+     */
+    public ZonedDateTime getInitializationDate(){return initializationDate;}
+
+    /**
+     * Возвращает количество элементов коллекции.
+     * @return количество элементов коллекции
+     */
+    public int getSize(){return size;}
+
+    /**
+     * Возвращает первый ключ коллекции.
+     * @return первый ключ коллекции или {@code null}, если коллекция пуста
+     */
+    public Long getFirstKey(){return firstKey;}
+
+    /**
+     * Возвращает последний ключ коллекции.
+     * @return последний ключ коллекции или {@code null}, если коллекция пуста
+     */
+    public Long getLastKey(){return lastKey;}
+
+    /**
+     * Возвращает состояние репликации: роль процесса и отставание реплик.
+     * @return описание состояния репликации или {@code null}, если репликация не настроена
+     */
+    public String getReplication(){return replication;}
+}
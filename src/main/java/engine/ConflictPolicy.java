@@ -0,0 +1,53 @@
+package engine;
+
+import classes.MusicBand;
+
+/**
+ * Перечисление правил команды import_csv для строк, id которых уже есть в коллекции.
+ */
+public enum ConflictPolicy {
+    /**
+     * Элемент коллекции сохраняется, строка файла пропускается.
+     */
+    SKIP,
+    /**
+     * Элемент коллекции заменяется строкой файла.
+     */
+    OVERWRITE,
+    /**
+     * Элемент коллекции заменяется, если дата создания в строке файла позже.
+     */
+    NEWER;
+
+    /**
+     * Проверяет, заменяет ли импортируемый элемент имеющийся.
+     * @param existing Элемент коллекции
+     * @param imported Элемент из файла с тем же id
+     * @return true, если элемент коллекции нужно заменить
+     */
+    public boolean replaces(MusicBand existing, MusicBand imported){
+        return switch (this){
+            case SKIP -> false;
+            case OVERWRITE -> true;
+            case NEWER -> imported.getCreationDate().isAfter(existing.getCreationDate());
+        };
+    }
+
+    /**
+     * Находит правило по названию без учета регистра.
+     * @param name Название правила (skip, overwrite или newer)
+     * @return правило
+     * @throws IllegalArgumentException если правила с таким названием нет
+     */
+    public static ConflictPolicy fromName(String name){
+        for(ConflictPolicy policy : values()){
+            if(policy.name().equalsIgnoreCase(name)){
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("unknown conflict policy '" + name + "', expected skip, overwrite or newer");
+    }
+
+    @Override
+    public String toString(){return name().toLowerCase();}
+}
@@ -0,0 +1,80 @@
+package engine;
+
+import java.io.File;
+
+/**
+ * Аргумент команды import_csv: CSV-файл и правило для строк, id которых уже есть в коллекции.
+ * <p>
+ * Формат: {@code файл [--on-conflict skip|overwrite|newer]}, например {@code bands.csv --on-conflict newer}.
+ * По умолчанию строки с имеющимися id пропускаются.
+ */
+public final class CsvImport {
+    /**
+     * Хранит флаг правила.
+     */
+    private static final String ON_CONFLICT = "--on-conflict";
+    /**
+     * Хранит CSV-файл в формате {@link utils.ReaderCSV}.
+     */
+    private final File file;
+    /**
+     * Хранит правило для строк с имеющимися id.
+     */
+    private final ConflictPolicy policy;
+
+    /**
+     * Создает аргумент команды import_csv.
+     * @param file CSV-файл
+     * @param policy Правило для строк с имеющимися id
+     */
+    public CsvImport(File file, ConflictPolicy policy){
+        this.file = file;
+        this.policy = policy;
+    }
+
+    /**
+     * Возвращает CSV-файл.
+     * @return файл
+     */
+    public File getFile(){return file;}
+
+    /**
+     * Возвращает правило для строк с имеющимися id.
+     * @return правило
+     */
+    public ConflictPolicy getPolicy(){return policy;}
+
+    /**
+     * Разбирает аргумент команды import_csv.
+     * @param text Строка {@code файл [--on-conflict правило]}
+     * @return разобранный аргумент
+     * @throws IllegalArgumentException если имя файла не указано, файл недоступен для чтения или правило указано неверно
+     */
+    public static CsvImport parse(String text){
+        String fileName = text == null ? "" : text.trim();
+        ConflictPolicy policy = ConflictPolicy.SKIP;
+        int flag = fileName.lastIndexOf(ON_CONFLICT);
+        if(flag >= 0 && (flag == 0 || fileName.charAt(flag - 1) == ' ')){
+            String[] words = fileName.substring(flag + ON_CONFLICT.length()).trim().split("\\s+");
+            if(words.length != 1 || words[0].isEmpty()){
+                throw new IllegalArgumentException("expected 'file [--on-conflict skip|overwrite|newer]'");
+            }
+            policy = ConflictPolicy.fromName(words[0]);
+            fileName = fileName.substring(0, flag).trim();
+        }
+        if(fileName.isEmpty()){
+            throw new IllegalArgumentException("CSV file name cannot be empty");
+        }
+        File file = new File(fileName);
+        if(!file.isFile()){
+            throw new IllegalArgumentException("CSV file '" + fileName + "' does not exist");
+        }
+        if(!file.canRead()){
+            throw new IllegalArgumentException("CSV file '" + fileName + "' is not readable");
+        }
+        return new CsvImport(file, policy);
+    }
+
+    @Override
+    public String toString(){return file + " " + ON_CONFLICT + " " + policy;}
+}
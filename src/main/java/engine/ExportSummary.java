@@ -0,0 +1,99 @@
+package engine;
+
+import classes.MusicBand;
+import utils.WriterJSON;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Результат команды export: количество записанных элементов, размер JSON до и после сжатия и скорость записи.
+ */
+public final class ExportSummary {
+    /**
+     * Хранит аргумент команды.
+     */
+    private final JsonExport request;
+    /**
+     * Хранит количество записанных элементов.
+     */
+    private final int size;
+    /**
+     * Хранит размер JSON в байтах до сжатия.
+     */
+    private final long jsonBytes;
+    /**
+     * Хранит размер файла в байтах.
+     */
+    private final long fileBytes;
+    /**
+     * Хранит время записи в наносекундах.
+     */
+    private final long nanos;
+
+    /**
+     * Создает результат.
+     * @param request Аргумент команды
+     * @param size Количество записанных элементов
+     * @param jsonBytes Размер JSON до сжатия
+     * @param fileBytes Размер файла
+     * @param nanos Время записи в наносекундах
+     */
+    private ExportSummary(JsonExport request, int size, long jsonBytes, long fileBytes, long nanos){
+        this.request = request;
+        this.size = size;
+        this.jsonBytes = jsonBytes;
+        this.fileBytes = fileBytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Записывает элементы в файл.
+     * @param request Аргумент команды
+     * @param bands Элементы
+     * @return результат
+     * @throws IOException если файл недоступен для записи
+     */
+    static ExportSummary write(JsonExport request, Collection<MusicBand> bands) throws IOException{
+        long start = System.nanoTime();
+        long jsonBytes = WriterJSON.exportToFile(request.getFile(), bands, request.isNdjson(), request.isGzip());
+        long nanos = System.nanoTime() - start;
+        return new ExportSummary(request, bands.size(), jsonBytes, request.getFile().length(), nanos);
+    }
+
+    /**
+     * Возвращает описание результата для вывода.
+     * @return строка вида {@code Exported 3000 music groups to 'bands.ndjson' (ndjson, gzip) in 0.120 s: 1.20 MB JSON,
+     * 10.0 MB/s, 0.15 MB on disk, compression ratio 8.00}
+     */
+    public String describe(){
+        double seconds = nanos / 1e9;
+        double megabytes = jsonBytes / 1e6;
+        StringBuilder text = new StringBuilder(String.format("Exported %d music groups to '%s' (%s%s) in %.3f s: %.2f MB JSON, %.1f MB/s",
+                size, request.getFile(), request.isNdjson() ? "ndjson" : "json", request.isGzip() ? ", gzip" : "",
+                seconds, megabytes, seconds > 0 ? megabytes / seconds : 0));
+        if(request.isGzip()){
+            text.append(String.format(", %.2f MB on disk, compression ratio %.2f", fileBytes / 1e6,
+                    fileBytes > 0 ? (double) jsonBytes / fileBytes : 0));
+        }
+        return text.append('\n').toString();
+    }
+
+    /**
+     * Возвращает количество записанных элементов.
+     * @return количество элементов
+     */
+    public int getSize(){return size;}
+
+    /**
+     * Возвращает размер JSON до сжатия.
+     * @return количество байт
+     */
+    public long getJsonBytes(){return jsonBytes;}
+
+    /**
+     * Возвращает размер файла.
+     * @return количество байт
+     */
+    public long getFileBytes(){return fileBytes;}
+}
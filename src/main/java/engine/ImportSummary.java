@@ -0,0 +1,160 @@
+package engine;
+
+import classes.MusicBand;
+import utils.ReaderCSV;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Результат команды import_csv: количество добавленных, замененных, пропущенных и отклоненных строк файла.
+ * <p>
+ * Строки файла преобразуются в элементы на нескольких потоках ({@link ReaderCSV#loadParallel}), затем в порядке
+ * строк сравниваются с коллекцией по правилу {@link ConflictPolicy} и собираются в пакет, который применяется
+ * к хранилищу одним вызовом {@link BandStore#putAll}. Если в файле несколько строк с одним id, каждая следующая
+ * сравнивается с предыдущей, как при вставке строк по одной.
+ */
+public final class ImportSummary {
+    /**
+     * Хранит наибольшее количество сохраняемых сообщений об отклоненных строках.
+     */
+    public static final int MAX_ERRORS = 10;
+    /**
+     * Хранит аргумент команды.
+     */
+    private final CsvImport request;
+    /**
+     * Хранит количество добавленных элементов.
+     */
+    private final int inserted;
+    /**
+     * Хранит количество замененных элементов.
+     */
+    private final int replaced;
+    /**
+     * Хранит количество строк, пропущенных по правилу.
+     */
+    private final int skipped;
+    /**
+     * Хранит количество строк с ошибками.
+     */
+    private final int rejected;
+    /**
+     * Хранит сообщения о первых {@link ImportSummary#MAX_ERRORS} строках с ошибками.
+     */
+    private final List<String> errors;
+    /**
+     * Хранит время выполнения в наносекундах.
+     */
+    private final long nanos;
+
+    /**
+     * Создает результат.
+     * @param request Аргумент команды
+     * @param inserted Количество добавленных элементов
+     * @param replaced Количество замененных элементов
+     * @param skipped Количество пропущенных строк
+     * @param rejected Количество строк с ошибками
+     * @param errors Сообщения о первых строках с ошибками
+     * @param nanos Время выполнения в наносекундах
+     */
+    private ImportSummary(CsvImport request, int inserted, int replaced, int skipped, int rejected, List<String> errors, long nanos){
+        this.request = request;
+        this.inserted = inserted;
+        this.replaced = replaced;
+        this.skipped = skipped;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Считывает файл и объединяет его строки с хранилищем.
+     * @param request Аргумент команды
+     * @param store Хранилище
+     * @return результат
+     * @throws IOException если файл недоступен для чтения или нарушен формат CSV
+     */
+    static ImportSummary merge(CsvImport request, BandStore store) throws IOException{
+        long start = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        int[] rejected = {0};
+        List<MusicBand> bands = ReaderCSV.loadParallel(request.getFile(), message -> {
+            if(rejected[0]++ < MAX_ERRORS){
+                errors.add(message);
+            }
+        });
+
+        ConflictPolicy policy = request.getPolicy();
+        TreeMap<Long, MusicBand> batch = new TreeMap<>();
+        int inserted = 0;
+        int replaced = 0;
+        int skipped = 0;
+        for(MusicBand band : bands){
+            Long key = band.getId();
+            MusicBand existing = batch.get(key);
+            if(existing == null){
+                existing = store.get(key);
+            }
+            if(existing == null){
+                inserted++;
+            }else if(policy.replaces(existing, band)){
+                replaced++;
+            }else{
+                skipped++;
+                continue;
+            }
+            batch.put(key, band);
+        }
+        store.putAll(batch);
+        return new ImportSummary(request, inserted, replaced, skipped, rejected[0], Collections.unmodifiableList(errors),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Возвращает описание результата для вывода.
+     * @return строки вида {@code Imported 'bands.csv' in 1.234 s: 10 inserted, 2 replaced, 3 skipped, 0 rejected}
+     * и сообщения о первых строках с ошибками
+     */
+    public String describe(){
+        StringBuilder text = new StringBuilder();
+        int rows = inserted + replaced + skipped + rejected;
+        double seconds = nanos / 1e9;
+        text.append(String.format("Imported '%s' (on conflict: %s) in %.3f s, %.0f rows/s: %d inserted, %d replaced, %d skipped, %d rejected%n",
+                request.getFile(), request.getPolicy(), seconds, seconds > 0 ? rows / seconds : 0, inserted, replaced, skipped, rejected));
+        for(String error : errors){
+            text.append(error).append('\n');
+        }
+        if(rejected > errors.size()){
+            text.append("... and ").append(rejected - errors.size()).append(" more rejected rows\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Возвращает количество добавленных элементов.
+     * @return количество элементов
+     */
+    public int getInserted(){return inserted;}
+
+    /**
+     * Возвращает количество замененных элементов.
+     * @return количество элементов
+     */
+    public int getReplaced(){return replaced;}
+
+    /**
+     * Возвращает количество строк, пропущенных по правилу.
+     * @return количество строк
+     */
+    public int getSkipped(){return skipped;}
+
+    /**
+     * Возвращает количество строк с ошибками.
+     * @return количество строк
+     */
+    public int getRejected(){return rejected;}
+}
@@ -0,0 +1,98 @@
+package engine;
+
+import java.io.File;
+
+/**
+ * Аргумент команды export: файл, формат (массив JSON или NDJSON) и признак сжатия gzip.
+ * <p>
+ * Формат: {@code файл [json|ndjson] [--gzip]}, например {@code bands.ndjson.gz ndjson --gzip}.
+ * По умолчанию коллекция записывается массивом JSON без сжатия.
+ */
+public final class JsonExport {
+    /**
+     * Хранит флаг сжатия.
+     */
+    private static final String GZIP = "--gzip";
+    /**
+     * Хранит файл.
+     */
+    private final File file;
+    /**
+     * Хранит формат: true - NDJSON, false - массив JSON.
+     */
+    private final boolean ndjson;
+    /**
+     * Хранит признак сжатия gzip.
+     */
+    private final boolean gzip;
+
+    /**
+     * Создает аргумент команды export.
+     * @param file Файл
+     * @param ndjson true - NDJSON, false - массив JSON
+     * @param gzip true - сжимать файл
+     */
+    public JsonExport(File file, boolean ndjson, boolean gzip){
+        this.file = file;
+        this.ndjson = ndjson;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Возвращает файл.
+     * @return файл
+     */
+    public File getFile(){return file;}
+
+    /**
+     * Проверяет, записывается ли коллекция в формате NDJSON.
+     * @return true - NDJSON, false - массив JSON
+     */
+    public boolean isNdjson(){return ndjson;}
+
+    /**
+     * Проверяет, сжимается ли файл.
+     * @return true, если файл сжимается в формате gzip
+     */
+    public boolean isGzip(){return gzip;}
+
+    /**
+     * Разбирает аргумент команды export. Формат и флаг сжатия указываются после имени файла в любом порядке.
+     * @param text Строка {@code файл [json|ndjson] [--gzip]}
+     * @return разобранный аргумент
+     * @throws IllegalArgumentException если имя файла не указано, формат повторяется или каталог файла не существует
+     */
+    public static JsonExport parse(String text){
+        String rest = text == null ? "" : text.trim();
+        String format = null;
+        boolean gzip = false;
+        while(true){
+            int space = rest.lastIndexOf(' ');
+            String word = rest.substring(space + 1);
+            if(space < 0 || !(word.equalsIgnoreCase("json") || word.equalsIgnoreCase("ndjson") || word.equals(GZIP))){
+                break;
+            }
+            if(word.equals(GZIP) ? gzip : format != null){
+                throw new IllegalArgumentException("'" + word + "' is specified twice, expected 'file [json|ndjson] [--gzip]'");
+            }
+            if(word.equals(GZIP)){
+                gzip = true;
+            }else{
+                format = word.toLowerCase();
+            }
+            rest = rest.substring(0, space).trim();
+        }
+        if(rest.isEmpty()){
+            throw new IllegalArgumentException("file name cannot be empty, expected 'file [json|ndjson] [--gzip]'");
+        }
+        File file = new File(rest);
+        File directory = file.getAbsoluteFile().getParentFile();
+        if(directory != null && !directory.isDirectory()){
+            throw new IllegalArgumentException("directory '" + directory + "' does not exist");
+        }
+        return new JsonExport(file, "ndjson".equals(format), gzip);
+    }
+
+    @Override
+    public String toString(){return file + (ndjson ? " ndjson" : " json") + (gzip ? " " + GZIP : "");}
+}
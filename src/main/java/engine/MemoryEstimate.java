@@ -0,0 +1,325 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.Studio;
+import query.Field;
+
+import java.text.CollationKey;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Результат команды memory: оценка памяти, удерживаемой коллекцией, по частям (объекты групп, ключи, узлы TreeMap,
+ * даты, строки в кодировках LATIN1 и UTF16, индексы) и прогноз памяти для коллекции большего размера.
+ * <p>
+ * Размеры вычисляются по модели размещения объектов {@link MemoryLayout} обходом коллекции и индексов, без снимка кучи.
+ * Ключи сравнения названий учитываются в индексе по ним, хотя хранятся в элементах.
+ * Объекты, общие для многих элементов (значения перечислений, смещения часовых поясов, кэшированные значения Integer и Long
+ * от -128 до 127), не учитываются; строки названий в индексе по полю name те же, что в элементах, и учитываются один раз.
+ * Строки разных элементов считаются различными, даже если совпадают по содержанию.
+ * <p>
+ * В основном процессе репликации учитываются также копия коллекции журнала (узлы TreeMap и ключи, элементы общие
+ * с коллекцией) и кольцевой буфер изменений: массив, записи и изменения, а также элементы, которые удерживаются только
+ * буфером (замененные или удаленные из коллекции), - по среднему размеру элемента коллекции.
+ */
+public final class MemoryEstimate {
+    /**
+     * Часть коллекции: название, количество объектов и их размер.
+     * @param name Название
+     * @param objects Количество объектов (элементов, записей, групп)
+     * @param bytes Размер в байтах
+     * @param bound Наибольший размер части, не растущей вместе с коллекцией, или -1, если часть растет пропорционально
+     *              количеству элементов
+     */
+    private record Component(String name, long objects, long bytes, long bound) {
+        /**
+         * Создает часть, растущую пропорционально количеству элементов.
+         * @param name Название
+         * @param objects Количество объектов
+         * @param bytes Размер в байтах
+         */
+        Component(String name, long objects, long bytes){
+            this(name, objects, bytes, -1);
+        }
+    }
+
+    /**
+     * Хранит описание модели размещения объектов.
+     */
+    private final String layout;
+    /**
+     * Хранит количество элементов коллекции.
+     */
+    private final int size;
+    /**
+     * Хранит части коллекции в порядке вывода.
+     */
+    private final List<Component> components;
+
+    /**
+     * Создает результат.
+     * @param layout Описание модели размещения объектов
+     * @param size Количество элементов
+     * @param components Части коллекции
+     */
+    private MemoryEstimate(String layout, int size, List<Component> components){
+        this.layout = layout;
+        this.size = size;
+        this.components = components;
+    }
+
+    /**
+     * Оценивает память, удерживаемую коллекцией, индексами хранилища и журналом репликации.
+     * @param musicBands Коллекция
+     * @param store Хранилище над коллекцией
+     * @param replication Данные журнала репликации или {@code null}, если процесс не основной в репликации
+     * @return результат
+     */
+    static MemoryEstimate compute(TreeMap<Long, MusicBand> musicBands, TreeMapStore store, ReplicationFootprint replication){
+        MemoryLayout layout = new MemoryLayout();
+        long boxedLongs = 0, studios = 0, coordinates = 0, coordinateBytes = 0;
+        long zones = 0;
+        ZoneId previousZone = null;
+        long latin1 = 0, latin1Bytes = 0, utf16 = 0, utf16Bytes = 0, rendered = 0, renderedBytes = 0;
+        for(Map.Entry<Long, MusicBand> entry : musicBands.entrySet()){
+            Long key = entry.getKey();
+            MusicBand band = entry.getValue();
+            if(!isCached(key)){
+                boxedLongs++;
+            }
+            if(band.getId() != key && !isCached(band.getId())){
+                boxedLongs++;
+            }
+            // ZoneId.of создает новый ZoneRegion при каждом разборе даты, а ZoneOffset и зона по умолчанию
+            // общие; подряд идущие элементы с одним объектом зоны считаются использующими общий объект
+            ZoneId zone = band.getCreationDate() == null ? null : band.getCreationDate().getZone();
+            if(zone != null && !(zone instanceof ZoneOffset) && zone != previousZone){
+                zones++;
+            }
+            previousZone = zone;
+            Coordinates position = band.getCoordinates();
+            if(position != null){
+                coordinates++;
+                coordinateBytes += layout.object(2, 0);
+                if(position.getX() != null){
+                    coordinateBytes += layout.boxed64();
+                }
+                if(position.getY() != null && (position.getY() < -128 || position.getY() > 127)){
+                    coordinateBytes += layout.boxed32();
+                }
+            }
+            Studio studio = band.getStudio();
+            String[] texts = {band.getName(), band.getDescription(), studio == null ? null : studio.getName()};
+            if(studio != null){
+                studios++;
+            }
+            for(String text : texts){
+                if(text == null){
+                    continue;
+                }
+                if(layout.isLatin1(text)){
+                    latin1++;
+                    latin1Bytes += layout.string(text);
+                }else{
+                    utf16++;
+                    utf16Bytes += layout.string(text);
+                }
+            }
+            String cached = band.getCachedString();
+            if(cached != null){
+                rendered++;
+                renderedBytes += layout.string(cached);
+            }
+        }
+        int size = musicBands.size();
+        List<Component> components = new ArrayList<>();
+        components.add(new Component("MusicBand objects", size, size * layout.object(10, 9)));
+        components.add(new Component("Long keys", boxedLongs, boxedLongs * layout.boxed64()));
+        components.add(new Component("TreeMap entries", size, layout.treeMap() + size * layout.treeMapEntry()));
+        components.add(new Component("ZonedDateTime", size,
+                size * (layout.object(3, 0) + layout.object(2, 0) + layout.object(0, 8) + layout.object(0, 7))));
+        components.add(new Component("ZoneRegion", zones, zones * layout.object(2, 0)));
+        components.add(new Component("Coordinates", coordinates, coordinateBytes));
+        components.add(new Component("Studio", studios, studios * layout.object(1, 0)));
+        components.add(new Component("Strings, LATIN1", latin1, latin1Bytes));
+        components.add(new Component("Strings, UTF16", utf16, utf16Bytes));
+        components.add(new Component("toString cache", rendered, renderedBytes));
+        // Элемент вне коллекции (в журнале репликации) удерживает свои объекты и строки, но не ключ и узел TreeMap
+        long elementBytes = components.stream().mapToLong(Component::bytes).sum() - components.get(1).bytes() - components.get(2).bytes();
+        components.add(secondaryIndex("Index name", store.getIndex(Field.NAME), layout));
+        components.add(secondaryIndex("Index genre", store.getIndex(Field.GENRE), layout));
+        components.add(secondaryIndex("Index numberOfParticipants", store.getIndex(Field.NUMBER_OF_PARTICIPANTS), layout));
+        if(store.getCollationIndex() != null){
+            components.add(secondaryIndex("Index name (collation)", store.getCollationIndex(), layout));
+        }
+        components.add(invertedIndex("Index description (words)", store.getDescriptionIndex().getPostings(), layout));
+        components.add(invertedIndex("Index name (trigrams)", store.getNameTrigrams().getPostings(), layout));
+        if(replication != null){
+            components.add(new Component("Replication mirror", replication.getMirrorSize(), layout.treeMap()
+                    + replication.getMirrorSize() * layout.treeMapEntry() + replication.getMirrorBoxedKeys() * layout.boxed64()));
+            components.add(replicationLog(musicBands, replication, size == 0 ? 0 : elementBytes / size, layout));
+        }
+        return new MemoryEstimate(layout.toString(), size, components);
+    }
+
+    /**
+     * Оценивает кольцевой буфер журнала репликации: массив ссылок, записи с номером и временем, изменения
+     * и элементы, на которые ссылается только буфер. Наибольший размер - буфер, заполненный изменениями, каждое
+     * из которых удерживает по одному такому элементу.
+     * @param musicBands Коллекция
+     * @param replication Данные журнала
+     * @param bandBytes Средний размер элемента коллекции без узлов TreeMap и индексов
+     * @param layout Модель размещения объектов
+     * @return часть с количеством записей буфера
+     */
+    private static Component replicationLog(TreeMap<Long, MusicBand> musicBands, ReplicationFootprint replication, long bandBytes,
+                                            MemoryLayout layout){
+        // Запись: seq, time и ссылка на изменение; изменение: type, key, band и previous
+        long entryBytes = layout.object(1, 16) + layout.object(4, 0);
+        Set<MusicBand> detached = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Map.Entry<Long, MusicBand> entry : replication.getRingBands()){
+            if(musicBands.get(entry.getKey()) != entry.getValue()){
+                detached.add(entry.getValue());
+            }
+        }
+        long array = layout.referenceArray(replication.getRingCapacity());
+        long bytes = array + replication.getRingEntries() * entryBytes + detached.size() * bandBytes;
+        long bound = array + replication.getRingCapacity() * (entryBytes + bandBytes);
+        return new Component("Replication log", replication.getRingEntries(), bytes, bound);
+    }
+
+    /**
+     * Проверяет, берется ли упакованное значение из кэша {@link Long#valueOf(long)}.
+     * @param value Значение
+     * @return {@code true} для значений от -128 до 127
+     */
+    private static boolean isCached(Long value){
+        return value != null && value >= -128 && value <= 127;
+    }
+
+    /**
+     * Оценивает вторичный индекс: TreeMap групп, в каждой группе TreeMap элементов, и значения поля, которые
+     * не принадлежат элементам (Integer вне кэша, ключи сравнения).
+     * @param name Название части
+     * @param index Индекс
+     * @param layout Модель размещения объектов
+     * @return часть с количеством групп
+     */
+    private static Component secondaryIndex(String name, SecondaryIndex<?> index, MemoryLayout layout){
+        Map<?, TreeMap<Long, MusicBand>> buckets = index.range(null, false, null, false);
+        long bytes = layout.treeMap();
+        for(Map.Entry<?, TreeMap<Long, MusicBand>> bucket : buckets.entrySet()){
+            bytes += layout.treeMapEntry() + layout.treeMap() + bucket.getValue().size() * layout.treeMapEntry();
+            Object value = bucket.getKey();
+            if(value instanceof Integer number && (number < -128 || number > 127)){
+                bytes += layout.boxed32();
+            }else if(value instanceof CollationKey key){
+                // Каждый элемент хранит собственный RuleBasedCollationKey: исходная строка (название группы)
+                // и строка ключа по два байта на символ
+                long keyBytes = layout.object(2, 0) + layout.object(1, 6) + layout.array(1, key.toByteArray().length);
+                bytes += bucket.getValue().size() * keyBytes;
+            }
+        }
+        return new Component(name, buckets.size(), bytes);
+    }
+
+    /**
+     * Оценивает инвертированный индекс: HashMap со строками или упакованными Long в качестве ключей
+     * и списками ключей {@link PostingList} в качестве значений.
+     * @param name Название части
+     * @param postings Списки ключей индекса
+     * @param layout Модель размещения объектов
+     * @return часть с количеством различных ключей индекса
+     */
+    private static Component invertedIndex(String name, Map<?, PostingList> postings, MemoryLayout layout){
+        long bytes = layout.hashMap(postings.size());
+        for(Map.Entry<?, PostingList> entry : postings.entrySet()){
+            PostingList list = entry.getValue();
+            bytes += layout.hashMapNode() + layout.object(2, 8) + layout.array(8, list.keys.length);
+            if(list.deleted != null){
+                bytes += layout.array(8, list.deleted.length);
+            }
+            bytes += entry.getKey() instanceof String term ? layout.string(term) : layout.boxed64();
+        }
+        return new Component(name, postings.size(), bytes);
+    }
+
+    /**
+     * Возвращает оценку памяти, удерживаемой коллекцией.
+     * @return размер в байтах
+     */
+    public long getTotalBytes(){
+        return components.stream().mapToLong(Component::bytes).sum();
+    }
+
+    /**
+     * Возвращает количество элементов коллекции.
+     * @return количество элементов
+     */
+    public int getSize(){return size;}
+
+    /**
+     * Возвращает таблицу частей коллекции с долей каждой в общем размере и, если more больше нуля, прогноз памяти
+     * после добавления more элементов: текущий размер плюс средний размер элемента (со всеми индексами), умноженный
+     * на more. Части, не растущие вместе с коллекцией (кольцевой буфер журнала репликации), входят в прогноз
+     * наибольшим размером. Прогноз сравнивается с наибольшим размером кучи {@link Runtime#maxMemory()} с учетом памяти,
+     * занятой вне коллекции.
+     * @param more Количество добавляемых элементов (0 - без прогноза)
+     * @return описание для вывода
+     */
+    public String describe(long more){
+        long total = getTotalBytes();
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Estimated heap retained by %d bands (%s)%n", size, layout));
+        text.append(String.format("%-30s %12s %14s %7s %10s%n", "component", "objects", "bytes", "share", "per band"));
+        for(Component component : components){
+            text.append(String.format("%-30s %12d %14d %6.1f%% %10.1f%n", component.name(), component.objects(), component.bytes(),
+                    total > 0 ? 100.0 * component.bytes() / total : 0.0, size > 0 ? (double) component.bytes() / size : 0.0));
+        }
+        text.append(String.format("%-30s %12s %14d %7s %10.1f%n", "total", "", total, "", size > 0 ? (double) total / size : 0.0));
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        long max = runtime.maxMemory();
+        text.append(String.format("Heap: %s used, %s committed, %s max%n", megabytes(used), megabytes(runtime.totalMemory()), megabytes(max)));
+        if(more <= 0){
+            return text.toString();
+        }
+        if(size == 0){
+            text.append("Cannot project: the collection is empty\n");
+            return text.toString();
+        }
+        long projected = 0;
+        for(Component component : components){
+            projected += component.bound() < 0 ? component.bytes() + Math.round((double) component.bytes() / size * more)
+                    : Math.max(component.bytes(), component.bound());
+        }
+        long needed = projected + Math.max(0, used - total);
+        text.append(String.format("Projected for %d more bands: %s retained, about %s of heap with current other usage (%.0f%% of max)%n",
+                more, megabytes(projected), megabytes(needed), 100.0 * needed / max));
+        if(needed > max){
+            text.append("Exceeds the maximum heap: raise -Xmx\n");
+        }else if(needed > max * 0.7){
+            text.append("Fits, but leaves less than 30% of the heap to the garbage collector\n");
+        }else{
+            text.append("Fits in the maximum heap\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Форматирует размер в мегабайтах.
+     * @param bytes Размер в байтах
+     * @return строка вида "12.3 MB"
+     */
+    private static String megabytes(long bytes){
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,213 @@
+package engine;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Модель размещения объектов в куче HotSpot: размеры заголовков, ссылок и выравнивание.
+ * <p>
+ * Параметры определяются по флагам виртуальной машины ({@code UseCompressedOops}, {@code UseCompressedClassPointers},
+ * {@code ObjectAlignmentInBytes}, {@code CompactStrings}) через {@link HotSpotDiagnosticMXBean}. Если флаги недоступны
+ * (другая виртуальная машина), используются значения 64-разрядной HotSpot по умолчанию для кучи до 32 ГБ:
+ * сжатые ссылки по 4 байта, заголовок 12 байт, выравнивание 8 байт.
+ * <p>
+ * Размер объекта считается как заголовок плюс сумма размеров полей с выравниванием; HotSpot может разместить
+ * поля плотнее (в промежутке после заголовка), поэтому оценка бывает завышена не больше чем на выравнивание.
+ */
+final class MemoryLayout {
+    /**
+     * Хранит размер ссылки в байтах.
+     */
+    final int reference;
+    /**
+     * Хранит размер заголовка объекта в байтах.
+     */
+    final int header;
+    /**
+     * Хранит размер заголовка массива (вместе с длиной) в байтах.
+     */
+    final int arrayHeader;
+    /**
+     * Хранит выравнивание объектов в байтах.
+     */
+    final int alignment;
+    /**
+     * Хранит признак хранения строк из символов до U+00FF по одному байту на символ.
+     */
+    final boolean compactStrings;
+
+    /**
+     * Создает модель по флагам текущей виртуальной машины.
+     */
+    MemoryLayout(){
+        HotSpotDiagnosticMXBean vm = null;
+        try{
+            vm = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        }catch(RuntimeException | LinkageError ignored){
+        }
+        boolean compressedOops = flag(vm, "UseCompressedOops", "true").equals("true");
+        boolean compressedClasses = flag(vm, "UseCompressedClassPointers", "true").equals("true");
+        int alignment;
+        try{
+            alignment = Integer.parseInt(flag(vm, "ObjectAlignmentInBytes", "8"));
+        }catch(NumberFormatException e){
+            alignment = 8;
+        }
+        this.reference = compressedOops ? 4 : 8;
+        this.header = compressedClasses ? 12 : 16;
+        this.arrayHeader = (int) align(header + 4, compressedOops ? 4 : 8);
+        this.alignment = alignment;
+        this.compactStrings = flag(vm, "CompactStrings", "true").equals("true");
+    }
+
+    /**
+     * Возвращает значение флага виртуальной машины.
+     * @param vm Управляющий объект HotSpot ({@code null}, если недоступен)
+     * @param name Название флага
+     * @param fallback Значение, если флаг недоступен
+     * @return значение флага
+     */
+    private static String flag(HotSpotDiagnosticMXBean vm, String name, String fallback){
+        if(vm == null){
+            return fallback;
+        }
+        try{
+            return vm.getVMOption(name).getValue();
+        }catch(RuntimeException e){
+            return fallback;
+        }
+    }
+
+    /**
+     * Округляет размер вверх до кратного выравнивания.
+     * @param size Размер в байтах
+     * @param alignment Выравнивание (степень двойки)
+     * @return выровненный размер
+     */
+    private static long align(long size, int alignment){
+        return (size + alignment - 1) & -alignment;
+    }
+
+    /**
+     * Возвращает размер объекта с указанными полями.
+     * @param references Количество полей-ссылок
+     * @param primitiveBytes Суммарный размер примитивных полей в байтах
+     * @return размер объекта в байтах
+     */
+    long object(int references, int primitiveBytes){
+        return align(header + (long) references * reference + primitiveBytes, alignment);
+    }
+
+    /**
+     * Возвращает размер массива.
+     * @param elementSize Размер элемента в байтах
+     * @param length Длина массива
+     * @return размер массива в байтах
+     */
+    long array(int elementSize, long length){
+        long base = elementSize == 8 ? align(arrayHeader, 8) : arrayHeader;
+        return align(base + elementSize * length, alignment);
+    }
+
+    /**
+     * Возвращает размер массива ссылок.
+     * @param length Длина массива
+     * @return размер массива в байтах
+     */
+    long referenceArray(long length){
+        return array(reference, length);
+    }
+
+    /**
+     * Проверяет, хранится ли строка по одному байту на символ (кодировка LATIN1).
+     * @param text Строка
+     * @return {@code true}, если все символы не больше U+00FF и компактные строки включены
+     */
+    boolean isLatin1(String text){
+        if(!compactStrings){
+            return false;
+        }
+        for(int i = 0; i < text.length(); i++){
+            if(text.charAt(i) > 0xFF){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает размер строки вместе с массивом символов: поля value, hash, coder и hashIsZero плюс массив byte[].
+     * @param text Строка
+     * @return размер в байтах
+     */
+    long string(String text){
+        return object(1, 6) + array(1, isLatin1(text) ? text.length() : 2L * text.length());
+    }
+
+    /**
+     * Возвращает размер объекта {@link java.util.TreeMap}: comparator, root, size, modCount
+     * и поля представлений entrySet, navigableKeySet, descendingMap, keySet и values.
+     * @return размер в байтах
+     */
+    long treeMap(){
+        return object(7, 8);
+    }
+
+    /**
+     * Возвращает размер узла {@link java.util.TreeMap}: key, value, left, right, parent и color.
+     * @return размер в байтах
+     */
+    long treeMapEntry(){
+        return object(5, 1);
+    }
+
+    /**
+     * Возвращает размер объекта {@link java.util.HashMap} без узлов: поля и таблица корзин для указанного количества
+     * записей (длина таблицы - степень двойки с коэффициентом заполнения 0,75).
+     * @param size Количество записей
+     * @return размер в байтах
+     */
+    long hashMap(long size){
+        long table = 0;
+        if(size > 0){
+            long capacity = Long.highestOneBit(Math.max(1, (long) Math.ceil(size / 0.75) - 1)) << 1;
+            table = referenceArray(Math.max(16, capacity));
+        }
+        return object(4, 16) + table;
+    }
+
+    /**
+     * Возвращает размер узла {@link java.util.HashMap}: hash, key, value и next.
+     * @return размер в байтах
+     */
+    long hashMapNode(){
+        return object(3, 4);
+    }
+
+    /**
+     * Возвращает размер упакованного значения Long или Double.
+     * @return размер в байтах
+     */
+    long boxed64(){
+        return object(0, 8);
+    }
+
+    /**
+     * Возвращает размер упакованного значения Integer.
+     * @return размер в байтах
+     */
+    long boxed32(){
+        return object(0, 4);
+    }
+
+    /**
+     * Возвращает описание модели для вывода.
+     * @return описание
+     */
+    @Override
+    public String toString(){
+        return reference + "-byte references, " + header + "-byte headers, " + alignment + "-byte alignment, "
+                + (compactStrings ? "compact strings" : "UTF16 strings");
+    }
+}
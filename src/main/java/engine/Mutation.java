@@ -0,0 +1,133 @@
+package engine;
+
+import classes.MusicBand;
+
+/**
+ * Изменение коллекции, примененное к зафиксированному состоянию (вне транзакции или при ее фиксации).
+ * <p>
+ * Изменения описывают результат команды, а не саму команду: например, remove_lower порождает по одному изменению
+ * {@link Type#REMOVE} на каждый удаленный элемент. Поэтому применение тех же изменений в том же порядке к копии
+ * коллекции дает то же состояние, независимо от сравнения элементов.
+ * @see MutationListener
+ */
+public final class Mutation {
+    /**
+     * Вид изменения.
+     */
+    public enum Type {
+        /** Добавление или замена элемента по ключу (insert, update, replace_if_lower) */
+        PUT,
+        /** Удаление элемента по ключу (remove_key, remove_lower) */
+        REMOVE,
+        /** Удаление всех элементов, ключ которых меньше заданного (remove_lower_key) */
+        REMOVE_LOWER_KEY,
+        /** Удаление всех элементов (clear) */
+        CLEAR
+    }
+
+    /**
+     * Хранит вид изменения.
+     */
+    private final Type type;
+    /**
+     * Хранит ключ ({@code null} для {@link Type#CLEAR}).
+     */
+    private final Long key;
+    /**
+     * Хранит новый элемент ({@code null} для всех видов, кроме {@link Type#PUT}).
+     */
+    private final MusicBand band;
+    /**
+     * Хранит прежний элемент: замененный для {@link Type#PUT} или удаленный для {@link Type#REMOVE}
+     * ({@code null}, если элемента не было или он неизвестен). При репликации не передается.
+     */
+    private final MusicBand previous;
+
+    /**
+     * Создает изменение.
+     * @param type Вид изменения
+     * @param key Ключ
+     * @param band Новый элемент
+     * @param previous Прежний элемент
+     */
+    private Mutation(Type type, Long key, MusicBand band, MusicBand previous){
+        this.type = type;
+        this.key = key;
+        this.band = band;
+        this.previous = previous;
+    }
+
+    /**
+     * Создает изменение "добавить или заменить элемент".
+     * @param key Ключ
+     * @param band Новый элемент
+     * @return изменение
+     */
+    public static Mutation put(Long key, MusicBand band){return new Mutation(Type.PUT, key, band, null);}
+
+    /**
+     * Создает изменение "добавить или заменить элемент" с известным прежним элементом.
+     * @param key Ключ
+     * @param band Новый элемент
+     * @param previous Замененный элемент или {@code null}, если элемент добавлен
+     * @return изменение
+     */
+    public static Mutation put(Long key, MusicBand band, MusicBand previous){return new Mutation(Type.PUT, key, band, previous);}
+
+    /**
+     * Создает изменение "удалить элемент".
+     * @param key Ключ
+     * @return изменение
+     */
+    public static Mutation remove(Long key){return new Mutation(Type.REMOVE, key, null, null);}
+
+    /**
+     * Создает изменение "удалить элемент" с известным удаленным элементом.
+     * @param key Ключ
+     * @param previous Удаленный элемент
+     * @return изменение
+     */
+    public static Mutation remove(Long key, MusicBand previous){return new Mutation(Type.REMOVE, key, null, previous);}
+
+    /**
+     * Создает изменение "удалить элементы с ключом меньше заданного".
+     * @param key Граничное значение ключа
+     * @return изменение
+     */
+    public static Mutation removeLowerKey(Long key){return new Mutation(Type.REMOVE_LOWER_KEY, key, null, null);}
+
+    /**
+     * Создает изменение "удалить все элементы".
+     * @return изменение
+     */
+    public static Mutation clear(){return new Mutation(Type.CLEAR, null, null, null);}
+
+    /**
+     * Возвращает вид изменения.
+     * @return вид изменения
+     */
+    public Type getType(){return type;}
+
+    /**
+     * Возвращает ключ.
+     * @return ключ или {@code null} для {@link Type#CLEAR}
+     */
+    public Long getKey(){return key;}
+
+    /**
+     * Возвращает новый элемент.
+     * @return элемент для {@link Type#PUT}, иначе {@code null}
+     */
+    public MusicBand getBand(){return band;}
+
+    /**
+     * Возвращает прежний элемент.
+     * @return замененный элемент для {@link Type#PUT}, удаленный для {@link Type#REMOVE} или {@code null}
+     */
+    public MusicBand getPrevious(){return previous;}
+
+    @Override
+    public String toString(){
+        return type + (key == null ? "" : " " + key);
+    }
+}
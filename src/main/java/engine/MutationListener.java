@@ -0,0 +1,15 @@
+package engine;
+
+/**
+ * Получатель изменений коллекции. Вызывается в потоке, изменившем коллекцию, сразу после применения изменения,
+ * поэтому не должен выполнять долгих операций.
+ * @see CollectionEngine#addMutationListener(MutationListener)
+ */
+@FunctionalInterface
+public interface MutationListener {
+    /**
+     * Обрабатывает примененное изменение.
+     * @param mutation Изменение
+     */
+    void onMutation(Mutation mutation);
+}
@@ -0,0 +1,82 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.Comparator;
+
+/**
+ * Результат команды search_name: элемент и сходство его названия с запросом.
+ */
+public final class NameMatch {
+    /**
+     * Хранит количество результатов команды search_name.
+     */
+    public static final int LIMIT = 10;
+    /**
+     * Хранит порядок результатов: по убыванию сходства, затем по возрастанию расстояния редактирования, затем по ключу.
+     */
+    public static final Comparator<NameMatch> ORDER = Comparator.comparingDouble(NameMatch::getSimilarity).reversed()
+            .thenComparingInt(NameMatch::getDistance)
+            .thenComparing(match -> match.band.getId());
+    /**
+     * Хранит элемент.
+     */
+    private final MusicBand band;
+    /**
+     * Хранит коэффициент Жаккара для множеств триграмм названия и запроса.
+     */
+    private final double similarity;
+    /**
+     * Хранит расстояние Левенштейна между названием и запросом (без учета регистра).
+     */
+    private final int distance;
+
+    /**
+     * Создает результат.
+     * @param band Элемент
+     * @param similarity Коэффициент Жаккара
+     * @param distance Расстояние Левенштейна
+     */
+    NameMatch(MusicBand band, double similarity, int distance){
+        this.band = band;
+        this.similarity = similarity;
+        this.distance = distance;
+    }
+
+    /**
+     * Вычисляет сходство названия элемента с запросом (используется при объединении результатов нескольких процессов).
+     * @param query Запрос
+     * @param band Элемент
+     * @return результат или {@code null}, если сходство меньше порога {@link TrigramIndex}
+     */
+    public static NameMatch of(String query, MusicBand band){
+        String normalized = TrigramIndex.normalize(query);
+        return TrigramIndex.score(normalized, TrigramIndex.trigrams(normalized), band);
+    }
+
+    /**
+     * Возвращает описание сходства для вывода.
+     * @return строка вида {@code similarity=0.75, edit distance=1}
+     */
+    public String describe(){
+        return String.format("similarity=%.2f, edit distance=%d", similarity, distance);
+    }
+
+    /**
+     * Возвращает элемент.
+     * @return элемент
+     */
+    public MusicBand getBand(){return band;}
+
+    /**
+     * Возвращает сходство названия с запросом.
+     * @return коэффициент Жаккара от 0 до 1
+     */
+    public double getSimilarity(){return similarity;}
+
+    /**
+     * Возвращает расстояние редактирования между названием и запросом.
+     * @return расстояние Левенштейна
+     */
+    public int getDistance(){return distance;}
+}
@@ -0,0 +1,244 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * Упорядоченный по возрастанию список ключей элементов для инвертированных индексов {@link TextIndex} и {@link TrigramIndex}.
+ * Ключи хранятся в массиве long без упаковки.
+ * <p>
+ * Удаление одного ключа не сдвигает массив, а отмечает ключ удаленным в битовой маске; удаленные ключи пропускаются
+ * при поиске и убираются из массива одним проходом, когда их становится больше четверти списка (или перед вставкой
+ * в середину), поэтому удаление стоит в среднем O(log n). Удаление многих ключей сразу ({@link PostingList#removeAll(long[], int)})
+ * выполняется одним проходом по списку.
+ */
+final class PostingList {
+    /**
+     * Хранит ключи, в том числе удаленные (используются первые length элементов).
+     */
+    long[] keys = new long[2];
+    /**
+     * Хранит количество занятых элементов массива keys.
+     */
+    private int length;
+    /**
+     * Хранит битовую маску удаленных ключей по позициям в массиве keys ({@code null}, если удаленных нет).
+     */
+    long[] deleted;
+    /**
+     * Хранит количество удаленных ключей, еще не убранных из массива.
+     */
+    private int deletedCount;
+
+    /**
+     * Возвращает количество ключей.
+     * @return количество ключей без удаленных
+     */
+    int size(){return length - deletedCount;}
+
+    /**
+     * Проверяет, отмечен ли ключ в позиции удаленным.
+     * @param position Позиция в массиве keys
+     * @return true, если ключ удален
+     */
+    private boolean isDeleted(int position){
+        return deleted != null && (deleted[position >>> 6] & (1L << position)) != 0;
+    }
+
+    /**
+     * Добавляет ключ, сохраняя порядок.
+     * @param key Ключ
+     */
+    void add(long key){
+        int position = length == 0 || keys[length - 1] < key ? -length - 1 : Arrays.binarySearch(keys, 0, length, key);
+        if(position >= 0){
+            if(isDeleted(position)){
+                deleted[position >>> 6] &= ~(1L << position);
+                deletedCount--;
+            }
+            return;
+        }
+        position = -position - 1;
+        if(position < length && deletedCount > 0){
+            compact();
+            position = -Arrays.binarySearch(keys, 0, length, key) - 1;
+        }
+        if(length == keys.length){
+            keys = Arrays.copyOf(keys, length * 2);
+            if(deleted != null){
+                deleted = Arrays.copyOf(deleted, (keys.length + 63) >>> 6);
+            }
+        }
+        System.arraycopy(keys, position, keys, position + 1, length - position);
+        keys[position] = key;
+        length++;
+    }
+
+    /**
+     * Проверяет, есть ли ключ в списке.
+     * @param key Ключ
+     * @return true, если ключ есть в списке
+     */
+    boolean contains(long key){
+        int position = Arrays.binarySearch(keys, 0, length, key);
+        return position >= 0 && !isDeleted(position);
+    }
+
+    /**
+     * Удаляет ключ: последний ключ убирается из массива сразу, остальные отмечаются удаленными.
+     * @param key Ключ
+     * @return true, если ключ был в списке
+     */
+    boolean remove(long key){
+        int position = Arrays.binarySearch(keys, 0, length, key);
+        if(position < 0 || isDeleted(position)){
+            return false;
+        }
+        if(position == length - 1){
+            length--;
+            while(length > 0 && isDeleted(length - 1)){
+                length--;
+                deleted[length >>> 6] &= ~(1L << length);
+                deletedCount--;
+            }
+        }else{
+            if(deleted == null){
+                deleted = new long[(keys.length + 63) >>> 6];
+            }
+            deleted[position >>> 6] |= 1L << position;
+            deletedCount++;
+            if(deletedCount * 4 > length){
+                compact();
+            }
+        }
+        if(deletedCount == 0){
+            deleted = null;
+        }
+        shrink();
+        return true;
+    }
+
+    /**
+     * Удаляет ключи из упорядоченного массива одним проходом по списку. Следующий удаляемый ключ, не меньший ключа
+     * списка, ищется удваивающимся шагом, поэтому короткий список не просматривает весь массив удаляемых ключей.
+     * @param removed Упорядоченный массив удаляемых ключей
+     * @param count Количество ключей в массиве
+     * @return количество удаленных ключей
+     */
+    int removeAll(long[] removed, int count){
+        int sizeBefore = size();
+        int kept = 0;
+        int from = 0;
+        for(int i = 0; i < length; i++){
+            long key = keys[i];
+            if(isDeleted(i)){
+                continue;
+            }
+            int step = 1;
+            int to = from;
+            while(to < count && removed[to] < key){
+                from = to + 1;
+                to = from + step;
+                step <<= 1;
+            }
+            int position = from < count ? Arrays.binarySearch(removed, from, Math.min(to + 1, count), key) : -count - 1;
+            if(position >= 0){
+                from = position + 1;
+            }else{
+                from = -position - 1;
+                keys[kept++] = key;
+            }
+        }
+        length = kept;
+        deleted = null;
+        deletedCount = 0;
+        shrink();
+        return sizeBefore - kept;
+    }
+
+    /**
+     * Убирает удаленные ключи из массива.
+     */
+    private void compact(){
+        int kept = 0;
+        for(int i = 0; i < length; i++){
+            if(!isDeleted(i)){
+                keys[kept++] = keys[i];
+            }
+        }
+        length = kept;
+        deleted = null;
+        deletedCount = 0;
+    }
+
+    /**
+     * Уменьшает массив, если он заполнен меньше чем на четверть.
+     */
+    private void shrink(){
+        if(deletedCount == 0 && length > 8 && length * 4 < keys.length){
+            keys = Arrays.copyOf(keys, keys.length / 2);
+        }
+    }
+
+    /**
+     * Копирует ключи в массив по возрастанию.
+     * @param target Массив
+     * @param offset Позиция в массиве, с которой записываются ключи
+     * @return количество скопированных ключей ({@link PostingList#size()})
+     */
+    int copyTo(long[] target, int offset){
+        if(deletedCount == 0){
+            System.arraycopy(keys, 0, target, offset, length);
+            return length;
+        }
+        int copied = 0;
+        for(int i = 0; i < length; i++){
+            if(!isDeleted(i)){
+                target[offset + copied++] = keys[i];
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Возвращает ключи по возрастанию.
+     * @return новый массив ключей
+     */
+    long[] toArray(){
+        long[] result = new long[size()];
+        copyTo(result, 0);
+        return result;
+    }
+
+    /**
+     * Оставляет в упорядоченном массиве только ключи, которые есть в этом списке. Позиция поиска только растет,
+     * а следующий ключ ищется удваивающимся шагом от предыдущей позиции, поэтому пересечение короткого массива
+     * с длинным списком не просматривает весь список.
+     * @param candidates Упорядоченный массив ключей (изменяется)
+     * @param count Количество ключей в массиве
+     * @return количество оставшихся ключей (в начале массива)
+     */
+    int retain(long[] candidates, int count){
+        int kept = 0;
+        int from = 0;
+        for(int i = 0; i < count && from < length; i++){
+            long key = candidates[i];
+            int step = 1;
+            int to = from;
+            while(to < length && keys[to] < key){
+                from = to + 1;
+                to = from + step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(keys, from, Math.min(to + 1, length), key);
+            if(position >= 0){
+                if(!isDeleted(position)){
+                    candidates[kept++] = key;
+                }
+                from = position + 1;
+            }else{
+                from = -position - 1;
+            }
+        }
+        return kept;
+    }
+}
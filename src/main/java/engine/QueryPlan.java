@@ -0,0 +1,393 @@
+package engine;
+
+import classes.MusicBand;
+import query.Expression;
+import query.Field;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * План выполнения команды where: способ получения элементов-кандидатов и условие, которым они проверяются.
+ * <p>
+ * Условие разбивается на части, объединенные словом and. Для каждой части вида "поле операция значение" по ключу
+ * или по индексируемому полю ({@link TreeMapStore#getIndex(Field)}) оценивается количество подходящих элементов;
+ * выбирается часть с наименьшей оценкой, если она меньше размера коллекции, иначе - полный просмотр.
+ * Оценка останавливается, как только превышает лучшую из уже найденных, поэтому стоит не больше размера ответа.
+ * Остальные части условия компилируются ({@link Expression#compile()}) и проверяются для каждого кандидата.
+ * <p>
+ * Индексы описывают зафиксированное состояние коллекции, поэтому во время транзакции используется только полный просмотр.
+ * Результат всегда упорядочен по возрастанию ключей.
+ */
+public final class QueryPlan {
+    /**
+     * Хранит размер коллекции, начиная с которого полный просмотр выполняется параллельно.
+     */
+    static final int PARALLEL_SCAN_THRESHOLD = 1 << 16;
+    /**
+     * Хранит условие запроса.
+     */
+    private final Expression expression;
+    /**
+     * Хранит выбранный способ получения кандидатов.
+     */
+    private final AccessPath access;
+    /**
+     * Хранит оценку количества кандидатов.
+     */
+    private final long estimate;
+    /**
+     * Хранит условие, проверяемое для кандидатов ({@code null} - все кандидаты подходят).
+     */
+    private final Expression residual;
+    /**
+     * Хранит скомпилированное условие для кандидатов ({@code null} - все кандидаты подходят).
+     */
+    private final Predicate<MusicBand> filter;
+    /**
+     * Хранит размер коллекции.
+     */
+    private final int size;
+    /**
+     * Хранит описания рассмотренных способов и их оценки.
+     */
+    private final List<String> candidates;
+    /**
+     * Хранит пояснение к выбору плана ({@code null}, если пояснения нет).
+     */
+    private final String note;
+
+    /**
+     * Создает план.
+     * @param expression Условие запроса
+     * @param access Способ получения кандидатов
+     * @param estimate Оценка количества кандидатов
+     * @param residual Условие для кандидатов или {@code null}
+     * @param size Размер коллекции
+     * @param candidates Описания рассмотренных способов
+     * @param note Пояснение к выбору плана или {@code null}
+     */
+    private QueryPlan(Expression expression, AccessPath access, long estimate, Expression residual, int size,
+                      List<String> candidates, String note){
+        this.expression = expression;
+        this.access = access;
+        this.estimate = estimate;
+        this.residual = residual;
+        this.filter = residual == null ? null : residual.compile();
+        this.size = size;
+        this.candidates = candidates;
+        this.note = note;
+    }
+
+    /**
+     * Выбирает план выполнения условия.
+     * @param expression Условие
+     * @param committed Хранилище зафиксированной коллекции с индексами
+     * @param store Хранилище, через которое выполняются операции (совпадает с committed вне транзакции)
+     * @return план
+     */
+    static QueryPlan create(Expression expression, TreeMapStore committed, BandStore store){
+        FullScan fullScan = new FullScan(store);
+        int size = store.size();
+        List<String> candidates = new ArrayList<>();
+        if(store != committed){
+            candidates.add(fullScan.describe() + ": " + size);
+            return new QueryPlan(expression, fullScan, size, expression, size, candidates,
+                    "a transaction is active, indexes cover only the committed collection");
+        }
+
+        List<Expression> conjuncts = expression.conjuncts();
+        AccessPath best = fullScan;
+        long bestEstimate = size;
+        int bestIndex = -1;
+        for(int i = 0; i < conjuncts.size(); i++){
+            if(!(conjuncts.get(i) instanceof Expression.Comparison)){
+                continue;
+            }
+            AccessPath path = accessPath((Expression.Comparison) conjuncts.get(i), committed);
+            if(path == null){
+                continue;
+            }
+            long pathEstimate = path.estimate(bestEstimate);
+            candidates.add(path.describe() + ": " + (pathEstimate > bestEstimate ? "more than " + bestEstimate : String.valueOf(pathEstimate)));
+            if(pathEstimate < bestEstimate){
+                best = path;
+                bestEstimate = pathEstimate;
+                bestIndex = i;
+            }
+        }
+        candidates.add(fullScan.describe() + ": " + size);
+
+        Expression residual = expression;
+        if(bestIndex >= 0){
+            List<Expression> rest = new ArrayList<>(conjuncts);
+            rest.remove(bestIndex);
+            residual = rest.isEmpty() ? null : Expression.and(rest);
+        }
+        return new QueryPlan(expression, best, bestEstimate, residual, size, candidates, null);
+    }
+
+    /**
+     * Выполняет план.
+     * @return новый список подходящих элементов в порядке возрастания ключей
+     */
+    public List<MusicBand> execute(){
+        return access.scan(filter);
+    }
+
+    /**
+     * Возвращает описание плана для команды explain.
+     * @return описание плана (несколько строк, каждая завершается переводом строки)
+     */
+    public String describe(){
+        StringBuilder text = new StringBuilder();
+        text.append("Query: ").append(expression).append('\n');
+        text.append("Plan: ").append(access.describe()).append(", estimated ").append(estimate)
+                .append(" of ").append(size).append(" elements\n");
+        text.append("Filter: ").append(residual == null ? "none" : residual.toString()).append('\n');
+        text.append("Considered: ").append(String.join("; ", candidates)).append('\n');
+        if(note != null){
+            text.append("Note: ").append(note).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Создает способ получения кандидатов по одной части условия.
+     * @param comparison Сравнение поля со значением
+     * @param committed Хранилище зафиксированной коллекции
+     * @return способ получения кандидатов или {@code null}, если для сравнения нет индекса
+     */
+    private static AccessPath accessPath(Expression.Comparison comparison, TreeMapStore committed){
+        Object value = comparison.getValue();
+        if(comparison.getField() == Field.ID){
+            Long key = (Long) value;
+            return switch (comparison.getOperator()){
+                case EQ -> new KeyRange(committed, key, true, key, true, comparison);
+                case LT -> new KeyRange(committed, null, false, key, false, comparison);
+                case LE -> new KeyRange(committed, null, false, key, true, comparison);
+                case GT -> new KeyRange(committed, key, false, null, false, comparison);
+                case GE -> new KeyRange(committed, key, true, null, false, comparison);
+                default -> null;
+            };
+        }
+        @SuppressWarnings("unchecked")
+        SecondaryIndex<Comparable<Object>> index = (SecondaryIndex<Comparable<Object>>) committed.getIndex(comparison.getField());
+        if(index == null){
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Comparable<Object> bound = (Comparable<Object>) value;
+        NavigableMap<Comparable<Object>, TreeMap<Long, MusicBand>> groups = switch (comparison.getOperator()){
+            case EQ -> index.range(bound, true, bound, true);
+            case LT -> index.range(null, false, bound, false);
+            case LE -> index.range(null, false, bound, true);
+            case GT -> index.range(bound, false, null, false);
+            case GE -> index.range(bound, true, null, false);
+            case STARTS_WITH -> {
+                @SuppressWarnings("unchecked")
+                Comparable<Object> end = (Comparable<Object>) (Object) prefixEnd((String) value);
+                yield index.range(bound, true, end, false);
+            }
+            default -> null;
+        };
+        return groups == null ? null : new IndexRange(index, groups, comparison);
+    }
+
+    /**
+     * Возвращает наименьшую строку, которая больше всех строк, начинающихся с префикса.
+     * @param prefix Префикс
+     * @return строка или {@code null}, если такой строки нет (префикс пустой или состоит из символов {@link Character#MAX_VALUE})
+     */
+    private static String prefixEnd(String prefix){
+        int length = prefix.length();
+        while(length > 0 && prefix.charAt(length - 1) == Character.MAX_VALUE){
+            length--;
+        }
+        return length == 0 ? null : prefix.substring(0, length - 1) + (char) (prefix.charAt(length - 1) + 1);
+    }
+
+    /**
+     * Способ получения элементов-кандидатов.
+     */
+    private abstract static class AccessPath {
+        /**
+         * Оценивает количество кандидатов, не считая дальше limit + 1.
+         * @param limit Граница подсчета
+         * @return количество кандидатов или limit + 1, если их больше limit
+         */
+        abstract long estimate(long limit);
+
+        /**
+         * Отбирает кандидатов, удовлетворяющих условию.
+         * @param filter Условие или {@code null}
+         * @return новый список подходящих элементов в порядке возрастания ключей
+         */
+        abstract List<MusicBand> scan(Predicate<MusicBand> filter);
+
+        /**
+         * Возвращает описание способа.
+         * @return описание
+         */
+        abstract String describe();
+    }
+
+    /**
+     * Полный просмотр коллекции. Большие коллекции просматриваются параллельно с сохранением порядка ключей.
+     */
+    private static final class FullScan extends AccessPath {
+        /**
+         * Хранит хранилище.
+         */
+        private final BandStore store;
+
+        /**
+         * Создает полный просмотр.
+         * @param store Хранилище
+         */
+        private FullScan(BandStore store){
+            this.store = store;
+        }
+
+        @Override
+        long estimate(long limit){return store.size();}
+
+        @Override
+        List<MusicBand> scan(Predicate<MusicBand> filter){
+            if(filter == null){
+                return new ArrayList<>(store.values());
+            }
+            if(store.size() >= PARALLEL_SCAN_THRESHOLD){
+                return store.values().parallelStream().filter(filter).collect(Collectors.toCollection(ArrayList::new));
+            }
+            List<MusicBand> bands = new ArrayList<>();
+            for(MusicBand band : store.values()){
+                if(filter.test(band)){
+                    bands.add(band);
+                }
+            }
+            return bands;
+        }
+
+        @Override
+        String describe(){return "full scan";}
+    }
+
+    /**
+     * Просмотр диапазона ключей коллекции.
+     */
+    private static final class KeyRange extends AccessPath {
+        /**
+         * Хранит элементы диапазона.
+         */
+        private final NavigableMap<Long, MusicBand> range;
+        /**
+         * Хранит часть условия, задающую диапазон.
+         */
+        private final Expression.Comparison comparison;
+
+        /**
+         * Создает просмотр диапазона ключей.
+         * @param store Хранилище зафиксированной коллекции
+         * @param from Нижняя граница ({@code null} - без границы)
+         * @param fromInclusive true - нижняя граница включается
+         * @param to Верхняя граница ({@code null} - без границы)
+         * @param toInclusive true - верхняя граница включается
+         * @param comparison Часть условия, задающая диапазон
+         */
+        private KeyRange(TreeMapStore store, Long from, boolean fromInclusive, Long to, boolean toInclusive,
+                         Expression.Comparison comparison){
+            this.range = store.keyRange(from, fromInclusive, to, toInclusive);
+            this.comparison = comparison;
+        }
+
+        @Override
+        long estimate(long limit){
+            long count = 0;
+            for(Long ignored : range.keySet()){
+                if(++count > limit){
+                    break;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        List<MusicBand> scan(Predicate<MusicBand> filter){
+            List<MusicBand> bands = new ArrayList<>();
+            for(MusicBand band : range.values()){
+                if(filter == null || filter.test(band)){
+                    bands.add(band);
+                }
+            }
+            return bands;
+        }
+
+        @Override
+        String describe(){return "key range " + comparison;}
+    }
+
+    /**
+     * Просмотр групп вторичного индекса.
+     */
+    private static final class IndexRange extends AccessPath {
+        /**
+         * Хранит индекс.
+         */
+        private final SecondaryIndex<?> index;
+        /**
+         * Хранит группы элементов по значениям поля.
+         */
+        private final NavigableMap<?, TreeMap<Long, MusicBand>> groups;
+        /**
+         * Хранит часть условия, задающую группы.
+         */
+        private final Expression.Comparison comparison;
+
+        /**
+         * Создает просмотр групп индекса.
+         * @param index Индекс
+         * @param groups Группы элементов
+         * @param comparison Часть условия, задающая группы
+         */
+        private IndexRange(SecondaryIndex<?> index, NavigableMap<?, TreeMap<Long, MusicBand>> groups, Expression.Comparison comparison){
+            this.index = index;
+            this.groups = groups;
+            this.comparison = comparison;
+        }
+
+        @Override
+        long estimate(long limit){return SecondaryIndex.count(groups, limit);}
+
+        @Override
+        List<MusicBand> scan(Predicate<MusicBand> filter){
+            List<Map.Entry<Long, MusicBand>> entries = new ArrayList<>();
+            int groupCount = 0;
+            for(TreeMap<Long, MusicBand> bucket : groups.values()){
+                groupCount++;
+                for(Map.Entry<Long, MusicBand> entry : bucket.entrySet()){
+                    if(filter == null || filter.test(entry.getValue())){
+                        entries.add(entry);
+                    }
+                }
+            }
+            // Внутри группы элементы упорядочены по ключу; элементы нескольких групп нужно упорядочить
+            if(groupCount > 1){
+                entries.sort(Map.Entry.comparingByKey());
+            }
+            List<MusicBand> bands = new ArrayList<>(entries.size());
+            for(Map.Entry<Long, MusicBand> entry : entries){
+                bands.add(entry.getValue());
+            }
+            return bands;
+        }
+
+        @Override
+        String describe(){return "index on " + index.getFieldName() + " for " + comparison;}
+    }
+}
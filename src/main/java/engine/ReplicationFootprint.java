@@ -0,0 +1,83 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок структур журнала репликации основного процесса для команды memory: копии коллекции,
+ * из которой строятся снимки для реплик, и кольцевого буфера последних изменений.
+ * <p>
+ * Копия разделяет с коллекцией объекты элементов, поэтому учитываются только ее узлы и ключи. Записи буфера ссылаются
+ * на элементы изменений; элементы, которых уже нет в коллекции (замененные или удаленные), удерживаются только буфером.
+ */
+public final class ReplicationFootprint {
+    /**
+     * Количество элементов копии коллекции.
+     */
+    private final int mirrorSize;
+    /**
+     * Количество ключей копии вне кэша {@link Long#valueOf(long)}.
+     */
+    private final long mirrorBoxedKeys;
+    /**
+     * Емкость кольцевого буфера.
+     */
+    private final int ringCapacity;
+    /**
+     * Количество занятых ячеек буфера.
+     */
+    private final int ringEntries;
+    /**
+     * Ключи и элементы, на которые ссылаются изменения в буфере.
+     */
+    private final List<Map.Entry<Long, MusicBand>> ringBands;
+
+    /**
+     * Создает снимок.
+     * @param mirrorSize Количество элементов копии коллекции
+     * @param mirrorBoxedKeys Количество ключей копии вне кэша Long
+     * @param ringCapacity Емкость кольцевого буфера
+     * @param ringEntries Количество занятых ячеек буфера
+     * @param ringBands Ключи и элементы (новые и прежние), на которые ссылаются изменения в буфере
+     */
+    public ReplicationFootprint(int mirrorSize, long mirrorBoxedKeys, int ringCapacity, int ringEntries,
+                                List<Map.Entry<Long, MusicBand>> ringBands){
+        this.mirrorSize = mirrorSize;
+        this.mirrorBoxedKeys = mirrorBoxedKeys;
+        this.ringCapacity = ringCapacity;
+        this.ringEntries = ringEntries;
+        this.ringBands = ringBands;
+    }
+
+    /**
+     * Возвращает количество элементов копии коллекции.
+     * @return количество элементов
+     */
+    public int getMirrorSize(){return mirrorSize;}
+
+    /**
+     * Возвращает количество ключей копии вне кэша Long.
+     * @return количество упакованных ключей
+     */
+    public long getMirrorBoxedKeys(){return mirrorBoxedKeys;}
+
+    /**
+     * Возвращает емкость кольцевого буфера.
+     * @return количество ячеек
+     */
+    public int getRingCapacity(){return ringCapacity;}
+
+    /**
+     * Возвращает количество занятых ячеек буфера.
+     * @return количество записей
+     */
+    public int getRingEntries(){return ringEntries;}
+
+    /**
+     * Возвращает ключи и элементы, на которые ссылаются изменения в буфере.
+     * @return список пар "ключ - элемент"
+     */
+    public List<Map.Entry<Long, MusicBand>> getRingBands(){return ringBands;}
+}
@@ -0,0 +1,84 @@
+package engine;
+
+/**
+ * Неизменяемый результат выполнения операции над коллекцией: код результата и значение.
+ * <p>
+ * Пример: {@code Result.ok(5)} - операция выполнена успешно, затронуто 5 элементов.
+ * @param <T> тип значения результата
+ * @see ResultCode
+ */
+public final class Result<T> {
+    /**
+     * Код результата.
+     */
+    private final ResultCode code;
+    /**
+     * Значение результата (может быть {@code null}).
+     */
+    private final T value;
+
+    /**
+     * Создает результат по указанным коду и значению.
+     * @param code Код результата
+     * @param value Значение результата
+     */
+    private Result(ResultCode code, T value){
+        this.code = code;
+        this.value = value;
+    }
+
+    /**
+     * Создает успешный результат с указанным значением.
+     * @param value Значение результата
+     * @return результат с кодом {@link ResultCode#OK}
+     */
+    public static <T> Result<T> ok(T value){
+        return new Result<>(ResultCode.OK, value);
+    }
+
+    /**
+     * Создает результат с указанным кодом без значения.
+     * @param code Код результата
+     * @return результат с указанным кодом
+     */
+    public static <T> Result<T> of(ResultCode code){
+        return new Result<>(code, null);
+    }
+
+    /**
+     * Создает результат с указанными кодом и значением.
+     * @param code Код результата
+     * @param value Значение результата
+     * @return результат с указанными кодом и значением
+     */
+    public static <T> Result<T> of(ResultCode code, T value){
+        return new Result<>(code, value);
+    }
+
+    /**
+     * Возвращает код результата.
+     * @return код результата (гарантированно не {@code null})
+     */
+    public ResultCode getCode(){return code;}
+
+    /**
+     * Возвращает значение результата.
+     * @return значение результата (может быть {@code null})
+     */
+    public T getValue(){return value;}
+
+    /**
+     * Проверяет, выполнена ли операция успешно.
+     * @return true если код результата {@link ResultCode#OK}
+     */
+    public boolean isOk(){return code == ResultCode.OK;}
+
+    /**
+     * Возвращает строковое представление результата в формате "Result[code={код}, value={значение}]".
+     * @return непустую строку с основными полями объекта
+     */
+    @Override
+    public String toString(){
+        return String.format("Result[code=%s, value=%s]", code, value);
+    }
+}
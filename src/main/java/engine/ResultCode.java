@@ -0,0 +1,89 @@
+package engine;
+
+/**
+ * Перечисление кодов результата выполнения операций над коллекцией.
+ * <p>
+ * Каждому коду соответствует фиксированное значение, которое передается в статусе ответа двоичного протокола
+ * ({@link server.BinaryProtocol}); значения не зависят от порядка кодов в перечислении.
+ */
+public enum ResultCode {
+    /**
+     * Операция выполнена успешно.
+     */
+    OK(0),
+    /**
+     * Коллекция пуста, операция не выполнялась.
+     */
+    EMPTY(1),
+    /**
+     * Коллекция уже содержит элемент с указанным ключом.
+     */
+    KEY_EXISTS(2),
+    /**
+     * Коллекция не содержит элемента с указанным ключом.
+     */
+    KEY_NOT_FOUND(3),
+    /**
+     * Новый элемент не меньше старого, замена не выполнялась.
+     */
+    NOT_REPLACED(4),
+    /**
+     * Переданный элемент равен {@code null} или не соответствует ограничениям.
+     */
+    INVALID_ELEMENT(5),
+    /**
+     * Ошибка ввода-вывода при работе с файлом.
+     */
+    IO_ERROR(6),
+    /**
+     * Транзакция уже начата.
+     */
+    TRANSACTION_ACTIVE(7),
+    /**
+     * Нет начатой транзакции.
+     */
+    NO_TRANSACTION(8),
+    /**
+     * Коллекция доступна только для чтения (процесс - реплика другого процесса).
+     */
+    READ_ONLY(9);
+
+    /**
+     * Хранит коды результата по значению.
+     */
+    private static final ResultCode[] BY_CODE = new ResultCode[256];
+
+    static {
+        for(ResultCode resultCode : values()){
+            BY_CODE[resultCode.code] = resultCode;
+        }
+    }
+
+    /**
+     * Хранит значение кода, передаваемое по сети.
+     */
+    private final int code;
+
+    /**
+     * Создает код результата.
+     * @param code Значение кода (0-254; 255 - статус ошибки двоичного протокола)
+     */
+    ResultCode(int code){
+        this.code = code;
+    }
+
+    /**
+     * Возвращает значение кода, передаваемое по сети.
+     * @return код (0-254)
+     */
+    public int getCode(){return code;}
+
+    /**
+     * Находит код результата по значению.
+     * @param code Значение кода (0-255)
+     * @return код результата или {@code null}, если такого кода нет
+     */
+    public static ResultCode fromCode(int code){
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,149 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Вторичный индекс коллекции по значению одного поля: для каждого значения хранит элементы с этим значением
+ * в порядке возрастания ключей.
+ * <p>
+ * Индекс поддерживается хранилищем {@link TreeMapStore} при каждом изменении коллекции и строится заново
+ * при создании хранилища (то есть при загрузке коллекции). Элементы индекса - ссылки на те же объекты и ключи,
+ * что и в коллекции.
+ * @param <V> Тип значения поля
+ */
+final class SecondaryIndex<V extends Comparable<? super V>> {
+    /**
+     * Хранит название поля (для описания плана запроса).
+     */
+    private final String fieldName;
+    /**
+     * Хранит функцию, возвращающую значение поля элемента.
+     */
+    private final Function<MusicBand, V> extractor;
+    /**
+     * Хранит элементы по значениям поля.
+     */
+    private final TreeMap<V, TreeMap<Long, MusicBand>> buckets = new TreeMap<>();
+
+    /**
+     * Создает пустой индекс.
+     * @param fieldName Название поля
+     * @param extractor Функция, возвращающая значение поля элемента (не {@code null})
+     */
+    SecondaryIndex(String fieldName, Function<MusicBand, V> extractor){
+        this.fieldName = fieldName;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Возвращает название поля.
+     * @return название поля
+     */
+    String getFieldName(){return fieldName;}
+
+    /**
+     * Добавляет элемент в индекс.
+     * @param key Ключ элемента
+     * @param band Элемент
+     */
+    void add(Long key, MusicBand band){
+        buckets.computeIfAbsent(extractor.apply(band), value -> new TreeMap<>()).put(key, band);
+    }
+
+    /**
+     * Удаляет элемент из индекса.
+     * @param key Ключ элемента
+     * @param band Элемент, который хранился по ключу
+     */
+    void remove(Long key, MusicBand band){
+        V value = extractor.apply(band);
+        TreeMap<Long, MusicBand> bucket = buckets.get(value);
+        if(bucket != null){
+            bucket.remove(key);
+            if(bucket.isEmpty()){
+                buckets.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Удаляет элементы с ключами из упорядоченного массива одним проходом по индексу: записи удаляются итератором,
+     * без поиска каждого ключа в дереве.
+     * @param removed Упорядоченный массив удаляемых ключей
+     * @param count Количество ключей в массиве
+     */
+    void removeAll(long[] removed, int count){
+        Iterator<TreeMap<Long, MusicBand>> values = buckets.values().iterator();
+        while(values.hasNext()){
+            TreeMap<Long, MusicBand> bucket = values.next();
+            bucket.keySet().removeIf(key -> Arrays.binarySearch(removed, 0, count, key) >= 0);
+            if(bucket.isEmpty()){
+                values.remove();
+            }
+        }
+    }
+
+    /**
+     * Удаляет все элементы из индекса.
+     */
+    void clear(){buckets.clear();}
+
+    /**
+     * Заполняет индекс элементами коллекции.
+     * @param musicBands Коллекция
+     */
+    void rebuild(Map<Long, MusicBand> musicBands){
+        buckets.clear();
+        for(Map.Entry<Long, MusicBand> entry : musicBands.entrySet()){
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Возвращает группы элементов со значениями поля из диапазона.
+     * @param from Нижняя граница ({@code null} - без границы)
+     * @param fromInclusive true - нижняя граница включается
+     * @param to Верхняя граница ({@code null} - без границы)
+     * @param toInclusive true - верхняя граница включается
+     * @return представление групп по значениям (без копирования)
+     */
+    NavigableMap<V, TreeMap<Long, MusicBand>> range(V from, boolean fromInclusive, V to, boolean toInclusive){
+        if(from != null && to != null){
+            if(from.compareTo(to) > 0){
+                return new TreeMap<>();
+            }
+            return buckets.subMap(from, fromInclusive, to, toInclusive);
+        }
+        if(from != null){
+            return buckets.tailMap(from, fromInclusive);
+        }
+        if(to != null){
+            return buckets.headMap(to, toInclusive);
+        }
+        return buckets;
+    }
+
+    /**
+     * Считает элементы в группах, но не больше, чем limit + 1: оценке достаточно знать, что элементов больше limit.
+     * @param groups Группы элементов
+     * @param limit Граница подсчета
+     * @return количество элементов или limit + 1, если их больше limit
+     */
+    static long count(NavigableMap<?, TreeMap<Long, MusicBand>> groups, long limit){
+        long count = 0;
+        for(TreeMap<Long, MusicBand> bucket : groups.values()){
+            count += bucket.size();
+            if(count > limit){
+                return limit + 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,148 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Инвертированный индекс по полю description: для каждого слова хранится упорядоченный список ключей элементов,
+ * в описании которых встречается слово.
+ * <p>
+ * Слово - наибольшая последовательность букв и цифр. Регистр не учитывается (для кириллицы и латиницы одинаково),
+ * буква ё не отличается от е. Списки ключей хранятся в массивах long без упаковки; ключи новых элементов обычно
+ * больше всех имеющихся, поэтому добавление - это запись в конец массива.
+ * Поиск нескольких слов пересекает списки, начиная с самого короткого.
+ */
+public final class TextIndex {
+    /**
+     * Хранит списки ключей по словам.
+     */
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * Разбивает текст на слова, приводя их к единому регистру.
+     * @param text Текст
+     * @return различные слова в порядке первого появления
+     */
+    public static Set<String> terms(String text){
+        Set<String> terms = new LinkedHashSet<>();
+        StringBuilder term = new StringBuilder();
+        for(int i = 0; i <= text.length(); i++){
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if(Character.isLetterOrDigit(c)){
+                term.append(fold(c));
+            }else if(term.length() > 0){
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Приводит символ к единому регистру.
+     * @param c Символ
+     * @return символ в нижнем регистре (ё заменяется на е)
+     */
+    static char fold(char c){
+        char lower = Character.toLowerCase(Character.toUpperCase(c));
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    /**
+     * Добавляет элемент в индекс.
+     * @param key Ключ элемента
+     * @param band Элемент
+     */
+    void add(Long key, MusicBand band){
+        for(String term : terms(band.getDescription())){
+            postings.computeIfAbsent(term, t -> new PostingList()).add(key);
+        }
+    }
+
+    /**
+     * Удаляет элемент из индекса.
+     * @param key Ключ элемента
+     * @param band Элемент
+     */
+    void remove(Long key, MusicBand band){
+        for(String term : terms(band.getDescription())){
+            PostingList list = postings.get(term);
+            if(list != null && list.remove(key) && list.size() == 0){
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Удаляет ключи из индекса одним проходом по каждому списку ключей (вместо удаления ключей по одному).
+     * Выгодно, когда удаляется заметная часть коллекции: затронуты почти все списки.
+     * @param removed Упорядоченный массив удаляемых ключей
+     * @param count Количество ключей в массиве
+     */
+    void removeAll(long[] removed, int count){
+        postings.values().removeIf(list -> list.removeAll(removed, count) > 0 && list.size() == 0);
+    }
+
+    /**
+     * Удаляет все элементы из индекса.
+     */
+    void clear(){postings.clear();}
+
+    /**
+     * Строит индекс заново по коллекции.
+     * @param musicBands Коллекция элементов
+     */
+    void rebuild(Map<Long, MusicBand> musicBands){
+        postings.clear();
+        for(Map.Entry<Long, MusicBand> entry : musicBands.entrySet()){
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Возвращает количество различных слов.
+     * @return количество слов
+     */
+    int termCount(){return postings.size();}
+
+    /**
+     * Возвращает списки ключей по словам (только для чтения), например для оценки занимаемой памяти ({@link MemoryEstimate}).
+     * @return списки ключей
+     */
+    Map<String, PostingList> getPostings(){return Collections.unmodifiableMap(postings);}
+
+    /**
+     * Находит элементы, в описании которых встречаются все слова.
+     * @param terms Слова, приведенные к единому регистру ({@link TextIndex#terms(String)})
+     * @return ключи найденных элементов по возрастанию
+     */
+    long[] search(Set<String> terms){
+        List<PostingList> lists = new ArrayList<>(terms.size());
+        for(String term : terms){
+            PostingList list = postings.get(term);
+            if(list == null){
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        if(lists.isEmpty()){
+            return new long[0];
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        long[] result = lists.get(0).toArray();
+        int size = result.length;
+        for(int i = 1; i < lists.size() && size > 0; i++){
+            size = lists.get(i).retain(result, size);
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,152 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import server.LoadGenerator;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Измеряет время построения инвертированного индекса {@link TextIndex} и задержку поиска по нему
+ * в сравнении с просмотром коллекции.
+ * <p>
+ * Описания элементов составляются из русских и английских слов с неравномерной частотой (частота слова обратно
+ * пропорциональна его номеру), слова пишутся в разном регистре. Запросы - одно частое слово, одно редкое слово,
+ * два и три слова.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar engine.TextSearchBenchmark [bands] [queries]}
+ */
+public class TextSearchBenchmark {
+    /**
+     * Хранит словарь описаний.
+     */
+    private static final String[] WORDS = {
+            "рок", "группа", "концерт", "альбом", "гитара", "барабаны", "голос", "сцена", "тур", "ёлка",
+            "rock", "band", "concert", "album", "guitar", "drums", "voice", "stage", "tour", "jazz",
+            "Москва", "Екатеринбург", "Санкт-Петербург", "London", "Berlin", "вокал", "бас", "клавишные", "studio", "live",
+            "акустика", "электроника", "синтезатор", "remix", "single", "хит", "чарт", "премия", "fans", "легенда"
+    };
+    /**
+     * Хранит запросы: описание и слова.
+     */
+    private static final String[][] QUERIES = {
+            {"frequent word", "рок"},
+            {"rare word", "ЛЕГЕНДА"},
+            {"two words", "Группа concert"},
+            {"three words", "рок гитара ЁЛКА"}
+    };
+
+    /**
+     * Запускает измерение.
+     * @param args количество элементов и количество запросов каждого вида
+     */
+    public static void main(String[] args){
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        TreeMap<Long, MusicBand> bands = generate(size, new Random(42));
+
+        TextIndex index = new TextIndex();
+        // Прогрев: первое построение выполняется до JIT-компиляции и не показательно
+        index.rebuild(bands);
+        long begin = System.nanoTime();
+        index.rebuild(bands);
+        long buildNanos = System.nanoTime() - begin;
+        System.out.printf("Bands: %d, distinct words: %d, index build: %.1f ms (%.0f bands/s)%n",
+                size, index.termCount(), buildNanos / 1e6, size / (buildNanos / 1e9));
+
+        System.out.printf("%-14s %8s %12s %12s %12s %14s%n", "query", "matches", "mean, us", "p50, us", "p99, us", "scan mean, us");
+        for(String[] query : QUERIES){
+            Set<String> terms = TextIndex.terms(query[1]);
+            long[] latencies = new long[queries];
+            int matches = 0;
+            for(int i = -queries; i < queries; i++){
+                long start = System.nanoTime();
+                matches = index.search(terms).length;
+                if(i >= 0){
+                    latencies[i] = System.nanoTime() - start;
+                }
+            }
+            Arrays.sort(latencies);
+            int scans = Math.max(1, queries / 50);
+            long scanStart = System.nanoTime();
+            int scanned = 0;
+            for(int i = 0; i < scans; i++){
+                scanned = scan(bands, terms);
+            }
+            double scanMean = (System.nanoTime() - scanStart) / 1e3 / scans;
+            if(scanned != matches){
+                throw new IllegalStateException("Index and scan disagree for '" + query[1] + "': " + matches + " vs " + scanned);
+            }
+            System.out.printf("%-14s %8d %12.1f %12.1f %12.1f %14.1f%n", query[0], matches,
+                    Arrays.stream(latencies).average().orElse(0) / 1e3,
+                    LoadGenerator.percentile(latencies, 50) / 1e3, LoadGenerator.percentile(latencies, 99) / 1e3, scanMean);
+        }
+    }
+
+    /**
+     * Создает коллекцию со случайными описаниями.
+     * @param size Количество элементов
+     * @param random Генератор случайных чисел
+     * @return коллекция
+     */
+    private static TreeMap<Long, MusicBand> generate(int size, Random random){
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        ZonedDateTime now = ZonedDateTime.now();
+        MusicGenre[] genres = MusicGenre.values();
+        StringBuilder description = new StringBuilder();
+        for(long key = 1; key <= size; key++){
+            description.setLength(0);
+            int words = 4 + random.nextInt(8);
+            for(int i = 0; i < words; i++){
+                String word = WORDS[zipf(random)];
+                description.append(i == 0 ? "" : random.nextInt(4) == 0 ? ", " : " ")
+                        .append(random.nextInt(3) == 0 ? word.toUpperCase() : word);
+            }
+            bands.put(key, new MusicBand(key, "Band" + key, new Coordinates(1.0, 1), now, 1 + random.nextInt(50),
+                    description.toString(), genres[random.nextInt(genres.length)], new Studio("studio")));
+        }
+        return bands;
+    }
+
+    /**
+     * Выбирает номер слова словаря с вероятностью, обратно пропорциональной номеру.
+     * @param random Генератор случайных чисел
+     * @return номер слова
+     */
+    private static int zipf(Random random){
+        double harmonic = 0;
+        for(int i = 1; i <= WORDS.length; i++){
+            harmonic += 1.0 / i;
+        }
+        double target = random.nextDouble() * harmonic;
+        for(int i = 1; i <= WORDS.length; i++){
+            target -= 1.0 / i;
+            if(target <= 0){
+                return i - 1;
+            }
+        }
+        return WORDS.length - 1;
+    }
+
+    /**
+     * Находит элементы просмотром коллекции.
+     * @param bands Коллекция
+     * @param terms Слова запроса
+     * @return количество найденных элементов
+     */
+    private static int scan(TreeMap<Long, MusicBand> bands, Set<String> terms){
+        int count = 0;
+        for(MusicBand band : bands.values()){
+            if(TextIndex.terms(band.getDescription()).containsAll(terms)){
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+package engine;
+
+import classes.MusicBand;
+import query.Field;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+
+/**
+ * Выбор первых N элементов в заданном порядке без сортировки всей коллекции.
+ * <p>
+ * Если порядок совпадает с порядком упорядоченного индекса, элементы читаются из индекса и просмотр останавливается
+ * после N элементов. Иначе используется куча из не более чем N элементов, в вершине которой находится худший
+ * из отобранных: каждый следующий элемент сравнивается только с вершиной, поэтому выбор стоит O(m log N)
+ * для коллекции из m элементов вместо O(m log m) при сортировке.
+ */
+final class TopK {
+    /**
+     * Запрещает создание объектов.
+     */
+    private TopK(){}
+
+    /**
+     * Возвращает порядок по убыванию значения поля; элементы с равными значениями упорядочены по возрастанию ключа.
+     * @param field Поле
+     * @return порядок
+     */
+    @SuppressWarnings("unchecked")
+    static Comparator<MusicBand> descending(Field field){
+        Comparator<MusicBand> byValue = switch (field.getType()){
+            case LONG -> Comparator.comparingLong(MusicBand::getId);
+            case INT, DOUBLE -> Comparator.comparingDouble(field::getNumber);
+            default -> Comparator.comparing(band -> (Comparable<Object>) field.getValue(band));
+        };
+        return byValue.reversed().thenComparing(MusicBand::getId);
+    }
+
+    /**
+     * Выбирает первые элементы в заданном порядке с помощью кучи.
+     * @param bands Элементы
+     * @param order Порядок (первыми идут меньшие); должен различать любые два элемента
+     * @param count Количество элементов
+     * @return новый список не более чем из count элементов в заданном порядке
+     */
+    static List<MusicBand> select(Collection<MusicBand> bands, Comparator<MusicBand> order, int count){
+        if(count <= 0){
+            return new ArrayList<>();
+        }
+        PriorityQueue<MusicBand> heap = new PriorityQueue<>(Math.min(count, Math.max(1, bands.size())), order.reversed());
+        for(MusicBand band : bands){
+            if(heap.size() < count){
+                heap.add(band);
+            }else if(order.compare(band, heap.peek()) < 0){
+                heap.poll();
+                heap.add(band);
+            }
+        }
+        List<MusicBand> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Выбирает первые элементы упорядоченной коллекции.
+     * @param bands Элементы в нужном порядке
+     * @param count Количество элементов
+     * @return новый список не более чем из count элементов
+     */
+    static List<MusicBand> first(Collection<MusicBand> bands, int count){
+        List<MusicBand> result = new ArrayList<>(Math.max(0, Math.min(count, bands.size())));
+        for(MusicBand band : bands){
+            if(result.size() >= count){
+                break;
+            }
+            result.add(band);
+        }
+        return result;
+    }
+
+    /**
+     * Выбирает первые элементы из групп индекса. Группы просматриваются в порядке их следования,
+     * элементы внутри группы - по возрастанию ключа.
+     * @param groups Группы индекса в нужном порядке
+     * @param count Количество элементов
+     * @return новый список не более чем из count элементов
+     */
+    static List<MusicBand> fromIndex(NavigableMap<?, ? extends Map<Long, MusicBand>> groups, int count){
+        List<MusicBand> result = new ArrayList<>(Math.max(0, Math.min(count, 1024)));
+        for(Map<Long, MusicBand> group : groups.values()){
+            for(MusicBand band : group.values()){
+                if(result.size() >= count){
+                    return result;
+                }
+                result.add(band);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,292 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Транзакция - локальные изменения поверх коллекции {@link java.util.TreeMap}, которые не видны в коллекции до фиксации.
+ * <p>
+ * Изменения хранятся в отдельной коллекции {@link Transaction#writes}: значение - новый элемент или {@code null},
+ * если элемент с этим ключом удален. Команда clear не копирует коллекцию, а устанавливает флаг {@link Transaction#cleared}.
+ * Чтение внутри транзакции объединяет изменения с коллекцией, поэтому видит собственные записи.
+ * <p>
+ * Фиксация ({@link Transaction#commit(BandStore)}) применяет изменения к коллекции одним вызовом, откат - просто
+ * отбрасывает объект транзакции; в обоих случаях стоимость пропорциональна количеству изменений, а не размеру коллекции.
+ */
+class Transaction implements BandStore {
+    /**
+     * Хранит коллекцию, поверх которой выполняется транзакция.
+     */
+    private final TreeMap<Long, MusicBand> base;
+    /**
+     * Хранит изменения транзакции. Значение {@code null} означает, что элемент удален.
+     */
+    private final TreeMap<Long, MusicBand> writes = new TreeMap<>();
+    /**
+     * Хранит признак того, что в транзакции была выполнена очистка коллекции.
+     */
+    private boolean cleared;
+    /**
+     * Хранит количество элементов, видимых внутри транзакции.
+     */
+    private int size;
+    /**
+     * Хранит количество выполненных в транзакции изменений.
+     */
+    private int operations;
+
+    /**
+     * Создает транзакцию поверх указанной коллекции.
+     * @param base Коллекция, к которой будут применены изменения при фиксации
+     */
+    Transaction(TreeMap<Long, MusicBand> base){
+        this.base = base;
+        this.size = base.size();
+    }
+
+    /**
+     * Возвращает количество выполненных в транзакции изменений.
+     * @return количество изменений
+     */
+    int getOperations(){return operations;}
+
+    /**
+     * Применяет изменения транзакции к хранилищу над коллекцией, поверх которой выполняется транзакция.
+     * @param target Хранилище над коллекцией (через него получатели узнают о зафиксированных изменениях)
+     * @return количество примененных изменений
+     */
+    int commit(BandStore target){
+        if(cleared){
+            target.clear();
+        }
+        for(Map.Entry<Long, MusicBand> entry : writes.entrySet()){
+            if(entry.getValue() == null){
+                target.remove(entry.getKey());
+            }else{
+                target.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return operations;
+    }
+
+    @Override
+    public int size(){return size;}
+
+    @Override
+    public boolean containsKey(Long key){return get(key) != null;}
+
+    @Override
+    public MusicBand get(Long key){
+        if(writes.containsKey(key)){
+            return writes.get(key);
+        }
+        return cleared ? null : base.get(key);
+    }
+
+    @Override
+    public MusicBand put(Long key, MusicBand band){
+        MusicBand old = get(key);
+        writes.put(key, band);
+        if(old == null){
+            size++;
+        }
+        operations++;
+        return old;
+    }
+
+    @Override
+    public MusicBand remove(Long key){
+        MusicBand old = get(key);
+        if(old == null){
+            return null;
+        }
+        if(cleared || !base.containsKey(key)){
+            writes.remove(key);
+        }else{
+            writes.put(key, null);
+        }
+        size--;
+        operations++;
+        return old;
+    }
+
+    @Override
+    public Collection<MusicBand> values(){
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<MusicBand> iterator(){
+                Iterator<Map.Entry<Long, MusicBand>> entries = new MergedIterator(cleared ? Collections.emptyNavigableMap() : base, writes, false);
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext(){return entries.hasNext();}
+
+                    @Override
+                    public MusicBand next(){return entries.next().getValue();}
+                };
+            }
+
+            @Override
+            public int size(){return size;}
+        };
+    }
+
+    @Override
+    public Iterable<MusicBand> tailValues(Long key){
+        return () -> {
+            Iterator<Map.Entry<Long, MusicBand>> entries = new MergedIterator(
+                    cleared ? Collections.emptyNavigableMap() : base.tailMap(key, false), writes.tailMap(key, false), false);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext(){return entries.hasNext();}
+
+                @Override
+                public MusicBand next(){return entries.next().getValue();}
+            };
+        };
+    }
+
+    @Override
+    public int removeIf(Predicate<MusicBand> filter){
+        List<Long> keys = new ArrayList<>();
+        Iterator<Map.Entry<Long, MusicBand>> entries = new MergedIterator(cleared ? Collections.emptyNavigableMap() : base, writes, false);
+        while(entries.hasNext()){
+            Map.Entry<Long, MusicBand> entry = entries.next();
+            if(filter.test(entry.getValue())){
+                keys.add(entry.getKey());
+            }
+        }
+        for(Long key : keys){
+            remove(key);
+        }
+        return keys.size();
+    }
+
+    @Override
+    public int removeHead(Long key){
+        List<Long> keys = new ArrayList<>();
+        Iterator<Map.Entry<Long, MusicBand>> entries = new MergedIterator(
+                cleared ? Collections.emptyNavigableMap() : base.headMap(key, false), writes.headMap(key, false), false);
+        while(entries.hasNext()){
+            keys.add(entries.next().getKey());
+        }
+        for(Long k : keys){
+            remove(k);
+        }
+        return keys.size();
+    }
+
+    @Override
+    public int clear(){
+        int removed = size;
+        writes.clear();
+        cleared = true;
+        size = 0;
+        operations++;
+        return removed;
+    }
+
+    @Override
+    public Long firstKey(){
+        Iterator<Map.Entry<Long, MusicBand>> entries = new MergedIterator(cleared ? Collections.emptyNavigableMap() : base, writes, false);
+        return entries.hasNext() ? entries.next().getKey() : null;
+    }
+
+    @Override
+    public Long lastKey(){
+        Iterator<Map.Entry<Long, MusicBand>> entries = new MergedIterator(cleared ? Collections.emptyNavigableMap() : base, writes, true);
+        return entries.hasNext() ? entries.next().getKey() : null;
+    }
+
+    /**
+     * Итератор, объединяющий элементы коллекции и изменения транзакции в порядке ключей.
+     * Изменения транзакции заменяют элементы коллекции с тем же ключом, удаленные элементы пропускаются.
+     */
+    private static class MergedIterator implements Iterator<Map.Entry<Long, MusicBand>> {
+        /**
+         * Хранит итератор по элементам коллекции.
+         */
+        private final Iterator<Map.Entry<Long, MusicBand>> baseIterator;
+        /**
+         * Хранит итератор по изменениям транзакции.
+         */
+        private final Iterator<Map.Entry<Long, MusicBand>> writesIterator;
+        /**
+         * Хранит признак обхода в порядке убывания ключей.
+         */
+        private final boolean descending;
+        /**
+         * Хранит очередной непрочитанный элемент коллекции.
+         */
+        private Map.Entry<Long, MusicBand> baseEntry;
+        /**
+         * Хранит очередное непрочитанное изменение транзакции.
+         */
+        private Map.Entry<Long, MusicBand> writesEntry;
+        /**
+         * Хранит следующий возвращаемый элемент.
+         */
+        private Map.Entry<Long, MusicBand> next;
+
+        /**
+         * Создает итератор по указанным коллекциям.
+         * @param base Элементы коллекции
+         * @param writes Изменения транзакции
+         * @param descending true - обход в порядке убывания ключей
+         */
+        MergedIterator(NavigableMap<Long, MusicBand> base, NavigableMap<Long, MusicBand> writes, boolean descending){
+            this.baseIterator = (descending ? base.descendingMap() : base).entrySet().iterator();
+            this.writesIterator = (descending ? writes.descendingMap() : writes).entrySet().iterator();
+            this.descending = descending;
+            baseEntry = baseIterator.hasNext() ? baseIterator.next() : null;
+            writesEntry = writesIterator.hasNext() ? writesIterator.next() : null;
+            advance();
+        }
+
+        /**
+         * Находит следующий видимый элемент.
+         */
+        private void advance(){
+            next = null;
+            while(next == null && (baseEntry != null || writesEntry != null)){
+                int cmp;
+                if(baseEntry == null){
+                    cmp = 1;
+                }else if(writesEntry == null){
+                    cmp = -1;
+                }else{
+                    cmp = baseEntry.getKey().compareTo(writesEntry.getKey());
+                    if(descending){
+                        cmp = -cmp;
+                    }
+                }
+                if(cmp < 0){
+                    next = baseEntry;
+                    baseEntry = baseIterator.hasNext() ? baseIterator.next() : null;
+                }else{
+                    if(cmp == 0){
+                        baseEntry = baseIterator.hasNext() ? baseIterator.next() : null;
+                    }
+                    if(writesEntry.getValue() != null){
+                        next = writesEntry;
+                    }
+                    writesEntry = writesIterator.hasNext() ? writesIterator.next() : null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext(){return next != null;}
+
+        @Override
+        public Map.Entry<Long, MusicBand> next(){
+            if(next == null){
+                throw new NoSuchElementException();
+            }
+            Map.Entry<Long, MusicBand> result = next;
+            advance();
+            return result;
+        }
+    }
+}
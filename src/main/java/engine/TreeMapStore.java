@@ -0,0 +1,402 @@
+package engine;
+
+import classes.MusicBand;
+import classes.MusicGenre;
+import query.Field;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Хранилище {@link BandStore} поверх коллекции {@link java.util.TreeMap}. Все изменения сразу применяются к коллекции.
+ * <p>
+ * О каждом изменении сообщается получателям {@link MutationListener}. Если получателей нет, изменения не создаются.
+ * <p>
+ * Хранилище поддерживает вторичные индексы {@link SecondaryIndex} по полям name, genre и numberOfParticipants,
+ * которые использует {@link QueryPlan}, инвертированный индекс {@link TextIndex} по полю description
+ * и индекс триграмм {@link TrigramIndex} по полю name. В режиме сортировки с учетом языка
+ * ({@link TreeMapStore#setCollator(Collator)}) поддерживается также индекс по ключам сравнения названий.
+ * Индексы строятся при создании хранилища и обновляются при каждом изменении.
+ */
+class TreeMapStore implements BandStore {
+    /**
+     * Хранит коллекцию элементов.
+     */
+    private final TreeMap<Long, MusicBand> musicBands;
+    /**
+     * Хранит получателей изменений.
+     */
+    private volatile MutationListener[] listeners = new MutationListener[0];
+    /**
+     * Хранит индекс по полю name.
+     */
+    private final SecondaryIndex<String> nameIndex = new SecondaryIndex<>("name", MusicBand::getName);
+    /**
+     * Хранит индекс по полю genre.
+     */
+    private final SecondaryIndex<MusicGenre> genreIndex = new SecondaryIndex<>("genre", MusicBand::getGenre);
+    /**
+     * Хранит индекс по полю numberOfParticipants.
+     */
+    private final SecondaryIndex<Integer> participantsIndex = new SecondaryIndex<>("numberOfParticipants", MusicBand::getNumberOfParticipants);
+    /**
+     * Хранит все индексы.
+     */
+    private final List<SecondaryIndex<?>> indexes = List.of(nameIndex, genreIndex, participantsIndex);
+    /**
+     * Хранит инвертированный индекс по полю description.
+     */
+    private final TextIndex descriptionIndex = new TextIndex();
+    /**
+     * Хранит индекс триграмм по полю name.
+     */
+    private final TrigramIndex nameTrigrams = new TrigramIndex();
+    /**
+     * Хранит индекс по ключам сравнения названий ({@code null}, если сортировка с учетом языка не используется).
+     */
+    private SecondaryIndex<CollationKey> collationIndex;
+    /**
+     * Хранит долю коллекции, начиная с которой удаленные элементы убираются из инвертированных индексов одним проходом
+     * по всем спискам ключей, а не по одному.
+     */
+    private static final double BULK_UNINDEX_SHARE = 1.0 / 64;
+
+    /**
+     * Создает хранилище над указанной коллекцией и строит индексы.
+     * @param musicBands Коллекция элементов
+     */
+    TreeMapStore(TreeMap<Long, MusicBand> musicBands){
+        this.musicBands = musicBands;
+        rebuildIndexes();
+    }
+
+    /**
+     * Строит все индексы заново по коллекции. Индексы независимы друг от друга и строятся параллельно.
+     */
+    private void rebuildIndexes(){
+        List<Runnable> rebuilds = new ArrayList<>();
+        for(SecondaryIndex<?> index : indexes){
+            rebuilds.add(() -> index.rebuild(musicBands));
+        }
+        rebuilds.add(() -> descriptionIndex.rebuild(musicBands));
+        rebuilds.add(() -> nameTrigrams.rebuild(musicBands));
+        if(collationIndex != null){
+            rebuilds.add(() -> collationIndex.rebuild(musicBands));
+        }
+        rebuilds.parallelStream().forEach(Runnable::run);
+    }
+
+    /**
+     * Возвращает индекс по указанному полю.
+     * @param field Поле
+     * @return индекс или {@code null}, если поле не индексируется
+     */
+    SecondaryIndex<?> getIndex(Field field){
+        return switch (field){
+            case NAME -> nameIndex;
+            case GENRE -> genreIndex;
+            case NUMBER_OF_PARTICIPANTS -> participantsIndex;
+            default -> null;
+        };
+    }
+
+    /**
+     * Возвращает инвертированный индекс по полю description.
+     * @return индекс
+     */
+    TextIndex getDescriptionIndex(){return descriptionIndex;}
+
+    /**
+     * Возвращает индекс триграмм по полю name.
+     * @return индекс
+     */
+    TrigramIndex getNameTrigrams(){return nameTrigrams;}
+
+    /**
+     * Включает или выключает индекс по ключам сравнения названий и строит его по коллекции.
+     * Ключи вычисляются один раз для каждого элемента и хранятся в нем ({@link MusicBand#getCollationKey(Collator)}).
+     * @param collator Правила сравнения или {@code null}, чтобы выключить индекс
+     */
+    void setCollator(Collator collator){
+        if(collator == null){
+            collationIndex = null;
+            return;
+        }
+        SecondaryIndex<CollationKey> index = new SecondaryIndex<>("name", band -> band.getCollationKey(collator));
+        index.rebuild(musicBands);
+        collationIndex = index;
+    }
+
+    /**
+     * Возвращает индекс по ключам сравнения названий.
+     * @return индекс или {@code null}, если сортировка с учетом языка не используется
+     */
+    SecondaryIndex<CollationKey> getCollationIndex(){return collationIndex;}
+
+    /**
+     * Находит элементы с названиями, похожими на запрос, по индексу триграмм.
+     * @param query Запрос
+     * @param limit Наибольшее количество результатов
+     * @return не более limit результатов по убыванию сходства
+     */
+    List<NameMatch> searchName(String query, int limit){return nameTrigrams.search(query, limit, musicBands);}
+
+    /**
+     * Возвращает элементы с ключами из диапазона.
+     * @param from Нижняя граница ({@code null} - без границы)
+     * @param fromInclusive true - нижняя граница включается
+     * @param to Верхняя граница ({@code null} - без границы)
+     * @param toInclusive true - верхняя граница включается
+     * @return представление элементов по ключам (без копирования)
+     */
+    NavigableMap<Long, MusicBand> keyRange(Long from, boolean fromInclusive, Long to, boolean toInclusive){
+        if(from != null && to != null){
+            return from > to ? new TreeMap<>() : musicBands.subMap(from, fromInclusive, to, toInclusive);
+        }
+        if(from != null){
+            return musicBands.tailMap(from, fromInclusive);
+        }
+        return to != null ? musicBands.headMap(to, toInclusive) : musicBands;
+    }
+
+    /**
+     * Обновляет индексы после замены элемента.
+     * @param key Ключ элемента
+     * @param old Прежний элемент или {@code null}
+     * @param band Новый элемент или {@code null}, если элемент удален
+     */
+    private void reindex(Long key, MusicBand old, MusicBand band){
+        for(SecondaryIndex<?> index : indexes){
+            if(old != null){
+                index.remove(key, old);
+            }
+            if(band != null){
+                index.add(key, band);
+            }
+        }
+        if(collationIndex != null){
+            if(old != null){
+                collationIndex.remove(key, old);
+            }
+            if(band != null){
+                collationIndex.add(key, band);
+            }
+        }
+        // Описание обычно не меняется при обновлении остальных полей, и разбивать его на слова повторно не нужно
+        if(old == null || band == null || !old.getDescription().equals(band.getDescription())){
+            if(old != null){
+                descriptionIndex.remove(key, old);
+            }
+            if(band != null){
+                descriptionIndex.add(key, band);
+            }
+        }
+        if(old == null || band == null || !old.getName().equals(band.getName())){
+            if(old != null){
+                nameTrigrams.remove(key, old);
+            }
+            if(band != null){
+                nameTrigrams.add(key, band);
+            }
+        }
+    }
+
+    /**
+     * Добавляет получателя изменений.
+     * @param listener Получатель изменений
+     */
+    synchronized void addListener(MutationListener listener){
+        MutationListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * Удаляет получателя изменений.
+     * @param listener Получатель изменений
+     */
+    synchronized void removeListener(MutationListener listener){
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(MutationListener[]::new);
+    }
+
+    /**
+     * Сообщает об изменении всем получателям.
+     * @param mutation Изменение
+     */
+    private void publish(Mutation mutation){
+        for(MutationListener listener : listeners){
+            listener.onMutation(mutation);
+        }
+    }
+
+    /**
+     * Проверяет, есть ли получатели изменений.
+     * @return true, если есть хотя бы один получатель
+     */
+    private boolean hasListeners(){return listeners.length != 0;}
+
+    @Override
+    public int size(){return musicBands.size();}
+
+    @Override
+    public boolean containsKey(Long key){return musicBands.containsKey(key);}
+
+    @Override
+    public MusicBand get(Long key){return musicBands.get(key);}
+
+    @Override
+    public MusicBand put(Long key, MusicBand band){
+        MusicBand old = musicBands.put(key, band);
+        reindex(key, old, band);
+        if(hasListeners()){
+            publish(Mutation.put(key, band, old));
+        }
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Если элементов не меньше, чем в хранилище, они добавляются в коллекцию одним вызовом, а индексы строятся заново:
+     * это дешевле, чем обновлять индексы для каждого элемента.
+     */
+    @Override
+    public void putAll(SortedMap<Long, MusicBand> bands){
+        if(bands.size() < musicBands.size()){
+            BandStore.super.putAll(bands);
+            return;
+        }
+        List<Mutation> mutations = null;
+        if(hasListeners()){
+            mutations = new ArrayList<>(bands.size());
+            for(Map.Entry<Long, MusicBand> entry : bands.entrySet()){
+                mutations.add(Mutation.put(entry.getKey(), entry.getValue(), musicBands.get(entry.getKey())));
+            }
+        }
+        musicBands.putAll(bands);
+        rebuildIndexes();
+        if(mutations != null){
+            mutations.forEach(this::publish);
+        }
+    }
+
+    @Override
+    public MusicBand remove(Long key){
+        MusicBand old = musicBands.remove(key);
+        if(old != null){
+            reindex(key, old, null);
+        }
+        if(old != null && hasListeners()){
+            publish(Mutation.remove(key, old));
+        }
+        return old;
+    }
+
+    @Override
+    public Collection<MusicBand> values(){return musicBands.values();}
+
+    @Override
+    public Iterable<MusicBand> tailValues(Long key){return musicBands.tailMap(key, false).values();}
+
+    @Override
+    public int removeIf(Predicate<MusicBand> filter){
+        int sizeBefore = musicBands.size();
+        boolean publish = hasListeners();
+        List<Map.Entry<Long, MusicBand>> removed = new ArrayList<>();
+        Iterator<Map.Entry<Long, MusicBand>> entries = musicBands.entrySet().iterator();
+        while(entries.hasNext()){
+            Map.Entry<Long, MusicBand> entry = entries.next();
+            if(filter.test(entry.getValue())){
+                // Удаление узла с двумя потомками переносит в него ключ и значение следующего узла,
+                // поэтому элемент запоминается до удаления
+                removed.add(Map.entry(entry.getKey(), entry.getValue()));
+                entries.remove();
+            }
+        }
+        unindexAll(removed, sizeBefore);
+        if(publish){
+            for(Map.Entry<Long, MusicBand> entry : removed){
+                publish(Mutation.remove(entry.getKey(), entry.getValue()));
+            }
+        }
+        return removed.size();
+    }
+
+    @Override
+    public int removeHead(Long key){
+        int sizeBefore = musicBands.size();
+        NavigableMap<Long, MusicBand> head = musicBands.headMap(key, false);
+        List<Map.Entry<Long, MusicBand>> removed = new ArrayList<>(head.size());
+        for(Map.Entry<Long, MusicBand> entry : head.entrySet()){
+            removed.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        head.clear();
+        unindexAll(removed, sizeBefore);
+        if(!removed.isEmpty() && hasListeners()){
+            publish(Mutation.removeLowerKey(key));
+        }
+        return removed.size();
+    }
+
+    /**
+     * Удаляет из индексов элементы, удаленные из коллекции. Если удалено не меньше {@link TreeMapStore#BULK_UNINDEX_SHARE}
+     * коллекции, каждый индекс очищается от удаленных ключей одним проходом (вторичные индексы - по всем записям,
+     * инвертированные - по каждому списку ключей); иначе каждый элемент удаляется из индексов отдельно.
+     * @param removed Удаленные элементы по возрастанию ключей
+     * @param sizeBefore Размер коллекции до удаления
+     */
+    private void unindexAll(List<Map.Entry<Long, MusicBand>> removed, int sizeBefore){
+        if(removed.size() < sizeBefore * BULK_UNINDEX_SHARE){
+            for(Map.Entry<Long, MusicBand> entry : removed){
+                reindex(entry.getKey(), entry.getValue(), null);
+            }
+            return;
+        }
+        long[] keys = new long[removed.size()];
+        int count = 0;
+        for(Map.Entry<Long, MusicBand> entry : removed){
+            keys[count++] = entry.getKey();
+        }
+        for(SecondaryIndex<?> index : indexes){
+            index.removeAll(keys, count);
+        }
+        if(collationIndex != null){
+            collationIndex.removeAll(keys, count);
+        }
+        descriptionIndex.removeAll(keys, count);
+        nameTrigrams.removeAll(keys, count);
+    }
+
+    @Override
+    public int clear(){
+        int removed = musicBands.size();
+        musicBands.clear();
+        for(SecondaryIndex<?> index : indexes){
+            index.clear();
+        }
+        descriptionIndex.clear();
+        nameTrigrams.clear();
+        if(collationIndex != null){
+            collationIndex.clear();
+        }
+        if(hasListeners()){
+            publish(Mutation.clear());
+        }
+        return removed;
+    }
+
+    @Override
+    public Long firstKey(){return musicBands.isEmpty() ? null : musicBands.firstKey();}
+
+    @Override
+    public Long lastKey(){return musicBands.isEmpty() ? null : musicBands.lastKey();}
+}
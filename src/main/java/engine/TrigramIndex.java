@@ -0,0 +1,288 @@
+package engine;
+
+import classes.MusicBand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Индекс триграмм по полю name для нечеткого поиска: для каждой триграммы хранится упорядоченный список ключей
+ * элементов, в названии которых она встречается.
+ * <p>
+ * Название приводится к единому регистру ({@link TextIndex}), знаки препинания заменяются пробелами, в начало
+ * добавляются два пробела, в конец - один, и название разбивается на все подстроки из трех символов.
+ * Сходство названия с запросом - коэффициент Жаккара множеств их триграмм; учитываются названия со сходством
+ * не меньше {@link TrigramIndex#THRESHOLD}.
+ * <p>
+ * Кандидаты выбираются без просмотра всех названий: если у запроса q триграмм, подходящее название содержит
+ * не меньше m = ceil(THRESHOLD * q) из них, а значит хотя бы одну из q - m + 1 самых редких. Поэтому кандидаты
+ * берутся только из списков этих триграмм. Для каждого кандидата подсчитывается количество c общих с запросом триграмм;
+ * сходство не больше c / q, поэтому кандидаты проверяются по убыванию c, и проверка прекращается, когда эта граница
+ * становится меньше сходства худшего из отобранных результатов. Сходство и расстояние Левенштейна вычисляются
+ * только для проверенных кандидатов.
+ */
+final class TrigramIndex {
+    /**
+     * Хранит наименьшее сходство названия с запросом, при котором элемент попадает в результат.
+     */
+    static final double THRESHOLD = 0.3;
+    /**
+     * Хранит списки ключей по триграммам (три символа упакованы в long).
+     */
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    /**
+     * Приводит строку к виду, в котором сравниваются названия: единый регистр, буквы и цифры, одиночные пробелы.
+     * @param text Строка
+     * @return нормализованная строка
+     */
+    static String normalize(String text){
+        StringBuilder normalized = new StringBuilder(text.length());
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if(Character.isLetterOrDigit(c)){
+                normalized.append(TextIndex.fold(c));
+            }else if(normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' '){
+                normalized.append(' ');
+            }
+        }
+        int length = normalized.length();
+        if(length > 0 && normalized.charAt(length - 1) == ' '){
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Возвращает различные триграммы нормализованной строки.
+     * @param normalized Нормализованная строка ({@link TrigramIndex#normalize(String)})
+     * @return триграммы по возрастанию (пустой массив для пустой строки)
+     */
+    static long[] trigrams(String normalized){
+        if(normalized.isEmpty()){
+            return new long[0];
+        }
+        String padded = "  " + normalized + " ";
+        long[] trigrams = new long[padded.length() - 2];
+        for(int i = 0; i < trigrams.length; i++){
+            trigrams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int size = 0;
+        for(int i = 0; i < trigrams.length; i++){
+            if(i == 0 || trigrams[i] != trigrams[i - 1]){
+                trigrams[size++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, size);
+    }
+
+    /**
+     * Добавляет элемент в индекс.
+     * @param key Ключ элемента
+     * @param band Элемент
+     */
+    void add(Long key, MusicBand band){
+        for(long trigram : trigrams(normalize(band.getName()))){
+            postings.computeIfAbsent(trigram, t -> new PostingList()).add(key);
+        }
+    }
+
+    /**
+     * Удаляет элемент из индекса.
+     * @param key Ключ элемента
+     * @param band Элемент
+     */
+    void remove(Long key, MusicBand band){
+        for(long trigram : trigrams(normalize(band.getName()))){
+            PostingList list = postings.get(trigram);
+            if(list != null && list.remove(key) && list.size() == 0){
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Удаляет ключи из индекса одним проходом по каждому списку ключей (вместо удаления ключей по одному).
+     * Выгодно, когда удаляется заметная часть коллекции: затронуты почти все списки.
+     * @param removed Упорядоченный массив удаляемых ключей
+     * @param count Количество ключей в массиве
+     */
+    void removeAll(long[] removed, int count){
+        postings.values().removeIf(list -> list.removeAll(removed, count) > 0 && list.size() == 0);
+    }
+
+    /**
+     * Удаляет все элементы из индекса.
+     */
+    void clear(){postings.clear();}
+
+    /**
+     * Строит индекс заново по коллекции.
+     * @param musicBands Коллекция элементов
+     */
+    void rebuild(Map<Long, MusicBand> musicBands){
+        postings.clear();
+        for(Map.Entry<Long, MusicBand> entry : musicBands.entrySet()){
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Возвращает количество различных триграмм.
+     * @return количество триграмм
+     */
+    int trigramCount(){return postings.size();}
+
+    /**
+     * Возвращает списки ключей по триграммам (только для чтения), например для оценки занимаемой памяти ({@link MemoryEstimate}).
+     * @return списки ключей
+     */
+    Map<Long, PostingList> getPostings(){return Collections.unmodifiableMap(postings);}
+
+    /**
+     * Находит элементы с названиями, похожими на запрос.
+     * @param query Запрос
+     * @param limit Наибольшее количество результатов
+     * @param bands Коллекция, по ключам которой построен индекс
+     * @return не более limit результатов в порядке {@link NameMatch#ORDER}
+     */
+    List<NameMatch> search(String query, int limit, Map<Long, MusicBand> bands){
+        String normalized = normalize(query);
+        long[] queryTrigrams = trigrams(normalized);
+        if(queryTrigrams.length == 0 || limit <= 0){
+            return new ArrayList<>();
+        }
+        PostingList[] lists = new PostingList[queryTrigrams.length];
+        for(int i = 0; i < lists.length; i++){
+            lists[i] = postings.get(queryTrigrams[i]);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list == null ? 0 : list.size()));
+        int required = (int) Math.ceil(THRESHOLD * queryTrigrams.length);
+        int prefix = lists.length - required + 1;
+
+        int total = 0;
+        for(int i = 0; i < prefix; i++){
+            total += lists[i] == null ? 0 : lists[i].size();
+        }
+        long[] candidates = new long[total];
+        total = 0;
+        for(int i = 0; i < prefix; i++){
+            if(lists[i] != null){
+                total += lists[i].copyTo(candidates, total);
+            }
+        }
+        Arrays.sort(candidates);
+
+        // Количество общих с запросом триграмм каждого кандидата: повторы в списках редких триграмм
+        // и проверка по спискам остальных триграмм
+        int unique = 0;
+        int[] common = new int[candidates.length];
+        for(int i = 0; i < candidates.length; i++){
+            if(unique > 0 && candidates[unique - 1] == candidates[i]){
+                common[unique - 1]++;
+            }else{
+                candidates[unique] = candidates[i];
+                common[unique++] = 1;
+            }
+        }
+        for(int i = prefix; i < lists.length; i++){
+            for(int j = 0; j < unique; j++){
+                if(lists[i].contains(candidates[j])){
+                    common[j]++;
+                }
+            }
+        }
+
+        // Сходство не больше common / q, поэтому кандидаты проверяются по убыванию количества общих триграмм,
+        // пока эта граница не станет меньше сходства худшего из отобранных результатов
+        int[] byCommon = new int[queryTrigrams.length + 2];
+        for(int j = 0; j < unique; j++){
+            byCommon[common[j] + 1]++;
+        }
+        for(int c = 1; c < byCommon.length; c++){
+            byCommon[c] += byCommon[c - 1];
+        }
+        int[] order = new int[unique];
+        for(int j = 0; j < unique; j++){
+            order[byCommon[common[j]]++] = j;
+        }
+        PriorityQueue<NameMatch> best = new PriorityQueue<>(limit + 1, NameMatch.ORDER.reversed());
+        for(int i = unique - 1; i >= 0; i--){
+            int j = order[i];
+            if(best.size() >= limit && (double) common[j] / queryTrigrams.length < best.peek().getSimilarity()){
+                break;
+            }
+            NameMatch match = score(normalized, queryTrigrams, bands.get(candidates[j]));
+            if(match != null){
+                best.add(match);
+                if(best.size() > limit){
+                    best.poll();
+                }
+            }
+        }
+        List<NameMatch> matches = new ArrayList<>(best);
+        matches.sort(NameMatch.ORDER);
+        return matches;
+    }
+
+    /**
+     * Вычисляет сходство названия элемента с запросом.
+     * @param normalized Нормализованный запрос
+     * @param queryTrigrams Триграммы запроса
+     * @param band Элемент
+     * @return результат или {@code null}, если сходство меньше {@link TrigramIndex#THRESHOLD}
+     */
+    static NameMatch score(String normalized, long[] queryTrigrams, MusicBand band){
+        String name = normalize(band.getName());
+        long[] nameTrigrams = trigrams(name);
+        int common = 0;
+        for(int i = 0, j = 0; i < queryTrigrams.length && j < nameTrigrams.length; ){
+            if(queryTrigrams[i] == nameTrigrams[j]){
+                common++;
+                i++;
+                j++;
+            }else if(queryTrigrams[i] < nameTrigrams[j]){
+                i++;
+            }else{
+                j++;
+            }
+        }
+        double similarity = (double) common / (queryTrigrams.length + nameTrigrams.length - common);
+        if(similarity < THRESHOLD){
+            return null;
+        }
+        return new NameMatch(band, similarity, distance(normalized, name));
+    }
+
+    /**
+     * Вычисляет расстояние Левенштейна (наименьшее количество вставок, удалений и замен символов).
+     * @param a Первая строка
+     * @param b Вторая строка
+     * @return расстояние
+     */
+    static int distance(String a, String b){
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for(int j = 0; j <= b.length(); j++){
+            previous[j] = j;
+        }
+        for(int i = 1; i <= a.length(); i++){
+            current[0] = i;
+            for(int j = 1; j <= b.length(); j++){
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
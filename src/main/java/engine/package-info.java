@@ -0,0 +1,6 @@
+/**
+ * Пакет содержит консольно-независимое ядро для работы с коллекцией {@link classes.MusicBand}.
+ * <p>
+ * Методы ядра ничего не выводят на консоль и не завершают программу, а возвращают типизированные результаты.
+ */
+package engine;
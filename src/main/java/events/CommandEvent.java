@@ -0,0 +1,37 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: выполнение одной команды из консоли или скрипта.
+ */
+@Name("laba5.Command")
+@Label("Command Execution")
+@Category({"Laba5", "Commands"})
+@Description("Execution of a single console or script command")
+public final class CommandEvent extends jdk.jfr.Event {
+    /**
+     * Хранит название команды.
+     */
+    @Label("Name")
+    public String name;
+    /**
+     * Хранит аргумент команды (может быть {@code null}).
+     */
+    @Label("Argument")
+    public String argument;
+    /**
+     * Хранит источник команды: interactive или script.
+     */
+    @Label("Source")
+    public String source;
+    /**
+     * Хранит количество элементов, добавленных, замененных или удаленных командой
+     * ({@link engine.CollectionEngine#changedRows()}).
+     */
+    @Label("Rows Affected")
+    public long rowsAffected;
+}
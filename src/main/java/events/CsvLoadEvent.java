@@ -0,0 +1,38 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: чтение элементов из CSV-файла ({@link utils.ReaderCSV#loadParallel}).
+ */
+@Name("laba5.CsvLoad")
+@Label("CSV Load")
+@Category({"Laba5", "CSV"})
+@Description("Reading music bands from a CSV file")
+public final class CsvLoadEvent extends jdk.jfr.Event {
+    /**
+     * Хранит путь к файлу.
+     */
+    @Label("File")
+    public String file;
+    /**
+     * Хранит количество прочитанных элементов.
+     */
+    @Label("Rows")
+    public long rows;
+    /**
+     * Хранит размер файла.
+     */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+    /**
+     * Хранит количество строк с ошибками.
+     */
+    @Label("Errors")
+    public long errors;
+}
@@ -0,0 +1,40 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR: сохранение коллекции в CSV-файл ({@link utils.WriterCSV#loadToFile}).
+ */
+@Name("laba5.CsvSave")
+@Label("CSV Save")
+@Category({"Laba5", "CSV"})
+@Description("Writing the collection to a CSV file")
+public final class CsvSaveEvent extends jdk.jfr.Event {
+    /**
+     * Хранит путь к файлу.
+     */
+    @Label("File")
+    public String file;
+    /**
+     * Хранит количество записанных элементов.
+     */
+    @Label("Rows")
+    public long rows;
+    /**
+     * Хранит размер записанного файла.
+     */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+    /**
+     * Хранит время сброса файла на диск.
+     */
+    @Label("Fsync Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long fsyncTime;
+}
@@ -0,0 +1,31 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: выполнение скрипта командой execute_script ({@link commands.Executor#execute_script(java.io.File)}).
+ */
+@Name("laba5.Script")
+@Label("Script Execution")
+@Category({"Laba5", "Commands"})
+@Description("Execution of a command script")
+public final class ScriptEvent extends jdk.jfr.Event {
+    /**
+     * Хранит путь к файлу скрипта.
+     */
+    @Label("File")
+    public String file;
+    /**
+     * Хранит количество прочитанных строк скрипта (команд и полей элементов).
+     */
+    @Label("Lines")
+    public int lines;
+    /**
+     * Хранит глубину вложенности: 1 - скрипт запущен не из другого скрипта.
+     */
+    @Label("Nesting Depth")
+    public int depth;
+}
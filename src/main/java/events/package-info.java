@@ -0,0 +1,10 @@
+/**
+ * Пакет содержит события Java Flight Recorder ({@link jdk.jfr.Event}) приложения: чтение и сохранение CSV-файла,
+ * выполнение скриптов и команд.
+ * <p>
+ * События записываются только во время записи JFR с включенными событиями категории "Laba5", например
+ * {@code java -XX:StartFlightRecording=filename=laba5.jfr,settings=profile -jar Laba5.jar bands.csv}.
+ * Если запись не ведется, создание события и вызовы {@code begin()}/{@code commit()} удаляются компилятором JIT,
+ * а поля событий заполняются только после проверки {@code shouldCommit()}.
+ */
+package events;
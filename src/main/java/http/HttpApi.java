@@ -0,0 +1,513 @@
+package http;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import engine.CollectionEngine;
+import engine.CollectionInfo;
+import engine.Result;
+import engine.ResultCode;
+import utils.WriterJSON;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * HTTP/JSON API для работы с коллекцией на основе {@link com.sun.net.httpserver.HttpServer}.
+ * <p>
+ * Запросы:
+ * <ul>
+ *     <li>{@code GET /info} - информация о коллекции (info)</li>
+ *     <li>{@code GET /bands?after=key&limit=n} - страница элементов в порядке ключей (show)</li>
+ *     <li>{@code GET /bands?starts_with=name&after=key&limit=n} - элементы, название которых начинается с подстроки (filter_starts_with_name)</li>
+ *     <li>{@code GET /bands/{key}} - элемент по ключу</li>
+ *     <li>{@code POST /bands/{key}} - добавить элемент из тела запроса (insert)</li>
+ *     <li>{@code PUT /bands/{key}} - заменить элемент телом запроса (update)</li>
+ *     <li>{@code DELETE /bands/{key}} - удалить элемент (remove_key)</li>
+ * </ul>
+ * Каждый запрос обрабатывается в отдельном виртуальном потоке (если среда выполнения их поддерживает, иначе - в пуле потоков).
+ * Доступ к {@link engine.CollectionEngine} разделяется его блокировкой {@link engine.CollectionEngine#getLock()}:
+ * чтения выполняются параллельно, изменения - по одному. Ответ сериализуется после снятия блокировки.
+ */
+public class HttpApi {
+    /**
+     * Хранит размер страницы по умолчанию.
+     */
+    private static final int DEFAULT_LIMIT = 100;
+    /**
+     * Хранит максимальный размер страницы.
+     */
+    private static final int MAX_LIMIT = 10_000;
+    /**
+     * Хранит формат даты инициализации коллекции.
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    /**
+     * Хранит сообщение об ошибке при изменении коллекции, доступной только для чтения.
+     */
+    private static final String READ_ONLY_MESSAGE = "The collection is read-only: this process is a replica";
+    /**
+     * Хранит ядро с коллекцией.
+     */
+    private final CollectionEngine engine;
+    /**
+     * Хранит блокировку доступа к ядру.
+     */
+    private final ReadWriteLock lock;
+    /**
+     * Хранит HTTP-сервер.
+     */
+    private final HttpServer server;
+    /**
+     * Хранит исполнитель, в котором обрабатываются запросы.
+     */
+    private final ExecutorService requestExecutor;
+
+    /**
+     * Создает HTTP API над указанным ядром на указанном адресе. Для приема запросов нужно вызвать {@link HttpApi#start()}.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес сервера
+     * @throws IOException если адрес недоступен
+     */
+    public HttpApi(CollectionEngine engine, InetSocketAddress address) throws IOException{
+        // Ответы отправляются частями (chunked): без TCP_NODELAY последняя часть ждет подтверждения предыдущей (~40 мс)
+        if(System.getProperty("sun.net.httpserver.nodelay") == null){
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.engine = engine;
+        this.lock = engine.getLock();
+        this.server = HttpServer.create(address, 1024);
+        this.requestExecutor = newRequestExecutor();
+        server.setExecutor(requestExecutor);
+        server.createContext("/info", this::handleInfo);
+        server.createContext("/bands", this::handleBands);
+    }
+
+    /**
+     * Создает исполнитель "виртуальный поток на запрос", если он доступен в среде выполнения (Java 21+),
+     * иначе - пул потоков платформы.
+     * @return исполнитель для обработки запросов
+     */
+    private static ExecutorService newRequestExecutor(){
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch(ReflectiveOperationException e){
+            return Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+        }
+    }
+
+    /**
+     * Начинает прием запросов.
+     */
+    public void start(){server.start();}
+
+    /**
+     * Останавливает прием запросов и завершает потоки обработки.
+     */
+    public void stop(){
+        server.stop(0);
+        requestExecutor.shutdown();
+    }
+
+    /**
+     * Возвращает адрес, на котором сервер принимает запросы.
+     * @return адрес сервера
+     */
+    public InetSocketAddress getAddress(){return server.getAddress();}
+
+    /**
+     * Обрабатывает запрос {@code GET /info}.
+     * @param exchange HTTP-запрос и ответ
+     * @throws IOException если соединение разорвано
+     */
+    private void handleInfo(HttpExchange exchange) throws IOException{
+        try(exchange){
+            if(!exchange.getRequestMethod().equals("GET")){
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            CollectionInfo info;
+            lock.readLock().lock();
+            try{
+                info = engine.info();
+            }finally{
+                lock.readLock().unlock();
+            }
+            Writer out = beginResponse(exchange, 200);
+            out.write("{\"type\":");
+            WriterJSON.writeString(out, info.getType());
+            out.write(",\"initializationDate\":\"");
+            DATE_FORMATTER.formatTo(info.getInitializationDate(), out);
+            out.write("\",\"size\":");
+            out.write(Integer.toString(info.getSize()));
+            out.write(",\"firstKey\":");
+            out.write(String.valueOf(info.getFirstKey()));
+            out.write(",\"lastKey\":");
+            out.write(String.valueOf(info.getLastKey()));
+            if(info.getReplication() != null){
+                out.write(",\"replication\":");
+                WriterJSON.writeString(out, info.getReplication());
+            }
+            out.write('}');
+            out.flush();
+        }
+    }
+
+    /**
+     * Обрабатывает запросы к {@code /bands} и {@code /bands/{key}}.
+     * @param exchange HTTP-запрос и ответ
+     * @throws IOException если соединение разорвано
+     */
+    private void handleBands(HttpExchange exchange) throws IOException{
+        try(exchange){
+            routeBands(exchange);
+        }
+    }
+
+    /**
+     * Выбирает обработчик запроса к {@code /bands} по пути и методу. Ошибки в данных запроса отправляются с кодом 400.
+     * @param exchange HTTP-запрос и ответ
+     * @throws IOException если соединение разорвано
+     */
+    private void routeBands(HttpExchange exchange) throws IOException{
+        try{
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if(path.equals("/bands") || path.equals("/bands/")){
+                if(method.equals("GET")){
+                    list(exchange);
+                }else{
+                    sendError(exchange, 405, "Method not allowed");
+                }
+                return;
+            }
+            Long key;
+            try{
+                key = Long.parseLong(path.substring("/bands/".length()));
+                if(key <= 0) throw new NumberFormatException();
+            }catch(NumberFormatException | IndexOutOfBoundsException e){
+                sendError(exchange, 404, "Key should be a positive Long number");
+                return;
+            }
+            switch (method){
+                case "GET" -> get(exchange, key);
+                case "POST" -> insert(exchange, key);
+                case "PUT" -> update(exchange, key);
+                case "DELETE" -> remove(exchange, key);
+                default -> sendError(exchange, 405, "Method not allowed");
+            }
+        }catch(IllegalArgumentException e){
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    /**
+     * Отправляет страницу элементов (show или filter_starts_with_name).
+     * @param exchange HTTP-запрос и ответ
+     * @throws IOException если соединение разорвано
+     */
+    private void list(HttpExchange exchange) throws IOException{
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Long after = query.containsKey("after") ? parseLong(query.get("after"), "after") : null;
+        int limit = query.containsKey("limit") ? (int) Math.min(parseLong(query.get("limit"), "limit"), MAX_LIMIT) : DEFAULT_LIMIT;
+        String prefix = query.get("starts_with");
+
+        List<MusicBand> page;
+        int total;
+        lock.readLock().lock();
+        try{
+            if(prefix == null){
+                page = engine.show(after, limit);
+                total = engine.size();
+            }else{
+                List<MusicBand> found = engine.filter_starts_with_name(prefix);
+                total = found.size();
+                int from = 0;
+                if(after != null){
+                    while(from < found.size() && found.get(from).getId() <= after){
+                        from++;
+                    }
+                }
+                page = found.subList(from, Math.min(found.size(), from + limit));
+            }
+        }finally{
+            lock.readLock().unlock();
+        }
+
+        Writer out = beginResponse(exchange, 200);
+        out.write("{\"total\":");
+        out.write(Integer.toString(total));
+        out.write(",\"items\":[");
+        for(int i = 0; i < page.size(); i++){
+            if(i > 0){
+                out.write(',');
+            }
+            WriterJSON.writeBand(out, page.get(i));
+        }
+        out.write("],\"next\":");
+        out.write(page.size() == limit && limit > 0 ? String.valueOf(page.get(page.size() - 1).getId()) : "null");
+        out.write('}');
+        out.flush();
+    }
+
+    /**
+     * Отправляет элемент по ключу.
+     * @param exchange HTTP-запрос и ответ
+     * @param key Ключ элемента
+     * @throws IOException если соединение разорвано
+     */
+    private void get(HttpExchange exchange, Long key) throws IOException{
+        MusicBand band;
+        lock.readLock().lock();
+        try{
+            band = engine.get(key);
+        }finally{
+            lock.readLock().unlock();
+        }
+        if(band == null){
+            sendError(exchange, 404, "The collection doesn't contain the key " + key);
+            return;
+        }
+        sendBand(exchange, 200, band);
+    }
+
+    /**
+     * Добавляет элемент из тела запроса (insert).
+     * @param exchange HTTP-запрос и ответ
+     * @param key Ключ нового элемента
+     * @throws IOException если соединение разорвано
+     */
+    private void insert(HttpExchange exchange, Long key) throws IOException{
+        MusicBand band = readBand(exchange);
+        Result<MusicBand> result;
+        lock.writeLock().lock();
+        try{
+            result = engine.insert(key, band);
+        }finally{
+            lock.writeLock().unlock();
+        }
+        if(result.isOk()){
+            sendBand(exchange, 201, result.getValue());
+        }else if(result.getCode() == ResultCode.READ_ONLY){
+            sendError(exchange, 403, READ_ONLY_MESSAGE);
+        }else{
+            sendError(exchange, 409, "The collection already contain the key: " + key);
+        }
+    }
+
+    /**
+     * Заменяет элемент телом запроса (update).
+     * @param exchange HTTP-запрос и ответ
+     * @param key Ключ заменяемого элемента
+     * @throws IOException если соединение разорвано
+     */
+    private void update(HttpExchange exchange, Long key) throws IOException{
+        MusicBand band = readBand(exchange);
+        Result<MusicBand> result;
+        lock.writeLock().lock();
+        try{
+            result = engine.update(key, band);
+        }finally{
+            lock.writeLock().unlock();
+        }
+        if(result.isOk()){
+            sendBand(exchange, 200, band);
+        }else if(result.getCode() == ResultCode.READ_ONLY){
+            sendError(exchange, 403, READ_ONLY_MESSAGE);
+        }else{
+            sendError(exchange, 404, "The collection doesn't contain the key " + key);
+        }
+    }
+
+    /**
+     * Удаляет элемент (remove_key).
+     * @param exchange HTTP-запрос и ответ
+     * @param key Ключ удаляемого элемента
+     * @throws IOException если соединение разорвано
+     */
+    private void remove(HttpExchange exchange, Long key) throws IOException{
+        Result<MusicBand> result;
+        lock.writeLock().lock();
+        try{
+            result = engine.remove_key(key);
+        }finally{
+            lock.writeLock().unlock();
+        }
+        if(result.isOk()){
+            sendBand(exchange, 200, result.getValue());
+        }else if(result.getCode() == ResultCode.READ_ONLY){
+            sendError(exchange, 403, READ_ONLY_MESSAGE);
+        }else{
+            sendError(exchange, 404, "The element with the key " + key + " was not found");
+        }
+    }
+
+    /**
+     * Создает элемент по JSON-объекту из тела запроса.
+     * Поля: name, coordinates {x, y}, numberOfParticipants, description, genre, studio {name} (или строка).
+     * @param exchange HTTP-запрос
+     * @return новый элемент
+     * @throws IOException если тело запроса не удалось прочитать
+     * @throws IllegalArgumentException если тело запроса не является корректным элементом
+     */
+    private static MusicBand readBand(HttpExchange exchange) throws IOException{
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Map<String, Object> json = JsonParser.parseObject(body);
+        Map<String, Object> coordinates = object(json.get("coordinates"), "coordinates");
+        Object studio = json.get("studio");
+        String studioName = studio instanceof String ? (String) studio : string(object(studio, "studio").get("name"), "studio.name");
+        MusicGenre genre;
+        try{
+            genre = MusicGenre.valueOf(string(json.get("genre"), "genre"));
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException(String.format("Music genre should be one of: %s", Arrays.toString(MusicGenre.values())));
+        }
+        return new MusicBand(
+                string(json.get("name"), "name"),
+                new Coordinates(number(coordinates.get("x"), "coordinates.x").doubleValue(), integer(coordinates.get("y"), "coordinates.y")),
+                integer(json.get("numberOfParticipants"), "numberOfParticipants"),
+                string(json.get("description"), "description"),
+                genre,
+                new Studio(studioName));
+    }
+
+    /**
+     * Проверяет, что значение является JSON-объектом.
+     * @param value Значение
+     * @param field Название поля для сообщения об ошибке
+     * @return поля объекта
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value, String field){
+        if(!(value instanceof Map)){
+            throw new IllegalArgumentException("Field '" + field + "' should be an object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Проверяет, что значение является строкой.
+     * @param value Значение
+     * @param field Название поля для сообщения об ошибке
+     * @return строка
+     */
+    private static String string(Object value, String field){
+        if(!(value instanceof String)){
+            throw new IllegalArgumentException("Field '" + field + "' should be a string");
+        }
+        return (String) value;
+    }
+
+    /**
+     * Проверяет, что значение является числом.
+     * @param value Значение
+     * @param field Название поля для сообщения об ошибке
+     * @return число
+     */
+    private static Number number(Object value, String field){
+        if(!(value instanceof Number)){
+            throw new IllegalArgumentException("Field '" + field + "' should be a number");
+        }
+        return (Number) value;
+    }
+
+    /**
+     * Проверяет, что значение является целым числом типа int.
+     * @param value Значение
+     * @param field Название поля для сообщения об ошибке
+     * @return целое число
+     */
+    private static int integer(Object value, String field){
+        if(!(value instanceof Long) || (Long) value != ((Long) value).intValue()){
+            throw new IllegalArgumentException("Field '" + field + "' should be an integer");
+        }
+        return ((Long) value).intValue();
+    }
+
+    /**
+     * Разбирает число из параметра запроса.
+     * @param value Значение параметра
+     * @param name Название параметра
+     * @return неотрицательное число
+     */
+    private static long parseLong(String value, String name){
+        try{
+            long result = Long.parseLong(value);
+            if(result < 0) throw new NumberFormatException();
+            return result;
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Parameter '" + name + "' should be a non-negative number");
+        }
+    }
+
+    /**
+     * Разбирает строку параметров запроса.
+     * @param rawQuery Строка параметров (может быть {@code null})
+     * @return параметры запроса
+     */
+    private static Map<String, String> parseQuery(String rawQuery){
+        Map<String, String> query = new HashMap<>();
+        if(rawQuery == null){
+            return query;
+        }
+        for(String pair : rawQuery.split("&")){
+            int eq = pair.indexOf('=');
+            if(eq > 0){
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Отправляет заголовки ответа и возвращает поток для записи тела ответа в формате JSON.
+     * @param exchange HTTP-запрос и ответ
+     * @param status Код ответа
+     * @return поток для записи тела ответа (тело отправляется частями по мере записи)
+     * @throws IOException если соединение разорвано
+     */
+    private static Writer beginResponse(HttpExchange exchange, int status) throws IOException{
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192);
+    }
+
+    /**
+     * Отправляет элемент в формате JSON.
+     * @param exchange HTTP-запрос и ответ
+     * @param status Код ответа
+     * @param band Элемент
+     * @throws IOException если соединение разорвано
+     */
+    private static void sendBand(HttpExchange exchange, int status, MusicBand band) throws IOException{
+        Writer out = beginResponse(exchange, status);
+        WriterJSON.writeBand(out, band);
+        out.flush();
+    }
+
+    /**
+     * Отправляет сообщение об ошибке в формате {@code {"error":"..."}}.
+     * @param exchange HTTP-запрос и ответ
+     * @param status Код ответа
+     * @param message Сообщение об ошибке
+     * @throws IOException если соединение разорвано
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException{
+        Writer out = beginResponse(exchange, status);
+        out.write("{\"error\":");
+        WriterJSON.writeString(out, message == null ? "" : message);
+        out.write('}');
+        out.flush();
+    }
+}
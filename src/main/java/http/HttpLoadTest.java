@@ -0,0 +1,118 @@
+package http;
+
+import server.LoadGenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочный тест для {@link HttpApi}: отправляет запросы асинхронно, поддерживая заданное количество
+ * одновременно выполняющихся запросов, и измеряет задержку каждого запроса.
+ * <p>
+ * Запросы выполняются сессиями по 4 последовательных запроса: POST нового элемента, GET /info, GET /bands?limit=10,
+ * DELETE этого элемента; одновременно выполняется столько сессий, сколько указано в concurrency.
+ * В конце выводит количество запросов в секунду, задержки p50, p90, p99, max и количество ошибок.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar http.HttpLoadTest http://localhost:8080 concurrency requests [firstKey]}
+ */
+public class HttpLoadTest {
+    /**
+     * Хранит тело запроса, добавляющего элемент.
+     */
+    private static final String BAND_JSON = "{\"name\":\"Load band\",\"coordinates\":{\"x\":1.5,\"y\":2},\"numberOfParticipants\":3," +
+            "\"description\":\"Generated by HttpLoadTest\",\"genre\":\"ROCK\",\"studio\":{\"name\":\"Load studio\"}}";
+
+    /**
+     * Запускает нагрузочный тест.
+     * @param args адрес сервера, количество одновременных запросов, общее количество запросов и необязательный первый ключ
+     */
+    public static void main(String[] args) throws InterruptedException{
+        if(args.length < 3){
+            System.err.println("Usage: http.HttpLoadTest baseUrl concurrency requests [firstKey]");
+            System.exit(1);
+        }
+        URI base = URI.create(args[0]);
+        int concurrency = Integer.parseInt(args[1]);
+        int requests = Integer.parseInt(args[2]);
+        long firstKey = args.length > 3 ? Long.parseLong(args[3]) : 1_000_000_000L;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        int sessions = requests / 4;
+        long[] latencies = new long[sessions * 4];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger nextSession = new AtomicInteger();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[concurrency];
+
+        long start = System.nanoTime();
+        for(int w = 0; w < concurrency; w++){
+            workers[w] = runSessions(client, base, firstKey, sessions, nextSession, latencies, errors);
+        }
+        CompletableFuture.allOf(workers).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        requests = latencies.length;
+
+        Arrays.sort(latencies);
+        System.out.printf("Concurrency: %d, requests: %d, errors: %d%n", concurrency, requests, errors.get());
+        System.out.printf("Throughput: %.0f requests/s in %.3f s%n", requests / seconds, seconds);
+        System.out.printf("Latency: p50=%.1f us, p90=%.1f us, p99=%.1f us, max=%.1f us%n",
+                LoadGenerator.percentile(latencies, 50) / 1e3, LoadGenerator.percentile(latencies, 90) / 1e3,
+                LoadGenerator.percentile(latencies, 99) / 1e3, requests == 0 ? 0.0 : latencies[requests - 1] / 1e3);
+    }
+
+    /**
+     * Асинхронно выполняет сессии, пока они не закончатся. Сессия - 4 последовательных запроса:
+     * POST нового элемента, GET /info, GET /bands?limit=10, DELETE этого элемента.
+     * @param client HTTP-клиент
+     * @param base Адрес сервера
+     * @param firstKey Первый ключ, используемый в POST
+     * @param sessions Общее количество сессий
+     * @param nextSession Номер следующей невыполненной сессии
+     * @param latencies Массив для задержек запросов
+     * @param errors Счетчик ошибок
+     * @return завершается, когда все сессии выполнены
+     */
+    private static CompletableFuture<Void> runSessions(HttpClient client, URI base, long firstKey, int sessions,
+                                                       AtomicInteger nextSession, long[] latencies, AtomicInteger errors){
+        int session = nextSession.getAndIncrement();
+        if(session >= sessions){
+            return CompletableFuture.completedFuture(null);
+        }
+        long key = firstKey + session;
+        URI band = base.resolve("/bands/" + key);
+        return send(client, HttpRequest.newBuilder(band).POST(HttpRequest.BodyPublishers.ofString(BAND_JSON)).build(), latencies, session * 4, errors)
+                .thenCompose(v -> send(client, HttpRequest.newBuilder(base.resolve("/info")).GET().build(), latencies, session * 4 + 1, errors))
+                .thenCompose(v -> send(client, HttpRequest.newBuilder(base.resolve("/bands?limit=10")).GET().build(), latencies, session * 4 + 2, errors))
+                .thenCompose(v -> send(client, HttpRequest.newBuilder(band).DELETE().build(), latencies, session * 4 + 3, errors))
+                .thenCompose(v -> runSessions(client, base, firstKey, sessions, nextSession, latencies, errors));
+    }
+
+    /**
+     * Асинхронно отправляет запрос и записывает его задержку.
+     * @param client HTTP-клиент
+     * @param request Запрос
+     * @param latencies Массив для задержек запросов
+     * @param index Индекс запроса в массиве задержек
+     * @param errors Счетчик ошибок (ошибки соединения и коды ответа 5xx)
+     * @return завершается после получения ответа (в том числе неуспешного)
+     */
+    private static CompletableFuture<Void> send(HttpClient client, HttpRequest request, long[] latencies, int index, AtomicInteger errors){
+        long begin = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    latencies[index] = System.nanoTime() - begin;
+                    if(error != null || response.statusCode() >= 500){
+                        errors.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+}
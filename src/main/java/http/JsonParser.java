@@ -0,0 +1,237 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальный разборщик JSON для тел HTTP-запросов.
+ * <p>
+ * Объекты разбираются в {@link java.util.Map}, массивы - в {@link java.util.List}, числа - в {@link Double} или
+ * {@link Long} (если число целое и без экспоненты), строки - в {@link String}, {@code true}/{@code false} - в {@link Boolean}.
+ */
+class JsonParser {
+    /**
+     * Хранит разбираемый текст.
+     */
+    private final String text;
+    /**
+     * Хранит текущую позицию в тексте.
+     */
+    private int position;
+
+    /**
+     * Создает разборщик для указанного текста.
+     * @param text Текст в формате JSON
+     */
+    private JsonParser(String text){
+        this.text = text;
+    }
+
+    /**
+     * Разбирает JSON-объект.
+     * @param text Текст в формате JSON
+     * @return поля объекта
+     * @throws IllegalArgumentException если текст не является JSON-объектом
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text){
+        JsonParser parser = new JsonParser(text);
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if(parser.position != text.length()){
+            throw parser.error("Unexpected data after JSON value");
+        }
+        if(!(value instanceof Map)){
+            throw new IllegalArgumentException("JSON object expected");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Читает очередное значение.
+     * @return значение
+     */
+    private Object readValue(){
+        skipWhitespace();
+        if(position >= text.length()){
+            throw error("Unexpected end of JSON");
+        }
+        char c = text.charAt(position);
+        switch (c){
+            case '{': return readObject();
+            case '[': return readArray();
+            case '"': return readString();
+            case 't': expect("true"); return Boolean.TRUE;
+            case 'f': expect("false"); return Boolean.FALSE;
+            case 'n': expect("null"); return null;
+            default: return readNumber();
+        }
+    }
+
+    /**
+     * Читает объект.
+     * @return поля объекта
+     */
+    private Map<String, Object> readObject(){
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if(peek() == '}'){
+            position++;
+            return object;
+        }
+        while(true){
+            skipWhitespace();
+            if(peek() != '"'){
+                throw error("Field name expected");
+            }
+            String name = readString();
+            skipWhitespace();
+            if(peek() != ':'){
+                throw error("':' expected");
+            }
+            position++;
+            object.put(name, readValue());
+            skipWhitespace();
+            char c = peek();
+            position++;
+            if(c == '}'){
+                return object;
+            }
+            if(c != ','){
+                throw error("',' or '}' expected");
+            }
+        }
+    }
+
+    /**
+     * Читает массив.
+     * @return элементы массива
+     */
+    private List<Object> readArray(){
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if(peek() == ']'){
+            position++;
+            return array;
+        }
+        while(true){
+            array.add(readValue());
+            skipWhitespace();
+            char c = peek();
+            position++;
+            if(c == ']'){
+                return array;
+            }
+            if(c != ','){
+                throw error("',' or ']' expected");
+            }
+        }
+    }
+
+    /**
+     * Читает строку в кавычках.
+     * @return строка без кавычек и экранирования
+     */
+    private String readString(){
+        StringBuilder s = new StringBuilder();
+        position++;
+        while(true){
+            if(position >= text.length()){
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(position++);
+            if(c == '"'){
+                return s.toString();
+            }
+            if(c != '\\'){
+                s.append(c);
+                continue;
+            }
+            if(position >= text.length()){
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped){
+                case '"', '\\', '/' -> s.append(escaped);
+                case 'b' -> s.append('\b');
+                case 'f' -> s.append('\f');
+                case 'n' -> s.append('\n');
+                case 'r' -> s.append('\r');
+                case 't' -> s.append('\t');
+                case 'u' -> {
+                    if(position + 4 > text.length()){
+                        throw error("Invalid unicode escape");
+                    }
+                    try{
+                        s.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    }catch(NumberFormatException e){
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    /**
+     * Читает число.
+     * @return {@link Long} для целых чисел, иначе {@link Double}
+     */
+    private Object readNumber(){
+        int start = position;
+        while(position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0){
+            position++;
+        }
+        String number = text.substring(start, position);
+        try{
+            if(number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0){
+                return Long.parseLong(number);
+            }
+            return Double.parseDouble(number);
+        }catch(NumberFormatException e){
+            throw error("Invalid value");
+        }
+    }
+
+    /**
+     * Проверяет, что в текущей позиции находится указанное слово, и пропускает его.
+     * @param word Ожидаемое слово
+     */
+    private void expect(String word){
+        if(!text.startsWith(word, position)){
+            throw error("Invalid value");
+        }
+        position += word.length();
+    }
+
+    /**
+     * Возвращает символ в текущей позиции.
+     * @return символ или 0, если текст закончился
+     */
+    private char peek(){
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    /**
+     * Пропускает пробельные символы.
+     */
+    private void skipWhitespace(){
+        while(position < text.length() && Character.isWhitespace(text.charAt(position))){
+            position++;
+        }
+    }
+
+    /**
+     * Создает исключение с указанием текущей позиции.
+     * @param message Сообщение об ошибке
+     * @return исключение
+     */
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
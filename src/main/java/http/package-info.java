@@ -0,0 +1,5 @@
+/**
+ * Пакет содержит HTTP/JSON API для работы с коллекцией на основе {@link com.sun.net.httpserver.HttpServer}
+ * и нагрузочный тест для него.
+ */
+package http;
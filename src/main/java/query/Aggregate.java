@@ -0,0 +1,61 @@
+package query;
+
+/**
+ * Агрегатная функция команды group_by: {@code count} или {@code sum/avg/min/max(числовое поле)}.
+ */
+public final class Aggregate {
+    /**
+     * Вид агрегатной функции.
+     */
+    public enum Function {
+        /** Количество элементов группы */
+        COUNT,
+        /** Сумма значений поля */
+        SUM,
+        /** Среднее значение поля */
+        AVG,
+        /** Наименьшее значение поля */
+        MIN,
+        /** Наибольшее значение поля */
+        MAX;
+
+        @Override
+        public String toString(){return name().toLowerCase();}
+    }
+
+    /**
+     * Хранит вид функции.
+     */
+    private final Function function;
+    /**
+     * Хранит числовое поле ({@code null} для {@link Function#COUNT}).
+     */
+    private final Field field;
+
+    /**
+     * Создает агрегатную функцию.
+     * @param function Вид функции
+     * @param field Числовое поле ({@code null} для {@link Function#COUNT})
+     */
+    Aggregate(Function function, Field field){
+        this.function = function;
+        this.field = field;
+    }
+
+    /**
+     * Возвращает вид функции.
+     * @return вид функции
+     */
+    public Function getFunction(){return function;}
+
+    /**
+     * Возвращает поле, по значениям которого вычисляется функция.
+     * @return числовое поле или {@code null} для {@link Function#COUNT}
+     */
+    public Field getField(){return field;}
+
+    @Override
+    public String toString(){
+        return field == null ? function.toString() : function + "(" + field + ")";
+    }
+}
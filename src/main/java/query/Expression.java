@@ -0,0 +1,310 @@
+package query;
+
+import classes.MusicBand;
+import classes.MusicGenre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Дерево условия команды where.
+ * <p>
+ * Выражение компилируется ({@link Expression#compile()}) в объект {@link Predicate}, в котором поле, операция
+ * и значение уже выбраны: для каждого сочетания типа поля и операции создается отдельный класс, а значение хранится
+ * в примитивном виде, поэтому проверка элемента не разбирает дерево и не упаковывает числа.
+ */
+public abstract class Expression {
+    /**
+     * Создает объект проверки элементов по условию.
+     * @return условие в виде {@link Predicate}
+     */
+    public abstract Predicate<MusicBand> compile();
+
+    /**
+     * Возвращает условия, объединенные словом and на верхнем уровне выражения.
+     * @return список условий (само выражение, если оно не является конъюнкцией)
+     */
+    public List<Expression> conjuncts(){return Collections.singletonList(this);}
+
+    /**
+     * Объединяет условия словом and.
+     * @param operands Условия (не пустой список)
+     * @return условие, истинное, если истинны все условия
+     */
+    public static Expression and(List<Expression> operands){
+        return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    /**
+     * Сравнение поля элемента со значением.
+     */
+    public static final class Comparison extends Expression {
+        /**
+         * Хранит поле.
+         */
+        private final Field field;
+        /**
+         * Хранит операцию сравнения.
+         */
+        private final Operator operator;
+        /**
+         * Хранит значение: {@link Long}, {@link Integer}, {@link Double}, {@link String} или {@link MusicGenre}
+         * в соответствии с типом поля.
+         */
+        private final Object value;
+
+        /**
+         * Создает сравнение.
+         * @param field Поле
+         * @param operator Операция, применимая к типу поля
+         * @param value Значение типа, соответствующего типу поля
+         */
+        Comparison(Field field, Operator operator, Object value){
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        /**
+         * Возвращает поле.
+         * @return поле
+         */
+        public Field getField(){return field;}
+
+        /**
+         * Возвращает операцию сравнения.
+         * @return операция
+         */
+        public Operator getOperator(){return operator;}
+
+        /**
+         * Возвращает значение, с которым сравнивается поле.
+         * @return значение типа, соответствующего типу поля
+         */
+        public Object getValue(){return value;}
+
+        @Override
+        public Predicate<MusicBand> compile(){
+            return switch (field.getType()){
+                case LONG -> compileLong((Long) value);
+                case INT -> compileInt(field == Field.Y ? band -> band.getCoordinates().getY() : MusicBand::getNumberOfParticipants, (Integer) value);
+                case DOUBLE -> compileDouble(band -> band.getCoordinates().getX(), (Double) value);
+                case STRING -> compileString((String) value);
+                case GENRE -> {
+                    MusicGenre genre = (MusicGenre) value;
+                    yield operator == Operator.EQ ? band -> band.getGenre() == genre : band -> band.getGenre() != genre;
+                }
+            };
+        }
+
+        /**
+         * Компилирует сравнение ключа.
+         * @param value Значение
+         * @return условие
+         */
+        private Predicate<MusicBand> compileLong(long value){
+            return switch (operator){
+                case EQ -> band -> band.getId() == value;
+                case NE -> band -> band.getId() != value;
+                case LT -> band -> band.getId() < value;
+                case LE -> band -> band.getId() <= value;
+                case GT -> band -> band.getId() > value;
+                case GE -> band -> band.getId() >= value;
+                default -> throw new IllegalStateException(operator + " is not applicable to " + field);
+            };
+        }
+
+        /**
+         * Компилирует сравнение целочисленного поля.
+         * @param getter Значение поля
+         * @param value Значение
+         * @return условие
+         */
+        private Predicate<MusicBand> compileInt(ToIntFunction<MusicBand> getter, int value){
+            return switch (operator){
+                case EQ -> band -> getter.applyAsInt(band) == value;
+                case NE -> band -> getter.applyAsInt(band) != value;
+                case LT -> band -> getter.applyAsInt(band) < value;
+                case LE -> band -> getter.applyAsInt(band) <= value;
+                case GT -> band -> getter.applyAsInt(band) > value;
+                case GE -> band -> getter.applyAsInt(band) >= value;
+                default -> throw new IllegalStateException(operator + " is not applicable to " + field);
+            };
+        }
+
+        /**
+         * Компилирует сравнение дробного поля.
+         * @param getter Значение поля
+         * @param value Значение
+         * @return условие
+         */
+        private Predicate<MusicBand> compileDouble(ToDoubleFunction<MusicBand> getter, double value){
+            return switch (operator){
+                case EQ -> band -> getter.applyAsDouble(band) == value;
+                case NE -> band -> getter.applyAsDouble(band) != value;
+                case LT -> band -> getter.applyAsDouble(band) < value;
+                case LE -> band -> getter.applyAsDouble(band) <= value;
+                case GT -> band -> getter.applyAsDouble(band) > value;
+                case GE -> band -> getter.applyAsDouble(band) >= value;
+                default -> throw new IllegalStateException(operator + " is not applicable to " + field);
+            };
+        }
+
+        /**
+         * Компилирует сравнение строкового поля. Строки сравниваются методом {@link String#compareTo(String)}.
+         * @param value Значение
+         * @return условие
+         */
+        private Predicate<MusicBand> compileString(String value){
+            Field field = this.field;
+            return switch (operator){
+                case EQ -> band -> field.getString(band).equals(value);
+                case NE -> band -> !field.getString(band).equals(value);
+                case LT -> band -> field.getString(band).compareTo(value) < 0;
+                case LE -> band -> field.getString(band).compareTo(value) <= 0;
+                case GT -> band -> field.getString(band).compareTo(value) > 0;
+                case GE -> band -> field.getString(band).compareTo(value) >= 0;
+                case STARTS_WITH -> band -> field.getString(band).startsWith(value);
+                case CONTAINS -> band -> field.getString(band).contains(value);
+            };
+        }
+
+        @Override
+        public String toString(){
+            String text = value instanceof String ? QueryParser.quote((String) value) : String.valueOf(value);
+            return field + " " + operator + " " + text;
+        }
+    }
+
+    /**
+     * Конъюнкция: условие истинно, если истинны все операнды.
+     */
+    public static final class And extends Expression {
+        /**
+         * Хранит операнды.
+         */
+        private final List<Expression> operands;
+
+        /**
+         * Создает конъюнкцию. Вложенные конъюнкции раскрываются.
+         * @param operands Операнды (не менее двух)
+         */
+        And(List<Expression> operands){
+            List<Expression> flat = new ArrayList<>();
+            for(Expression operand : operands){
+                flat.addAll(operand.conjuncts());
+            }
+            this.operands = Collections.unmodifiableList(flat);
+        }
+
+        @Override
+        public List<Expression> conjuncts(){return operands;}
+
+        @Override
+        public Predicate<MusicBand> compile(){
+            @SuppressWarnings("unchecked")
+            Predicate<MusicBand>[] predicates = operands.stream().map(Expression::compile).toArray(Predicate[]::new);
+            if(predicates.length == 2){
+                Predicate<MusicBand> first = predicates[0];
+                Predicate<MusicBand> second = predicates[1];
+                return band -> first.test(band) && second.test(band);
+            }
+            return band -> {
+                for(Predicate<MusicBand> predicate : predicates){
+                    if(!predicate.test(band)){
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        @Override
+        public String toString(){return join(operands, " and ");}
+    }
+
+    /**
+     * Дизъюнкция: условие истинно, если истинен хотя бы один операнд.
+     */
+    public static final class Or extends Expression {
+        /**
+         * Хранит операнды.
+         */
+        private final List<Expression> operands;
+
+        /**
+         * Создает дизъюнкцию.
+         * @param operands Операнды (не менее двух)
+         */
+        Or(List<Expression> operands){
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        @Override
+        public Predicate<MusicBand> compile(){
+            @SuppressWarnings("unchecked")
+            Predicate<MusicBand>[] predicates = operands.stream().map(Expression::compile).toArray(Predicate[]::new);
+            return band -> {
+                for(Predicate<MusicBand> predicate : predicates){
+                    if(predicate.test(band)){
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        @Override
+        public String toString(){return "(" + join(operands, " or ") + ")";}
+    }
+
+    /**
+     * Отрицание условия.
+     */
+    public static final class Not extends Expression {
+        /**
+         * Хранит отрицаемое условие.
+         */
+        private final Expression operand;
+
+        /**
+         * Создает отрицание.
+         * @param operand Отрицаемое условие
+         */
+        Not(Expression operand){
+            this.operand = operand;
+        }
+
+        @Override
+        public Predicate<MusicBand> compile(){
+            Predicate<MusicBand> predicate = operand.compile();
+            return band -> !predicate.test(band);
+        }
+
+        @Override
+        public String toString(){
+            return operand instanceof And ? "not (" + operand + ")" : "not " + operand;
+        }
+    }
+
+    /**
+     * Соединяет строковые представления выражений разделителем.
+     * @param expressions Выражения
+     * @param separator Разделитель
+     * @return строка
+     */
+    private static String join(List<Expression> expressions, String separator){
+        StringBuilder text = new StringBuilder();
+        for(Expression expression : expressions){
+            if(text.length() > 0){
+                text.append(separator);
+            }
+            text.append(expression);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package query;
+
+import classes.MusicBand;
+
+/**
+ * Поля {@link classes.MusicBand}, доступные в условиях команды where.
+ */
+public enum Field {
+    ID("id", Type.LONG),
+    NAME("name", Type.STRING),
+    X("x", Type.DOUBLE),
+    Y("y", Type.INT),
+    NUMBER_OF_PARTICIPANTS("numberOfParticipants", Type.INT),
+    DESCRIPTION("description", Type.STRING),
+    GENRE("genre", Type.GENRE),
+    STUDIO("studio", Type.STRING);
+
+    /**
+     * Тип значения поля.
+     */
+    public enum Type {
+        /** Целое число типа long */
+        LONG,
+        /** Целое число типа int */
+        INT,
+        /** Число типа double */
+        DOUBLE,
+        /** Строка */
+        STRING,
+        /** Значение {@link classes.MusicGenre} */
+        GENRE
+    }
+
+    /**
+     * Хранит название поля в выражениях.
+     */
+    private final String fieldName;
+    /**
+     * Хранит тип значения поля.
+     */
+    private final Type type;
+
+    /**
+     * Создает поле.
+     * @param fieldName Название поля в выражениях
+     * @param type Тип значения
+     */
+    Field(String fieldName, Type type){
+        this.fieldName = fieldName;
+        this.type = type;
+    }
+
+    /**
+     * Возвращает название поля в выражениях.
+     * @return название поля
+     */
+    public String getFieldName(){return fieldName;}
+
+    /**
+     * Возвращает тип значения поля.
+     * @return тип значения
+     */
+    public Type getType(){return type;}
+
+    /**
+     * Находит поле по названию без учета регистра. Поле studio - название студии.
+     * @param name Название поля
+     * @return поле или {@code null}, если поля с таким названием нет
+     */
+    public static Field fromName(String name){
+        for(Field field : values()){
+            if(field.fieldName.equalsIgnoreCase(name)){
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет, является ли поле числовым (к нему применимы функции sum, avg, min и max команды group_by).
+     * @return true для полей типов {@link Type#LONG}, {@link Type#INT} и {@link Type#DOUBLE}
+     */
+    public boolean isNumeric(){return type == Type.LONG || type == Type.INT || type == Type.DOUBLE;}
+
+    /**
+     * Возвращает значение поля элемента.
+     * @param band Элемент
+     * @return значение типа {@link Long}, {@link Integer}, {@link Double}, {@link String} или {@link classes.MusicGenre}
+     * в соответствии с типом поля
+     */
+    public Comparable<?> getValue(MusicBand band){
+        return switch (this){
+            case ID -> band.getId();
+            case X -> band.getCoordinates().getX();
+            case Y -> band.getCoordinates().getY();
+            case NUMBER_OF_PARTICIPANTS -> band.getNumberOfParticipants();
+            case GENRE -> band.getGenre();
+            default -> getString(band);
+        };
+    }
+
+    /**
+     * Возвращает значение числового поля элемента.
+     * @param band Элемент
+     * @return значение поля
+     * @throws IllegalStateException если поле не числовое
+     */
+    public double getNumber(MusicBand band){
+        return switch (this){
+            case ID -> band.getId();
+            case X -> band.getCoordinates().getX();
+            case Y -> band.getCoordinates().getY();
+            case NUMBER_OF_PARTICIPANTS -> band.getNumberOfParticipants();
+            default -> throw new IllegalStateException("Field '" + fieldName + "' is not numeric");
+        };
+    }
+
+    /**
+     * Возвращает значение целочисленного поля элемента без преобразования в double.
+     * @param band Элемент
+     * @return значение поля
+     * @throws IllegalStateException если поле не типа {@link Type#LONG} или {@link Type#INT}
+     */
+    public long getLong(MusicBand band){
+        return switch (this){
+            case ID -> band.getId();
+            case Y -> band.getCoordinates().getY();
+            case NUMBER_OF_PARTICIPANTS -> band.getNumberOfParticipants();
+            default -> throw new IllegalStateException("Field '" + fieldName + "' is not integral");
+        };
+    }
+
+    /**
+     * Возвращает строковое значение поля элемента (для полей типа {@link Type#STRING}).
+     * @param band Элемент
+     * @return значение поля
+     */
+    String getString(MusicBand band){
+        return switch (this){
+            case NAME -> band.getName();
+            case DESCRIPTION -> band.getDescription();
+            case STUDIO -> band.getStudio().getName();
+            default -> throw new IllegalStateException("Field '" + fieldName + "' is not a string");
+        };
+    }
+
+    @Override
+    public String toString(){return fieldName;}
+}
@@ -0,0 +1,121 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Аргумент команды group_by: поле группировки и список агрегатных функций.
+ * <p>
+ * Формат: {@code поле [функция ...]}, где функция - {@code count} или {@code sum(поле)}, {@code avg(поле)},
+ * {@code min(поле)}, {@code max(поле)} с числовым полем. Без функций вычисляется {@code count}.
+ * Пример: {@code genre count avg(numberOfParticipants) max(x)}.
+ */
+public final class GroupBy {
+    /**
+     * Хранит шаблон агрегатной функции: название и необязательное поле в скобках.
+     */
+    private static final Pattern AGGREGATE = Pattern.compile("(\\w+)(?:\\((\\w*)\\))?");
+    /**
+     * Хранит поле группировки.
+     */
+    private final Field key;
+    /**
+     * Хранит агрегатные функции.
+     */
+    private final List<Aggregate> aggregates;
+
+    /**
+     * Создает аргумент команды group_by.
+     * @param key Поле группировки
+     * @param aggregates Агрегатные функции (не пустой список)
+     */
+    private GroupBy(Field key, List<Aggregate> aggregates){
+        this.key = key;
+        this.aggregates = Collections.unmodifiableList(aggregates);
+    }
+
+    /**
+     * Возвращает поле группировки.
+     * @return поле
+     */
+    public Field getKey(){return key;}
+
+    /**
+     * Возвращает агрегатные функции.
+     * @return неизменяемый список функций
+     */
+    public List<Aggregate> getAggregates(){return aggregates;}
+
+    /**
+     * Разбирает аргумент команды group_by.
+     * @param text Строка {@code поле [функция ...]}
+     * @return разобранный аргумент
+     * @throws IllegalArgumentException если поле или функция указаны неверно
+     */
+    public static GroupBy parse(String text){
+        if(text == null || text.isBlank()){
+            throw new IllegalArgumentException("Field to group by expected");
+        }
+        String[] words = text.trim().split("\\s+");
+        Field key = Field.fromName(words[0]);
+        if(key == null){
+            throw new IllegalArgumentException("Unknown field '" + words[0] + "', expected one of " + Arrays.toString(Field.values()));
+        }
+        List<Aggregate> aggregates = new ArrayList<>();
+        for(int i = 1; i < words.length; i++){
+            aggregates.add(parseAggregate(words[i]));
+        }
+        if(aggregates.isEmpty()){
+            aggregates.add(new Aggregate(Aggregate.Function.COUNT, null));
+        }
+        return new GroupBy(key, aggregates);
+    }
+
+    /**
+     * Разбирает агрегатную функцию.
+     * @param word Строка {@code count} или {@code функция(поле)}
+     * @return агрегатная функция
+     * @throws IllegalArgumentException если функция или поле указаны неверно
+     */
+    private static Aggregate parseAggregate(String word){
+        Matcher matcher = AGGREGATE.matcher(word);
+        if(!matcher.matches()){
+            throw new IllegalArgumentException("Invalid aggregate '" + word + "', expected count or function(field)");
+        }
+        Aggregate.Function function;
+        try{
+            function = Aggregate.Function.valueOf(matcher.group(1).toUpperCase());
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Unknown aggregate function '" + matcher.group(1) + "', expected one of "
+                    + Arrays.toString(Aggregate.Function.values()));
+        }
+        String fieldName = matcher.group(2);
+        if(function == Aggregate.Function.COUNT){
+            if(fieldName != null && !fieldName.isEmpty()){
+                throw new IllegalArgumentException("Aggregate 'count' has no field");
+            }
+            return new Aggregate(function, null);
+        }
+        if(fieldName == null || fieldName.isEmpty()){
+            throw new IllegalArgumentException("Aggregate '" + function + "' requires a numeric field: " + function + "(field)");
+        }
+        Field field = Field.fromName(fieldName);
+        if(field == null || !field.isNumeric()){
+            throw new IllegalArgumentException("'" + fieldName + "' is not a numeric field");
+        }
+        return new Aggregate(function, field);
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder text = new StringBuilder(key.toString());
+        for(Aggregate aggregate : aggregates){
+            text.append(' ').append(aggregate);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package query;
+
+/**
+ * Операции сравнения в условиях команды where.
+ */
+public enum Operator {
+    EQ("="),
+    NE("!="),
+    LT("<"),
+    LE("<="),
+    GT(">"),
+    GE(">="),
+    /** Строка начинается с указанной подстроки */
+    STARTS_WITH("^="),
+    /** Строка содержит указанную подстроку */
+    CONTAINS("*=");
+
+    /**
+     * Хранит обозначение операции в выражениях.
+     */
+    private final String symbol;
+
+    /**
+     * Создает операцию.
+     * @param symbol Обозначение операции
+     */
+    Operator(String symbol){
+        this.symbol = symbol;
+    }
+
+    /**
+     * Возвращает обозначение операции в выражениях.
+     * @return обозначение
+     */
+    public String getSymbol(){return symbol;}
+
+    /**
+     * Находит операцию по обозначению.
+     * @param symbol Обозначение
+     * @return операция или {@code null}, если такой операции нет
+     */
+    static Operator fromSymbol(String symbol){
+        for(Operator operator : values()){
+            if(operator.symbol.equals(symbol)){
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет, применима ли операция к полю указанного типа.
+     * @param type Тип поля
+     * @return true, если операцию можно использовать с полем этого типа
+     */
+    boolean isApplicableTo(Field.Type type){
+        return switch (this){
+            case EQ, NE -> true;
+            case LT, LE, GT, GE -> type != Field.Type.GENRE;
+            case STARTS_WITH, CONTAINS -> type == Field.Type.STRING;
+        };
+    }
+
+    @Override
+    public String toString(){return symbol;}
+}
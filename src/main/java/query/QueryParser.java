@@ -0,0 +1,285 @@
+package query;
+
+import classes.MusicGenre;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Разбирает выражение команды where (см. описание пакета {@link query}) методом рекурсивного спуска.
+ * <p>
+ * Грамматика (слова and, or, not - без учета регистра; and связывает сильнее, чем or):
+ * <pre>
+ * выражение := конъюнкция ("or" конъюнкция)*
+ * конъюнкция := условие ("and" условие)*
+ * условие := "not" условие | "(" выражение ")" | поле операция значение
+ * </pre>
+ */
+public class QueryParser {
+    /**
+     * Хранит наибольшую вложенность скобок и отрицаний: более глубокие выражения отклоняются, не доходя
+     * до переполнения стека при рекурсивном разборе (и при вычислении дерева выражения).
+     */
+    public static final int MAX_DEPTH = 64;
+    /**
+     * Хранит разбираемую строку.
+     */
+    private final String text;
+    /**
+     * Хранит позицию следующего непрочитанного символа.
+     */
+    private int position;
+    /**
+     * Хранит текущую вложенность скобок и отрицаний.
+     */
+    private int depth;
+
+    /**
+     * Создает разборщик строки.
+     * @param text Строка выражения
+     */
+    private QueryParser(String text){
+        this.text = text;
+    }
+
+    /**
+     * Разбирает выражение.
+     * @param text Строка выражения
+     * @return дерево выражения
+     * @throws IllegalArgumentException если выражение пустое или содержит ошибку (сообщение указывает позицию ошибки)
+     */
+    public static Expression parse(String text){
+        if(text == null || text.isBlank()){
+            throw new IllegalArgumentException("Expression cannot be empty");
+        }
+        QueryParser parser = new QueryParser(text);
+        Expression expression = parser.parseOr();
+        parser.skipSpaces();
+        if(parser.position < text.length()){
+            throw parser.error("unexpected '" + text.substring(parser.position) + "'");
+        }
+        return expression;
+    }
+
+    /**
+     * Записывает строку в кавычках, экранируя кавычки и обратную косую черту.
+     * @param value Строка
+     * @return строка в формате выражения
+     */
+    public static String quote(String value){
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Разбирает дизъюнкцию.
+     * @return выражение
+     */
+    private Expression parseOr(){
+        List<Expression> operands = new ArrayList<>();
+        operands.add(parseAnd());
+        while(acceptWord("or")){
+            operands.add(parseAnd());
+        }
+        return operands.size() == 1 ? operands.get(0) : new Expression.Or(operands);
+    }
+
+    /**
+     * Разбирает конъюнкцию.
+     * @return выражение
+     */
+    private Expression parseAnd(){
+        List<Expression> operands = new ArrayList<>();
+        operands.add(parseUnary());
+        while(acceptWord("and")){
+            operands.add(parseUnary());
+        }
+        return Expression.and(operands);
+    }
+
+    /**
+     * Разбирает отрицание, выражение в скобках или сравнение.
+     * @return выражение
+     */
+    private Expression parseUnary(){
+        if(acceptWord("not")){
+            enter();
+            Expression operand = parseUnary();
+            depth--;
+            return new Expression.Not(operand);
+        }
+        skipSpaces();
+        if(position < text.length() && text.charAt(position) == '('){
+            enter();
+            position++;
+            Expression expression = parseOr();
+            skipSpaces();
+            if(position >= text.length() || text.charAt(position) != ')'){
+                throw error("')' expected");
+            }
+            position++;
+            depth--;
+            return expression;
+        }
+        return parseComparison();
+    }
+
+    /**
+     * Увеличивает вложенность перед разбором скобок или отрицания.
+     * @throws IllegalArgumentException если вложенность превышает {@link QueryParser#MAX_DEPTH}
+     */
+    private void enter(){
+        if(++depth > MAX_DEPTH){
+            throw error("nesting is deeper than " + MAX_DEPTH + " levels");
+        }
+    }
+
+    /**
+     * Разбирает сравнение поля со значением.
+     * @return выражение
+     */
+    private Expression parseComparison(){
+        skipSpaces();
+        int fieldStart = position;
+        String name = readWord();
+        if(name == null){
+            throw error("field name expected");
+        }
+        Field field = Field.fromName(name);
+        if(field == null){
+            position = fieldStart;
+            throw error("unknown field '" + name + "'");
+        }
+        skipSpaces();
+        int operatorStart = position;
+        while(position < text.length() && "=!<>^*".indexOf(text.charAt(position)) >= 0){
+            position++;
+        }
+        Operator operator = Operator.fromSymbol(text.substring(operatorStart, position));
+        if(operator == null){
+            position = operatorStart;
+            throw error("comparison operator expected");
+        }
+        if(!operator.isApplicableTo(field.getType())){
+            position = operatorStart;
+            throw error("operator '" + operator + "' cannot be applied to the field '" + field + "'");
+        }
+        skipSpaces();
+        int valueStart = position;
+        String value = readValue();
+        if(value == null){
+            throw error("value expected");
+        }
+        try{
+            return new Expression.Comparison(field, operator, convert(field, value));
+        }catch(IllegalArgumentException e){
+            position = valueStart;
+            throw error(e.getMessage());
+        }
+    }
+
+    /**
+     * Преобразует значение к типу поля.
+     * @param field Поле
+     * @param value Значение
+     * @return значение типа, соответствующего типу поля
+     * @throws IllegalArgumentException если значение нельзя преобразовать
+     */
+    private static Object convert(Field field, String value){
+        try{
+            return switch (field.getType()){
+                case LONG -> Long.parseLong(value);
+                case INT -> Integer.parseInt(value);
+                case DOUBLE -> Double.parseDouble(value);
+                case STRING -> value;
+                case GENRE -> MusicGenre.valueOf(value.toUpperCase());
+            };
+        }catch(IllegalArgumentException e){
+            String expected = switch (field.getType()){
+                case LONG, INT -> "an integer";
+                case DOUBLE -> "a number";
+                case GENRE -> "one of " + Arrays.toString(MusicGenre.values());
+                default -> "a string";
+            };
+            throw new IllegalArgumentException("'" + value + "' is not a valid value of '" + field + "': " + expected + " expected");
+        }
+    }
+
+    /**
+     * Читает значение: строку в кавычках или последовательность символов до пробела или скобки.
+     * @return значение или {@code null}, если значения нет
+     */
+    private String readValue(){
+        if(position >= text.length()){
+            return null;
+        }
+        if(text.charAt(position) == '"'){
+            StringBuilder value = new StringBuilder();
+            int start = position++;
+            while(position < text.length()){
+                char c = text.charAt(position++);
+                if(c == '"'){
+                    return value.toString();
+                }
+                if(c == '\\' && position < text.length()){
+                    c = text.charAt(position++);
+                }
+                value.append(c);
+            }
+            position = start;
+            throw error("unterminated string");
+        }
+        int start = position;
+        while(position < text.length() && !Character.isWhitespace(text.charAt(position))
+                && text.charAt(position) != '(' && text.charAt(position) != ')'){
+            position++;
+        }
+        return position > start ? text.substring(start, position) : null;
+    }
+
+    /**
+     * Читает слово из букв, цифр и знаков подчеркивания.
+     * @return слово или {@code null}, если в текущей позиции нет слова
+     */
+    private String readWord(){
+        int start = position;
+        while(position < text.length() && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')){
+            position++;
+        }
+        return position > start ? text.substring(start, position) : null;
+    }
+
+    /**
+     * Пропускает указанное ключевое слово, если оно следует в текущей позиции.
+     * @param word Ключевое слово
+     * @return true, если слово пропущено
+     */
+    private boolean acceptWord(String word){
+        skipSpaces();
+        int start = position;
+        String next = readWord();
+        if(word.equalsIgnoreCase(next)){
+            return true;
+        }
+        position = start;
+        return false;
+    }
+
+    /**
+     * Пропускает пробельные символы.
+     */
+    private void skipSpaces(){
+        while(position < text.length() && Character.isWhitespace(text.charAt(position))){
+            position++;
+        }
+    }
+
+    /**
+     * Создает исключение с описанием ошибки и ее позицией.
+     * @param message Описание ошибки
+     * @return исключение
+     */
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException("Invalid expression at position " + (position + 1) + ": " + message);
+    }
+}
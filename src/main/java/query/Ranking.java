@@ -0,0 +1,76 @@
+package query;
+
+/**
+ * Аргумент команды top: количество элементов и поле, по убыванию значения которого они выбираются.
+ * <p>
+ * Формат: {@code N by поле}, например {@code 10 by numberOfParticipants}.
+ */
+public final class Ranking {
+    /**
+     * Хранит количество элементов.
+     */
+    private final int count;
+    /**
+     * Хранит поле.
+     */
+    private final Field field;
+
+    /**
+     * Создает аргумент команды top.
+     * @param count Количество элементов
+     * @param field Поле
+     */
+    private Ranking(int count, Field field){
+        this.count = count;
+        this.field = field;
+    }
+
+    /**
+     * Возвращает количество элементов.
+     * @return количество элементов
+     */
+    public int getCount(){return count;}
+
+    /**
+     * Возвращает поле.
+     * @return поле
+     */
+    public Field getField(){return field;}
+
+    /**
+     * Разбирает аргумент команды top.
+     * @param text Строка {@code N by поле}
+     * @return разобранный аргумент
+     * @throws IllegalArgumentException если строка не соответствует формату
+     */
+    public static Ranking parse(String text){
+        String[] words = text == null ? new String[0] : text.trim().split("\\s+");
+        if(words.length != 3 || !words[1].equalsIgnoreCase("by")){
+            throw new IllegalArgumentException("expected 'N by field'");
+        }
+        Field field = Field.fromName(words[2]);
+        if(field == null){
+            throw new IllegalArgumentException("unknown field '" + words[2] + "'");
+        }
+        return new Ranking(parseCount(words[0]), field);
+    }
+
+    /**
+     * Разбирает количество элементов.
+     * @param text Строка
+     * @return положительное количество элементов
+     * @throws IllegalArgumentException если строка не является положительным числом типа int
+     */
+    public static int parseCount(String text){
+        try{
+            int count = Integer.parseInt(text == null ? "" : text.trim());
+            if(count <= 0) throw new NumberFormatException();
+            return count;
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("'" + text + "' is not a valid positive number of elements");
+        }
+    }
+
+    @Override
+    public String toString(){return count + " by " + field;}
+}
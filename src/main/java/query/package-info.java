@@ -0,0 +1,12 @@
+/**
+ * Пакет содержит язык условий команды where: разбор выражения ({@link query.QueryParser}) в дерево
+ * {@link query.Expression} и компиляцию дерева в объекты {@link java.util.function.Predicate}.
+ * <p>
+ * Пример выражения: {@code genre = JAZZ and numberOfParticipants > 3 and name ^= "M"}.
+ * Сравнения: {@code =, !=, <, <=, >, >=}, для строк также {@code ^=} (начинается с) и {@code *=} (содержит).
+ * Условия объединяются словами {@code and}, {@code or}, {@code not} и скобками. Строки указываются в двойных кавычках
+ * (внутри кавычек {@code \"} - кавычка, {@code \\} - обратная косая черта) или без кавычек, если состоят из одного слова.
+ * <p>
+ * Выбор способа выполнения (индекс или полный просмотр) выполняет {@link engine.QueryPlan}.
+ */
+package query;
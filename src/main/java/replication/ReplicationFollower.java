@@ -0,0 +1,277 @@
+package replication;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import engine.Mutation;
+import server.BinaryProtocol;
+
+import java.io.*;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Реплика: получает изменения от основного процесса {@link ReplicationPrimary} и применяет их к коллекции по порядку.
+ * <p>
+ * После {@link ReplicationFollower#start()} ядро переводится в режим "только чтение", поэтому команды, изменяющие
+ * коллекцию, отклоняются. Изменения применяются в фоновом потоке под блокировкой записи ядра.
+ * При разрыве соединения реплика переподключается и сообщает номер последнего примененного изменения:
+ * основной процесс передает продолжение потока или, если продолжения уже нет, новый снимок.
+ * Номер примененного изменения подтверждается сообщением ACK, по которому основной процесс вычисляет отставание.
+ */
+public class ReplicationFollower {
+    /**
+     * Хранит паузу перед повторным подключением (мс).
+     */
+    private static final long RECONNECT_MILLIS = 1000;
+    /**
+     * Хранит наибольшее количество примененных изменений между подтверждениями при непрерывном потоке изменений.
+     */
+    private static final int ACK_INTERVAL = 1024;
+    /**
+     * Хранит ядро с коллекцией.
+     */
+    private final CollectionEngine engine;
+    /**
+     * Хранит адрес основного процесса.
+     */
+    private final SocketAddress address;
+    /**
+     * Хранит идентификатор запуска основного процесса, от которого получен последний снимок (0 - снимка не было).
+     */
+    private volatile long epoch;
+    /**
+     * Хранит номер последнего примененного изменения.
+     */
+    private volatile long appliedSeq;
+    /**
+     * Хранит номер последнего изменения, о применении которого сообщено основному процессу.
+     */
+    private long ackedSeq = -1;
+    /**
+     * Хранит номер последнего известного изменения основного процесса.
+     */
+    private volatile long primarySeq;
+    /**
+     * Хранит задержку применения последнего изменения относительно его фиксации (мс).
+     */
+    private volatile long delayMillis;
+    /**
+     * Хранит количество полученных снимков.
+     */
+    private volatile int snapshots;
+    /**
+     * Хранит признак установленного соединения.
+     */
+    private volatile boolean connected;
+    /**
+     * Хранит сообщение о последней ошибке соединения.
+     */
+    private volatile String lastError;
+    /**
+     * Хранит признак работы.
+     */
+    private volatile boolean running;
+    /**
+     * Хранит текущий канал соединения.
+     */
+    private volatile SocketChannel socket;
+
+    /**
+     * Создает реплику над указанным ядром.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес основного процесса
+     */
+    public ReplicationFollower(CollectionEngine engine, SocketAddress address){
+        this.engine = engine;
+        this.address = address;
+    }
+
+    /**
+     * Переводит ядро в режим "только чтение" и начинает получать изменения в фоновом потоке.
+     */
+    public void start(){
+        engine.setReadOnly(true);
+        engine.setReplicationStatus(this::status);
+        running = true;
+        Thread thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Прекращает получение изменений. Ядро остается в режиме "только чтение".
+     */
+    public void stop(){
+        running = false;
+        SocketChannel current = socket;
+        if(current != null){
+            try{
+                current.close();
+            }catch(IOException ignored){
+            }
+        }
+    }
+
+    /**
+     * Возвращает номер последнего примененного изменения.
+     * @return номер изменения
+     */
+    public long getAppliedSeq(){return appliedSeq;}
+
+    /**
+     * Возвращает количество полученных снимков.
+     * @return количество снимков
+     */
+    public int getSnapshots(){return snapshots;}
+
+    /**
+     * Возвращает описание состояния репликации для команды info.
+     * @return состояние соединения, номер примененного изменения и отставание
+     */
+    public String status(){
+        long lag = Math.max(0, primarySeq - appliedSeq);
+        if(connected){
+            return String.format("replica of %s, applied change #%d, lag %d changes, last change applied %d ms after commit, %d snapshots received",
+                    address, appliedSeq, lag, delayMillis, snapshots);
+        }
+        return String.format("replica of %s, disconnected (%s), applied change #%d, lag at least %d changes",
+                address, lastError == null ? "connecting" : lastError, appliedSeq, lag);
+    }
+
+    /**
+     * Подключается к основному процессу и получает изменения, переподключаясь после разрыва соединения.
+     */
+    private void run(){
+        while(running){
+            try(SocketChannel channel = SocketChannel.open(address)){
+                socket = channel;
+                connected = true;
+                lastError = null;
+                follow(channel);
+            }catch(IOException | RuntimeException e){
+                lastError = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            }finally{
+                connected = false;
+                socket = null;
+            }
+            try{
+                Thread.sleep(RECONNECT_MILLIS);
+            }catch(InterruptedException e){
+                return;
+            }
+        }
+    }
+
+    /**
+     * Отправляет номер последнего примененного изменения и применяет полученные снимки и изменения.
+     * @param channel Канал соединения
+     * @throws IOException если соединение разорвано или сообщение нарушает протокол
+     */
+    private void follow(SocketChannel channel) throws IOException{
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        DataOutputStream frameData = new DataOutputStream(frame);
+        frameData.writeByte(ReplicationProtocol.HELLO);
+        frameData.writeLong(epoch);
+        frameData.writeLong(appliedSeq);
+        ReplicationProtocol.writeFrame(out, frame);
+        out.flush();
+        ackedSeq = -1;
+
+        while(running){
+            ByteBuffer message = ReplicationProtocol.readFrame(in);
+            switch (message.get()){
+                case ReplicationProtocol.SNAPSHOT -> {
+                    applySnapshot(message, in);
+                    ack(out, frame, frameData);
+                }
+                case ReplicationProtocol.MUTATION -> {
+                    long seq = message.getLong();
+                    long time = message.getLong();
+                    Mutation mutation = ReplicationProtocol.readMutation(message);
+                    if(seq != appliedSeq + 1){
+                        throw new ProtocolException("Expected change #" + (appliedSeq + 1) + ", received #" + seq);
+                    }
+                    Lock lock = engine.getLock().writeLock();
+                    lock.lock();
+                    try{
+                        engine.apply(mutation);
+                    }finally{
+                        lock.unlock();
+                    }
+                    appliedSeq = seq;
+                    primarySeq = Math.max(primarySeq, seq);
+                    delayMillis = System.currentTimeMillis() - time;
+                    // Подтверждение отправляется, когда прочитаны все полученные изменения, и не реже чем через
+                    // ACK_INTERVAL изменений при непрерывном потоке
+                    if(in.available() == 0 || appliedSeq - ackedSeq >= ACK_INTERVAL){
+                        ack(out, frame, frameData);
+                    }
+                }
+                case ReplicationProtocol.HEARTBEAT -> {
+                    primarySeq = Math.max(primarySeq, message.getLong());
+                    ack(out, frame, frameData);
+                }
+                default -> throw new ProtocolException("Unexpected message");
+            }
+        }
+    }
+
+    /**
+     * Сообщает основному процессу номер последнего примененного изменения.
+     * @param out Поток соединения
+     * @param frame Буфер кадра
+     * @param frameData Поток для записи в буфер кадра
+     * @throws IOException если соединение разорвано
+     */
+    private void ack(DataOutputStream out, ByteArrayOutputStream frame, DataOutputStream frameData) throws IOException{
+        frame.reset();
+        frameData.writeByte(ReplicationProtocol.ACK);
+        frameData.writeLong(appliedSeq);
+        ReplicationProtocol.writeFrame(out, frame);
+        out.flush();
+        ackedSeq = appliedSeq;
+    }
+
+    /**
+     * Читает снимок и заменяет им коллекцию за одно взятие блокировки записи.
+     * @param header Тело кадра SNAPSHOT (после вида сообщения)
+     * @param in Поток соединения, из которого читаются элементы снимка
+     * @throws IOException если соединение разорвано или сообщение нарушает протокол
+     */
+    private void applySnapshot(ByteBuffer header, DataInputStream in) throws IOException{
+        long snapshotEpoch = header.getLong();
+        long seq = header.getLong();
+        int count = header.getInt();
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(int i = 0; i < count; i++){
+            ByteBuffer message = ReplicationProtocol.readFrame(in);
+            if(message.get() != ReplicationProtocol.SNAPSHOT_BAND){
+                throw new ProtocolException("Snapshot element expected");
+            }
+            long key = message.getLong();
+            bands.put(key, BinaryProtocol.readBand(message));
+        }
+        Lock lock = engine.getLock().writeLock();
+        lock.lock();
+        try{
+            engine.apply(Mutation.clear());
+            for(Map.Entry<Long, MusicBand> entry : bands.entrySet()){
+                engine.apply(Mutation.put(entry.getKey(), entry.getValue()));
+            }
+        }finally{
+            lock.unlock();
+        }
+        primarySeq = snapshotEpoch == epoch ? Math.max(primarySeq, seq) : seq;
+        epoch = snapshotEpoch;
+        appliedSeq = seq;
+        snapshots++;
+    }
+}
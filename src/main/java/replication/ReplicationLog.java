@@ -0,0 +1,189 @@
+package replication;
+
+import classes.MusicBand;
+import engine.Mutation;
+import engine.MutationListener;
+import engine.ReplicationFootprint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Журнал изменений основного процесса: нумерует изменения, хранит последние из них в кольцевом буфере
+ * и поддерживает копию коллекции, из которой строятся снимки для реплик.
+ * <p>
+ * Копия нужна потому, что коллекцию основного процесса изменяет поток команд (например, консоль, ожидающая ввода),
+ * а снимки строятся в потоках отправки. Копия разделяет с коллекцией объекты элементов, поэтому хранит только ссылки.
+ * Все методы синхронизированы на журнале; потоки отправки ждут новых изменений через {@link Object#wait(long)}.
+ */
+class ReplicationLog implements MutationListener {
+    /**
+     * Изменение с номером и временем фиксации.
+     */
+    static final class Entry {
+        /**
+         * Хранит номер изменения (начиная с 1).
+         */
+        final long seq;
+        /**
+         * Хранит время фиксации (мс от начала эпохи).
+         */
+        final long time;
+        /**
+         * Хранит изменение.
+         */
+        final Mutation mutation;
+
+        /**
+         * Создает запись журнала.
+         * @param seq Номер изменения
+         * @param time Время фиксации
+         * @param mutation Изменение
+         */
+        Entry(long seq, long time, Mutation mutation){
+            this.seq = seq;
+            this.time = time;
+            this.mutation = mutation;
+        }
+    }
+
+    /**
+     * Снимок коллекции, соответствующий изменению с номером seq.
+     */
+    static final class Snapshot {
+        /**
+         * Хранит номер последнего изменения, вошедшего в снимок.
+         */
+        final long seq;
+        /**
+         * Хранит элементы снимка по ключам.
+         */
+        final TreeMap<Long, MusicBand> bands;
+
+        /**
+         * Создает снимок.
+         * @param seq Номер последнего изменения
+         * @param bands Элементы
+         */
+        Snapshot(long seq, TreeMap<Long, MusicBand> bands){
+            this.seq = seq;
+            this.bands = bands;
+        }
+    }
+
+    /**
+     * Хранит последние изменения; изменение с номером seq хранится в ячейке {@code seq % ring.length}.
+     */
+    private final Entry[] ring;
+    /**
+     * Хранит копию коллекции с примененными изменениями.
+     */
+    private final TreeMap<Long, MusicBand> mirror;
+    /**
+     * Хранит номер последнего изменения (0, если изменений не было).
+     */
+    private long lastSeq;
+
+    /**
+     * Создает журнал.
+     * @param capacity Количество хранимых последних изменений
+     * @param bands Текущие элементы коллекции по ключам (копируются)
+     */
+    ReplicationLog(int capacity, TreeMap<Long, MusicBand> bands){
+        this.ring = new Entry[capacity];
+        this.mirror = new TreeMap<>(bands);
+    }
+
+    @Override
+    public synchronized void onMutation(Mutation mutation){
+        lastSeq++;
+        ring[(int) (lastSeq % ring.length)] = new Entry(lastSeq, System.currentTimeMillis(), mutation);
+        switch (mutation.getType()){
+            case PUT -> mirror.put(mutation.getKey(), mutation.getBand());
+            case REMOVE -> mirror.remove(mutation.getKey());
+            case REMOVE_LOWER_KEY -> mirror.headMap(mutation.getKey(), false).clear();
+            case CLEAR -> mirror.clear();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Возвращает номер последнего изменения.
+     * @return номер изменения (0, если изменений не было)
+     */
+    synchronized long getLastSeq(){return lastSeq;}
+
+    /**
+     * Проверяет, можно ли продолжить поток после изменения с номером after, не передавая снимок.
+     * @param after Номер последнего примененного изменения
+     * @return true, если все изменения после after есть в журнале
+     */
+    synchronized boolean contains(long after){
+        return after <= lastSeq && after >= lastSeq - ring.length;
+    }
+
+    /**
+     * Создает снимок коллекции. Копирование выполняется за линейное время под блокировкой журнала.
+     * @return снимок и номер последнего вошедшего в него изменения
+     */
+    synchronized Snapshot snapshot(){
+        return new Snapshot(lastSeq, new TreeMap<>(mirror));
+    }
+
+    /**
+     * Собирает данные копии коллекции и кольцевого буфера для оценки памяти (команда memory).
+     * @return снимок структур журнала
+     */
+    synchronized ReplicationFootprint footprint(){
+        long boxedKeys = 0;
+        for(Long key : mirror.keySet()){
+            if(key < -128 || key > 127){
+                boxedKeys++;
+            }
+        }
+        List<Map.Entry<Long, MusicBand>> bands = new ArrayList<>();
+        for(Entry entry : ring){
+            if(entry == null){
+                continue;
+            }
+            Mutation mutation = entry.mutation;
+            if(mutation.getBand() != null){
+                bands.add(Map.entry(mutation.getKey(), mutation.getBand()));
+            }
+            if(mutation.getPrevious() != null){
+                bands.add(Map.entry(mutation.getKey(), mutation.getPrevious()));
+            }
+        }
+        return new ReplicationFootprint(mirror.size(), boxedKeys, ring.length, (int) Math.min(lastSeq, ring.length), bands);
+    }
+
+    /**
+     * Возвращает изменения после изменения с номером after, при необходимости ожидая их появления.
+     * @param after Номер последнего отправленного изменения
+     * @param max Максимальное количество возвращаемых изменений
+     * @param timeoutMillis Максимальное время ожидания
+     * @return изменения по порядку (пустой список, если за время ожидания изменений не было)
+     * или {@code null}, если нужные изменения уже вытеснены из журнала
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    synchronized List<Entry> await(long after, int max, long timeoutMillis) throws InterruptedException{
+        if(after == lastSeq){
+            wait(timeoutMillis);
+        }
+        if(!contains(after)){
+            return null;
+        }
+        if(after == lastSeq){
+            return Collections.emptyList();
+        }
+        long last = Math.min(lastSeq, after + max);
+        List<Entry> entries = new ArrayList<>((int) (last - after));
+        for(long seq = after + 1; seq <= last; seq++){
+            entries.add(ring[(int) (seq % ring.length)]);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,329 @@
+package replication;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import server.BinaryProtocol;
+
+import java.io.*;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Основной процесс репликации: принимает соединения реплик и передает им изменения коллекции.
+ * <p>
+ * Изменения попадают в {@link ReplicationLog} из потока, изменившего коллекцию; для каждой реплики работает
+ * отдельный поток отправки, поэтому медленная реплика не задерживает команды. Если реплика отстала больше,
+ * чем на емкость журнала, ей передается новый снимок. Отставание реплики вычисляется по номеру изменения, применение
+ * которого она подтвердила (ACK), а не по номеру отправленного ей изменения.
+ */
+public class ReplicationPrimary {
+    /**
+     * Хранит количество изменений, хранимых в журнале по умолчанию.
+     */
+    public static final int DEFAULT_LOG_CAPACITY = 1 << 16;
+    /**
+     * Хранит интервал отправки HEARTBEAT при отсутствии изменений (мс).
+     */
+    private static final long HEARTBEAT_MILLIS = 1000;
+    /**
+     * Хранит максимальное количество изменений, отправляемых одной записью.
+     */
+    private static final int BATCH_SIZE = 1024;
+    /**
+     * Хранит ядро с коллекцией.
+     */
+    private final CollectionEngine engine;
+    /**
+     * Хранит адрес для соединений реплик.
+     */
+    private final SocketAddress address;
+    /**
+     * Хранит количество изменений, хранимых в журнале.
+     */
+    private final int logCapacity;
+    /**
+     * Хранит идентификатор запуска: реплика, подключавшаяся к другому запуску, получает снимок.
+     */
+    private final long epoch = ThreadLocalRandom.current().nextLong() | 1;
+    /**
+     * Хранит состояние подключенных реплик.
+     */
+    private final List<FollowerLink> followers = new CopyOnWriteArrayList<>();
+    /**
+     * Хранит журнал изменений.
+     */
+    private ReplicationLog log;
+    /**
+     * Хранит канал для приема соединений реплик.
+     */
+    private ServerSocketChannel channel;
+    /**
+     * Хранит признак работы.
+     */
+    private volatile boolean running;
+
+    /**
+     * Создает основной процесс репликации с журналом емкостью {@link ReplicationPrimary#DEFAULT_LOG_CAPACITY}.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес для соединений реплик
+     */
+    public ReplicationPrimary(CollectionEngine engine, SocketAddress address){
+        this(engine, address, DEFAULT_LOG_CAPACITY);
+    }
+
+    /**
+     * Создает основной процесс репликации.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес для соединений реплик
+     * @param logCapacity Количество хранимых последних изменений
+     */
+    public ReplicationPrimary(CollectionEngine engine, SocketAddress address, int logCapacity){
+        this.engine = engine;
+        this.address = address;
+        this.logCapacity = logCapacity;
+    }
+
+    /**
+     * Начинает записывать изменения коллекции и принимать соединения реплик в фоновом потоке.
+     * @throws IOException если адрес недоступен
+     */
+    public void start() throws IOException{
+        Lock lock = engine.getLock().writeLock();
+        lock.lock();
+        try{
+            TreeMap<Long, MusicBand> bands = new TreeMap<>();
+            for(MusicBand band : engine.show()){
+                bands.put(band.getId(), band);
+            }
+            log = new ReplicationLog(logCapacity, bands);
+            engine.addMutationListener(log);
+        }finally{
+            lock.unlock();
+        }
+        channel = ReplicationProtocol.bind(address);
+        running = true;
+        engine.setReplicationStatus(this::status);
+        engine.setReplicationFootprint(log::footprint);
+        Thread acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Возвращает адрес, на котором принимаются соединения реплик.
+     * @return адрес
+     * @throws IOException если канал закрыт
+     */
+    public SocketAddress getLocalAddress() throws IOException{return channel.getLocalAddress();}
+
+    /**
+     * Прекращает репликацию и закрывает соединения реплик.
+     */
+    public void stop(){
+        running = false;
+        engine.removeMutationListener(log);
+        engine.setReplicationStatus(null);
+        engine.setReplicationFootprint(null);
+        try{
+            channel.close();
+            if(address instanceof UnixDomainSocketAddress){
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        }catch(IOException ignored){
+        }
+        for(FollowerLink follower : followers){
+            follower.close();
+        }
+    }
+
+    /**
+     * Возвращает описание состояния репликации для команды info.
+     * @return номер последнего изменения, количество реплик и наибольшее отставание по подтвержденным изменениям
+     */
+    public String status(){
+        long last = log.getLastSeq();
+        long maxLag = 0;
+        for(FollowerLink follower : followers){
+            maxLag = Math.max(maxLag, last - follower.acked);
+        }
+        return String.format("primary on %s, last change #%d, %d replicas connected, max lag %d changes",
+                address, last, followers.size(), maxLag);
+    }
+
+    /**
+     * Принимает соединения реплик, пока репликация не остановлена.
+     */
+    private void acceptLoop(){
+        while(running){
+            try{
+                SocketChannel socket = channel.accept();
+                FollowerLink follower = new FollowerLink(socket);
+                Thread sender = new Thread(() -> serve(follower), "replication-sender");
+                sender.setDaemon(true);
+                sender.start();
+            }catch(IOException e){
+                if(running){
+                    System.err.println("Replication: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Передает реплике снимок (если нужен) и поток изменений до разрыва соединения.
+     * @param follower Соединение реплики
+     */
+    private void serve(FollowerLink follower){
+        try(follower){
+            // Без буферизации: после HELLO канал читает поток подтверждений, и лишние байты не должны остаться в буфере
+            DataInputStream in = new DataInputStream(Channels.newInputStream(follower.socket));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(follower.socket), 1 << 16));
+            ByteBuffer hello = ReplicationProtocol.readFrame(in);
+            if(hello.get() != ReplicationProtocol.HELLO){
+                throw new ProtocolException("HELLO expected");
+            }
+            long followerEpoch = hello.getLong();
+            long sent = hello.getLong();
+            boolean needSnapshot = followerEpoch != epoch || !log.contains(sent);
+            follower.acked = needSnapshot ? 0 : sent;
+            followers.add(follower);
+            Thread acks = new Thread(() -> readAcks(follower), "replication-acks");
+            acks.setDaemon(true);
+            acks.start();
+
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+            DataOutputStream frameData = new DataOutputStream(frame);
+            while(running){
+                if(needSnapshot){
+                    sent = sendSnapshot(out, frame, frameData);
+                    needSnapshot = false;
+                }
+                List<ReplicationLog.Entry> entries = log.await(sent, BATCH_SIZE, HEARTBEAT_MILLIS);
+                if(entries == null){
+                    needSnapshot = true;
+                    continue;
+                }
+                if(entries.isEmpty()){
+                    frame.reset();
+                    frameData.writeByte(ReplicationProtocol.HEARTBEAT);
+                    frameData.writeLong(sent);
+                    frameData.writeLong(System.currentTimeMillis());
+                    ReplicationProtocol.writeFrame(out, frame);
+                }
+                for(ReplicationLog.Entry entry : entries){
+                    frame.reset();
+                    frameData.writeByte(ReplicationProtocol.MUTATION);
+                    frameData.writeLong(entry.seq);
+                    frameData.writeLong(entry.time);
+                    ReplicationProtocol.writeMutation(frameData, entry.mutation);
+                    ReplicationProtocol.writeFrame(out, frame);
+                    sent = entry.seq;
+                }
+                out.flush();
+            }
+        }catch(IOException | RuntimeException e){
+            // Реплика отключилась или нарушила протокол; при переподключении она продолжит с последнего изменения
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }finally{
+            followers.remove(follower);
+        }
+    }
+
+    /**
+     * Читает подтверждения реплики до разрыва соединения. Канал читается напрямую, а не через поток
+     * {@link Channels#newInputStream}, который держит блокировку канала на время чтения и задерживал бы отправку
+     * изменений. После HELLO реплика отправляет только кадры ACK фиксированной длины.
+     * @param follower Соединение реплики
+     */
+    private void readAcks(FollowerLink follower){
+        ByteBuffer frame = ByteBuffer.allocate(ReplicationProtocol.ACK_FRAME_LENGTH);
+        try{
+            while(true){
+                frame.clear();
+                while(frame.hasRemaining()){
+                    if(follower.socket.read(frame) < 0){
+                        throw new EOFException();
+                    }
+                }
+                frame.flip();
+                if(frame.getInt() != ReplicationProtocol.ACK_FRAME_LENGTH - Integer.BYTES || frame.get() != ReplicationProtocol.ACK){
+                    throw new ProtocolException("ACK expected");
+                }
+                follower.acked = frame.getLong();
+            }
+        }catch(IOException e){
+            // Реплика отключилась или нарушила протокол: соединение закрывается, поток отправки завершится ошибкой записи
+            follower.close();
+        }
+    }
+
+    /**
+     * Передает реплике снимок коллекции.
+     * @param out Поток соединения
+     * @param frame Буфер кадра
+     * @param frameData Поток для записи в буфер кадра
+     * @return номер последнего изменения, вошедшего в снимок
+     * @throws IOException если соединение разорвано
+     */
+    private long sendSnapshot(DataOutputStream out, ByteArrayOutputStream frame, DataOutputStream frameData) throws IOException{
+        ReplicationLog.Snapshot snapshot = log.snapshot();
+        frame.reset();
+        frameData.writeByte(ReplicationProtocol.SNAPSHOT);
+        frameData.writeLong(epoch);
+        frameData.writeLong(snapshot.seq);
+        frameData.writeInt(snapshot.bands.size());
+        ReplicationProtocol.writeFrame(out, frame);
+        for(Map.Entry<Long, MusicBand> entry : snapshot.bands.entrySet()){
+            frame.reset();
+            frameData.writeByte(ReplicationProtocol.SNAPSHOT_BAND);
+            frameData.writeLong(entry.getKey());
+            BinaryProtocol.writeBand(frameData, entry.getValue());
+            ReplicationProtocol.writeFrame(out, frame);
+        }
+        out.flush();
+        return snapshot.seq;
+    }
+
+    /**
+     * Соединение с репликой и номер последнего изменения, применение которого она подтвердила.
+     */
+    private static final class FollowerLink implements Closeable {
+        /**
+         * Хранит канал соединения.
+         */
+        private final SocketChannel socket;
+        /**
+         * Хранит номер последнего изменения, применение которого подтвердила реплика.
+         */
+        private volatile long acked;
+
+        /**
+         * Создает состояние соединения.
+         * @param socket Канал соединения
+         */
+        private FollowerLink(SocketChannel socket){
+            this.socket = socket;
+        }
+
+        @Override
+        public void close(){
+            try{
+                socket.close();
+            }catch(IOException ignored){
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package replication;
+
+import classes.MusicBand;
+import engine.Mutation;
+import server.BinaryProtocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Константы и кодирование сообщений протокола репликации (см. описание пакета {@link replication}).
+ */
+final class ReplicationProtocol {
+    /**
+     * Хранит вид сообщения с номером последнего примененного изменения реплики.
+     */
+    static final byte HELLO = 1;
+    /**
+     * Хранит вид сообщения с заголовком снимка коллекции.
+     */
+    static final byte SNAPSHOT = 2;
+    /**
+     * Хранит вид сообщения с элементом снимка.
+     */
+    static final byte SNAPSHOT_BAND = 3;
+    /**
+     * Хранит вид сообщения с изменением.
+     */
+    static final byte MUTATION = 4;
+    /**
+     * Хранит вид сообщения, подтверждающего соединение при отсутствии изменений.
+     */
+    static final byte HEARTBEAT = 5;
+    /**
+     * Хранит вид сообщения реплики с номером последнего примененного изменения (подтверждение).
+     */
+    static final byte ACK = 6;
+    /**
+     * Хранит длину кадра ACK вместе с полем длины.
+     */
+    static final int ACK_FRAME_LENGTH = Integer.BYTES + 1 + Long.BYTES;
+
+    private ReplicationProtocol(){
+    }
+
+    /**
+     * Открывает канал для приема соединений реплик на указанном адресе (TCP или сокет Unix).
+     * @param address Адрес
+     * @return канал в блокирующем режиме
+     * @throws IOException если адрес недоступен
+     */
+    static ServerSocketChannel bind(SocketAddress address) throws IOException{
+        ServerSocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        channel.bind(address);
+        return channel;
+    }
+
+    /**
+     * Записывает кадр: длину тела и тело.
+     * @param out Поток для записи
+     * @param frame Тело кадра
+     * @throws IOException если поток недоступен для записи
+     */
+    static void writeFrame(DataOutputStream out, ByteArrayOutputStream frame) throws IOException{
+        out.writeInt(frame.size());
+        frame.writeTo(out);
+    }
+
+    /**
+     * Читает кадр.
+     * @param in Поток для чтения
+     * @return тело кадра
+     * @throws IOException если соединение разорвано или длина кадра некорректна
+     */
+    static ByteBuffer readFrame(DataInputStream in) throws IOException{
+        int length = in.readInt();
+        if(length < 1 || length > BinaryProtocol.MAX_FRAME_LENGTH){
+            throw new ProtocolException("Invalid frame length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return ByteBuffer.wrap(body);
+    }
+
+    /**
+     * Записывает изменение: вид, ключ (0 для CLEAR) и элемент (для PUT).
+     * @param out Поток для записи
+     * @param mutation Изменение
+     * @throws IOException если поток недоступен для записи
+     */
+    static void writeMutation(DataOutput out, Mutation mutation) throws IOException{
+        out.writeByte(mutation.getType().ordinal());
+        out.writeLong(mutation.getKey() == null ? 0 : mutation.getKey());
+        if(mutation.getType() == Mutation.Type.PUT){
+            BinaryProtocol.writeBand(out, mutation.getBand());
+        }
+    }
+
+    /**
+     * Читает изменение.
+     * @param in Тело кадра
+     * @return изменение
+     * @throws IllegalArgumentException если вид изменения или элемент некорректны
+     */
+    static Mutation readMutation(ByteBuffer in){
+        int ordinal = in.get() & 0xFF;
+        Mutation.Type[] types = Mutation.Type.values();
+        if(ordinal >= types.length){
+            throw new IllegalArgumentException("Invalid mutation type " + ordinal);
+        }
+        long key = in.getLong();
+        switch (types[ordinal]){
+            case PUT -> {
+                MusicBand band = BinaryProtocol.readBand(in);
+                return Mutation.put(key, band);
+            }
+            case REMOVE -> {
+                return Mutation.remove(key);
+            }
+            case REMOVE_LOWER_KEY -> {
+                return Mutation.removeLowerKey(key);
+            }
+            default -> {
+                return Mutation.clear();
+            }
+        }
+    }
+}
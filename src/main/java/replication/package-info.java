@@ -0,0 +1,21 @@
+/**
+ * Пакет содержит репликацию коллекции "основной процесс - реплики" передачей изменений {@link engine.Mutation}.
+ * <p>
+ * Основной процесс ({@link replication.ReplicationPrimary}) нумерует каждое зафиксированное изменение и хранит
+ * последние изменения в журнале. Реплика ({@link replication.ReplicationFollower}) подключается через локальный сокет
+ * (TCP или сокет Unix), сообщает номер последнего примененного изменения и получает продолжение потока; если нужных
+ * изменений в журнале уже нет (реплика отстала или основной процесс перезапущен), сначала передается снимок коллекции.
+ * Реплика применяет изменения по порядку и выполняет только команды чтения.
+ * <p>
+ * Формат обмена - кадры (длина int32 и тело); первый байт тела - вид сообщения:
+ * <ul>
+ *     <li>HELLO (реплика): эпоха int64 (идентификатор запуска основного процесса), номер последнего примененного изменения int64;</li>
+ *     <li>SNAPSHOT: эпоха int64, номер изменения int64, количество элементов int32; за ним следуют кадры SNAPSHOT_BAND
+ *     (ключ int64 и элемент в формате {@link server.BinaryProtocol#writeBand});</li>
+ *     <li>MUTATION: номер int64, время фиксации int64 (мс от начала эпохи), вид изменения uint8, ключ int64, элемент (для PUT);</li>
+ *     <li>HEARTBEAT: номер последнего изменения int64, время int64 - отправляется, если изменений нет;</li>
+ *     <li>ACK (реплика): номер последнего примененного изменения int64 - отправляется в ответ на HEARTBEAT, после снимка
+ *     и после применения полученных изменений; по нему основной процесс вычисляет отставание реплики.</li>
+ * </ul>
+ */
+package replication;
@@ -0,0 +1,589 @@
+package server;
+
+import classes.MusicBand;
+import engine.CollectionInfo;
+import engine.ResultCode;
+
+import java.io.*;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Клиент двоичного протокола сервера {@link Server} (см. {@link BinaryProtocol}) с поддержкой конвейерной обработки.
+ * <p>
+ * Методы {@code send} только записывают запрос в буфер; {@link BinaryClient#flush()} отправляет все накопленные запросы,
+ * а {@link BinaryClient#receive()} читает ответы в порядке отправки запросов. Метод {@link BinaryClient#call}
+ * выполняет один запрос и ждет ответа.
+ * <pre>
+ * for(long key = 1; key &lt;= 100; key++) client.send(Opcode.REMOVE_KEY, key);
+ * client.flush();
+ * for(int i = 0; i &lt; 100; i++) client.receive();
+ * </pre>
+ * Ответ со списком элементов можно читать по частям, не собирая весь список в памяти ({@link BinaryClient#receiveBands()}).
+ * Сервер перестает читать запросы соединения, пока клиент не прочитает ответы (см. {@link Server}), поэтому при конвейере
+ * из запросов с большими ответами ответы нужно читать, не дожидаясь отправки всех запросов.
+ */
+public class BinaryClient implements Closeable {
+    /**
+     * Хранит коды операций, ответ на которые - список элементов.
+     */
+    private static final Set<Opcode> LIST_OPCODES = EnumSet.of(Opcode.SHOW, Opcode.PRINT_ASCENDING, Opcode.PRINT_DESCENDING,
+            Opcode.FILTER_STARTS_WITH_NAME, Opcode.WHERE, Opcode.TOP, Opcode.OLDEST, Opcode.NEWEST, Opcode.SEARCH_DESCRIPTION,
+            Opcode.SEARCH_NAME);
+    /**
+     * Хранит канал соединения с сервером.
+     */
+    private final SocketChannel channel;
+    /**
+     * Хранит поток для чтения ответов.
+     */
+    private final DataInputStream in;
+    /**
+     * Хранит поток для отправки запросов.
+     */
+    private final DataOutputStream out;
+    /**
+     * Хранит тело текущего запроса.
+     */
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+    /**
+     * Хранит поток для записи тела текущего запроса.
+     */
+    private final DataOutputStream frameData = new DataOutputStream(frame);
+    /**
+     * Хранит коды операций отправленных запросов, на которые еще не получен ответ.
+     */
+    private final ArrayDeque<Opcode> pending = new ArrayDeque<>();
+    /**
+     * Хранит последний ответ со списком, читаемый по частям ({@code null}, если такого ответа не было).
+     */
+    private BandStream stream;
+
+    /**
+     * Подключается к серверу по указанному адресу.
+     * @param address Адрес сервера
+     * @throws IOException если подключиться не удалось
+     */
+    public BinaryClient(SocketAddress address) throws IOException{
+        channel = SocketChannel.open(address);
+        in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    }
+
+    /**
+     * Записывает в буфер запрос без аргументов.
+     * @param opcode Код операции
+     * @throws IOException если соединение разорвано
+     * @throws IllegalArgumentException если команде нужны аргументы
+     */
+    public void send(Opcode opcode) throws IOException{
+        send(opcode, null, null, null);
+    }
+
+    /**
+     * Записывает в буфер запрос с ключом.
+     * @param opcode Код операции
+     * @param key Ключ
+     * @throws IOException если соединение разорвано
+     * @throws IllegalArgumentException если команде нужны другие аргументы
+     */
+    public void send(Opcode opcode, long key) throws IOException{
+        send(opcode, key, null, null);
+    }
+
+    /**
+     * Записывает в буфер запрос со строковым аргументом.
+     * @param opcode Код операции
+     * @param text Аргумент
+     * @throws IOException если соединение разорвано
+     * @throws IllegalArgumentException если команде нужны другие аргументы
+     */
+    public void send(Opcode opcode, String text) throws IOException{
+        send(opcode, null, text, null);
+    }
+
+    /**
+     * Записывает в буфер запрос с элементом и, если команде он нужен, ключом.
+     * @param opcode Код операции
+     * @param key Ключ (для insert, update и replace_if_lower) или {@code null}
+     * @param element Элемент
+     * @throws IOException если соединение разорвано
+     * @throws IllegalArgumentException если команде нужны другие аргументы
+     */
+    public void send(Opcode opcode, Long key, MusicBand element) throws IOException{
+        send(opcode, key, null, element);
+    }
+
+    /**
+     * Кодирует запрос и записывает его в буфер отправки.
+     * @param opcode Код операции
+     * @param key Ключ или {@code null}
+     * @param text Строковый аргумент или {@code null}
+     * @param element Элемент или {@code null}
+     * @throws IOException если соединение разорвано
+     */
+    private void send(Opcode opcode, Long key, String text, MusicBand element) throws IOException{
+        Opcode.Payload payload = opcode.getPayload();
+        boolean needsKey = payload == Opcode.Payload.KEY || payload == Opcode.Payload.KEY_AND_ELEMENT;
+        boolean needsElement = payload == Opcode.Payload.ELEMENT || payload == Opcode.Payload.KEY_AND_ELEMENT;
+        if(needsKey != (key != null) || needsElement != (element != null) || (payload == Opcode.Payload.TEXT) != (text != null)){
+            throw new IllegalArgumentException("Command '" + opcode.getCommandName() + "' expects " + payload);
+        }
+        frame.reset();
+        frameData.writeByte(opcode.getCode());
+        if(key != null){
+            frameData.writeLong(key);
+        }
+        if(text != null){
+            BinaryProtocol.writeString(frameData, text);
+        }
+        if(element != null){
+            BinaryProtocol.writeElement(frameData, element);
+        }
+        out.writeInt(frame.size());
+        frame.writeTo(out);
+        pending.addLast(opcode);
+    }
+
+    /**
+     * Отправляет все запросы, накопленные в буфере.
+     * @throws IOException если соединение разорвано
+     */
+    public void flush() throws IOException{
+        out.flush();
+    }
+
+    /**
+     * Возвращает количество отправленных запросов, ответ на которые еще не прочитан.
+     * @return количество запросов
+     */
+    public int getPending(){return pending.size();}
+
+    /**
+     * Читает ответ на самый ранний из отправленных запросов. Перед чтением отправляет накопленные запросы.
+     * @return ответ сервера
+     * @throws IOException если соединение разорвано или ответ нарушает протокол
+     * @throws IllegalStateException если нет запросов без ответа
+     */
+    public Response receive() throws IOException{
+        Opcode opcode = nextPending();
+        out.flush();
+        try{
+            Response response = Response.decode(opcode, readFrame());
+            while(response.more){
+                response.decodeChunk(readFrame());
+            }
+            return response;
+        }catch(RuntimeException e){
+            throw new ProtocolException("Invalid response to '" + opcode.getCommandName() + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Начинает чтение ответа со списком элементов (show, print_ascending, print_descending, filter_starts_with_name, where,
+     * top, oldest, newest, search_description, search_name) на самый ранний из отправленных запросов. Элементы читаются
+     * по одной части ответа, поэтому список целиком в памяти не собирается. Ответ нужно дочитать до конца
+     * ({@link BandStream#next()} возвращает {@code null}) или пропустить ({@link BandStream#skip()}) до чтения
+     * следующего ответа.
+     * @return ответ, читаемый по частям
+     * @throws IOException если соединение разорвано или ответ нарушает протокол
+     * @throws IllegalStateException если нет запросов без ответа или самый ранний запрос не возвращает список
+     */
+    public BandStream receiveBands() throws IOException{
+        Opcode opcode = pending.peekFirst();
+        if(opcode != null && !LIST_OPCODES.contains(opcode)){
+            throw new IllegalStateException("Command '" + opcode.getCommandName() + "' does not return a list");
+        }
+        nextPending();
+        out.flush();
+        stream = new BandStream(opcode);
+        return stream;
+    }
+
+    /**
+     * Извлекает код операции самого раннего запроса без ответа.
+     * @return код операции
+     * @throws IllegalStateException если нет запросов без ответа или предыдущий ответ со списком не дочитан
+     */
+    private Opcode nextPending(){
+        if(stream != null && !stream.finished){
+            throw new IllegalStateException("The previous list response is not read to the end");
+        }
+        Opcode opcode = pending.pollFirst();
+        if(opcode == null){
+            throw new IllegalStateException("No pending requests");
+        }
+        return opcode;
+    }
+
+    /**
+     * Читает один кадр ответа.
+     * @return тело кадра
+     * @throws IOException если соединение разорвано или длина кадра некорректна
+     */
+    private ByteBuffer readFrame() throws IOException{
+        int length = in.readInt();
+        if(length < 1 || length > BinaryProtocol.MAX_FRAME_LENGTH){
+            throw new ProtocolException("Invalid frame length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return ByteBuffer.wrap(body);
+    }
+
+    /**
+     * Отправляет запрос без аргументов и ждет ответа. Перед этим должны быть прочитаны ответы на все предыдущие запросы.
+     * @param opcode Код операции
+     * @return ответ сервера
+     * @throws IOException если соединение разорвано
+     */
+    public Response call(Opcode opcode) throws IOException{
+        send(opcode);
+        return receive();
+    }
+
+    /**
+     * Отправляет запрос с ключом и ждет ответа.
+     * @param opcode Код операции
+     * @param key Ключ
+     * @return ответ сервера
+     * @throws IOException если соединение разорвано
+     */
+    public Response call(Opcode opcode, long key) throws IOException{
+        send(opcode, key);
+        return receive();
+    }
+
+    /**
+     * Отправляет запрос с элементом и ждет ответа.
+     * @param opcode Код операции
+     * @param key Ключ или {@code null}
+     * @param element Элемент
+     * @return ответ сервера
+     * @throws IOException если соединение разорвано
+     */
+    public Response call(Opcode opcode, Long key, MusicBand element) throws IOException{
+        send(opcode, key, element);
+        return receive();
+    }
+
+    /**
+     * Закрывает соединение с сервером.
+     * @throws IOException если соединение не удалось закрыть
+     */
+    @Override
+    public void close() throws IOException{
+        channel.close();
+    }
+
+    /**
+     * Ответ со списком элементов, читаемый по частям (см. {@link BinaryClient#receiveBands()}).
+     */
+    public final class BandStream {
+        /**
+         * Хранит код операции запроса.
+         */
+        private final Opcode opcode;
+        /**
+         * Хранит статус ответа.
+         */
+        private int status;
+        /**
+         * Хранит сообщение об ошибке.
+         */
+        private String text;
+        /**
+         * Хранит тело текущей части ответа.
+         */
+        private ByteBuffer part;
+        /**
+         * Хранит количество непрочитанных элементов текущей части.
+         */
+        private int left;
+        /**
+         * Хранит признак того, что прочитана последняя (пустая) часть или сообщение об ошибке.
+         */
+        private boolean finished;
+
+        /**
+         * Читает первую часть ответа.
+         * @param opcode Код операции запроса
+         * @throws IOException если соединение разорвано или ответ нарушает протокол
+         */
+        private BandStream(Opcode opcode) throws IOException{
+            this.opcode = opcode;
+            ByteBuffer body = readFrame();
+            status = body.get() & 0xFF;
+            if(status == BinaryProtocol.STATUS_ERROR){
+                finished = true;
+                try{
+                    text = BinaryProtocol.readString(body);
+                }catch(RuntimeException e){
+                    throw invalid(e);
+                }
+                return;
+            }
+            if(ResultCode.fromCode(status) == null){
+                throw new ProtocolException("Invalid response to '" + opcode.getCommandName() + "': unknown status " + status);
+            }
+            begin(body);
+        }
+
+        /**
+         * Начинает чтение части ответа: читает количество элементов.
+         * @param body Тело кадра после статуса
+         * @throws ProtocolException если кадр закончился
+         */
+        private void begin(ByteBuffer body) throws ProtocolException{
+            try{
+                left = body.getInt();
+            }catch(RuntimeException e){
+                throw invalid(e);
+            }
+            part = body;
+            finished = left == 0;
+        }
+
+        /**
+         * Читает следующую часть ответа.
+         * @throws IOException если соединение разорвано или статус части отличается от статуса ответа
+         */
+        private void nextPart() throws IOException{
+            ByteBuffer body = readFrame();
+            int partStatus = body.get() & 0xFF;
+            if(partStatus != status){
+                throw new ProtocolException("Invalid response to '" + opcode.getCommandName() + "': unexpected status " + partStatus + " in a list part");
+            }
+            begin(body);
+        }
+
+        /**
+         * Создает исключение о нарушении протокола в ответе.
+         * @param cause Ошибка декодирования
+         * @return исключение
+         */
+        private ProtocolException invalid(RuntimeException cause){
+            finished = true;
+            return new ProtocolException("Invalid response to '" + opcode.getCommandName() + "': " + cause.getMessage());
+        }
+
+        /**
+         * Проверяет, выполнена ли команда с ошибкой в запросе.
+         * @return true, если статус равен {@link BinaryProtocol#STATUS_ERROR}
+         */
+        public boolean isError(){return status == BinaryProtocol.STATUS_ERROR;}
+
+        /**
+         * Возвращает сообщение об ошибке.
+         * @return сообщение или {@code null}, если ошибки нет
+         */
+        public String getText(){return text;}
+
+        /**
+         * Читает следующий элемент ответа.
+         * @return элемент или {@code null}, если элементы закончились
+         * @throws IOException если соединение разорвано или ответ нарушает протокол
+         */
+        public MusicBand next() throws IOException{
+            while(left == 0){
+                if(finished){
+                    return null;
+                }
+                nextPart();
+            }
+            left--;
+            try{
+                return BinaryProtocol.readBand(part);
+            }catch(RuntimeException e){
+                throw invalid(e);
+            }
+        }
+
+        /**
+         * Пропускает оставшиеся элементы ответа, не декодируя их.
+         * @throws IOException если соединение разорвано или ответ нарушает протокол
+         */
+        public void skip() throws IOException{
+            left = 0;
+            while(!finished){
+                nextPart();
+                left = 0;
+            }
+        }
+    }
+
+    /**
+     * Ответ сервера на один запрос двоичного протокола.
+     */
+    public static final class Response {
+        /**
+         * Хранит код операции запроса.
+         */
+        private final Opcode opcode;
+        /**
+         * Хранит статус ответа.
+         */
+        private final int status;
+        /**
+         * Хранит строку ответа (справка, путь к файлу, сообщение об ошибке).
+         */
+        private String text;
+        /**
+         * Хранит количество удаленных элементов.
+         */
+        private int count;
+        /**
+         * Хранит элементы ответа.
+         */
+        private List<MusicBand> bands = Collections.emptyList();
+        /**
+         * Хранит информацию о коллекции.
+         */
+        private CollectionInfo info;
+        /**
+         * Хранит признак того, что ответ со списком элементов продолжается в следующем кадре.
+         */
+        private boolean more;
+
+        /**
+         * Создает ответ с указанным статусом.
+         * @param opcode Код операции запроса
+         * @param status Статус ответа
+         */
+        private Response(Opcode opcode, int status){
+            this.opcode = opcode;
+            this.status = status;
+        }
+
+        /**
+         * Декодирует тело кадра ответа.
+         * @param opcode Код операции запроса
+         * @param body Тело кадра
+         * @return ответ
+         * @throws IllegalArgumentException если статус ответа не является кодом {@link ResultCode}
+         */
+        private static Response decode(Opcode opcode, ByteBuffer body){
+            Response response = new Response(opcode, body.get() & 0xFF);
+            if(response.status == BinaryProtocol.STATUS_ERROR){
+                response.text = BinaryProtocol.readString(body);
+                return response;
+            }
+            if(ResultCode.fromCode(response.status) == null){
+                throw new IllegalArgumentException("unknown status " + response.status);
+            }
+            switch (opcode){
+                case HELP, SAVE, EXPLAIN, GROUP_BY, IMPORT_CSV, EXPORT -> response.text = BinaryProtocol.readString(body);
+                case INFO -> {
+                    String type = BinaryProtocol.readString(body);
+                    ZonedDateTime date = BinaryProtocol.readDate(body);
+                    int size = body.getInt();
+                    long first = body.getLong();
+                    long last = body.getLong();
+                    response.info = new CollectionInfo(type, date, size, size == 0 ? null : first, size == 0 ? null : last);
+                }
+                case SHOW, PRINT_ASCENDING, PRINT_DESCENDING, FILTER_STARTS_WITH_NAME, WHERE, TOP, OLDEST, NEWEST, SEARCH_DESCRIPTION, SEARCH_NAME -> {
+                    response.bands = new ArrayList<>();
+                    response.readBands(body);
+                }
+                case CLEAR, REMOVE_LOWER_KEY, REMOVE_LOWER -> response.count = body.getInt();
+                default -> {
+                }
+            }
+            return response;
+        }
+
+        /**
+         * Декодирует следующую часть ответа со списком элементов.
+         * @param body Тело кадра
+         * @throws IllegalArgumentException если статус части отличается от статуса ответа
+         */
+        private void decodeChunk(ByteBuffer body){
+            int chunkStatus = body.get() & 0xFF;
+            if(chunkStatus != status){
+                throw new IllegalArgumentException("unexpected status " + chunkStatus + " in a list part");
+            }
+            readBands(body);
+        }
+
+        /**
+         * Читает элементы одной части ответа со списком; пустая часть завершает ответ.
+         * @param body Тело кадра после статуса
+         */
+        private void readBands(ByteBuffer body){
+            int size = body.getInt();
+            for(int i = 0; i < size; i++){
+                bands.add(BinaryProtocol.readBand(body));
+            }
+            count += size;
+            more = size > 0;
+        }
+
+        /**
+         * Возвращает код операции запроса.
+         * @return код операции
+         */
+        public Opcode getOpcode(){return opcode;}
+
+        /**
+         * Проверяет, выполнена ли команда с ошибкой в запросе (неизвестная команда, неверный элемент и т.п.).
+         * @return true, если статус равен {@link BinaryProtocol#STATUS_ERROR}
+         */
+        public boolean isError(){return status == BinaryProtocol.STATUS_ERROR;}
+
+        /**
+         * Возвращает результат выполнения команды.
+         * @return результат или {@code null}, если в запросе ошибка ({@link Response#isError()})
+         */
+        public ResultCode getCode(){return ResultCode.fromCode(status);}
+
+        /**
+         * Возвращает строку ответа: текст справки, путь к файлу, сообщение об ошибке.
+         * @return строка или {@code null}
+         */
+        public String getText(){return text;}
+
+        /**
+         * Возвращает количество элементов: удаленных (clear, remove_lower_key, remove_lower) или в ответе.
+         * @return количество элементов
+         */
+        public int getCount(){return count;}
+
+        /**
+         * Возвращает элементы ответа (show, print_ascending, print_descending, filter_starts_with_name).
+         * @return список элементов
+         */
+        public List<MusicBand> getBands(){return bands;}
+
+        /**
+         * Возвращает информацию о коллекции (info).
+         * @return информация о коллекции или {@code null}
+         */
+        public CollectionInfo getInfo(){return info;}
+
+        @Override
+        public String toString(){
+            StringBuilder s = new StringBuilder(opcode.getCommandName()).append(": ");
+            s.append(isError() ? "ERROR" : getCode());
+            if(text != null){
+                s.append(' ').append(text.strip());
+            }
+            if(info != null){
+                s.append(' ').append(info.getType()).append(", size ").append(info.getSize());
+            }
+            if(count != 0){
+                s.append(", ").append(count).append(" items");
+            }
+            return s.toString();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package server;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Кодирование и декодирование значений двоичного протокола сервера.
+ * <p>
+ * Каждое сообщение (кадр) - длина int32 (количество байтов после поля длины), затем тело. Все числа записываются
+ * в порядке big-endian.
+ * <ul>
+ *     <li>Запрос: код операции uint8 ({@link Opcode}), затем аргументы по {@link Opcode#getPayload()}:
+ *     ключ - int64, строка, элемент.</li>
+ *     <li>Ответ: статус uint8 - значение {@link engine.ResultCode#getCode()} или {@link BinaryProtocol#STATUS_ERROR},
+ *     затем данные ответа. Для {@link BinaryProtocol#STATUS_ERROR} данные - строка с сообщением об ошибке.</li>
+ * </ul>
+ * Данные успешного ответа зависят от кода операции:
+ * <ul>
+ *     <li>help, save - строка (текст справки, путь к файлу или сообщение об ошибке записи);</li>
+ *     <li>execute_script, import_csv, export, begin, commit, rollback - не выполняются (ответ {@link BinaryProtocol#STATUS_ERROR});</li>
+ *     <li>info - тип (строка), дата инициализации, размер int32, первый и последний ключ int64 (0, если коллекция пуста);</li>
+ *     <li>show, print_ascending, print_descending, filter_starts_with_name, where, top, oldest, newest, search_description,
+ *     search_name - список элементов, передаваемый несколькими кадрами (частями): в каждой части статус, количество
+ *     элементов int32 и элементы с id и датой создания; части не длиннее примерно {@link BinaryProtocol#CHUNK_LENGTH}
+ *     байтов, последняя часть пустая (количество 0) и завершает ответ;</li>
+ *     <li>clear, remove_lower_key, remove_lower - количество удаленных элементов int32;</li>
+ *     <li>остальные команды - нет данных (результат передается статусом).</li>
+ * </ul>
+ * Строка - длина int32 и байты UTF-8. Дата - секунды int64 и наносекунды int32 от начала эпохи и часовой пояс (строка).
+ * Элемент запроса - название (строка), x float64, y int32, количество участников int32, описание (строка),
+ * порядковый номер жанра uint8, название студии (строка). Элемент ответа дополнительно начинается с id int64
+ * и заканчивается датой создания.
+ */
+public final class BinaryProtocol {
+    /**
+     * Хранит статус ответа, означающий ошибку в запросе или недоступную команду.
+     */
+    public static final int STATUS_ERROR = 0xFF;
+    /**
+     * Хранит максимальную длину кадра в байтах.
+     */
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+    /**
+     * Хранит длину в байтах, по достижении которой часть ответа со списком элементов отправляется отдельным кадром.
+     */
+    public static final int CHUNK_LENGTH = 1 << 16;
+
+    private BinaryProtocol(){
+    }
+
+    /**
+     * Записывает строку: длину в байтах и байты UTF-8.
+     * @param out Поток для записи
+     * @param s Строка
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeString(DataOutput out, String s) throws IOException{
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Читает строку.
+     * @param in Буфер с данными кадра
+     * @return строка
+     * @throws IllegalArgumentException если длина строки некорректна
+     * @throws java.nio.BufferUnderflowException если кадр закончился
+     */
+    public static String readString(ByteBuffer in){
+        int length = in.getInt();
+        if(length < 0 || length > in.remaining()){
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    /**
+     * Записывает дату.
+     * @param out Поток для записи
+     * @param date Дата
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeDate(DataOutput out, ZonedDateTime date) throws IOException{
+        Instant instant = date.toInstant();
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+        writeString(out, date.getZone().getId());
+    }
+
+    /**
+     * Читает дату.
+     * @param in Буфер с данными кадра
+     * @return дата
+     * @throws java.time.DateTimeException если часовой пояс неизвестен
+     */
+    public static ZonedDateTime readDate(ByteBuffer in){
+        Instant instant = Instant.ofEpochSecond(in.getLong(), in.getInt());
+        return ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in)));
+    }
+
+    /**
+     * Записывает поля элемента, задаваемые пользователем (без id и даты создания).
+     * @param out Поток для записи
+     * @param band Элемент
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeElement(DataOutput out, MusicBand band) throws IOException{
+        writeString(out, band.getName());
+        out.writeDouble(band.getCoordinates().getX());
+        out.writeInt(band.getCoordinates().getY());
+        out.writeInt(band.getNumberOfParticipants());
+        writeString(out, band.getDescription());
+        out.writeByte(band.getGenre().ordinal());
+        writeString(out, band.getStudio().getName());
+    }
+
+    /**
+     * Читает элемент запроса и создает по нему новый объект (id и дата создания генерируются).
+     * @param in Буфер с данными кадра
+     * @return новый элемент
+     * @throws IllegalArgumentException если значение поля не соответствует ограничениям
+     */
+    public static MusicBand readElement(ByteBuffer in){
+        String name = readString(in);
+        Coordinates coordinates = new Coordinates(in.getDouble(), in.getInt());
+        int numberOfParticipants = in.getInt();
+        String description = readString(in);
+        MusicGenre genre = readGenre(in);
+        Studio studio = new Studio(readString(in));
+        return new MusicBand(name, coordinates, numberOfParticipants, description, genre, studio);
+    }
+
+    /**
+     * Записывает элемент ответа: id, поля элемента и дату создания.
+     * @param out Поток для записи
+     * @param band Элемент
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeBand(DataOutput out, MusicBand band) throws IOException{
+        out.writeLong(band.getId());
+        writeElement(out, band);
+        writeDate(out, band.getCreationDate());
+    }
+
+    /**
+     * Читает элемент ответа.
+     * @param in Буфер с данными кадра
+     * @return элемент с id и датой создания из ответа
+     * @throws IllegalArgumentException если значение поля не соответствует ограничениям
+     */
+    public static MusicBand readBand(ByteBuffer in){
+        long id = in.getLong();
+        String name = readString(in);
+        Coordinates coordinates = new Coordinates(in.getDouble(), in.getInt());
+        int numberOfParticipants = in.getInt();
+        String description = readString(in);
+        MusicGenre genre = readGenre(in);
+        Studio studio = new Studio(readString(in));
+        return new MusicBand(id, name, coordinates, readDate(in), numberOfParticipants, description, genre, studio);
+    }
+
+    /**
+     * Читает жанр по порядковому номеру.
+     * @param in Буфер с данными кадра
+     * @return жанр
+     * @throws IllegalArgumentException если жанра с таким номером нет
+     */
+    private static MusicGenre readGenre(ByteBuffer in){
+        int ordinal = in.get() & 0xFF;
+        MusicGenre[] genres = MusicGenre.values();
+        if(ordinal >= genres.length){
+            throw new IllegalArgumentException("Invalid genre " + ordinal);
+        }
+        return genres[ordinal];
+    }
+}
@@ -0,0 +1,305 @@
+package server;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import engine.CollectionInfo;
+import engine.NameMatch;
+import engine.Result;
+import engine.ResultCode;
+import query.GroupBy;
+import query.QueryParser;
+import query.Ranking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Сессия двоичного протокола (см. {@link BinaryProtocol}). Клиент может отправлять запросы, не дожидаясь ответов
+ * (конвейерная обработка): все полностью полученные кадры выполняются по порядку, а их ответы записываются подряд
+ * и отправляются сервером одной записью.
+ */
+class BinarySession extends Session {
+    /**
+     * Хранит ядро, над которым выполняются команды.
+     */
+    private final CollectionEngine engine;
+    /**
+     * Хранит тело текущего ответа.
+     */
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+    /**
+     * Хранит поток для записи тела текущего ответа.
+     */
+    private final DataOutputStream frameData = new DataOutputStream(frame);
+    /**
+     * Хранит элементы текущей части ответа со списком.
+     */
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(256);
+    /**
+     * Хранит поток для записи элементов текущей части ответа со списком.
+     */
+    private final DataOutputStream chunkData = new DataOutputStream(chunk);
+
+    /**
+     * Создает сессию над указанным ядром.
+     * @param engine Ядро с коллекцией
+     */
+    BinarySession(CollectionEngine engine){
+        this.engine = engine;
+    }
+
+    @Override
+    void process(ByteBuffer in, ByteArrayOutputStream out) throws IOException{
+        while(in.remaining() >= Integer.BYTES && !isClosing() && out.size() < MAX_PENDING_OUTPUT){
+            int length = in.getInt(in.position());
+            if(length < 1 || length > BinaryProtocol.MAX_FRAME_LENGTH){
+                throw new ProtocolException("Invalid frame length " + length);
+            }
+            if(in.remaining() < Integer.BYTES + length){
+                break;
+            }
+            ByteBuffer request = in.slice(in.position() + Integer.BYTES, length);
+            in.position(in.position() + Integer.BYTES + length);
+
+            frame.reset();
+            handle(request, out);
+            writeFrame(frame, out);
+        }
+    }
+
+    /**
+     * Записывает кадр: длину тела и тело.
+     * @param body Тело кадра
+     * @param out Поток для ответов
+     * @throws IOException если кадр не удалось записать
+     */
+    private static void writeFrame(ByteArrayOutputStream body, ByteArrayOutputStream out) throws IOException{
+        int size = body.size();
+        out.write(size >>> 24);
+        out.write(size >>> 16);
+        out.write(size >>> 8);
+        out.write(size);
+        body.writeTo(out);
+    }
+
+    /**
+     * Разбирает и выполняет один запрос, записывая ответ в {@link BinarySession#frame}.
+     * @param request Тело кадра запроса
+     * @param out Поток для ответов, в который записываются части ответа со списком
+     * @throws IOException если ответ не удалось записать
+     */
+    private void handle(ByteBuffer request, ByteArrayOutputStream out) throws IOException{
+        int code = request.get() & 0xFF;
+        Opcode opcode = Opcode.fromCode(code);
+        if(opcode == null){
+            error("Unknown opcode " + code);
+            return;
+        }
+        Long key = null;
+        String text = null;
+        MusicBand element = null;
+        try{
+            switch (opcode.getPayload()){
+                case KEY -> key = readKey(request);
+                case TEXT -> text = BinaryProtocol.readString(request);
+                case ELEMENT -> element = BinaryProtocol.readElement(request);
+                case KEY_AND_ELEMENT -> {
+                    key = readKey(request);
+                    element = BinaryProtocol.readElement(request);
+                }
+                default -> {
+                }
+            }
+            if(request.hasRemaining()){
+                throw new IllegalArgumentException("Unexpected data after request");
+            }
+            execute(opcode, key, text, element, out);
+        }catch(BufferUnderflowException e){
+            error("Request '" + opcode.getCommandName() + "' is truncated");
+        }catch(IllegalArgumentException e){
+            error("Command '" + opcode.getCommandName() + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выполняет команду и записывает статус и данные ответа.
+     * @param opcode Код операции
+     * @param key Ключ (для команд с ключом)
+     * @param text Строковый аргумент (для команд со строкой)
+     * @param element Элемент (для команд с элементом)
+     * @param out Поток для ответов, в который записываются части ответа со списком
+     * @throws IOException если ответ не удалось записать
+     */
+    private void execute(Opcode opcode, Long key, String text, MusicBand element, ByteArrayOutputStream out) throws IOException{
+        switch (opcode){
+            case HELP -> {
+                status(ResultCode.OK);
+                BinaryProtocol.writeString(frameData, RequestHandler.HELP);
+            }
+            case INFO -> info();
+            case SHOW -> bands(engine.show(), out);
+            case CLEAR -> count(engine.clear());
+            case SAVE -> {
+                try{
+                    String path = engine.save().getValue().getPath();
+                    status(ResultCode.OK);
+                    BinaryProtocol.writeString(frameData, path);
+                }catch(IOException | IllegalStateException e){
+                    status(ResultCode.IO_ERROR);
+                    BinaryProtocol.writeString(frameData, String.valueOf(e.getMessage()));
+                }
+            }
+            case EXIT -> {
+                status(ResultCode.OK);
+                close();
+            }
+            case PRINT_ASCENDING -> bands(engine.print_ascending(), out);
+            case PRINT_DESCENDING -> bands(engine.print_descending(), out);
+            case REMOVE_KEY -> status(engine.remove_key(key).getCode());
+            case REMOVE_LOWER_KEY -> count(engine.remove_lower_key(key));
+            case FILTER_STARTS_WITH_NAME -> {
+                if(text.trim().isEmpty()){
+                    throw new IllegalArgumentException("Argument cannot be empty or null");
+                }
+                bands(engine.filter_starts_with_name(text), out);
+            }
+            case SEARCH_NAME -> {
+                List<MusicBand> matches = new ArrayList<>();
+                for(NameMatch match : engine.search_name(text, NameMatch.LIMIT)){
+                    matches.add(match.getBand());
+                }
+                bands(matches, out);
+            }
+            case SEARCH_DESCRIPTION -> bands(engine.search_description(text), out);
+            case WHERE -> bands(engine.where(QueryParser.parse(text)), out);
+            case EXPLAIN -> {
+                String plan = engine.plan(QueryParser.parse(text)).describe();
+                status(ResultCode.OK);
+                BinaryProtocol.writeString(frameData, plan);
+            }
+            case GROUP_BY -> {
+                String groups = engine.groupBy(GroupBy.parse(text)).describe();
+                status(ResultCode.OK);
+                BinaryProtocol.writeString(frameData, groups);
+            }
+            case TOP -> {
+                Ranking ranking = Ranking.parse(text);
+                bands(engine.top(ranking.getField(), ranking.getCount()), out);
+            }
+            case OLDEST -> bands(engine.oldest(Ranking.parseCount(text)), out);
+            case NEWEST -> bands(engine.newest(Ranking.parseCount(text)), out);
+            case INSERT -> status(engine.insert(key, element).getCode());
+            case UPDATE -> status(engine.update(key, element).getCode());
+            case REMOVE_LOWER -> count(engine.remove_lower(element));
+            case REPLACE_IF_LOWER -> status(engine.replace_if_lower(key, element).getCode());
+            default -> error("Command '" + opcode.getCommandName() + "' is not available over the network");
+        }
+    }
+
+    /**
+     * Читает ключ запроса.
+     * @param request Тело кадра запроса
+     * @return положительный ключ
+     * @throws IllegalArgumentException если ключ не положительный
+     */
+    private static Long readKey(ByteBuffer request){
+        long key = request.getLong();
+        if(key <= 0){
+            throw new IllegalArgumentException("'" + key + "' is not a valid key");
+        }
+        return key;
+    }
+
+    /**
+     * Записывает ответ на команду info.
+     * @throws IOException если ответ не удалось записать
+     */
+    private void info() throws IOException{
+        CollectionInfo info = engine.info();
+        status(ResultCode.OK);
+        BinaryProtocol.writeString(frameData, info.getType());
+        BinaryProtocol.writeDate(frameData, info.getInitializationDate());
+        frameData.writeInt(info.getSize());
+        frameData.writeLong(info.getFirstKey() == null ? 0 : info.getFirstKey());
+        frameData.writeLong(info.getLastKey() == null ? 0 : info.getLastKey());
+    }
+
+    /**
+     * Записывает ответ со списком элементов частями не длиннее примерно {@link BinaryProtocol#CHUNK_LENGTH} байтов:
+     * каждая часть, кроме последней, сразу записывается в out отдельным кадром, а последняя (пустая) часть
+     * остается текущим ответом.
+     * @param bands Элементы
+     * @param out Поток для ответов
+     * @throws IOException если ответ не удалось записать
+     */
+    private void bands(Collection<MusicBand> bands, ByteArrayOutputStream out) throws IOException{
+        int count = 0;
+        chunk.reset();
+        for(MusicBand band : bands){
+            BinaryProtocol.writeBand(chunkData, band);
+            count++;
+            if(chunk.size() >= BinaryProtocol.CHUNK_LENGTH){
+                writeChunk(count, out);
+                count = 0;
+            }
+        }
+        if(count > 0){
+            writeChunk(count, out);
+        }
+        status(ResultCode.OK);
+        frameData.writeInt(0);
+    }
+
+    /**
+     * Записывает в out кадр с частью ответа со списком: статус, количество элементов и элементы.
+     * @param count Количество элементов в части
+     * @param out Поток для ответов
+     * @throws IOException если ответ не удалось записать
+     */
+    private void writeChunk(int count, ByteArrayOutputStream out) throws IOException{
+        frame.reset();
+        status(ResultCode.OK);
+        frameData.writeInt(count);
+        chunk.writeTo(frame);
+        writeFrame(frame, out);
+        frame.reset();
+        chunk.reset();
+    }
+
+    /**
+     * Записывает ответ с количеством элементов.
+     * @param result Результат команды
+     * @throws IOException если ответ не удалось записать
+     */
+    private void count(Result<Integer> result) throws IOException{
+        status(result.getCode());
+        frameData.writeInt(result.getValue() == null ? 0 : result.getValue());
+    }
+
+    /**
+     * Записывает статус ответа.
+     * @param code Результат команды
+     * @throws IOException если ответ не удалось записать
+     */
+    private void status(ResultCode code) throws IOException{
+        frameData.writeByte(code.getCode());
+    }
+
+    /**
+     * Заменяет текущий ответ сообщением об ошибке.
+     * @param message Сообщение об ошибке
+     * @throws IOException если ответ не удалось записать
+     */
+    private void error(String message) throws IOException{
+        frame.reset();
+        frameData.writeByte(BinaryProtocol.STATUS_ERROR);
+        BinaryProtocol.writeString(frameData, message);
+    }
+}
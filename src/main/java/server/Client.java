@@ -0,0 +1,123 @@
+package server;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Клиент текстового протокола сервера {@link Server}. Отправляет команду и ждет ответа (один запрос за раз).
+ * <p>
+ * Запуск из консоли: {@code java -cp Laba5.jar server.Client host port} или {@code server.Client unix:путь}
+ * (сокет Unix, см. {@link Server#parseAddress(String)}). Команды читаются из стандартного ввода;
+ * после команд insert, update, remove_lower и replace_if_lower читаются 7 строк элемента в формате скрипта.
+ */
+public class Client implements Closeable {
+    /**
+     * Хранит канал соединения с сервером.
+     */
+    private final SocketChannel channel;
+    /**
+     * Хранит поток для чтения ответов.
+     */
+    private final BufferedReader reader;
+    /**
+     * Хранит поток для отправки запросов.
+     */
+    private final Writer writer;
+
+    /**
+     * Подключается к серверу по указанному адресу.
+     * @param address Адрес сервера
+     * @throws IOException если подключиться не удалось
+     */
+    public Client(SocketAddress address) throws IOException{
+        channel = SocketChannel.open(address);
+        reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Отправляет команду (и элемент, если он передан) и возвращает ответ сервера.
+     * @param commandLine Строка команды, например {@code "remove_key 5"}
+     * @param element Строки элемента в формате скрипта (для insert, update, remove_lower и replace_if_lower)
+     * @return текст ответа без завершающей строки {@code "."}
+     * @throws IOException если соединение разорвано
+     */
+    public String send(String commandLine, String... element) throws IOException{
+        writer.write(commandLine);
+        writer.write('\n');
+        for(String field : element){
+            writer.write(field);
+            writer.write('\n');
+        }
+        writer.flush();
+        return readResponse();
+    }
+
+    /**
+     * Читает ответ сервера до строки {@code "."}.
+     * @return текст ответа
+     * @throws IOException если соединение разорвано до конца ответа
+     */
+    private String readResponse() throws IOException{
+        StringBuilder response = new StringBuilder();
+        String line;
+        while((line = reader.readLine()) != null){
+            if(line.equals(Server.END_OF_RESPONSE)){
+                return response.toString();
+            }
+            response.append(line).append('\n');
+        }
+        throw new EOFException("Connection closed by server");
+    }
+
+    /**
+     * Закрывает соединение с сервером.
+     * @throws IOException если соединение не удалось закрыть
+     */
+    @Override
+    public void close() throws IOException{
+        channel.close();
+    }
+
+    /**
+     * Консольный клиент: пересылает команды из стандартного ввода на сервер и выводит ответы.
+     * @param args host и port сервера или адрес сервера в формате {@link Server#parseAddress(String)}
+     */
+    public static void main(String[] args){
+        if(args.length != 1 && args.length != 2){
+            System.err.println("Usage: server.Client host port | server.Client unix:path");
+            System.exit(1);
+        }
+        try(Client client = new Client(args.length == 2 ? new InetSocketAddress(args[0], Integer.parseInt(args[1])) : Server.parseAddress(args[0]));
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in))){
+            String line;
+            while((line = in.readLine()) != null){
+                if(line.isBlank()){
+                    continue;
+                }
+                String command = line.trim().split("\\s+", 2)[0];
+                String[] element = new String[RequestHandler.needsElement(command) ? 7 : 0];
+                for(int i = 0; i < element.length; i++){
+                    element[i] = in.readLine();
+                    if(element[i] == null){
+                        throw new EOFException("Unexpected end of input");
+                    }
+                }
+                System.out.print(client.send(line, element));
+                if(command.equals("exit")){
+                    break;
+                }
+            }
+        }catch(IOException e){
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }catch(IllegalArgumentException e){
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
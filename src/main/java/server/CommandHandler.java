@@ -0,0 +1,18 @@
+package server;
+
+/**
+ * Выполняет команды текстового протокола (см. описание пакета {@link server}) и формирует текстовый ответ.
+ * <p>
+ * Реализации: {@link RequestHandler} - команды над коллекцией этого процесса, {@link shard.ShardRouter} - команды
+ * над коллекцией, разделенной между несколькими процессами.
+ */
+public interface CommandHandler {
+    /**
+     * Выполняет команду и дописывает ее вывод в out.
+     * @param command Название команды
+     * @param argument Аргумент команды (может быть {@code null})
+     * @param element Строки элемента для команд из {@link RequestHandler#needsElement(String)}, иначе {@code null}
+     * @param out Буфер для вывода команды
+     */
+    void handle(String command, String argument, String[] element, StringBuilder out);
+}
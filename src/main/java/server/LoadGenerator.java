@@ -0,0 +1,139 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Генератор нагрузки для сервера {@link Server}: открывает указанное количество соединений, в каждом отправляет
+ * запросы по одному и измеряет задержку каждого запроса.
+ * <p>
+ * Смесь запросов в каждом соединении: insert нового ключа, info, remove_key этого ключа, info.
+ * В конце выводит количество запросов в секунду и задержки p50, p90, p99 и max, вычисленные только по выполненным
+ * запросам; запросы, не выполненные из-за ошибки соединения, выводятся отдельно.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar server.LoadGenerator host port connections requestsPerConnection [firstKey]}
+ */
+public class LoadGenerator {
+    /**
+     * Хранит строки элемента, вставляемого командой insert.
+     */
+    private static final String[] ELEMENT = {"Load band", "1.5", "2", "3", "Generated by LoadGenerator", "ROCK", "Load studio"};
+
+    /**
+     * Запускает генератор нагрузки.
+     * @param args host, port, количество соединений, количество запросов в каждом соединении и необязательный первый ключ
+     */
+    public static void main(String[] args) throws InterruptedException{
+        if(args.length < 4){
+            System.err.println("Usage: server.LoadGenerator host port connections requestsPerConnection [firstKey]");
+            System.exit(1);
+        }
+        SocketAddress address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        int connections = Integer.parseInt(args[2]);
+        int requests = Integer.parseInt(args[3]);
+        long firstKey = args.length > 4 ? Long.parseLong(args[4]) : 1_000_000_000L;
+        run(address, connections, requests, firstKey);
+    }
+
+    /**
+     * Выполняет нагрузочный тест и выводит отчет.
+     * @param address Адрес сервера
+     * @param connections Количество одновременных соединений
+     * @param requests Количество запросов в каждом соединении
+     * @param firstKey Первый ключ, используемый командой insert
+     * @return задержки выполненных запросов в наносекундах, отсортированные по возрастанию
+     */
+    public static long[] run(SocketAddress address, int connections, int requests, long firstKey) throws InterruptedException{
+        long[][] latencies = new long[connections][requests];
+        int[] completed = new int[connections];
+        CountDownLatch ready = new CountDownLatch(connections);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for(int c = 0; c < connections; c++){
+            int connection = c;
+            Thread thread = new Thread(() -> {
+                completed[connection] = runConnection(address, firstKey + (long) connection * requests, latencies[connection], ready, start);
+            }, "load-" + c);
+            thread.start();
+            threads.add(thread);
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        long[] all = new long[Arrays.stream(completed).sum()];
+        int failedConnections = 0;
+        for(int c = 0, offset = 0; c < connections; offset += completed[c], c++){
+            System.arraycopy(latencies[c], 0, all, offset, completed[c]);
+            if(completed[c] < requests){
+                failedConnections++;
+            }
+        }
+        Arrays.sort(all);
+        System.out.printf("Connections: %d, completed requests: %d, failed requests: %d, failed connections: %d%n",
+                connections, all.length, (long) connections * requests - all.length, failedConnections);
+        System.out.printf("Throughput: %.0f requests/s in %.3f s%n", all.length / seconds, seconds);
+        System.out.printf("Latency: p50=%.1f us, p90=%.1f us, p99=%.1f us, max=%.1f us%n",
+                percentile(all, 50) / 1e3, percentile(all, 90) / 1e3, percentile(all, 99) / 1e3, all.length == 0 ? 0.0 : all[all.length - 1] / 1e3);
+        return all;
+    }
+
+    /**
+     * Открывает соединение и отправляет в нем запросы, записывая задержку каждого выполненного запроса.
+     * @param address Адрес сервера
+     * @param key Первый ключ, используемый командой insert в этом соединении
+     * @param latencies Массив для задержек запросов (его длина - количество запросов)
+     * @param ready Счетчик открытых соединений
+     * @param start Сигнал начала отправки запросов
+     * @return количество выполненных запросов (меньше длины массива, если соединение не удалось открыть или оно было разорвано)
+     */
+    private static int runConnection(SocketAddress address, long key, long[] latencies, CountDownLatch ready, CountDownLatch start){
+        Client client;
+        try{
+            client = new Client(address);
+        }catch(IOException e){
+            ready.countDown();
+            return 0;
+        }
+        ready.countDown();
+        int i = 0;
+        try(client){
+            start.await();
+            for(; i < latencies.length; i++){
+                long begin = System.nanoTime();
+                switch (i % 4){
+                    case 0 -> client.send("insert " + (key + i), ELEMENT);
+                    case 2 -> client.send("remove_key " + (key + i - 2));
+                    default -> client.send("info");
+                }
+                latencies[i] = System.nanoTime() - begin;
+            }
+        }catch(IOException | InterruptedException e){
+            // Задержки прерванного и следующих запросов не учитываются
+        }
+        return i;
+    }
+
+    /**
+     * Возвращает перцентиль отсортированного массива.
+     * @param sorted Отсортированный массив
+     * @param percent Перцентиль (от 0 до 100)
+     * @return значение перцентиля или 0, если массив пуст
+     */
+    public static long percentile(long[] sorted, double percent){
+        if(sorted.length == 0){
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
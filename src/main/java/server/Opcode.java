@@ -0,0 +1,116 @@
+package server;
+
+/**
+ * Коды операций двоичного протокола (см. {@link BinaryProtocol}). Каждый код соответствует команде с тем же названием
+ * из {@link utils.CommandMap}; коды фиксированы и не зависят от порядка команд в коллекции.
+ */
+public enum Opcode {
+    HELP(1, "help", Payload.NONE),
+    INFO(2, "info", Payload.NONE),
+    SHOW(3, "show", Payload.NONE),
+    CLEAR(4, "clear", Payload.NONE),
+    SAVE(5, "save", Payload.NONE),
+    EXIT(6, "exit", Payload.NONE),
+    PRINT_ASCENDING(7, "print_ascending", Payload.NONE),
+    PRINT_DESCENDING(8, "print_descending", Payload.NONE),
+    REMOVE_KEY(9, "remove_key", Payload.KEY),
+    REMOVE_LOWER_KEY(10, "remove_lower_key", Payload.KEY),
+    FILTER_STARTS_WITH_NAME(11, "filter_starts_with_name", Payload.TEXT),
+    INSERT(12, "insert", Payload.KEY_AND_ELEMENT),
+    UPDATE(13, "update", Payload.KEY_AND_ELEMENT),
+    REMOVE_LOWER(14, "remove_lower", Payload.ELEMENT),
+    REPLACE_IF_LOWER(15, "replace_if_lower", Payload.KEY_AND_ELEMENT),
+    EXECUTE_SCRIPT(16, "execute_script", Payload.TEXT),
+    BEGIN(17, "begin", Payload.NONE),
+    COMMIT(18, "commit", Payload.NONE),
+    ROLLBACK(19, "rollback", Payload.NONE),
+    WHERE(20, "where", Payload.TEXT),
+    EXPLAIN(21, "explain", Payload.TEXT),
+    GROUP_BY(22, "group_by", Payload.TEXT),
+    TOP(23, "top", Payload.TEXT),
+    OLDEST(24, "oldest", Payload.TEXT),
+    NEWEST(25, "newest", Payload.TEXT),
+    SEARCH_DESCRIPTION(26, "search_description", Payload.TEXT),
+    SEARCH_NAME(27, "search_name", Payload.TEXT),
+    IMPORT_CSV(28, "import_csv", Payload.TEXT),
+    EXPORT(29, "export", Payload.TEXT);
+
+    /**
+     * Содержимое запроса после кода операции.
+     */
+    public enum Payload {
+        /** Запрос без аргументов */
+        NONE,
+        /** Ключ (int64) */
+        KEY,
+        /** Строка */
+        TEXT,
+        /** Элемент коллекции */
+        ELEMENT,
+        /** Ключ (int64) и элемент коллекции */
+        KEY_AND_ELEMENT
+    }
+
+    /**
+     * Хранит коды операций по значению кода.
+     */
+    private static final Opcode[] BY_CODE = new Opcode[256];
+
+    static {
+        for(Opcode opcode : values()){
+            BY_CODE[opcode.code] = opcode;
+        }
+    }
+
+    /**
+     * Хранит значение кода операции.
+     */
+    private final int code;
+    /**
+     * Хранит название соответствующей команды.
+     */
+    private final String commandName;
+    /**
+     * Хранит содержимое запроса.
+     */
+    private final Payload payload;
+
+    /**
+     * Создает код операции.
+     * @param code Значение кода (1-255)
+     * @param commandName Название команды
+     * @param payload Содержимое запроса
+     */
+    Opcode(int code, String commandName, Payload payload){
+        this.code = code;
+        this.commandName = commandName;
+        this.payload = payload;
+    }
+
+    /**
+     * Возвращает значение кода операции.
+     * @return код (1-255)
+     */
+    public int getCode(){return code;}
+
+    /**
+     * Возвращает название соответствующей команды.
+     * @return название команды
+     */
+    public String getCommandName(){return commandName;}
+
+    /**
+     * Возвращает содержимое запроса после кода операции.
+     * @return содержимое запроса
+     */
+    public Payload getPayload(){return payload;}
+
+    /**
+     * Находит код операции по значению.
+     * @param code Значение кода (0-255)
+     * @return код операции или {@code null}, если такого кода нет
+     */
+    public static Opcode fromCode(int code){
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,198 @@
+package server;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import engine.CollectionEngine;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сравнивает пропускную способность текстового протокола, двоичного протокола в режиме "запрос-ответ"
+ * и двоичного протокола с конвейерной обработкой.
+ * <p>
+ * Запускает в этом же процессе два сервера {@link Server} (текстовый и двоичный) над пустой коллекцией на loopback-адресе.
+ * В каждом соединении выполняется та же смесь запросов, что и в {@link LoadGenerator}: insert нового ключа, info,
+ * remove_key этого ключа, info. В конвейерном режиме клиент отправляет depth запросов, не дожидаясь ответов,
+ * затем читает все ответы.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar server.PipelineBenchmark [connections] [requestsPerConnection] [depth]}
+ */
+public class PipelineBenchmark {
+    /**
+     * Хранит строки элемента для текстового протокола.
+     */
+    private static final String[] ELEMENT = {"Load band", "1.5", "2", "3", "Generated by PipelineBenchmark", "ROCK", "Load studio"};
+
+    /**
+     * Запускает сравнение.
+     * @param args количество соединений, количество запросов в каждом соединении и глубина конвейера
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        requests -= requests % 4;
+
+        CollectionEngine engine = new CollectionEngine(new TreeMap<>(), null);
+        Server text = start(new Server(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Server.Protocol.TEXT));
+        Server binary = start(new Server(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Server.Protocol.BINARY));
+        try{
+            System.out.printf("Connections: %d, requests per connection: %d, pipeline depth: %d%n", connections, requests, depth);
+            // Прогрев: первые прогоны выполняются до JIT-компиляции и не показательны
+            run("warm-up", text.getLocalAddress(), binary.getLocalAddress(), connections, requests / 4, 1, true);
+            run("warm-up", text.getLocalAddress(), binary.getLocalAddress(), connections, requests / 4, depth, false);
+
+            double textRate = run("text, request-response", text.getLocalAddress(), binary.getLocalAddress(), connections, requests, 1, true);
+            double binaryRate = run("binary, request-response", text.getLocalAddress(), binary.getLocalAddress(), connections, requests, 1, false);
+            double pipelinedRate = run("binary, pipelined", text.getLocalAddress(), binary.getLocalAddress(), connections, requests, depth, false);
+            System.out.printf("Binary vs text: x%.2f, pipelined vs text: x%.2f, pipelined vs binary: x%.2f%n",
+                    binaryRate / textRate, pipelinedRate / textRate, pipelinedRate / binaryRate);
+            System.out.printf("Collection size after benchmark: %d%n", engine.size());
+        }finally{
+            text.stop();
+            binary.stop();
+        }
+    }
+
+    /**
+     * Открывает канал сервера и запускает его в фоновом потоке.
+     * @param server Сервер
+     * @return запущенный сервер
+     * @throws IOException если адрес недоступен
+     */
+    private static Server start(Server server) throws IOException{
+        server.bind();
+        Thread thread = new Thread(() -> {
+            try{
+                server.run();
+            }catch(IOException e){
+                System.err.println("Server error: " + e.getMessage());
+            }
+        }, "server");
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    /**
+     * Выполняет один прогон и выводит его результат.
+     * @param name Название прогона
+     * @param textAddress Адрес текстового сервера
+     * @param binaryAddress Адрес двоичного сервера
+     * @param connections Количество соединений
+     * @param requests Количество запросов в каждом соединении
+     * @param depth Глубина конвейера (1 - режим "запрос-ответ")
+     * @param textProtocol true - использовать текстовый протокол
+     * @return количество запросов в секунду
+     */
+    private static double run(String name, SocketAddress textAddress, SocketAddress binaryAddress, int connections,
+                              int requests, int depth, boolean textProtocol) throws InterruptedException{
+        CountDownLatch ready = new CountDownLatch(connections);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for(int c = 0; c < connections; c++){
+            long firstKey = 1_000_000_000L + (long) c * requests;
+            Thread thread = new Thread(() -> {
+                try{
+                    if(textProtocol){
+                        runText(textAddress, firstKey, requests, ready, start);
+                    }else{
+                        runBinary(binaryAddress, firstKey, requests, depth, ready, start);
+                    }
+                }catch(IOException | InterruptedException e){
+                    failures.incrementAndGet();
+                }
+            }, "benchmark-" + c);
+            thread.start();
+            threads.add(thread);
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        double rate = (double) connections * requests / seconds;
+        if(!name.equals("warm-up")){
+            System.out.printf("%-26s %10.0f requests/s in %.3f s (failed connections: %d)%n", name, rate, seconds, failures.get());
+        }
+        return rate;
+    }
+
+    /**
+     * Выполняет запросы в одном соединении текстового протокола.
+     * @param address Адрес сервера
+     * @param key Первый ключ, используемый командой insert
+     * @param requests Количество запросов
+     * @param ready Счетчик открытых соединений
+     * @param start Сигнал начала отправки запросов
+     */
+    private static void runText(SocketAddress address, long key, int requests, CountDownLatch ready, CountDownLatch start)
+            throws IOException, InterruptedException{
+        Client client;
+        try{
+            client = new Client(address);
+        }finally{
+            ready.countDown();
+        }
+        try(client){
+            start.await();
+            for(int i = 0; i < requests; i++){
+                switch (i % 4){
+                    case 0 -> client.send("insert " + (key + i), ELEMENT);
+                    case 2 -> client.send("remove_key " + (key + i - 2));
+                    default -> client.send("info");
+                }
+            }
+        }
+    }
+
+    /**
+     * Выполняет запросы в одном соединении двоичного протокола пачками по depth запросов.
+     * @param address Адрес сервера
+     * @param key Первый ключ, используемый командой insert
+     * @param requests Количество запросов
+     * @param depth Количество запросов, отправляемых до чтения ответов
+     * @param ready Счетчик открытых соединений
+     * @param start Сигнал начала отправки запросов
+     */
+    private static void runBinary(SocketAddress address, long key, int requests, int depth, CountDownLatch ready, CountDownLatch start)
+            throws IOException, InterruptedException{
+        MusicBand element = new MusicBand(ELEMENT[0], new Coordinates(1.5, 2), 3, ELEMENT[4], MusicGenre.ROCK, new Studio(ELEMENT[6]));
+        BinaryClient client;
+        try{
+            client = new BinaryClient(address);
+        }finally{
+            ready.countDown();
+        }
+        try(client){
+            start.await();
+            for(int i = 0; i < requests; i++){
+                switch (i % 4){
+                    case 0 -> client.send(Opcode.INSERT, key + i, element);
+                    case 2 -> client.send(Opcode.REMOVE_KEY, key + i - 2);
+                    default -> client.send(Opcode.INFO);
+                }
+                if(client.getPending() >= depth || i == requests - 1){
+                    while(client.getPending() > 0){
+                        if(client.receive().isError()){
+                            throw new IOException("Request failed");
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package server;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import engine.CollectionInfo;
+import engine.NameMatch;
+import engine.Result;
+import engine.ResultCode;
+import engine.TextIndex;
+import query.Expression;
+import query.GroupBy;
+import query.Ranking;
+import query.QueryParser;
+import utils.Console;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Выполняет команды, полученные по сети, над {@link engine.CollectionEngine} и формирует текстовый ответ.
+ * <p>
+ * Текст ответов совпадает с выводом {@link commands.Executor}. Команды exit, execute_script, import_csv, export, begin,
+ * commit и rollback по сети не выполняются: exit закрывает соединение (обрабатывается сервером), скрипты и транзакции
+ * относятся к локальной консоли, а import_csv и export читают и записывают произвольные файлы сервера
+ * (import_csv к тому же выводит содержимое отклоненных строк), поэтому доступны только в локальной консоли.
+ * @see Server
+ */
+public class RequestHandler implements CommandHandler {
+    /**
+     * Хранит названия команд, после которых передается элемент коллекции.
+     */
+    private static final Set<String> ELEMENT_COMMANDS = Set.of("insert", "update", "remove_lower", "replace_if_lower");
+    /**
+     * Хранит названия команд, изменяющих коллекцию.
+     */
+    private static final Set<String> MUTATING_COMMANDS = Set.of("clear", "remove_key", "remove_lower_key", "insert", "update",
+            "remove_lower", "replace_if_lower");
+    /**
+     * Хранит текст справки по командам, доступным по сети.
+     */
+    public static final String HELP = "Available commands: help, info, show, clear, save, print_ascending, print_descending, " +
+            "remove_key key, remove_lower_key key, filter_starts_with_name name, search_name name, search_description words, where condition, explain where condition, group_by field [function ...], top N by field, oldest N, newest N, insert key {element}, " +
+            "update id {element}, remove_lower {element}, replace_if_lower key {element}, exit\n";
+    /**
+     * Хранит формат даты инициализации коллекции.
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z");
+    /**
+     * Хранит ядро, над которым выполняются команды.
+     */
+    private final CollectionEngine engine;
+
+    /**
+     * Создает обработчик команд над указанным ядром.
+     * @param engine Ядро с коллекцией
+     */
+    public RequestHandler(CollectionEngine engine){
+        this.engine = engine;
+    }
+
+    /**
+     * Проверяет, передается ли после указанной команды элемент коллекции.
+     * @param command Название команды
+     * @return true для команд insert, update, remove_lower и replace_if_lower
+     */
+    public static boolean needsElement(String command){
+        return ELEMENT_COMMANDS.contains(command);
+    }
+
+    @Override
+    public void handle(String command, String argument, String[] element, StringBuilder out){
+        if(!Console.isValidCommand(command)){
+            out.append("There is no command '").append(command).append("'\n");
+            return;
+        }
+        if(engine.isReadOnly() && MUTATING_COMMANDS.contains(command)){
+            out.append("The collection is read-only: this process is a replica\n");
+            return;
+        }
+        try{
+            switch (command){
+                case "help" -> out.append(HELP);
+                case "info" -> info(out);
+                case "show" -> show(out);
+                case "clear" -> {
+                    Result<Integer> result = engine.clear();
+                    if(result.isOk()){
+                        out.append("The collection was successfully cleared. ").append(result.getValue()).append(" elements removed\n");
+                    }else{
+                        out.append("The collection is empty\n");
+                    }
+                }
+                case "save" -> save(out);
+                case "print_ascending" -> printSorted(engine.print_ascending(), "Collection elements in ascending order (by 'name'):\n", out);
+                case "print_descending" -> printSorted(engine.print_descending(), "Collection elements in descending order (by 'name'):\n", out);
+                case "remove_key" -> {
+                    Long key = parseKey(command, argument);
+                    ResultCode code = engine.remove_key(key).getCode();
+                    switch (code){
+                        case OK -> out.append("The item with the key ").append(key).append(" to has been successfully deleted\n");
+                        case KEY_NOT_FOUND -> out.append("The element with the key ").append(key).append(" to was not found\n");
+                        default -> appendFailure(command, code, out);
+                    }
+                }
+                case "remove_lower_key" -> out.append("Successfully deleted ")
+                        .append(engine.remove_lower_key(parseKey(command, argument)).getValue()).append(" items\n");
+                case "filter_starts_with_name" -> {
+                    if(argument == null || argument.trim().isEmpty()){
+                        throw new IllegalArgumentException("Command '" + command + "' failed: Argument cannot be empty or null");
+                    }
+                    List<MusicBand> bands = engine.filter_starts_with_name(argument);
+                    out.append("Found ").append(bands.size()).append(" music groups whose names start with \"").append(argument).append("\"\n");
+                    appendBands(bands, out);
+                }
+                case "search_name" -> {
+                    if(argument == null || TextIndex.terms(argument).isEmpty()){
+                        throw new IllegalArgumentException("Command '" + command + "' failed: at least one word expected");
+                    }
+                    appendMatches(argument, engine.search_name(argument, NameMatch.LIMIT), out);
+                }
+                case "search_description" -> {
+                    if(argument == null || TextIndex.terms(argument).isEmpty()){
+                        throw new IllegalArgumentException("Command '" + command + "' failed: at least one word expected");
+                    }
+                    List<MusicBand> bands = engine.search_description(argument);
+                    out.append("Found ").append(bands.size()).append(" music groups whose description contains \"").append(argument.trim()).append("\"\n");
+                    appendBands(bands, out);
+                }
+                case "where" -> {
+                    Expression expression = parseExpression(command, argument);
+                    List<MusicBand> bands = engine.where(expression);
+                    out.append("Found ").append(bands.size()).append(" music groups where ").append(expression).append('\n');
+                    appendBands(bands, out);
+                }
+                case "explain" -> out.append(engine.plan(commands.Explain.parseExplained(command, argument)).describe());
+                case "group_by" -> out.append(engine.groupBy(parseGroupBy(command, argument)).describe());
+                case "top" -> {
+                    Ranking ranking = parseRanking(command, argument);
+                    out.append("Top ").append(ranking.getCount()).append(" music groups by ").append(ranking.getField()).append('\n');
+                    appendBands(engine.top(ranking.getField(), ranking.getCount()), out);
+                }
+                case "oldest", "newest" -> {
+                    int count = parseCount(command, argument);
+                    out.append(count).append(' ').append(command).append(" music groups\n");
+                    appendBands(command.equals("oldest") ? engine.oldest(count) : engine.newest(count), out);
+                }
+                case "insert" -> {
+                    Long key = parseKey(command, argument);
+                    ResultCode code = engine.insert(key, Console.parseMusicBand(element)).getCode();
+                    switch (code){
+                        case OK -> out.append("The music band was successfully inserted to the collection\n");
+                        case KEY_EXISTS -> out.append("The collection already contain the key: ").append(key).append('\n');
+                        default -> appendFailure(command, code, out);
+                    }
+                }
+                case "update" -> {
+                    Long id = parseKey(command, argument);
+                    ResultCode code = engine.update(id, Console.parseMusicBand(element)).getCode();
+                    switch (code){
+                        case OK -> out.append("The band with ID ").append(id).append(" was successfully updated\n");
+                        case KEY_NOT_FOUND -> out.append("The collection doesn't contain the key ").append(id).append('\n');
+                        default -> appendFailure(command, code, out);
+                    }
+                }
+                case "remove_lower" -> {
+                    Result<Integer> result = engine.remove_lower(Console.parseMusicBand(element));
+                    switch (result.getCode()){
+                        case OK -> out.append(result.getValue()).append(" bands were successfully removed\n");
+                        case EMPTY -> out.append("The collection is empty\n");
+                        default -> appendFailure(command, result.getCode(), out);
+                    }
+                }
+                case "replace_if_lower" -> {
+                    Long key = parseKey(command, argument);
+                    ResultCode code = engine.replace_if_lower(key, Console.parseMusicBand(element)).getCode();
+                    switch (code){
+                        case OK -> out.append("The band that key is ").append(key).append(" was successfully replaced\n");
+                        case NOT_REPLACED -> out.append("The band that key is ").append(key).append(" wasn't replaced\n");
+                        case EMPTY -> out.append("The collection is empty\n");
+                        case KEY_NOT_FOUND -> out.append("The collection doesn't contain the key ").append(key).append('\n');
+                        default -> appendFailure(command, code, out);
+                    }
+                }
+                default -> out.append("Command '").append(command).append("' is not available over the network\n");
+            }
+        }catch(IllegalArgumentException e){
+            out.append("Error: ").append(e.getMessage()).append('\n');
+        }
+    }
+
+    /**
+     * Дописывает в out сообщение о неудачном выполнении команды с кодом, для которого у команды нет своего сообщения.
+     * @param command Название команды
+     * @param code Код результата
+     * @param out Буфер для вывода
+     */
+    public static void appendFailure(String command, ResultCode code, StringBuilder out){
+        switch (code){
+            case INVALID_ELEMENT -> out.append("The read music band is null. Command \"").append(command).append("\" failed\n");
+            case READ_ONLY -> out.append("The collection is read-only: this process is a replica\n");
+            default -> out.append("Command \"").append(command).append("\" failed: ").append(code).append('\n');
+        }
+    }
+
+    /**
+     * Извлекает ключ из аргумента команды.
+     * @param command Название команды
+     * @param argument Аргумент команды
+     * @return положительное число типа Long
+     * @throws IllegalArgumentException если аргумент не является положительным числом типа Long
+     */
+    public static Long parseKey(String command, String argument){
+        try{
+            long key = Long.parseLong(argument.trim());
+            if(key <= 0) throw new NumberFormatException();
+            return key;
+        }catch(NumberFormatException | NullPointerException e){
+            throw new IllegalArgumentException("Command '" + command + "' failed: '" + argument + "' is not a valid Long number.");
+        }
+    }
+
+    /**
+     * Разбирает условие команды where.
+     * @param command Название команды
+     * @param argument Аргумент команды
+     * @return разобранное условие
+     * @throws IllegalArgumentException если условие пустое или содержит ошибку
+     */
+    public static Expression parseExpression(String command, String argument){
+        try{
+            return QueryParser.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + command + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Разбирает аргумент команды group_by.
+     * @param command Название команды
+     * @param argument Аргумент команды
+     * @return поле группировки и агрегатные функции
+     * @throws IllegalArgumentException если поле или функция указаны неверно
+     */
+    public static GroupBy parseGroupBy(String command, String argument){
+        try{
+            return GroupBy.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + command + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Разбирает аргумент команды top.
+     * @param command Название команды
+     * @param argument Аргумент команды
+     * @return количество элементов и поле
+     * @throws IllegalArgumentException если аргумент не соответствует формату {@code N by поле}
+     */
+    public static Ranking parseRanking(String command, String argument){
+        try{
+            return Ranking.parse(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + command + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Разбирает аргумент команд oldest и newest.
+     * @param command Название команды
+     * @param argument Аргумент команды
+     * @return количество элементов
+     * @throws IllegalArgumentException если аргумент не является положительным числом типа int
+     */
+    public static int parseCount(String command, String argument){
+        try{
+            return Ranking.parseCount(argument);
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Command '" + command + "' failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Дописывает в out результаты команды search_name.
+     * @param name Запрос
+     * @param matches Результаты
+     * @param out Буфер для вывода
+     */
+    public static void appendMatches(String name, List<NameMatch> matches, StringBuilder out){
+        out.append("Found ").append(matches.size()).append(" music groups with names similar to \"").append(name.trim()).append("\"\n");
+        for(NameMatch match : matches){
+            out.append(match.describe()).append('\n').append(match.getBand()).append('\n');
+        }
+    }
+
+    /**
+     * Дописывает в out информацию о коллекции.
+     * @param out Буфер для вывода
+     */
+    private void info(StringBuilder out){
+        CollectionInfo info = engine.info();
+        out.append("Type: ").append(info.getType()).append('\n')
+                .append("Initialization date: ").append(info.getInitializationDate().format(DATE_FORMATTER)).append('\n')
+                .append("Size of collection: ").append(info.getSize()).append('\n');
+        if(info.getSize() != 0){
+            out.append("First key: ").append(info.getFirstKey()).append('\n')
+                    .append("Last key: ").append(info.getLastKey()).append('\n');
+        }
+        if(info.getReplication() != null){
+            out.append("Replication: ").append(info.getReplication()).append('\n');
+        }
+    }
+
+    /**
+     * Дописывает в out все элементы коллекции.
+     * @param out Буфер для вывода
+     */
+    private void show(StringBuilder out){
+        Collection<MusicBand> bands = engine.show();
+        if(bands.isEmpty()){
+            out.append("The collection is empty\n");
+        }else{
+            out.append("The collection contains ").append(bands.size()).append(" items:\n");
+            appendBands(bands, out);
+        }
+    }
+
+    /**
+     * Сохраняет коллекцию в CSV-файл и дописывает в out результат.
+     * @param out Буфер для вывода
+     */
+    private void save(StringBuilder out){
+        try{
+            out.append("The collection was successfully saved to the file '").append(engine.save().getValue()).append("'\n");
+        }catch(IOException | IllegalStateException e){
+            out.append("Saving to a file failed: ").append(e.getMessage()).append('\n');
+        }
+    }
+
+    /**
+     * Дописывает в out отсортированные элементы с заголовком.
+     * @param bands Отсортированные элементы
+     * @param header Заголовок
+     * @param out Буфер для вывода
+     */
+    private static void printSorted(List<MusicBand> bands, String header, StringBuilder out){
+        if(bands.isEmpty()){
+            out.append("The collection is empty\n");
+        }else{
+            out.append(header);
+            appendBands(bands, out);
+        }
+    }
+
+    /**
+     * Дописывает в out строковые представления элементов, каждое с новой строки.
+     * @param bands Элементы
+     * @param out Буфер для вывода
+     */
+    private static void appendBands(Collection<MusicBand> bands, StringBuilder out){
+        for(MusicBand band : bands){
+            out.append(band).append('\n');
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package server;
+
+import engine.CollectionEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сервер, предоставляющий доступ к коллекции по текстовому (см. описание пакета {@link server})
+ * или двоичному ({@link BinaryProtocol}) протоколу.
+ * <p>
+ * Все соединения обслуживаются одним потоком с неблокирующим {@link java.nio.channels.Selector}, поэтому команды
+ * выполняются над {@link engine.CollectionEngine} последовательно; блокировка ядра {@link engine.CollectionEngine#getLock()}
+ * нужна только для согласования с другими потоками (например, с репликацией). Запросы одного соединения
+ * выполняются в порядке поступления; ответы на все запросы, прочитанные за один вызов read, отправляются одной записью.
+ * Если клиент не успевает читать ответы и неотправленных байтов становится больше {@link Session#MAX_PENDING_OUTPUT},
+ * сервер перестает читать и выполнять запросы этого соединения, пока очередь ответов не уменьшится.
+ * Непредвиденная ошибка при обработке запроса (исключение времени выполнения или переполнение стека) закрывает только
+ * соединение, отправившее запрос.
+ * <p>
+ * Адрес сервера - {@link java.net.InetSocketAddress} (TCP) или {@link java.net.UnixDomainSocketAddress} (сокет Unix
+ * для клиентов на том же хосте, без накладных расходов стека TCP). Файл сокета Unix удаляется при остановке сервера.
+ * <p>
+ * Сервер текстового протокола может выполнять команды не над ядром, а над произвольным {@link CommandHandler}
+ * (например, маршрутизатором {@link shard.ShardRouter}).
+ */
+public class Server {
+    /**
+     * Протокол, по которому сервер обслуживает соединения.
+     */
+    public enum Protocol {
+        /** Текстовый протокол: строки команд в формате консоли */
+        TEXT,
+        /** Двоичный протокол с кадрами фиксированного формата ({@link BinaryProtocol}) */
+        BINARY
+    }
+
+    /**
+     * Хранит максимальный размер буфера непрочитанных байтов запроса.
+     */
+    private static final int MAX_REQUEST_LENGTH = BinaryProtocol.MAX_FRAME_LENGTH + Integer.BYTES;
+    /**
+     * Хранит строку, завершающую каждый ответ.
+     */
+    public static final String END_OF_RESPONSE = ".";
+    /**
+     * Хранит адрес, на котором сервер принимает соединения.
+     */
+    private final SocketAddress address;
+    /**
+     * Хранит ядро, над которым выполняются команды ({@code null}, если команды выполняет {@link Server#handler}).
+     */
+    private final CollectionEngine engine;
+    /**
+     * Хранит обработчик команд текстового протокола.
+     */
+    private final CommandHandler handler;
+    /**
+     * Хранит блокировку, под которой выполняются запросы.
+     */
+    private final Lock lock;
+    /**
+     * Хранит протокол сервера.
+     */
+    private final Protocol protocol;
+    /**
+     * Хранит селектор, обслуживающий все соединения.
+     */
+    private Selector selector;
+    /**
+     * Хранит канал, принимающий соединения.
+     */
+    private ServerSocketChannel serverChannel;
+    /**
+     * Хранит признак работы сервера.
+     */
+    private volatile boolean running;
+
+    /**
+     * Создает сервер текстового протокола над указанным ядром.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес для приема соединений
+     */
+    public Server(CollectionEngine engine, SocketAddress address){
+        this(engine, address, Protocol.TEXT);
+    }
+
+    /**
+     * Создает сервер указанного протокола над указанным ядром.
+     * @param engine Ядро с коллекцией
+     * @param address Адрес для приема соединений
+     * @param protocol Протокол
+     */
+    public Server(CollectionEngine engine, SocketAddress address, Protocol protocol){
+        this.engine = engine;
+        this.handler = new RequestHandler(engine);
+        this.lock = engine.getLock().writeLock();
+        this.address = address;
+        this.protocol = protocol;
+    }
+
+    /**
+     * Создает сервер текстового протокола, выполняющий команды указанным обработчиком.
+     * @param handler Обработчик команд
+     * @param address Адрес для приема соединений
+     */
+    public Server(CommandHandler handler, SocketAddress address){
+        this.engine = null;
+        this.handler = handler;
+        this.lock = new ReentrantLock();
+        this.address = address;
+        this.protocol = Protocol.TEXT;
+    }
+
+    /**
+     * Разбирает адрес сервера: {@code unix:путь} - сокет Unix, {@code [host:]port} - TCP (по умолчанию host - localhost).
+     * @param address Адрес
+     * @return адрес сокета
+     * @throws IllegalArgumentException если адрес некорректен
+     */
+    public static SocketAddress parseAddress(String address){
+        if(address.startsWith("unix:")){
+            String path = address.substring("unix:".length());
+            if(path.isEmpty()){
+                throw new IllegalArgumentException("Socket path cannot be empty");
+            }
+            return UnixDomainSocketAddress.of(path);
+        }
+        int colon = address.lastIndexOf(':');
+        String host = colon < 0 ? "localhost" : address.substring(0, colon);
+        try{
+            return new InetSocketAddress(host, Integer.parseInt(address.substring(colon + 1)));
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Port should be an integer");
+        }
+    }
+
+    /**
+     * Открывает канал для приема соединений. После вызова адрес сервера доступен через {@link Server#getLocalAddress()}.
+     * @throws IOException если адрес недоступен
+     */
+    public void bind() throws IOException{
+        selector = Selector.open();
+        serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Возвращает адрес, на котором сервер принимает соединения.
+     * @return адрес сервера
+     * @throws IOException если канал закрыт
+     */
+    public SocketAddress getLocalAddress() throws IOException{
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Обслуживает соединения в текущем потоке до вызова {@link Server#stop()}.
+     * Если канал еще не открыт, предварительно вызывает {@link Server#bind()}.
+     * @throws IOException если произошла ошибка селектора или канала приема соединений
+     */
+    public void run() throws IOException{
+        if(serverChannel == null){
+            bind();
+        }
+        running = true;
+        try{
+            while(running){
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()){
+                        continue;
+                    }
+                    try{
+                        if(key.isAcceptable()){
+                            accept();
+                        }else{
+                            if(key.isReadable()){
+                                read(key);
+                            }
+                            if(key.isValid() && key.isWritable()){
+                                write(key);
+                            }
+                        }
+                    }catch(IOException e){
+                        close(key);
+                    }catch(RuntimeException | StackOverflowError e){
+                        // Ошибка обработки запроса одного соединения не должна останавливать обслуживание остальных
+                        System.err.println("Closing connection " + remoteAddress(key) + " after an unexpected error: " + e);
+                        close(key);
+                    }
+                }
+            }
+        }finally{
+            for(SelectionKey key : selector.keys()){
+                key.channel().close();
+            }
+            selector.close();
+            if(address instanceof UnixDomainSocketAddress){
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        }
+    }
+
+    /**
+     * Останавливает сервер и закрывает все соединения.
+     */
+    public void stop(){
+        running = false;
+        if(selector != null){
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Принимает новое соединение.
+     * @throws IOException если соединение не удалось принять
+     */
+    private void accept() throws IOException{
+        SocketChannel channel = serverChannel.accept();
+        if(channel == null){
+            return;
+        }
+        channel.configureBlocking(false);
+        Session session = protocol == Protocol.BINARY ? new BinarySession(engine) : new TextSession(handler);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(session));
+    }
+
+    /**
+     * Читает данные соединения, выполняет полностью полученные запросы и отправляет ответы.
+     * @param key Ключ соединения
+     * @throws IOException если соединение разорвано
+     */
+    private void read(SelectionKey key) throws IOException{
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        int read = channel.read(connection.in);
+        if(read < 0){
+            close(key);
+            return;
+        }
+        if(!execute(connection)){
+            close(key);
+            return;
+        }
+        write(key);
+    }
+
+    /**
+     * Выполняет полностью полученные запросы из буфера соединения и ставит ответы в очередь на отправку.
+     * Сессия прекращает выполнять запросы, когда ответы достигают {@link Session#MAX_PENDING_OUTPUT}; остальные запросы
+     * остаются в буфере до отправки ответов.
+     * @param connection Соединение
+     * @return false, если запрос длиннее {@link Server#MAX_REQUEST_LENGTH} и соединение нужно закрыть
+     * @throws IOException если запрос нарушает протокол
+     */
+    private boolean execute(Connection connection) throws IOException{
+        ByteArrayOutputStream response = connection.response;
+        response.reset();
+        ByteBuffer in = connection.in;
+        in.flip();
+        lock.lock();
+        try{
+            connection.session.process(in, response);
+        }finally{
+            lock.unlock();
+        }
+        in.compact();
+        connection.deferred = response.size() >= Session.MAX_PENDING_OUTPUT;
+        if(!in.hasRemaining() && !connection.deferred){
+            // Буфер заполнен началом одного запроса
+            if(in.capacity() >= MAX_REQUEST_LENGTH){
+                return false;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            larger.put(in);
+            connection.in = larger;
+        }
+        if(response.size() > 0){
+            connection.enqueue(response.toByteArray());
+        }
+        return true;
+    }
+
+    /**
+     * Отправляет накопленные ответы соединения и выполняет запросы, отложенные из-за размера ответов, пока канал
+     * принимает данные. Подписывается на готовность к записи, если в очереди остались ответы, и на готовность к чтению,
+     * если неотправленных байтов не больше {@link Session#MAX_PENDING_OUTPUT}.
+     * @param key Ключ соединения
+     * @throws IOException если соединение разорвано
+     */
+    private void write(SelectionKey key) throws IOException{
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        connection.flush(channel);
+        while(connection.deferred && connection.pending <= Session.MAX_PENDING_OUTPUT){
+            if(!execute(connection)){
+                close(key);
+                return;
+            }
+            connection.flush(channel);
+        }
+        if(connection.out.isEmpty() && connection.session.isClosing()){
+            close(key);
+            return;
+        }
+        int ops = connection.pending > Session.MAX_PENDING_OUTPUT ? 0 : SelectionKey.OP_READ;
+        if(!connection.out.isEmpty()){
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * Возвращает адрес клиента соединения для сообщений об ошибках.
+     * @param key Ключ соединения
+     * @return адрес клиента или "unknown", если его не удалось получить
+     */
+    private static String remoteAddress(SelectionKey key){
+        try{
+            return String.valueOf(((SocketChannel) key.channel()).getRemoteAddress());
+        }catch(IOException | RuntimeException e){
+            return "unknown";
+        }
+    }
+
+    /**
+     * Закрывает соединение.
+     * @param key Ключ соединения
+     */
+    private static void close(SelectionKey key){
+        key.cancel();
+        try{
+            key.channel().close();
+        }catch(IOException ignored){
+        }
+    }
+
+    /**
+     * Состояние одного соединения: буферы ввода и вывода и сессия протокола.
+     */
+    private static final class Connection {
+        /**
+         * Хранит сессию протокола соединения.
+         */
+        private final Session session;
+        /**
+         * Хранит непрочитанные байты запроса.
+         */
+        private ByteBuffer in = ByteBuffer.allocate(8192);
+        /**
+         * Хранит очередь неотправленных ответов.
+         */
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        /**
+         * Хранит количество неотправленных байтов в очереди.
+         */
+        private long pending;
+        /**
+         * Хранит признак того, что сессия прекратила выполнять запросы из буфера из-за размера ответов.
+         */
+        private boolean deferred;
+        /**
+         * Хранит ответы на запросы, выполненные за один вызов read.
+         */
+        private final ByteArrayOutputStream response = new ByteArrayOutputStream(8192);
+
+        /**
+         * Создает состояние соединения.
+         * @param session Сессия протокола
+         */
+        private Connection(Session session){
+            this.session = session;
+        }
+
+        /**
+         * Добавляет байты в очередь на отправку.
+         * @param bytes Байты ответа
+         */
+        private void enqueue(byte[] bytes){
+            out.addLast(ByteBuffer.wrap(bytes));
+            pending += bytes.length;
+        }
+
+        /**
+         * Записывает ответы из очереди, пока канал их принимает.
+         * @param channel Канал соединения
+         * @throws IOException если соединение разорвано
+         */
+        private void flush(SocketChannel channel) throws IOException{
+            while(!out.isEmpty()){
+                ByteBuffer head = out.peekFirst();
+                pending -= channel.write(head);
+                if(head.hasRemaining()){
+                    return;
+                }
+                out.pollFirst();
+            }
+        }
+    }
+}
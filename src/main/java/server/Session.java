@@ -0,0 +1,41 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Состояние протокола одного соединения сервера {@link Server}: разбирает поступившие байты на запросы,
+ * выполняет их в порядке поступления и записывает ответы.
+ */
+abstract class Session {
+    /**
+     * Хранит размер ответов в байтах, по достижении которого сессия прекращает выполнять запросы, а сервер - читать
+     * соединение, пока ответы не будут отправлены.
+     */
+    static final int MAX_PENDING_OUTPUT = 1 << 20;
+    /**
+     * Хранит признак закрытия соединения после отправки ответов.
+     */
+    private boolean closing;
+
+    /**
+     * Выполняет полностью полученные запросы из буфера и записывает ответы в out, пока размер ответов не достигнет
+     * {@link Session#MAX_PENDING_OUTPUT}. После вызова позиция буфера указывает на начало первого невыполненного запроса.
+     * @param in Буфер с полученными байтами (в режиме чтения)
+     * @param out Поток для ответов
+     * @throws IOException если запрос нарушает протокол и соединение нужно закрыть
+     */
+    abstract void process(ByteBuffer in, ByteArrayOutputStream out) throws IOException;
+
+    /**
+     * Проверяет, нужно ли закрыть соединение после отправки ответов.
+     * @return true после команды exit
+     */
+    boolean isClosing(){return closing;}
+
+    /**
+     * Отмечает, что соединение нужно закрыть после отправки ответов. Следующие запросы не выполняются.
+     */
+    void close(){closing = true;}
+}
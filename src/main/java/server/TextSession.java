@@ -0,0 +1,96 @@
+package server;
+
+import utils.Console;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Сессия текстового протокола (см. описание пакета {@link server}): запросы - строки, ответы завершаются строкой
+ * {@link Server#END_OF_RESPONSE}.
+ */
+class TextSession extends Session {
+    /**
+     * Хранит обработчик команд.
+     */
+    private final CommandHandler handler;
+    /**
+     * Хранит название команды, для которой читается элемент ({@code null}, если ожидается новая команда).
+     */
+    private String command;
+    /**
+     * Хранит аргумент команды, для которой читается элемент.
+     */
+    private String argument;
+    /**
+     * Хранит строки элемента.
+     */
+    private final String[] element = new String[7];
+    /**
+     * Хранит количество прочитанных строк элемента.
+     */
+    private int fields;
+
+    /**
+     * Создает сессию над указанным обработчиком команд.
+     * @param handler Обработчик команд
+     */
+    TextSession(CommandHandler handler){
+        this.handler = handler;
+    }
+
+    @Override
+    void process(ByteBuffer in, ByteArrayOutputStream out){
+        StringBuilder response = new StringBuilder();
+        int start = in.position();
+        for(int i = start; i < in.limit() && !isClosing() && response.length() < MAX_PENDING_OUTPUT; i++){
+            if(in.get(i) == '\n'){
+                int end = i;
+                if(end > start && in.get(end - 1) == '\r'){
+                    end--;
+                }
+                onLine(new String(in.array(), start, end - start, StandardCharsets.UTF_8), response);
+                start = i + 1;
+            }
+        }
+        in.position(start);
+        if(response.length() > 0){
+            out.writeBytes(response.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Обрабатывает очередную строку запроса: начинает новую команду или добавляет строку к элементу текущей команды.
+     * @param line Строка запроса
+     * @param response Буфер для ответов
+     */
+    private void onLine(String line, StringBuilder response){
+        if(command == null){
+            if(line.isBlank()){
+                return;
+            }
+            Console.CommandInput input = Console.parseCommand(line);
+            if(input.command.equals("exit")){
+                response.append("Shutting down...\n").append(Server.END_OF_RESPONSE).append('\n');
+                close();
+                return;
+            }
+            if(!RequestHandler.needsElement(input.command)){
+                handler.handle(input.command, input.argument, null, response);
+                response.append(Server.END_OF_RESPONSE).append('\n');
+                return;
+            }
+            command = input.command;
+            argument = input.argument;
+            fields = 0;
+            return;
+        }
+        element[fields++] = line;
+        if(fields == element.length){
+            handler.handle(command, argument, element, response);
+            response.append(Server.END_OF_RESPONSE).append('\n');
+            command = null;
+        }
+    }
+}
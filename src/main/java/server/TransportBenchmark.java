@@ -0,0 +1,146 @@
+package server;
+
+import engine.CollectionEngine;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Сравнивает задержку небольших запросов (info и remove_key) через TCP на loopback-адресе и через сокет Unix.
+ * <p>
+ * Запускает в этом же процессе серверы {@link Server} обоих протоколов на обоих транспортах над пустой коллекцией
+ * и в одном соединении выполняет запросы по одному, измеряя время от отправки запроса до получения ответа.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar server.TransportBenchmark [requests]}
+ */
+public class TransportBenchmark {
+    /**
+     * Запускает сравнение.
+     * @param args количество запросов каждого вида
+     */
+    public static void main(String[] args) throws IOException{
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        Path directory = Files.createTempDirectory("laba5-sockets");
+        CollectionEngine engine = new CollectionEngine(new TreeMap<>(), null);
+        SocketAddress[] addresses = {
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                UnixDomainSocketAddress.of(directory.resolve("text.sock")),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                UnixDomainSocketAddress.of(directory.resolve("binary.sock"))
+        };
+        Server[] servers = new Server[addresses.length];
+        try{
+            for(int i = 0; i < servers.length; i++){
+                servers[i] = start(new Server(engine, addresses[i], i < 2 ? Server.Protocol.TEXT : Server.Protocol.BINARY));
+            }
+            System.out.printf("Requests of each kind: %d, one connection, one request at a time%n", requests);
+            System.out.printf("%-8s %-10s %-12s %10s %10s %10s%n", "protocol", "transport", "request", "mean, us", "p50, us", "p99, us");
+            for(int i = 0; i < servers.length; i++){
+                String protocol = i < 2 ? "text" : "binary";
+                String transport = i % 2 == 0 ? "tcp" : "unix";
+                SocketAddress address = servers[i].getLocalAddress();
+                // Прогрев: первые запросы выполняются до JIT-компиляции и не показательны
+                measure(address, i >= 2, requests, false);
+                long[][] latencies = measure(address, i >= 2, requests, true);
+                report(protocol, transport, "info", latencies[0]);
+                report(protocol, transport, "remove_key", latencies[1]);
+            }
+        }finally{
+            for(Server server : servers){
+                if(server != null){
+                    server.stop();
+                }
+            }
+            try{
+                Thread.sleep(100);
+            }catch(InterruptedException ignored){
+            }
+            for(int i = 1; i < addresses.length; i += 2){
+                Files.deleteIfExists(((UnixDomainSocketAddress) addresses[i]).getPath());
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Открывает канал сервера и запускает его в фоновом потоке.
+     * @param server Сервер
+     * @return запущенный сервер
+     * @throws IOException если адрес недоступен
+     */
+    private static Server start(Server server) throws IOException{
+        server.bind();
+        Thread thread = new Thread(() -> {
+            try{
+                server.run();
+            }catch(IOException e){
+                System.err.println("Server error: " + e.getMessage());
+            }
+        }, "server");
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    /**
+     * Выполняет запросы info и remove_key (ключ отсутствует в коллекции) поочередно в одном соединении.
+     * @param address Адрес сервера
+     * @param binary true - использовать двоичный протокол
+     * @param requests Количество запросов каждого вида
+     * @param record true - сохранять задержки
+     * @return задержки запросов info и remove_key в наносекундах
+     * @throws IOException если соединение разорвано
+     */
+    private static long[][] measure(SocketAddress address, boolean binary, int requests, boolean record) throws IOException{
+        long[][] latencies = new long[2][record ? requests : 0];
+        Client text = binary ? null : new Client(address);
+        BinaryClient client = binary ? new BinaryClient(address) : null;
+        try{
+            for(int i = 0; i < requests; i++){
+                for(int kind = 0; kind < 2; kind++){
+                    long begin = System.nanoTime();
+                    if(binary){
+                        if(kind == 0){
+                            client.call(Opcode.INFO);
+                        }else{
+                            client.call(Opcode.REMOVE_KEY, 1);
+                        }
+                    }else{
+                        text.send(kind == 0 ? "info" : "remove_key 1");
+                    }
+                    if(record){
+                        latencies[kind][i] = System.nanoTime() - begin;
+                    }
+                }
+            }
+        }finally{
+            if(binary){
+                client.close();
+            }else{
+                text.close();
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Выводит строку отчета.
+     * @param protocol Протокол
+     * @param transport Транспорт
+     * @param request Вид запроса
+     * @param latencies Задержки запросов в наносекундах
+     */
+    private static void report(String protocol, String transport, String request, long[] latencies){
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0) / 1e3;
+        System.out.printf("%-8s %-10s %-12s %10.1f %10.1f %10.1f%n", protocol, transport, request, mean,
+                LoadGenerator.percentile(latencies, 50) / 1e3, LoadGenerator.percentile(latencies, 99) / 1e3);
+    }
+}
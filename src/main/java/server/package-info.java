@@ -0,0 +1,12 @@
+/**
+ * Пакет содержит сетевой режим работы с коллекцией: сервер на {@link java.nio.channels.Selector}, клиенты и генераторы нагрузки.
+ * <p>
+ * Текстовый протокол: запрос - строка команды в том же виде, что и в консоли ({@code название [аргумент]}).
+ * После команд insert, update, remove_lower и replace_if_lower передаются 7 строк элемента в формате скрипта:
+ * название, x, y, количество участников, описание, жанр, название студии.
+ * Ответ - строки вывода команды, после которых идет строка {@code "."}.
+ * <p>
+ * Двоичный протокол ({@link server.BinaryProtocol}) - кадры с длиной, кодом операции {@link server.Opcode} и типизированными
+ * полями элемента; клиент {@link server.BinaryClient} может отправлять запросы конвейером, не дожидаясь ответов.
+ */
+package server;
@@ -0,0 +1,126 @@
+package shard;
+
+import server.Server;
+
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Разбиение пространства ключей на диапазоны и адреса процессов, владеющих диапазонами.
+ * <p>
+ * Шард с номером i владеет ключами от нижней границы i (включительно) до нижней границы i + 1 (не включительно);
+ * последний шард владеет всеми ключами от своей нижней границы. Нижняя граница первого шарда равна 1,
+ * поэтому каждый допустимый (положительный) ключ принадлежит ровно одному шарду.
+ */
+public class ShardMap {
+    /**
+     * Хранит нижние границы диапазонов по возрастанию.
+     */
+    private final long[] lowerBounds;
+    /**
+     * Хранит адреса процессов шардов.
+     */
+    private final SocketAddress[] addresses;
+
+    /**
+     * Создает разбиение.
+     * @param lowerBounds Нижние границы диапазонов по возрастанию (первая равна 1)
+     * @param addresses Адреса процессов шардов
+     * @throws IllegalArgumentException если границы не возрастают, первая граница не равна 1
+     * или количество границ не совпадает с количеством адресов
+     */
+    public ShardMap(long[] lowerBounds, SocketAddress[] addresses){
+        if(lowerBounds.length == 0 || lowerBounds.length != addresses.length){
+            throw new IllegalArgumentException("Each shard should have exactly one address");
+        }
+        if(lowerBounds[0] != 1){
+            throw new IllegalArgumentException("The first shard should start at key 1");
+        }
+        for(int i = 1; i < lowerBounds.length; i++){
+            if(lowerBounds[i] <= lowerBounds[i - 1]){
+                throw new IllegalArgumentException("Shard lower bounds should be increasing: " + lowerBounds[i - 1] + ", " + lowerBounds[i]);
+            }
+        }
+        this.lowerBounds = lowerBounds.clone();
+        this.addresses = addresses.clone();
+    }
+
+    /**
+     * Разбирает описание шардов: каждая строка - {@code [нижняя_граница@]адрес}, где адрес имеет формат
+     * {@link Server#parseAddress(String)}. Если граница не указана, у первого шарда она равна 1, а у остальных - ошибка.
+     * @param specs Описания шардов по возрастанию нижних границ
+     * @return разбиение
+     * @throws IllegalArgumentException если описание некорректно
+     */
+    public static ShardMap parse(List<String> specs){
+        long[] lowerBounds = new long[specs.size()];
+        SocketAddress[] addresses = new SocketAddress[specs.size()];
+        for(int i = 0; i < specs.size(); i++){
+            String spec = specs.get(i);
+            int at = spec.indexOf('@');
+            if(at < 0){
+                if(i != 0){
+                    throw new IllegalArgumentException("Shard '" + spec + "' should have a lower bound: 'key@address'");
+                }
+                lowerBounds[i] = 1;
+            }else{
+                try{
+                    lowerBounds[i] = Long.parseLong(spec.substring(0, at).trim());
+                }catch(NumberFormatException e){
+                    throw new IllegalArgumentException("Shard '" + spec + "' has an invalid lower bound");
+                }
+            }
+            addresses[i] = Server.parseAddress(spec.substring(at + 1));
+        }
+        return new ShardMap(lowerBounds, addresses);
+    }
+
+    /**
+     * Возвращает количество шардов.
+     * @return количество шардов
+     */
+    public int size(){return lowerBounds.length;}
+
+    /**
+     * Находит шард, владеющий ключом, двоичным поиском по нижним границам.
+     * @param key Положительный ключ
+     * @return номер шарда
+     */
+    public int shardFor(long key){
+        int index = Arrays.binarySearch(lowerBounds, key);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+    /**
+     * Возвращает нижнюю границу диапазона шарда.
+     * @param shard Номер шарда
+     * @return наименьший ключ шарда
+     */
+    public long getLowerBound(int shard){return lowerBounds[shard];}
+
+    /**
+     * Возвращает верхнюю границу диапазона шарда.
+     * @param shard Номер шарда
+     * @return наибольший ключ шарда
+     */
+    public long getUpperBound(int shard){
+        return shard + 1 < lowerBounds.length ? lowerBounds[shard + 1] - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Возвращает адрес процесса шарда.
+     * @param shard Номер шарда
+     * @return адрес
+     */
+    public SocketAddress getAddress(int shard){return addresses[shard];}
+
+    /**
+     * Возвращает описание диапазона шарда.
+     * @param shard Номер шарда
+     * @return строка вида {@code [1..999]} или {@code [1000..]}
+     */
+    public String describeRange(int shard){
+        return "[" + lowerBounds[shard] + ".." + (shard + 1 < lowerBounds.length ? String.valueOf(getUpperBound(shard)) : "") + "]";
+    }
+}
@@ -0,0 +1,696 @@
+package shard;
+
+import classes.MusicBand;
+import engine.CollectionInfo;
+import engine.NameMatch;
+import engine.ResultCode;
+import engine.TextIndex;
+import query.Field;
+import query.Ranking;
+import server.BinaryClient;
+import server.CommandHandler;
+import server.Opcode;
+import server.RequestHandler;
+import server.Server;
+import utils.Console;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Collator;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Маршрутизатор команд текстового протокола между шардами коллекции (см. описание пакета {@link shard}).
+ * <p>
+ * Текст ответов совпадает с выводом {@link RequestHandler}, поэтому клиент {@link server.Client} работает с маршрутизатором
+ * так же, как с сервером одного процесса. Соединения с шардами открываются при первом обращении и открываются заново
+ * после разрыва; если шард недоступен, команда выполняется на остальных шардах, а в ответ добавляется строка об ошибке.
+ * Списки элементов читаются из ответов шардов по частям и сливаются по мере чтения, без копий списков шардов.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar shard.ShardRouter [--collation язык] адрес_маршрутизатора [граница@]адрес_шарда ...},
+ * например {@code shard.ShardRouter 9000 unix:/tmp/s1.sock 1000@unix:/tmp/s2.sock 2000@localhost:9102}. Если шарды запущены
+ * с флагом {@code --collation}, маршрутизатор запускается с тем же языком: ответы print_ascending и print_descending
+ * сливаются по ключам сравнения названий ({@link MusicBand#getCollationKey(Collator)}) того же объекта {@link Collator}.
+ */
+public class ShardRouter implements CommandHandler {
+    /**
+     * Запрос, отправляемый шарду.
+     */
+    @FunctionalInterface
+    private interface ShardRequest {
+        /**
+         * Отправляет запрос, не дожидаясь ответа.
+         * @param client Соединение с шардом
+         * @throws IOException если соединение разорвано
+         */
+        void send(BinaryClient client) throws IOException;
+    }
+
+    /**
+     * Хранит формат даты инициализации коллекции.
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z");
+    /**
+     * Хранит разбиение ключей между шардами.
+     */
+    private final ShardMap shards;
+    /**
+     * Хранит соединения с шардами ({@code null}, если соединение еще не открыто или разорвано).
+     */
+    private final BinaryClient[] clients;
+    /**
+     * Хранит порядок названий, в котором шарды возвращают print_ascending.
+     */
+    private final Comparator<MusicBand> nameOrder;
+
+    /**
+     * Создает маршрутизатор над указанными шардами.
+     * @param shards Разбиение ключей между шардами
+     * @param collation Язык, по правилам которого шарды сортируют названия, или {@code null} - сравнение по кодам символов
+     */
+    public ShardRouter(ShardMap shards, Locale collation){
+        this.shards = shards;
+        this.clients = new BinaryClient[shards.size()];
+        if(collation == null){
+            nameOrder = Comparator.naturalOrder();
+        }else{
+            Collator collator = Collator.getInstance(collation);
+            nameOrder = Comparator.comparing(band -> band.getCollationKey(collator));
+        }
+    }
+
+    /**
+     * Запускает маршрутизатор.
+     * @param args необязательный флаг {@code --collation язык}, адрес маршрутизатора и описания шардов {@code [граница@]адрес}
+     */
+    public static void main(String[] args){
+        Locale collation = null;
+        List<String> arguments = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--collation") && i + 1 < args.length){
+                collation = Locale.forLanguageTag(args[++i]);
+                if(collation.getLanguage().isEmpty()){
+                    System.err.println("Error: '" + args[i] + "' is not a valid language tag, expected e.g. 'ru-RU'");
+                    System.exit(1);
+                }
+            }else{
+                arguments.add(args[i]);
+            }
+        }
+        if(arguments.size() < 2){
+            System.err.println("Usage: shard.ShardRouter [--collation language] router_address [lower_key@]shard_address ...");
+            System.exit(1);
+        }
+        ShardRouter router;
+        SocketAddress address;
+        try{
+            address = Server.parseAddress(arguments.get(0));
+            router = new ShardRouter(ShardMap.parse(arguments.subList(1, arguments.size())), collation);
+        }catch(IllegalArgumentException e){
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Server server = new Server(router, address);
+        try{
+            server.bind();
+            if(address instanceof UnixDomainSocketAddress){
+                Path socketPath = ((UnixDomainSocketAddress) address).getPath();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try{
+                        Files.deleteIfExists(socketPath);
+                    }catch(IOException ignored){
+                    }
+                }));
+            }
+            System.out.printf("Router is listening on %s\n", server.getLocalAddress());
+            for(int i = 0; i < router.shards.size(); i++){
+                System.out.printf("Shard %d %s: %s\n", i + 1, router.shards.describeRange(i), router.shards.getAddress(i));
+            }
+            server.run();
+        }catch(IOException e){
+            System.err.println("Server error: " + e.getMessage());
+            System.exit(1);
+        }finally{
+            router.close();
+        }
+    }
+
+    /**
+     * Закрывает соединения с шардами.
+     */
+    public void close(){
+        for(int i = 0; i < clients.length; i++){
+            disconnect(i);
+        }
+    }
+
+    @Override
+    public void handle(String command, String argument, String[] element, StringBuilder out){
+        if(!Console.isValidCommand(command)){
+            out.append("There is no command '").append(command).append("'\n");
+            return;
+        }
+        try{
+            switch (command){
+                case "help" -> out.append(RequestHandler.HELP);
+                case "info" -> info(out);
+                case "show" -> show(out);
+                case "clear" -> {
+                    int removed = count(all(client -> client.send(Opcode.CLEAR), out));
+                    if(removed > 0){
+                        out.append("The collection was successfully cleared. ").append(removed).append(" elements removed\n");
+                    }else{
+                        out.append("The collection is empty\n");
+                    }
+                }
+                case "save" -> {
+                    BinaryClient.Response[] responses = all(client -> client.send(Opcode.SAVE), out);
+                    for(int i = 0; i < responses.length; i++){
+                        if(responses[i] == null){
+                            continue;
+                        }
+                        if(responses[i].getCode() == ResultCode.OK){
+                            out.append("Shard ").append(i + 1).append(" was successfully saved to the file '").append(responses[i].getText()).append("'\n");
+                        }else{
+                            out.append("Shard ").append(i + 1).append(": saving to a file failed: ").append(responses[i].getText()).append('\n');
+                        }
+                    }
+                }
+                case "print_ascending" -> printSorted(Opcode.PRINT_ASCENDING, nameOrder,
+                        "Collection elements in ascending order (by 'name'):\n", out);
+                case "print_descending" -> printSorted(Opcode.PRINT_DESCENDING, nameOrder.reversed(),
+                        "Collection elements in descending order (by 'name'):\n", out);
+                case "remove_key" -> {
+                    Long key = RequestHandler.parseKey(command, argument);
+                    BinaryClient.Response response = one(key, client -> client.send(Opcode.REMOVE_KEY, key), out);
+                    if(response == null){
+                        return;
+                    }
+                    switch (response.getCode()){
+                        case OK -> out.append("The item with the key ").append(key).append(" to has been successfully deleted\n");
+                        case KEY_NOT_FOUND -> out.append("The element with the key ").append(key).append(" to was not found\n");
+                        case READ_ONLY -> readOnly(key, out);
+                        default -> RequestHandler.appendFailure(command, response.getCode(), out);
+                    }
+                }
+                case "remove_lower_key" -> {
+                    Long key = RequestHandler.parseKey(command, argument);
+                    // Шарды, все ключи которых не меньше key, не затрагиваются
+                    int last = shards.shardFor(key);
+                    BinaryClient.Response[] responses = fanOut(0, last + 1, client -> client.send(Opcode.REMOVE_LOWER_KEY, key), out);
+                    out.append("Successfully deleted ").append(count(responses)).append(" items\n");
+                }
+                case "filter_starts_with_name" -> {
+                    if(argument == null || argument.trim().isEmpty()){
+                        throw new IllegalArgumentException("Command '" + command + "' failed: Argument cannot be empty or null");
+                    }
+                    int start = out.length();
+                    StringBuilder errors = new StringBuilder();
+                    int found = list(client -> client.send(Opcode.FILTER_STARTS_WITH_NAME, argument), null, Integer.MAX_VALUE, out, errors);
+                    out.insert(start, errors.append("Found ").append(found).append(" music groups whose names start with \"").append(argument).append("\"\n"));
+                }
+                case "search_name" -> {
+                    if(argument == null || TextIndex.terms(argument).isEmpty()){
+                        throw new IllegalArgumentException("Command '" + command + "' failed: at least one word expected");
+                    }
+                    // Каждый шард возвращает свои лучшие результаты; общий порядок восстанавливается по сходству
+                    List<NameMatch> matches = new ArrayList<>();
+                    for(MusicBand band : concat(all(client -> client.send(Opcode.SEARCH_NAME, argument), out))){
+                        matches.add(NameMatch.of(argument, band));
+                    }
+                    matches.sort(NameMatch.ORDER);
+                    RequestHandler.appendMatches(argument, matches.size() > NameMatch.LIMIT ? matches.subList(0, NameMatch.LIMIT) : matches, out);
+                }
+                case "search_description" -> {
+                    if(argument == null || TextIndex.terms(argument).isEmpty()){
+                        throw new IllegalArgumentException("Command '" + command + "' failed: at least one word expected");
+                    }
+                    int start = out.length();
+                    StringBuilder errors = new StringBuilder();
+                    int found = list(client -> client.send(Opcode.SEARCH_DESCRIPTION, argument), null, Integer.MAX_VALUE, out, errors);
+                    out.insert(start, errors.append("Found ").append(found).append(" music groups whose description contains \"").append(argument.trim()).append("\"\n"));
+                }
+                case "where" -> {
+                    String condition = RequestHandler.parseExpression(command, argument).toString();
+                    int start = out.length();
+                    StringBuilder errors = new StringBuilder();
+                    int found = list(client -> client.send(Opcode.WHERE, condition), null, Integer.MAX_VALUE, out, errors);
+                    out.insert(start, errors.append("Found ").append(found).append(" music groups where ").append(condition).append('\n'));
+                }
+                case "explain" -> {
+                    String condition = commands.Explain.parseExplained(command, argument).toString();
+                    BinaryClient.Response[] responses = all(client -> client.send(Opcode.EXPLAIN, condition), out);
+                    for(int i = 0; i < responses.length; i++){
+                        if(responses[i] != null){
+                            out.append("Shard ").append(i + 1).append(' ').append(shards.describeRange(i)).append(":\n")
+                                    .append(responses[i].getText());
+                        }
+                    }
+                }
+                case "top" -> {
+                    Ranking ranking = RequestHandler.parseRanking(command, argument);
+                    Field field = ranking.getField();
+                    @SuppressWarnings("unchecked")
+                    Comparator<MusicBand> order = Comparator.comparing(band -> (Comparable<Object>) field.getValue(band));
+                    out.append("Top ").append(ranking.getCount()).append(" music groups by ").append(field).append('\n');
+                    mergeFirst(Opcode.TOP, ranking.toString(), order.reversed(), ranking.getCount(), out);
+                }
+                case "oldest", "newest" -> {
+                    int count = RequestHandler.parseCount(command, argument);
+                    Comparator<MusicBand> order = Comparator.comparing(MusicBand::getCreationDate);
+                    boolean oldest = command.equals("oldest");
+                    out.append(count).append(' ').append(command).append(" music groups\n");
+                    mergeFirst(oldest ? Opcode.OLDEST : Opcode.NEWEST, String.valueOf(count), oldest ? order : order.reversed(), count, out);
+                }
+                case "insert" -> {
+                    Long key = RequestHandler.parseKey(command, argument);
+                    MusicBand band = Console.parseMusicBand(element);
+                    BinaryClient.Response response = one(key, client -> client.send(Opcode.INSERT, key, band), out);
+                    if(response == null){
+                        return;
+                    }
+                    switch (response.getCode()){
+                        case OK -> out.append("The music band was successfully inserted to the collection\n");
+                        case KEY_EXISTS -> out.append("The collection already contain the key: ").append(key).append('\n');
+                        case READ_ONLY -> readOnly(key, out);
+                        default -> RequestHandler.appendFailure(command, response.getCode(), out);
+                    }
+                }
+                case "update" -> {
+                    Long id = RequestHandler.parseKey(command, argument);
+                    MusicBand band = Console.parseMusicBand(element);
+                    BinaryClient.Response response = one(id, client -> client.send(Opcode.UPDATE, id, band), out);
+                    if(response == null){
+                        return;
+                    }
+                    switch (response.getCode()){
+                        case OK -> out.append("The band with ID ").append(id).append(" was successfully updated\n");
+                        case KEY_NOT_FOUND -> out.append("The collection doesn't contain the key ").append(id).append('\n');
+                        case READ_ONLY -> readOnly(id, out);
+                        default -> RequestHandler.appendFailure(command, response.getCode(), out);
+                    }
+                }
+                case "remove_lower" -> {
+                    MusicBand band = Console.parseMusicBand(element);
+                    BinaryClient.Response[] responses = all(client -> client.send(Opcode.REMOVE_LOWER, null, band), out);
+                    for(int i = 0; i < responses.length; i++){
+                        if(responses[i] != null && responses[i].getCode() != ResultCode.OK && responses[i].getCode() != ResultCode.EMPTY){
+                            out.append("Shard ").append(i + 1).append(": ");
+                            RequestHandler.appendFailure(command, responses[i].getCode(), out);
+                        }
+                    }
+                    boolean empty = Arrays.stream(responses).allMatch(r -> r == null || r.getCode() == ResultCode.EMPTY);
+                    if(empty){
+                        out.append("The collection is empty\n");
+                    }else{
+                        out.append(count(responses)).append(" bands were successfully removed\n");
+                    }
+                }
+                case "replace_if_lower" -> {
+                    Long key = RequestHandler.parseKey(command, argument);
+                    MusicBand band = Console.parseMusicBand(element);
+                    BinaryClient.Response response = one(key, client -> client.send(Opcode.REPLACE_IF_LOWER, key, band), out);
+                    if(response == null){
+                        return;
+                    }
+                    switch (response.getCode()){
+                        case OK -> out.append("The band that key is ").append(key).append(" was successfully replaced\n");
+                        case NOT_REPLACED -> out.append("The band that key is ").append(key).append(" wasn't replaced\n");
+                        case EMPTY -> out.append("The collection is empty\n");
+                        case KEY_NOT_FOUND -> out.append("The collection doesn't contain the key ").append(key).append('\n');
+                        case READ_ONLY -> readOnly(key, out);
+                        default -> RequestHandler.appendFailure(command, response.getCode(), out);
+                    }
+                }
+                default -> out.append("Command '").append(command).append("' is not available over the network\n");
+            }
+        }catch(IllegalArgumentException e){
+            out.append("Error: ").append(e.getMessage()).append('\n');
+        }
+    }
+
+    /**
+     * Дописывает в out объединенную информацию о коллекции и размеры шардов.
+     * @param out Буфер для вывода
+     */
+    private void info(StringBuilder out){
+        StringBuilder errors = new StringBuilder();
+        BinaryClient.Response[] responses = all(client -> client.send(Opcode.INFO), errors);
+        ZonedDateTime initializationDate = null;
+        long size = 0;
+        Long firstKey = null;
+        Long lastKey = null;
+        for(BinaryClient.Response response : responses){
+            if(response == null){
+                continue;
+            }
+            CollectionInfo info = response.getInfo();
+            size += info.getSize();
+            if(initializationDate == null || info.getInitializationDate().isBefore(initializationDate)){
+                initializationDate = info.getInitializationDate();
+            }
+            if(info.getSize() != 0){
+                // Диапазоны шардов упорядочены, поэтому первый ключ - у первого непустого шарда, последний - у последнего
+                if(firstKey == null){
+                    firstKey = info.getFirstKey();
+                }
+                lastKey = info.getLastKey();
+            }
+        }
+        out.append("Type: TreeMap<Long, MusicBand> split into ").append(shards.size()).append(" shards\n");
+        if(initializationDate != null){
+            out.append("Initialization date: ").append(initializationDate.format(DATE_FORMATTER)).append('\n');
+        }
+        out.append("Size of collection: ").append(size).append('\n');
+        if(firstKey != null){
+            out.append("First key: ").append(firstKey).append('\n')
+                    .append("Last key: ").append(lastKey).append('\n');
+        }
+        for(int i = 0; i < responses.length; i++){
+            if(responses[i] != null){
+                out.append("Shard ").append(i + 1).append(' ').append(shards.describeRange(i)).append(" on ")
+                        .append(shards.getAddress(i)).append(": ").append(responses[i].getInfo().getSize()).append(" elements\n");
+            }
+        }
+        // Сообщения о недоступных шардах выводятся после сводки
+        out.append(errors);
+    }
+
+    /**
+     * Дописывает в out все элементы коллекции в порядке возрастания ключей. Сообщение о пустой коллекции выводится,
+     * только если ответили все шарды.
+     * @param out Буфер для вывода
+     */
+    private void show(StringBuilder out){
+        int start = out.length();
+        StringBuilder errors = new StringBuilder();
+        int count = list(client -> client.send(Opcode.SHOW), null, Integer.MAX_VALUE, out, errors);
+        if(errors.length() == 0){
+            out.insert(start, count == 0 ? "The collection is empty\n" : "The collection contains " + count + " items:\n");
+        }else{
+            out.insert(start, errors.append("Available shards contain ").append(count).append(" items:\n"));
+        }
+    }
+
+    /**
+     * Получает от шардов упорядоченные списки элементов, сливает их и дописывает результат в out. Сообщение о пустой
+     * коллекции выводится, только если ответили все шарды.
+     * @param opcode Команда сортировки
+     * @param order Порядок, в котором шарды упорядочивают элементы
+     * @param header Заголовок
+     * @param out Буфер для вывода
+     */
+    private void printSorted(Opcode opcode, Comparator<MusicBand> order, String header, StringBuilder out){
+        int start = out.length();
+        StringBuilder errors = new StringBuilder();
+        int count = list(client -> client.send(opcode), order, Integer.MAX_VALUE, out, errors);
+        out.insert(start, errors.length() == 0 && count == 0 ? "The collection is empty\n" : errors.append(header));
+    }
+
+    /**
+     * Получает от каждого шарда первые count элементов в порядке order и дописывает в out первые count элементов
+     * объединенного списка. Шарды упорядочивают равные элементы по возрастанию ключа, а слияние - по номеру шарда,
+     * поэтому результат совпадает с результатом одного процесса.
+     * @param opcode Команда выбора
+     * @param argument Аргумент команды
+     * @param order Порядок, в котором шарды возвращают элементы
+     * @param count Количество элементов
+     * @param out Буфер для вывода
+     */
+    private void mergeFirst(Opcode opcode, String argument, Comparator<MusicBand> order, int count, StringBuilder out){
+        int start = out.length();
+        StringBuilder errors = new StringBuilder();
+        list(client -> client.send(opcode, argument), order, count, out, errors);
+        out.insert(start, errors);
+    }
+
+    /**
+     * Выполняет запрос со списком элементов на всех шардах и дописывает в out первые limit элементов по мере чтения
+     * ответов, не собирая списки шардов в памяти: ответы читаются по частям ({@link BinaryClient#receiveBands()}).
+     * Если order равен {@code null}, ответы выводятся в порядке номеров шардов (то есть в порядке ключей), иначе
+     * упорядоченные ответы сливаются через кучу из текущих элементов шардов за O(n log k), где k - количество шардов.
+     * @param request Запрос
+     * @param order Порядок, в котором шарды возвращают элементы, или {@code null}
+     * @param limit Наибольшее количество выводимых элементов
+     * @param out Буфер для вывода элементов
+     * @param errors Буфер для сообщений о недоступных шардах и ошибках; остается пустым, если ответили все шарды
+     * @return количество выведенных элементов
+     */
+    private int list(ShardRequest request, Comparator<MusicBand> order, int limit, StringBuilder out, StringBuilder errors){
+        boolean[] sent = send(0, shards.size(), request, errors);
+        BinaryClient.BandStream[] streams = new BinaryClient.BandStream[shards.size()];
+        for(int i = 0; i < streams.length; i++){
+            if(!sent[i]){
+                continue;
+            }
+            try{
+                streams[i] = clients[i].receiveBands();
+                if(streams[i].isError()){
+                    errors.append("Shard ").append(i + 1).append(": ").append(streams[i].getText()).append('\n');
+                    streams[i] = null;
+                }
+            }catch(IOException e){
+                unavailable(i, e, errors);
+            }
+        }
+        int count = 0;
+        if(order == null){
+            for(int i = 0; i < streams.length; i++){
+                MusicBand band;
+                while(count < limit && (band = next(streams, i, errors)) != null){
+                    out.append(band).append('\n');
+                    count++;
+                }
+            }
+        }else{
+            PriorityQueue<Cursor> heads = new PriorityQueue<>(streams.length, (a, b) -> {
+                int result = order.compare(a.head, b.head);
+                // При равенстве первым идет элемент шарда с меньшими ключами: результат совпадает с сортировкой одного процесса
+                return result != 0 ? result : Integer.compare(a.shard, b.shard);
+            });
+            for(int i = 0; i < streams.length; i++){
+                MusicBand head = next(streams, i, errors);
+                if(head != null){
+                    heads.add(new Cursor(i, head));
+                }
+            }
+            while(count < limit && !heads.isEmpty()){
+                Cursor cursor = heads.poll();
+                out.append(cursor.head).append('\n');
+                count++;
+                cursor.head = next(streams, cursor.shard, errors);
+                if(cursor.head != null){
+                    heads.add(cursor);
+                }
+            }
+        }
+        // Непрочитанные элементы пропускаются, чтобы следующий ответ шарда читался с начала
+        for(int i = 0; i < streams.length; i++){
+            if(streams[i] != null){
+                try{
+                    streams[i].skip();
+                }catch(IOException e){
+                    unavailable(i, e, errors);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Читает следующий элемент ответа шарда. Если соединение разорвано, закрывает его и дописывает сообщение об ошибке.
+     * @param streams Ответы шардов по номерам ({@code null} для шардов без ответа)
+     * @param shard Номер шарда
+     * @param errors Буфер для сообщений об ошибках
+     * @return элемент или {@code null}, если элементы закончились или шард недоступен
+     */
+    private MusicBand next(BinaryClient.BandStream[] streams, int shard, StringBuilder errors){
+        if(streams[shard] == null){
+            return null;
+        }
+        try{
+            return streams[shard].next();
+        }catch(IOException e){
+            streams[shard] = null;
+            unavailable(shard, e, errors);
+            return null;
+        }
+    }
+
+    /**
+     * Выполняет запрос на шарде, владеющем ключом.
+     * @param key Ключ
+     * @param request Запрос
+     * @param out Буфер для сообщения об ошибке
+     * @return ответ шарда или {@code null}, если шард недоступен или вернул ошибку
+     */
+    private BinaryClient.Response one(long key, ShardRequest request, StringBuilder out){
+        int shard = shards.shardFor(key);
+        return fanOut(shard, shard + 1, request, out)[shard];
+    }
+
+    /**
+     * Выполняет запрос на всех шардах.
+     * @param request Запрос
+     * @param out Буфер для сообщений об ошибках
+     * @return ответы шардов по номерам ({@code null} для недоступных шардов и ошибок)
+     */
+    private BinaryClient.Response[] all(ShardRequest request, StringBuilder out){
+        return fanOut(0, shards.size(), request, out);
+    }
+
+    /**
+     * Отправляет запрос шардам с номерами от from до to (не включительно), не дожидаясь ответов, а затем читает ответы:
+     * шарды выполняют запрос одновременно.
+     * @param from Номер первого шарда
+     * @param to Номер шарда после последнего
+     * @param request Запрос
+     * @param out Буфер для сообщений об ошибках
+     * @return ответы шардов по номерам ({@code null} для шардов вне диапазона, недоступных шардов и ошибок)
+     */
+    private BinaryClient.Response[] fanOut(int from, int to, ShardRequest request, StringBuilder out){
+        BinaryClient.Response[] responses = new BinaryClient.Response[shards.size()];
+        boolean[] sent = send(from, to, request, out);
+        for(int i = from; i < to; i++){
+            if(!sent[i]){
+                continue;
+            }
+            try{
+                BinaryClient.Response response = clients[i].receive();
+                if(response.isError()){
+                    out.append("Shard ").append(i + 1).append(": ").append(response.getText()).append('\n');
+                }else{
+                    responses[i] = response;
+                }
+            }catch(IOException e){
+                unavailable(i, e, out);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Отправляет запрос шардам с номерами от from до to (не включительно), открывая соединения при необходимости.
+     * @param from Номер первого шарда
+     * @param to Номер шарда после последнего
+     * @param request Запрос
+     * @param out Буфер для сообщений об ошибках
+     * @return признаки отправки запроса по номерам шардов
+     */
+    private boolean[] send(int from, int to, ShardRequest request, StringBuilder out){
+        boolean[] sent = new boolean[shards.size()];
+        for(int i = from; i < to; i++){
+            try{
+                if(clients[i] == null){
+                    clients[i] = new BinaryClient(shards.getAddress(i));
+                }
+                request.send(clients[i]);
+                clients[i].flush();
+                sent[i] = true;
+            }catch(IOException e){
+                unavailable(i, e, out);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Закрывает соединение с недоступным шардом и дописывает в out сообщение об ошибке.
+     * @param shard Номер шарда
+     * @param e Ошибка соединения
+     * @param out Буфер для вывода
+     */
+    private void unavailable(int shard, IOException e, StringBuilder out){
+        disconnect(shard);
+        out.append("Shard ").append(shard + 1).append(' ').append(shards.describeRange(shard)).append(" on ")
+                .append(shards.getAddress(shard)).append(" is unavailable: ").append(e.getMessage()).append('\n');
+    }
+
+    /**
+     * Закрывает соединение с шардом; следующий запрос откроет его заново.
+     * @param shard Номер шарда
+     */
+    private void disconnect(int shard){
+        if(clients[shard] != null){
+            try{
+                clients[shard].close();
+            }catch(IOException ignored){
+            }
+            clients[shard] = null;
+        }
+    }
+
+    /**
+     * Дописывает в out сообщение о том, что шард, владеющий ключом, доступен только для чтения.
+     * @param key Ключ
+     * @param out Буфер для вывода
+     */
+    private void readOnly(long key, StringBuilder out){
+        out.append("The shard of the key ").append(key).append(" is read-only: it is a replica\n");
+    }
+
+    /**
+     * Суммирует количества элементов в ответах шардов.
+     * @param responses Ответы шардов
+     * @return сумма
+     */
+    private static int count(BinaryClient.Response[] responses){
+        int count = 0;
+        for(BinaryClient.Response response : responses){
+            if(response != null){
+                count += response.getCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Объединяет списки элементов из ответов шардов в порядке номеров шардов (то есть в порядке ключей).
+     * @param responses Ответы шардов
+     * @return объединенный список
+     */
+    private static List<MusicBand> concat(BinaryClient.Response[] responses){
+        List<MusicBand> bands = new ArrayList<>();
+        for(BinaryClient.Response response : responses){
+            if(response != null){
+                bands.addAll(response.getBands());
+            }
+        }
+        return bands;
+    }
+
+    /**
+     * Текущий элемент ответа одного из шардов при слиянии.
+     */
+    private static final class Cursor {
+        /**
+         * Хранит номер шарда.
+         */
+        private final int shard;
+        /**
+         * Хранит текущий (наименьший из непрочитанных) элемент ответа шарда.
+         */
+        private MusicBand head;
+
+        /**
+         * Создает позицию в начале ответа шарда.
+         * @param shard Номер шарда
+         * @param head Первый элемент ответа
+         */
+        private Cursor(int shard, MusicBand head){
+            this.shard = shard;
+            this.head = head;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package shard;
+
+import classes.MusicBand;
+import utils.ReaderCSV;
+import utils.WriterCSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.TreeMap;
+
+/**
+ * Разделяет CSV-файл коллекции на файлы шардов по диапазонам ключей (см. описание пакета {@link shard}).
+ * <p>
+ * Файл шарда i получает имя исходного файла с суффиксом {@code .shard<i>} перед расширением
+ * (например, {@code file_csv.shard1.csv}) и содержит элементы с ключами из диапазона шарда.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar shard.ShardSplitter file_csv граница2 граница3 ...}
+ * (нижняя граница первого шарда равна 1).
+ */
+public class ShardSplitter {
+    /**
+     * Запускает разделение.
+     * @param args путь к CSV-файлу и нижние границы шардов, начиная со второго
+     */
+    public static void main(String[] args) throws IOException{
+        if(args.length < 1){
+            System.err.println("Usage: shard.ShardSplitter file_csv [lower_key_of_shard_2 ...]");
+            System.exit(1);
+        }
+        File source = new File(args[0]);
+        long[] lowerBounds = new long[args.length];
+        lowerBounds[0] = 1;
+        for(int i = 1; i < args.length; i++){
+            lowerBounds[i] = Long.parseLong(args[i]);
+            if(lowerBounds[i] <= lowerBounds[i - 1]){
+                System.err.println("Error: shard lower bounds should be increasing and greater than 1");
+                System.exit(1);
+            }
+        }
+
+        TreeMap<Long, MusicBand> musicBands = ReaderCSV.loadFromFile(source);
+        String name = source.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        String extension = dot < 0 ? "" : name.substring(dot);
+        for(int i = 0; i < lowerBounds.length; i++){
+            TreeMap<Long, MusicBand> shard = i + 1 < lowerBounds.length
+                    ? new TreeMap<>(musicBands.subMap(lowerBounds[i], true, lowerBounds[i + 1], false))
+                    : new TreeMap<>(musicBands.tailMap(lowerBounds[i], true));
+            File target = new File(source.getAbsoluteFile().getParentFile(), base + ".shard" + (i + 1) + extension);
+            WriterCSV.loadToFile(target, shard);
+            System.out.printf("Shard %d [%d..%s]: %d elements -> %s\n", i + 1, lowerBounds[i],
+                    i + 1 < lowerBounds.length ? String.valueOf(lowerBounds[i + 1] - 1) : "", shard.size(), target);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * Пакет содержит режим, в котором коллекция разделена по диапазонам ключей между несколькими процессами.
+ * <p>
+ * Каждый диапазон ключей (шард) хранит отдельный процесс {@code Program} со своим CSV-файлом, запущенный с флагом
+ * {@code --binary-server}. Перед шардами работает маршрутизатор {@link shard.ShardRouter}: он принимает соединения
+ * клиентов по текстовому протоколу (см. описание пакета {@link server}) и выполняет команды над шардами
+ * по двоичному протоколу {@link server.BinaryProtocol}:
+ * <ul>
+ *     <li>insert, update, remove_key и replace_if_lower передаются одному шарду, владеющему ключом;</li>
+ *     <li>remove_lower_key передается только шардам, в диапазоне которых есть меньшие ключи;</li>
+ *     <li>остальные команды передаются всем шардам одновременно (конвейером), а ответы объединяются:
+ *     info суммирует размеры, print_ascending и print_descending сливают упорядоченные ответы шардов (если шарды
+ *     сортируют названия по правилам языка, маршрутизатор запускается с тем же флагом {@code --collation}).</li>
+ * </ul>
+ * Диапазоны задаются списком {@code [нижняя_граница@]адрес} ({@link shard.ShardMap}); существующий CSV-файл
+ * разделяется по тем же диапазонам программой {@link shard.ShardSplitter}.
+ */
+package shard;
@@ -30,14 +30,32 @@ public class CommandMap {
         Remove_key remove_key = new Remove_key(executor);
         Remove_lower_key remove_lower_key = new Remove_lower_key(executor);
         Filter_starts_with_name filter_starts_with_name = new Filter_starts_with_name(executor);
+        Search_name search_name = new Search_name(executor);
+        Search_description search_description = new Search_description(executor);
+        Where where = new Where(executor);
+        Explain explain = new Explain(executor);
+        Group_by group_by = new Group_by(executor);
+        Top top = new Top(executor);
+        Oldest oldest = new Oldest(executor);
+        Newest newest = new Newest(executor);
 
         Insert insert = new Insert(executor);
         Update update = new Update(executor);
         Remove_lower remove_lower = new Remove_lower(executor);
         Replace_if_lower replace_if_lower = new Replace_if_lower(executor);
 
+        Import_csv import_csv = new Import_csv(executor);
+        Export export = new Export(executor);
         Execute_script execute_script = new Execute_script(executor);
 
+        Watch watch = new Watch(executor);
+        Stats stats = new Stats(executor);
+        Memory memory = new Memory(executor);
+
+        Begin begin = new Begin(executor);
+        Commit commit = new Commit(executor);
+        Rollback rollback = new Rollback(executor);
+
         commands.put(help.getCommandName(), help);
         commands.put(info.getCommandName(), info);
         commands.put(show.getCommandName(), show);
@@ -50,13 +68,31 @@ public class CommandMap {
         commands.put(remove_key.getCommandName(), remove_key);
         commands.put(remove_lower_key.getCommandName(), remove_lower_key);
         commands.put(filter_starts_with_name.getCommandName(), filter_starts_with_name);
+        commands.put(search_name.getCommandName(), search_name);
+        commands.put(search_description.getCommandName(), search_description);
+        commands.put(where.getCommandName(), where);
+        commands.put(explain.getCommandName(), explain);
+        commands.put(group_by.getCommandName(), group_by);
+        commands.put(top.getCommandName(), top);
+        commands.put(oldest.getCommandName(), oldest);
+        commands.put(newest.getCommandName(), newest);
 
         commands.put(insert.getCommandName(), insert);
         commands.put(update.getCommandName(), update);
         commands.put(remove_lower.getCommandName(), remove_lower);
         commands.put(replace_if_lower.getCommandName(), replace_if_lower);
 
+        commands.put(import_csv.getCommandName(), import_csv);
+        commands.put(export.getCommandName(), export);
         commands.put(execute_script.getCommandName(), execute_script);
+
+        commands.put(watch.getCommandName(), watch);
+        commands.put(stats.getCommandName(), stats);
+        commands.put(memory.getCommandName(), memory);
+
+        commands.put(begin.getCommandName(), begin);
+        commands.put(commit.getCommandName(), commit);
+        commands.put(rollback.getCommandName(), rollback);
         return commands;
     }
 }
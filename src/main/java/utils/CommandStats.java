@@ -0,0 +1,113 @@
+package utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Статистика задержек команд: для каждой команды {@link CommandMap} и каждого источника команд ({@link Source})
+ * хранит гистограмму {@link LatencyHistogram}.
+ * <p>
+ * Гистограмма команды создается при первом выполнении, дальнейшие записи не используют блокировок.
+ * Сброс заменяет все гистограммы новыми: значение, записываемое одновременно со сбросом, может быть потеряно.
+ */
+public final class CommandStats {
+    /**
+     * Источник команды.
+     */
+    public enum Source {
+        /**
+         * Команда введена в консоли (в интерактивном или пакетном режиме).
+         */
+        INTERACTIVE,
+        /**
+         * Команда прочитана из скрипта (execute_script).
+         */
+        SCRIPT;
+
+        /**
+         * Возвращает название источника для вывода.
+         * @return название строчными буквами
+         */
+        @Override
+        public String toString(){
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * Хранит гистограммы команд по источникам.
+     */
+    private final Map<Source, ConcurrentHashMap<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    /**
+     * Хранит время создания или последнего сброса статистики (по {@link System#nanoTime()}).
+     */
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Создает пустую статистику.
+     */
+    public CommandStats(){
+        for(Source source : Source.values()){
+            histograms.put(source, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Учитывает время выполнения команды.
+     * @param source Источник команды
+     * @param command Название команды
+     * @param nanos Время выполнения в наносекундах
+     */
+    public void record(Source source, String command, long nanos){
+        ConcurrentHashMap<String, LatencyHistogram> bySource = histograms.get(source);
+        LatencyHistogram histogram = bySource.get(command);
+        if(histogram == null){
+            histogram = bySource.computeIfAbsent(command, name -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Сбрасывает статистику всех команд.
+     */
+    public void reset(){
+        for(Source source : Source.values()){
+            histograms.put(source, new ConcurrentHashMap<>());
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Возвращает таблицу статистики для вывода: по строке на каждую выполнявшуюся команду каждого источника
+     * с количеством выполнений, пропускной способностью (выполнений в секунду с момента сброса)
+     * и задержками p50, p90, p99 и max в микросекундах.
+     * @return таблица или сообщение об отсутствии выполненных команд
+     */
+    public String describe(){
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-24s %-11s %10s %10s %12s %12s %12s %12s%n",
+                "command", "source", "count", "per sec", "p50, us", "p90, us", "p99, us", "max, us"));
+        boolean empty = true;
+        for(Source source : Source.values()){
+            for(Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms.get(source)).entrySet()){
+                LatencyHistogram histogram = entry.getValue();
+                long count = histogram.getCount();
+                if(count == 0){
+                    continue;
+                }
+                empty = false;
+                text.append(String.format("%-24s %-11s %10d %10.1f %12.1f %12.1f %12.1f %12.1f%n",
+                        entry.getKey(), source, count, seconds > 0 ? count / seconds : 0.0,
+                        histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(90) / 1e3,
+                        histogram.getValueAtPercentile(99) / 1e3, histogram.getMax() / 1e3));
+            }
+        }
+        if(empty){
+            return String.format("No commands executed in the last %.1f s%n", seconds);
+        }
+        text.append(String.format("Collected over %.1f s%n", seconds));
+        return text.toString();
+    }
+}
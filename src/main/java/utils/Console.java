@@ -10,6 +10,7 @@ import commands.CommandWithArgument;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Представляет класс для чтения объектов {@link classes.MusicBand} и {@link commands.Command}.
@@ -30,31 +31,80 @@ public class Console {
             "remove_key",
             "remove_lower_key",
             "filter_starts_with_name",
+            "search_name",
+            "search_description",
+            "where",
+            "explain",
+            "group_by",
+            "top",
+            "oldest",
+            "newest",
             "insert",
             "update",
             "remove_lower",
             "replace_if_lower",
-            "execute_script"
+            "import_csv",
+            "export",
+            "execute_script",
+            "watch",
+            "stats",
+            "memory",
+            "begin",
+            "commit",
+            "rollback"
     ));
+    /**
+     * Хранит названия команд, после которых в скрипте и в пакетном режиме следуют 7 строк элемента.
+     */
+    private static final List<String> elementCommands = List.of("insert", "update", "remove_lower", "replace_if_lower");
 
     /**
-     * Хранит объект типа {@link java.io.BufferedReader} для чтения данных.
+     * Хранит объект типа {@link java.io.BufferedReader} для чтения данных (считает прочитанные строки).
+     */
+    private LineNumberReader reader;
+    /**
+     * Хранит признак пакетного режима: приглашения для ввода не выводятся, элементы читаются в формате скрипта.
      */
-    private BufferedReader reader;
+    private final boolean batchMode;
 
     /**
      * Создает объект {@link java.io.BufferedReader} для чтения данных из консоли.
      */
     public Console(){
-        this.reader = new BufferedReader(new InputStreamReader(System.in));
+        this(System.in, false);
     }
     /**
      * Создает объект {@link java.io.BufferedReader} для чтения данных из объекта типа {@link java.io.InputStream}.
      */
     public Console(InputStream inputStream){
-        this.reader = new BufferedReader(new InputStreamReader(inputStream));
+        this(inputStream, false);
+    }
+    /**
+     * Создает объект {@link java.io.BufferedReader} для чтения данных из объекта типа {@link java.io.InputStream}.
+     * <p>
+     * @param inputStream Источник данных
+     * @param batchMode true - пакетный режим: {@link Console#readMusicBand()} не выводит приглашения для ввода
+     *                  и читает элемент в формате скрипта (см. {@link Console#readMusicBandFromScript()})
+     */
+    public Console(InputStream inputStream, boolean batchMode){
+        this.batchMode = batchMode;
+        this.reader = batchMode
+                ? new LineNumberReader(new InputStreamReader(inputStream), 1 << 16)
+                : new LineNumberReader(new InputStreamReader(inputStream));
     }
 
+    /**
+     * Возвращает количество прочитанных строк (команд и полей элементов).
+     * @return количество строк
+     */
+    public int getLineNumber(){return reader.getLineNumber();}
+
+    /**
+     * Проверяет, работает ли объект в пакетном режиме.
+     * @return true если приглашения для ввода не выводятся
+     */
+    public boolean isBatchMode(){return batchMode;}
+
     /**
      * Вспомогательный класс, представляющий собой две строки (название команды и аргумент).
      */
@@ -126,6 +176,15 @@ public class Console {
         return commands.contains(command);
     }
 
+    /**
+     * Проверяет, следуют ли за командой строки элемента (в скрипте и в пакетном режиме).
+     * @param command Название команды
+     * @return true для команд insert, update, remove_lower и replace_if_lower
+     */
+    public static boolean isElementCommand(String command){
+        return elementCommands.contains(command);
+    }
+
     /**
      * Принимает команду и проверяет, имеет ли указанная команда аргумент.
      * <p>
@@ -148,9 +207,13 @@ public class Console {
      *     <li>{@link Console#readStudio()}</li>
      * </ul>
      * @return Созданный по указанным параметрам объект {@link classes.MusicBand} или {@code null} если один из переданных параметров не соответствует ограничениям.
-     * Завершает программу в случае обнаружения конца ввода
+     * Завершает программу в случае обнаружения конца ввода.
+     * В пакетном режиме читает элемент с помощью {@link Console#readMusicBandFromScript()}.
      */
     public MusicBand readMusicBand(){
+        if(batchMode){
+            return readMusicBandFromScript();
+        }
         try {
             String name = readMusicBandName("Enter the name of the music band (cannot be empty string): ", "The name of the music band cannot be empty. Please enter again: ");
             Coordinates coordinates = readCoordinates();
@@ -170,58 +233,16 @@ public class Console {
 
     /**
      * С помощью {@link Console#reader} считывает объект типа {@link classes.MusicBand} из файла со скриптом.
+     * Все 7 строк элемента считываются до разбора полей, поэтому строки после ошибочного поля не выполняются как команды.
      * @return Созданный по указанным параметрам объект {@link classes.MusicBand} или {@code null} если один из переданных параметров не соответствует ограничениям.
      */
     public MusicBand readMusicBandFromScript(){
         try{
-            Double x;
-            Integer y;
-            int numberOfParticipants;
-            MusicGenre genre;
-
-            String name = read().trim();
-            if(name.isEmpty()){
-                throw new IllegalArgumentException("Name cannot be empty");
-            }
-            try{
-                x = Double.parseDouble(read().trim());
-            }catch (NumberFormatException e){
-                throw new IllegalArgumentException("Coordinate X should be Double, not null value");
-            }
-            try{
-                y = Integer.parseInt(read().trim());
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Coordinate Y should be integer, not null value");
-            }
-            try{
-                numberOfParticipants = Integer.parseInt(read().trim());
-                if(numberOfParticipants <= 0){
-                    throw new NumberFormatException();
-                }
-            }catch (NumberFormatException e){
-                throw new IllegalArgumentException("Number of participants should be positive, integer value");
+            String[] fields = new String[7];
+            for(int i = 0; i < fields.length; i++){
+                fields[i] = read();
             }
-            String description = read().trim();
-            if(description.isEmpty()){
-                throw new IllegalArgumentException("Description cannot be empty");
-            }
-            try{
-                genre = MusicGenre.valueOf(read().trim());
-            }catch (IllegalArgumentException e){
-                throw new IllegalArgumentException(
-                        String.format("Music genre should be one of: %s", Arrays.toString(MusicGenre.values()))
-                );
-            }
-            String studioName = read().trim();
-            if(studioName.isEmpty()){
-                throw new IllegalArgumentException("Name of studio cannot be empty");
-            }
-            Coordinates coordinates = new Coordinates(x, y);
-            Studio studio = new Studio(studioName);
-
-            MusicBand musicBand = new MusicBand(name, coordinates, numberOfParticipants, description, genre, studio);
-            return musicBand;
-
+            return parseMusicBand(fields);
         }catch(IOException e){
             System.err.println("IO error in the process of reading an object: " + e.getMessage());
         }catch(IllegalArgumentException e){
@@ -230,6 +251,132 @@ public class Console {
         return null;
     }
 
+    /**
+     * Создает объект типа {@link classes.MusicBand} из 7 строк в формате скрипта:
+     * название, x, y, количество участников, описание, жанр, название студии.
+     * <p>
+     * @param fields Массив из 7 строк - значений полей
+     * @return Созданный по указанным параметрам объект {@link classes.MusicBand}
+     * @throws IllegalArgumentException если количество строк не равно 7 или одно из значений не соответствует ограничениям
+     */
+    public static MusicBand parseMusicBand(String[] fields){
+        if(fields == null || fields.length != 7){
+            throw new IllegalArgumentException("Music band should consist of 7 fields: name, x, y, number of participants, description, genre, studio");
+        }
+        String name = parseName(fields[0]);
+        Double x = parseCoordinateX(fields[1]);
+        Integer y = parseCoordinateY(fields[2]);
+        int numberOfParticipants = parseNumberOfParticipants(fields[3]);
+        String description = parseDescription(fields[4]);
+        MusicGenre genre = parseMusicGenre(fields[5]);
+        String studioName = parseStudioName(fields[6]);
+        return new MusicBand(name, new Coordinates(x, y), numberOfParticipants, description, genre, new Studio(studioName));
+    }
+
+    /**
+     * Извлекает название музыкальной группы из строки в формате скрипта.
+     * @param s Строка
+     * @return Название группы без пробелов по краям
+     * @throws IllegalArgumentException если название пустое
+     */
+    public static String parseName(String s){
+        String name = s.trim();
+        if(name.isEmpty()){
+            throw new IllegalArgumentException("Name cannot be empty");
+        }
+        return name;
+    }
+
+    /**
+     * Извлекает координату x из строки в формате скрипта.
+     * @param s Строка
+     * @return Координата x
+     * @throws IllegalArgumentException если строка не является числом типа Double
+     */
+    public static Double parseCoordinateX(String s){
+        try{
+            return Double.parseDouble(s.trim());
+        }catch (NumberFormatException e){
+            throw new IllegalArgumentException("Coordinate X should be Double, not null value");
+        }
+    }
+
+    /**
+     * Извлекает координату y из строки в формате скрипта.
+     * @param s Строка
+     * @return Координата y
+     * @throws IllegalArgumentException если строка не является целым числом
+     */
+    public static Integer parseCoordinateY(String s){
+        try{
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Coordinate Y should be integer, not null value");
+        }
+    }
+
+    /**
+     * Извлекает количество участников группы из строки в формате скрипта.
+     * @param s Строка
+     * @return Количество участников группы
+     * @throws IllegalArgumentException если строка не является целым положительным числом
+     */
+    public static int parseNumberOfParticipants(String s){
+        try{
+            int numberOfParticipants = Integer.parseInt(s.trim());
+            if(numberOfParticipants <= 0){
+                throw new NumberFormatException();
+            }
+            return numberOfParticipants;
+        }catch (NumberFormatException e){
+            throw new IllegalArgumentException("Number of participants should be positive, integer value");
+        }
+    }
+
+    /**
+     * Извлекает описание группы из строки в формате скрипта.
+     * @param s Строка
+     * @return Описание группы без пробелов по краям
+     * @throws IllegalArgumentException если описание пустое
+     */
+    public static String parseDescription(String s){
+        String description = s.trim();
+        if(description.isEmpty()){
+            throw new IllegalArgumentException("Description cannot be empty");
+        }
+        return description;
+    }
+
+    /**
+     * Извлекает жанр группы из строки в формате скрипта.
+     * @param s Строка
+     * @return Жанр группы
+     * @throws IllegalArgumentException если строка не является названием одного из жанров {@link classes.MusicGenre}
+     */
+    public static MusicGenre parseMusicGenre(String s){
+        try{
+            return MusicGenre.valueOf(s.trim());
+        }catch (IllegalArgumentException e){
+            throw new IllegalArgumentException(
+                    String.format("Music genre should be one of: %s", Arrays.toString(MusicGenre.values()))
+            );
+        }
+    }
+
+    /**
+     * Извлекает название студии из строки в формате скрипта.
+     * @param s Строка
+     * @return Название студии без пробелов по краям
+     * @throws IllegalArgumentException если название пустое
+     */
+    public static String parseStudioName(String s){
+        String studioName = s.trim();
+        if(studioName.isEmpty()){
+            throw new IllegalArgumentException("Name of studio cannot be empty");
+        }
+        return studioName;
+    }
+
     /**
      * С помощью {@link Console#reader} считывает строку.
      * <p>
@@ -0,0 +1,515 @@
+package utils;
+
+import classes.MusicGenre;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Генератор тестовых данных: CSV-файла коллекции в формате {@link ReaderCSV} любого размера и скрипта команд
+ * для execute_script, работающего с этой коллекцией.
+ * <p>
+ * Распределения значений приближены к реальным: жанры встречаются с разной частотой (ROCK чаще всего),
+ * названия студий выбираются из ограниченного набора по закону Ципфа (несколько студий встречаются очень часто),
+ * названия групп и описания составляются из русских и английских слов, длина описания распределена экспоненциально.
+ * <p>
+ * Строки генерируются блоками по {@link DatasetGenerator#BLOCK_ROWS}: блоки создаются на нескольких потоках
+ * и записываются в файл по порядку, в памяти находится не больше {@code 2 * threads} блоков. Генератор случайных чисел
+ * каждого блока инициализируется значением, вычисленным из начального значения и номера блока, поэтому
+ * при одинаковых начальном значении и количестве строк файлы совпадают побайтно при любом количестве потоков.
+ * Файлы записываются в кодировке по умолчанию, как и {@link WriterCSV}.
+ * <p>
+ * Запуск: {@code java -cp Laba5.jar utils.DatasetGenerator bands.csv rows [--seed N] [--threads N] [--script file commands]}
+ * <p>
+ * Скрипт содержит команды insert (новые ключи больше rows), update, remove_key и replace_if_lower (существующие ключи),
+ * filter_starts_with_name (начала существующих названий) и info. Команды update и remove_key могут обращаться
+ * к элементам, уже удаленным предыдущими командами скрипта, - как и в реальном потоке команд.
+ */
+public class DatasetGenerator {
+    /**
+     * Хранит количество строк в блоке, создаваемом одной задачей.
+     */
+    static final int BLOCK_ROWS = 1 << 14;
+    /**
+     * Хранит заголовок CSV-файла (такой же, как у {@link WriterCSV}).
+     */
+    private static final String HEADER = "id(Long),name(String),x(Double),y(Integer),creationDate(dd-MM-yyyy HH-mm-ss z)," +
+            "numberOfParticipants(int),description(String),genre(MusicGenre),studioName(String)\n";
+    /**
+     * Хранит сокращения часовых поясов дат создания. Сокращение добавляется к дате строкой, а не форматом "z":
+     * вывод названий поясов зависит от правил перехода на летнее время и при форматировании на нескольких
+     * потоках может различаться (например YEKST и GMT+05:00), что нарушило бы повторяемость файла.
+     */
+    private static final String[] ZONES = {"MSK", "YEKT", "UTC"};
+    /**
+     * Хранит начало интервала дат создания (1 января 2000 года, секунды от начала эпохи).
+     */
+    private static final long FIRST_DATE = 946_684_800L;
+    /**
+     * Хранит длину интервала дат создания (25 лет в секундах).
+     */
+    private static final long DATE_RANGE = 25L * 365 * 24 * 3600;
+    /**
+     * Хранит жанры в порядке убывания частоты.
+     */
+    private static final MusicGenre[] GENRES = {MusicGenre.ROCK, MusicGenre.JAZZ, MusicGenre.SOUL, MusicGenre.POST_ROCK,
+            MusicGenre.PSYCHEDELIC_CLOUD_RAP};
+    /**
+     * Хранит накопленные частоты жанров в процентах (45, 22, 15, 11, 7).
+     */
+    private static final int[] GENRE_PERCENTS = {45, 67, 82, 93, 100};
+    /**
+     * Хранит количество различных названий студий.
+     */
+    private static final int STUDIOS = 2000;
+    /**
+     * Хранит показатель закона Ципфа для выбора студии.
+     */
+    private static final double STUDIO_SKEW = 1.1;
+    /**
+     * Хранит среднее количество слов в описании.
+     */
+    private static final double MEAN_DESCRIPTION_WORDS = 12;
+    /**
+     * Хранит наибольшее количество слов в описании.
+     */
+    private static final int MAX_DESCRIPTION_WORDS = 200;
+    /**
+     * Хранит слоги русских слов.
+     */
+    private static final String[] CYRILLIC_SYLLABLES = {"ка", "ро", "ли", "на", "ве", "ми", "зо", "ту", "ря", "шо",
+            "ле", "да", "гу", "ни", "ст", "бо", "ёж", "пе", "жи", "ча", "ю", "ща", "эх", "фа"};
+    /**
+     * Хранит слоги английских слов.
+     */
+    private static final String[] LATIN_SYLLABLES = {"ra", "do", "mi", "ke", "lo", "the", "sun", "ny", "ver", "al",
+            "qu", "een", "ze", "pp", "lin", "bea", "tles", "ro", "ck", "wa", "ve", "ox", "jo", "y"};
+    /**
+     * Хранит русские слова описаний.
+     */
+    private static final String[] CYRILLIC_WORDS = {"группа", "альбом", "концерт", "песня", "гитара", "звук", "новый",
+            "легендарный", "тур", "клуб", "сцена", "голос", "ритм", "студия", "запись", "хит", "лучший", "первый", "зал", "фестиваль"};
+    /**
+     * Хранит английские слова описаний.
+     */
+    private static final String[] LATIN_WORDS = {"band", "album", "live", "song", "guitar", "sound", "new", "legendary",
+            "tour", "club", "stage", "voice", "rhythm", "studio", "record", "hit", "best", "first", "hall", "festival"};
+
+    /**
+     * Хранит начальное значение генератора случайных чисел.
+     */
+    private final long seed;
+    /**
+     * Хранит количество элементов коллекции.
+     */
+    private final long rows;
+    /**
+     * Хранит названия студий.
+     */
+    private final String[] studios;
+    /**
+     * Хранит накопленные вероятности студий (закон Ципфа).
+     */
+    private final double[] studioWeights;
+
+    /**
+     * Создает генератор коллекции указанного размера.
+     * @param seed Начальное значение генератора случайных чисел
+     * @param rows Количество элементов коллекции
+     */
+    public DatasetGenerator(long seed, long rows){
+        this.seed = seed;
+        this.rows = rows;
+        SplittableRandom random = new SplittableRandom(seed);
+        studios = new String[STUDIOS];
+        studioWeights = new double[STUDIOS];
+        double total = 0;
+        for(int i = 0; i < STUDIOS; i++){
+            studios[i] = studioName(random, i);
+            total += 1 / Math.pow(i + 1, STUDIO_SKEW);
+            studioWeights[i] = total;
+        }
+        for(int i = 0; i < STUDIOS; i++){
+            studioWeights[i] /= total;
+        }
+    }
+
+    /**
+     * Запускает генератор.
+     * @param args файл, количество строк и флаги {@code --seed N}, {@code --threads N}, {@code --script файл количество}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        if(args.length < 2){
+            System.err.println("Usage: utils.DatasetGenerator file.csv rows [--seed N] [--threads N] [--script file commands]");
+            System.exit(1);
+        }
+        String csvFile = args[0];
+        long rows = Long.parseLong(args[1]);
+        long seed = 42;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String scriptFile = null;
+        long commands = 0;
+        for(int i = 2; i < args.length; i++){
+            if(args[i].equals("--seed") && i + 1 < args.length){
+                seed = Long.parseLong(args[++i]);
+            }else if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            }else if(args[i].equals("--script") && i + 2 < args.length){
+                scriptFile = args[++i];
+                commands = Long.parseLong(args[++i]);
+            }else{
+                System.err.printf("Unknown argument '%s'%n", args[i]);
+                System.exit(1);
+            }
+        }
+        if(rows < 1 || threads < 1 || (scriptFile != null && commands < 1)){
+            System.err.println("Error: rows, threads and commands should be positive");
+            System.exit(1);
+        }
+
+        DatasetGenerator generator = new DatasetGenerator(seed, rows);
+        long start = System.nanoTime();
+        long bytes = generator.writeCsv(csvFile, threads);
+        report(csvFile, rows, "rows", bytes, start);
+        if(scriptFile != null){
+            start = System.nanoTime();
+            bytes = generator.writeScript(scriptFile, commands, threads);
+            report(scriptFile, commands, "commands", bytes, start);
+        }
+    }
+
+    /**
+     * Выводит размер записанного файла и скорость записи.
+     * @param file Файл
+     * @param count Количество строк или команд
+     * @param unit Название единицы
+     * @param bytes Размер файла
+     * @param start Время начала записи (по {@link System#nanoTime()})
+     */
+    private static void report(String file, long count, String unit, long bytes, long start){
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote '%s': %d %s, %.1f MB in %.3f s (%.1f MB/s)%n",
+                file, count, unit, bytes / 1e6, seconds, seconds > 0 ? bytes / 1e6 / seconds : 0.0);
+    }
+
+    /**
+     * Записывает CSV-файл коллекции с ключами от 1 до rows.
+     * @param file Путь к файлу
+     * @param threads Количество потоков, создающих блоки строк
+     * @return размер файла в байтах
+     * @throws IOException если файл недоступен для записи
+     * @throws InterruptedException если поток прерван во время ожидания блока
+     */
+    public long writeCsv(String file, int threads) throws IOException, InterruptedException{
+        return write(file, HEADER, rows, threads, this::csvBlock);
+    }
+
+    /**
+     * Записывает скрипт из указанного количества команд над коллекцией этого генератора.
+     * @param file Путь к файлу
+     * @param commands Количество команд
+     * @param threads Количество потоков, создающих блоки команд
+     * @return размер файла в байтах
+     * @throws IOException если файл недоступен для записи
+     * @throws InterruptedException если поток прерван во время ожидания блока
+     */
+    public long writeScript(String file, long commands, int threads) throws IOException, InterruptedException{
+        return write(file, "", commands, threads, block -> scriptBlock(block, commands));
+    }
+
+    /**
+     * Записывает файл из блоков, создаваемых на нескольких потоках, в порядке номеров блоков.
+     * @param file Путь к файлу
+     * @param header Начало файла
+     * @param count Общее количество строк (команд)
+     * @param threads Количество потоков
+     * @param blocks Создает текст блока по его номеру
+     * @return размер файла в байтах
+     * @throws IOException если файл недоступен для записи
+     * @throws InterruptedException если поток прерван во время ожидания блока
+     */
+    private static long write(String file, String header, long count, int threads, LongFunction<String> blocks)
+            throws IOException, InterruptedException{
+        Charset charset = Charset.defaultCharset();
+        long blockCount = (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "dataset-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long bytes = 0;
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)){
+            byte[] head = header.getBytes(charset);
+            out.write(head);
+            bytes += head.length;
+            ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+            long next = 0;
+            while(next < blockCount || !pending.isEmpty()){
+                while(next < blockCount && pending.size() < 2 * threads){
+                    long block = next++;
+                    pending.add(pool.submit(() -> blocks.apply(block).getBytes(charset)));
+                }
+                byte[] data = pending.poll().get();
+                out.write(data);
+                bytes += data.length;
+            }
+        }catch(ExecutionException e){
+            throw new IOException("Block generation failed: " + e.getCause(), e.getCause());
+        }finally{
+            pool.shutdownNow();
+        }
+        return bytes;
+    }
+
+    /**
+     * Создает генератор случайных чисел блока, зависящий только от начального значения, вида данных и номера блока.
+     * @param stream Вид данных (0 - коллекция, 1 - скрипт)
+     * @param block Номер блока
+     * @return генератор случайных чисел
+     */
+    private SplittableRandom blockRandom(long stream, long block){
+        long z = seed ^ (stream * 0xD1B54A32D192ED03L) ^ (block * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    /**
+     * Создает текст блока строк CSV-файла.
+     * @param block Номер блока
+     * @return строки блока
+     */
+    private String csvBlock(long block){
+        SplittableRandom random = blockRandom(0, block);
+        long first = block * BLOCK_ROWS + 1;
+        long last = Math.min(rows, first + BLOCK_ROWS - 1);
+        StringBuilder text = new StringBuilder((int) (last - first + 1) * 160);
+        for(long id = first; id <= last; id++){
+            text.append(id).append(",\"").append(name(random)).append("\",")
+                    .append(x(random)).append(',').append(y(random)).append(',');
+            creationDate(text, random).append(',')
+                    .append(participants(random)).append(",\"")
+                    .append(description(random)).append("\",")
+                    .append(genre(random)).append(",\"")
+                    .append(studio(random)).append("\"\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Создает текст блока команд скрипта.
+     * @param block Номер блока
+     * @param commands Общее количество команд
+     * @return команды блока
+     */
+    private String scriptBlock(long block, long commands){
+        SplittableRandom random = blockRandom(1, block);
+        long first = block * BLOCK_ROWS;
+        long last = Math.min(commands, first + BLOCK_ROWS);
+        StringBuilder text = new StringBuilder((int) (last - first) * 80);
+        for(long command = first; command < last; command++){
+            int kind = random.nextInt(100);
+            if(kind < 30){
+                text.append("insert ").append(rows + command + 1).append('\n');
+                element(text, random);
+            }else if(kind < 50){
+                text.append("update ").append(existingKey(random)).append('\n');
+                element(text, random);
+            }else if(kind < 65){
+                text.append("remove_key ").append(existingKey(random)).append('\n');
+            }else if(kind < 75){
+                text.append("replace_if_lower ").append(existingKey(random)).append('\n');
+                element(text, random);
+            }else if(kind < 90){
+                String name = name(random);
+                text.append("filter_starts_with_name ").append(name, 0, Math.min(name.length(), 1 + random.nextInt(3))).append('\n');
+            }else{
+                text.append("info\n");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Добавляет к тексту скрипта 7 строк элемента: название, x, y, количество участников, описание, жанр, студию.
+     * @param text Текст скрипта
+     * @param random Генератор случайных чисел
+     */
+    private void element(StringBuilder text, SplittableRandom random){
+        text.append(name(random)).append('\n')
+                .append(x(random)).append('\n')
+                .append(y(random)).append('\n')
+                .append(participants(random)).append('\n')
+                .append(description(random)).append('\n')
+                .append(genre(random)).append('\n')
+                .append(studio(random)).append('\n');
+    }
+
+    /**
+     * Возвращает случайный ключ коллекции.
+     * @param random Генератор случайных чисел
+     * @return ключ от 1 до rows
+     */
+    private long existingKey(SplittableRandom random){
+        return 1 + random.nextLong(rows);
+    }
+
+    /**
+     * Возвращает название группы: одно-три слова на русском (40%) или английском языке, иногда с номером.
+     * @param random Генератор случайных чисел
+     * @return название
+     */
+    private static String name(SplittableRandom random){
+        String[] syllables = random.nextInt(10) < 4 ? CYRILLIC_SYLLABLES : LATIN_SYLLABLES;
+        int words = 1 + random.nextInt(3);
+        StringBuilder name = new StringBuilder();
+        for(int w = 0; w < words; w++){
+            if(w > 0){
+                name.append(' ');
+            }
+            int length = 2 + random.nextInt(3);
+            int begin = name.length();
+            for(int s = 0; s < length; s++){
+                name.append(syllables[random.nextInt(syllables.length)]);
+            }
+            name.setCharAt(begin, Character.toUpperCase(name.charAt(begin)));
+        }
+        if(random.nextInt(5) == 0){
+            name.append(' ').append(1 + random.nextInt(99));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Возвращает описание: экспоненциально распределенное количество слов (в среднем
+     * {@link DatasetGenerator#MEAN_DESCRIPTION_WORDS}), русских и английских вперемешку.
+     * @param random Генератор случайных чисел
+     * @return описание
+     */
+    private static String description(SplittableRandom random){
+        int words = 1 + (int) Math.min(MAX_DESCRIPTION_WORDS - 1, -Math.log(1 - random.nextDouble()) * MEAN_DESCRIPTION_WORDS);
+        boolean cyrillic = random.nextBoolean();
+        StringBuilder description = new StringBuilder(words * 8);
+        for(int w = 0; w < words; w++){
+            if(w > 0){
+                description.append(' ');
+            }
+            if(random.nextInt(8) == 0){
+                cyrillic = !cyrillic;
+            }
+            String[] dictionary = cyrillic ? CYRILLIC_WORDS : LATIN_WORDS;
+            description.append(dictionary[random.nextInt(dictionary.length)]);
+        }
+        return description.toString();
+    }
+
+    /**
+     * Возвращает координату x с двумя знаками после запятой.
+     * @param random Генератор случайных чисел
+     * @return значение от -1000 до 1000
+     */
+    private static double x(SplittableRandom random){
+        return (random.nextInt(200_001) - 100_000) / 100.0;
+    }
+
+    /**
+     * Возвращает координату y.
+     * @param random Генератор случайных чисел
+     * @return значение от -1000 до 1000
+     */
+    private static int y(SplittableRandom random){
+        return random.nextInt(2001) - 1000;
+    }
+
+    /**
+     * Добавляет к тексту дату создания в формате {@code dd-MM-yyyy HH-mm-ss z}: случайный момент с 2000 по 2024 год
+     * в одном из часовых поясов. Поля даты выводятся без {@link java.time.format.DateTimeFormatter}, который
+     * занимал большую часть времени генерации строки.
+     * @param text Текст блока
+     * @param random Генератор случайных чисел
+     * @return текст блока
+     */
+    private static StringBuilder creationDate(StringBuilder text, SplittableRandom random){
+        LocalDateTime date = LocalDateTime.ofEpochSecond(FIRST_DATE + random.nextLong(DATE_RANGE), 0, ZoneOffset.UTC);
+        twoDigits(text, date.getDayOfMonth()).append('-');
+        twoDigits(text, date.getMonthValue()).append('-').append(date.getYear()).append(' ');
+        twoDigits(text, date.getHour()).append('-');
+        twoDigits(text, date.getMinute()).append('-');
+        twoDigits(text, date.getSecond()).append(' ');
+        return text.append(ZONES[random.nextInt(ZONES.length)]);
+    }
+
+    /**
+     * Добавляет к тексту число из двух цифр (с ведущим нулем).
+     * @param text Текст
+     * @param value Число от 0 до 99
+     * @return текст
+     */
+    private static StringBuilder twoDigits(StringBuilder text, int value){
+        return text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Возвращает количество участников: чаще всего 1-5, изредка до нескольких десятков.
+     * @param random Генератор случайных чисел
+     * @return положительное количество
+     */
+    private static int participants(SplittableRandom random){
+        return 1 + (int) Math.min(99, -Math.log(1 - random.nextDouble()) * 3);
+    }
+
+    /**
+     * Возвращает жанр с заданными частотами.
+     * @param random Генератор случайных чисел
+     * @return жанр
+     */
+    private static MusicGenre genre(SplittableRandom random){
+        int percent = random.nextInt(100);
+        int i = 0;
+        while(percent >= GENRE_PERCENTS[i]){
+            i++;
+        }
+        return GENRES[i];
+    }
+
+    /**
+     * Возвращает название студии, выбранное по закону Ципфа.
+     * @param random Генератор случайных чисел
+     * @return название студии
+     */
+    private String studio(SplittableRandom random){
+        int i = Arrays.binarySearch(studioWeights, random.nextDouble());
+        return studios[Math.min(i < 0 ? -i - 1 : i, STUDIOS - 1)];
+    }
+
+    /**
+     * Создает название студии.
+     * @param random Генератор случайных чисел
+     * @param index Номер студии (делает названия различными)
+     * @return название студии
+     */
+    private static String studioName(SplittableRandom random, int index){
+        boolean cyrillic = random.nextInt(10) < 4;
+        String[] syllables = cyrillic ? CYRILLIC_SYLLABLES : LATIN_SYLLABLES;
+        StringBuilder name = new StringBuilder(cyrillic ? "Студия " : "");
+        int begin = name.length();
+        for(int s = 0, length = 2 + random.nextInt(3); s < length; s++){
+            name.append(syllables[random.nextInt(syllables.length)]);
+        }
+        name.setCharAt(begin, Character.toUpperCase(name.charAt(begin)));
+        return name.append(cyrillic ? " " : " Records ").append(index + 1).toString();
+    }
+}
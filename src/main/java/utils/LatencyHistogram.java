@@ -0,0 +1,130 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмически-линейными интервалами (как в HdrHistogram): значения
+ * до {@code 2^SUB_BITS} хранятся точно, большие - в интервалах шириной не больше 1/64 от значения,
+ * то есть с относительной погрешностью меньше 1,6%. Значения больше {@link LatencyHistogram#MAX_VALUE} учитываются
+ * в последнем интервале (максимум хранится точно).
+ * <p>
+ * Запись не использует блокировок: номер интервала вычисляется сдвигами, счетчики увеличиваются атомарно,
+ * поэтому запись из нескольких потоков стоит несколько наносекунд. Чтение во время записи может вернуть
+ * немного несогласованные значения (например, сумма уже учитывает значение, а счетчик интервала еще нет).
+ */
+public final class LatencyHistogram {
+    /**
+     * Хранит количество двоичных разрядов значения, определяющих интервал внутри степени двойки.
+     */
+    private static final int SUB_BITS = 7;
+    /**
+     * Хранит количество интервалов внутри одной степени двойки.
+     */
+    private static final int HALF_COUNT = 1 << (SUB_BITS - 1);
+    /**
+     * Хранит наибольшее значение, для которого сохраняется интервал (около 18 минут).
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+    /**
+     * Хранит количество значений в каждом интервале.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    /**
+     * Хранит количество значений.
+     */
+    private final AtomicLong count = new AtomicLong();
+    /**
+     * Хранит сумму значений.
+     */
+    private final AtomicLong total = new AtomicLong();
+    /**
+     * Хранит наибольшее значение.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Возвращает номер интервала, содержащего значение.
+     * @param value Неотрицательное значение не больше {@link LatencyHistogram#MAX_VALUE}
+     * @return номер интервала
+     */
+    private static int indexOf(long value){
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        if(shift <= 0){
+            return (int) value;
+        }
+        return shift * HALF_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в интервал.
+     * @param index Номер интервала
+     * @return наибольшее значение интервала
+     */
+    private static long highestValueAt(int index){
+        if(index < 2 * HALF_COUNT){
+            return index;
+        }
+        int shift = index / HALF_COUNT - 1;
+        long mantissa = index - shift * HALF_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Учитывает значение.
+     * @param nanos Задержка в наносекундах (отрицательные значения считаются нулем)
+     */
+    public void record(long nanos){
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current = max.get();
+        while(value > current && !max.compareAndSet(current, value)){
+            current = max.get();
+        }
+    }
+
+    /**
+     * Возвращает количество учтенных значений.
+     * @return количество значений
+     */
+    public long getCount(){return count.get();}
+
+    /**
+     * Возвращает сумму учтенных значений.
+     * @return сумма в наносекундах
+     */
+    public long getTotal(){return total.get();}
+
+    /**
+     * Возвращает наибольшее учтенное значение.
+     * @return значение в наносекундах или 0, если значений нет
+     */
+    public long getMax(){return max.get();}
+
+    /**
+     * Возвращает значение, не меньше которого не более (100 - percent)% учтенных значений: верхнюю границу
+     * интервала, в который попадает процентиль (но не больше максимума).
+     * @param percent Процент от 0 до 100
+     * @return значение в наносекундах или 0, если значений нет
+     */
+    public long getValueAtPercentile(double percent){
+        long recorded = 0;
+        for(int i = 0; i < counts.length(); i++){
+            recorded += counts.get(i);
+        }
+        if(recorded == 0){
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * recorded));
+        long seen = 0;
+        for(int i = 0; i < counts.length(); i++){
+            seen += counts.get(i);
+            if(seen >= rank){
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
@@ -7,23 +7,45 @@ import classes.Coordinates;
 import classes.MusicBand;
 import classes.MusicGenre;
 import classes.Studio;
+import events.CsvLoadEvent;
 
 import java.io.*;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * Представляет класс для чтения объектов типа {@link classes.MusicBand} из CSV-файла.
+ * <p>
+ * Файл разбирается библиотекой opencsv в одном потоке, а строки преобразуются в элементы параллельно
+ * блоками по {@link ReaderCSV#CHUNK_ROWS} строк. Одновременно обрабатывается ограниченное число блоков,
+ * поэтому в памяти не хранятся все строки файла сразу.
  */
 public class ReaderCSV {
+    /**
+     * Хранит формат даты создания. Объект создается один раз: при разборе часового пояса по названию (шаблон z)
+     * формат строит дерево названий поясов, и создание формата для каждой строки занимало большую часть времени чтения.
+     */
+    private static final DateTimeFormatter CREATION_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z");
+    /**
+     * Хранит количество строк в блоке, который преобразуется в элементы одной задачей.
+     */
+    private static final int CHUNK_ROWS = 8192;
+
     /**
      * Статический метод, возвращающий коллекцию {@link java.util.TreeMap} объектов типа {@link classes.MusicBand} считанных из файла.
+     * Строки с ошибками пропускаются, сообщения о них выводятся в стандартный поток ошибок.
      * @apiNote Для чтения данных используются методы:
      * <ul>
-     *     <li>{@link ReaderCSV#parseCreationDate(String)}</li>>
+     *     <li>{@link ReaderCSV#loadParallel(File, Consumer)}</li>
+     *     <li>{@link ReaderCSV#parseCreationDate(String)}</li>
      * </ul>
      * <p>
      * @param file_csv файл, хранящий объекты типа {@link classes.MusicBand}
@@ -31,56 +53,112 @@ public class ReaderCSV {
      */
     public static TreeMap<Long, MusicBand> loadFromFile(File file_csv){
         TreeMap<Long, MusicBand> musicBands = new TreeMap<>();
+        try{
+            for(MusicBand musicBand : loadParallel(file_csv, System.err::println)){
+                musicBands.put(musicBand.getId(), musicBand);
+            }
+        }catch (IOException e){
+            System.err.println("Error: " + e.getMessage());
+        }
+        return musicBands;
+    }
+
+    /**
+     * Считывает элементы из CSV-файла, преобразуя строки в элементы на нескольких потоках.
+     * @param file_csv файл, хранящий объекты типа {@link classes.MusicBand}
+     * @param rejected получатель сообщений о строках с ошибками (вызывается в потоке, читающем файл, в порядке строк)
+     * @return элементы в порядке строк файла (элементы с одинаковым id не объединяются)
+     * @throws IOException если файл недоступен для чтения или нарушен формат CSV
+     */
+    public static List<MusicBand> loadParallel(File file_csv, Consumer<String> rejected) throws IOException{
+        CsvLoadEvent event = new CsvLoadEvent();
+        event.begin();
+        long[] errors = {0};
+        Consumer<String> counted = message -> {
+            errors[0]++;
+            rejected.accept(message);
+        };
+        List<MusicBand> musicBands = new ArrayList<>();
+        ArrayDeque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism();
         try(InputStream is = new FileInputStream(file_csv);
             InputStreamReader isr = new InputStreamReader(is);
             CSVReader reader = new CSVReader(isr)){
 
             reader.skip(1);
 
-            List<String[]> rows = reader.readAll();
-
-            for (String[] parts : rows) {
-                try {
-                    if (parts.length != 9) {
-                        System.err.printf("Invalid line format '%s' in the file '%s'\n", String.join(",", parts), file_csv);
-                        continue;
+            List<String[]> rows = new ArrayList<>(CHUNK_ROWS);
+            String[] parts;
+            while ((parts = reader.readNext()) != null) {
+                rows.add(parts);
+                if (rows.size() == CHUNK_ROWS) {
+                    List<String[]> chunk = rows;
+                    pending.add(CompletableFuture.supplyAsync(() -> new Chunk(chunk, file_csv)));
+                    rows = new ArrayList<>(CHUNK_ROWS);
+                    while (pending.size() > window) {
+                        pending.poll().join().drainTo(musicBands, counted);
                     }
-
-                    Long id = Long.parseLong(parts[0].trim());
-                    String name = parts[1].trim();
-                    Double x = Double.parseDouble(parts[2].trim());
-                    Integer y = Integer.parseInt(parts[3].trim());
-                    ZonedDateTime creationDate = parseCreationDate(parts[4].trim());
-                    int numberOfParticipants = Integer.parseInt(parts[5].trim());
-                    String description = parts[6].trim();
-                    MusicGenre genre = MusicGenre.valueOf(parts[7].trim().toUpperCase());
-                    String studioName = parts[8].trim();
-
-                    Coordinates coordinates = new Coordinates(x, y);
-                    Studio studio = new Studio(studioName);
-                    MusicBand musicBand = new MusicBand(
-                            id,
-                            name,
-                            coordinates,
-                            creationDate,
-                            numberOfParticipants,
-                            description,
-                            genre,
-                            studio
-                    );
-                    musicBands.put(id, musicBand);
-                }catch(NumberFormatException e){
-                    System.err.println("Invalid number format in line:\n" + String.join(",", parts));
-                }catch (IllegalArgumentException e){
-                    System.err.println("Invalid data in line:\n" + String.join(",", parts) + "\nError: " + e.getMessage());
                 }
             }
-        }catch (IOException | CsvException e){
-            System.err.println("Error: " + e.getMessage());
+            pending.add(CompletableFuture.completedFuture(new Chunk(rows, file_csv)));
+            while (!pending.isEmpty()) {
+                pending.poll().join().drainTo(musicBands, counted);
+            }
+        }catch (CsvException e){
+            throw new IOException(e.getMessage(), e);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file_csv.getPath();
+            event.rows = musicBands.size();
+            event.bytes = file_csv.length();
+            event.errors = errors[0];
+            event.commit();
         }
         return musicBands;
     }
 
+    /**
+     * Статический метод, создающий объект типа {@link classes.MusicBand} по строке CSV-файла.
+     * @param parts Значения столбцов строки
+     * @param file_csv Файл, из которого прочитана строка (для сообщения об ошибке)
+     * @return элемент
+     * @throws IllegalArgumentException если количество столбцов неверно или значение не соответствует ограничениям поля
+     */
+    public static MusicBand parseRow(String[] parts, File file_csv){
+        if (parts.length != 9) {
+            throw new IllegalArgumentException(String.format("Invalid line format '%s' in the file '%s'", String.join(",", parts), file_csv));
+        }
+        try {
+            Long id = Long.parseLong(parts[0].trim());
+            String name = parts[1].trim();
+            Double x = Double.parseDouble(parts[2].trim());
+            Integer y = Integer.parseInt(parts[3].trim());
+            ZonedDateTime creationDate = parseCreationDate(parts[4].trim());
+            int numberOfParticipants = Integer.parseInt(parts[5].trim());
+            String description = parts[6].trim();
+            MusicGenre genre = MusicGenre.valueOf(parts[7].trim().toUpperCase());
+            String studioName = parts[8].trim();
+
+            Coordinates coordinates = new Coordinates(x, y);
+            Studio studio = new Studio(studioName);
+            return new MusicBand(
+                    id,
+                    name,
+                    coordinates,
+                    creationDate,
+                    numberOfParticipants,
+                    description,
+                    genre,
+                    studio
+            );
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Invalid number format in line:\n" + String.join(",", parts), e);
+        }catch (IllegalArgumentException e){
+            throw new IllegalArgumentException("Invalid data in line:\n" + String.join(",", parts) + "\nError: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Статический метод, извлекающий значение типа {@link java.time.ZonedDateTime} из переданной строки.
      * <p>
@@ -89,8 +167,7 @@ public class ReaderCSV {
      */
     public static ZonedDateTime parseCreationDate(String date){
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH-mm-ss z");
-            return ZonedDateTime.parse(date, formatter);
+            return ZonedDateTime.parse(date, CREATION_DATE_FORMATTER);
         }catch(DateTimeParseException e){
             throw new IllegalArgumentException(
                     String.format("Invalid date format: '%s'. Expected format: 'dd-MM-yyyy HH-mm-ss z'", date),
@@ -98,4 +175,44 @@ public class ReaderCSV {
             );
         }
     }
+
+    /**
+     * Блок строк файла, преобразованный в элементы.
+     */
+    private static final class Chunk {
+        /**
+         * Хранит элементы в порядке строк.
+         */
+        private final List<MusicBand> musicBands;
+        /**
+         * Хранит сообщения о строках с ошибками.
+         */
+        private final List<String> errors = new ArrayList<>();
+
+        /**
+         * Преобразует строки в элементы.
+         * @param rows Строки файла
+         * @param file_csv Файл, из которого прочитаны строки
+         */
+        private Chunk(List<String[]> rows, File file_csv){
+            musicBands = new ArrayList<>(rows.size());
+            for (String[] parts : rows) {
+                try {
+                    musicBands.add(parseRow(parts, file_csv));
+                }catch (IllegalArgumentException e){
+                    errors.add(e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Передает элементы и сообщения об ошибках блока.
+         * @param target Список, в который добавляются элементы
+         * @param rejected Получатель сообщений об ошибках
+         */
+        private void drainTo(List<MusicBand> target, Consumer<String> rejected){
+            target.addAll(musicBands);
+            errors.forEach(rejected);
+        }
+    }
 }
@@ -1,11 +1,13 @@
 package utils;
 
 import classes.MusicBand;
+import events.CsvSaveEvent;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.time.format.DateTimeFormatter;
 import java.util.TreeMap;
 
@@ -16,13 +18,17 @@ import java.util.TreeMap;
 public class WriterCSV {
     /**
      * Статический метод для записи переданной коллекции в CSV-файл.
+     * После записи файл сбрасывается на диск, чтобы сохраненная коллекция не терялась при сбое системы.
      * <p>
      * @param file_csv файл, в который происходит запись
      * @param musicBands записываемая в файл коллекция
      * @throws IOException если файл, в который происходит запись недоступен для записи
      */
     public static void loadToFile(File file_csv, TreeMap<Long, MusicBand> musicBands) throws IOException{
-        try(BufferedWriter writer = new BufferedWriter(new FileWriter(file_csv))) {
+        CsvSaveEvent event = new CsvSaveEvent();
+        event.begin();
+        try(FileOutputStream out = new FileOutputStream(file_csv);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
             writer.write(
                     "id(Long)," +
                             "name(String)," +
@@ -49,6 +55,17 @@ public class WriterCSV {
                 writer.write(bandString);
                 writer.newLine();
             }
+            writer.flush();
+            long syncStart = System.nanoTime();
+            out.getFD().sync();
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = file_csv.getPath();
+                event.rows = musicBands.size();
+                event.bytes = out.getChannel().position();
+                event.fsyncTime = System.nanoTime() - syncStart;
+                event.commit();
+            }
         }
     }
 }
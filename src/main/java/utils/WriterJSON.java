@@ -0,0 +1,194 @@
+package utils;
+
+import classes.MusicBand;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Представляет класс для потоковой записи объектов типа {@link classes.MusicBand} в формате JSON.
+ * <p>
+ * Запись выполняется напрямую в {@link java.io.Writer} без рефлексии и без построения документа в памяти.
+ * Формат элемента:
+ * <pre>
+ * {"id":2,"name":"Lumen","coordinates":{"x":1.5,"y":1},"creationDate":"2025-07-23T23:11:47+05:00",
+ *  "numberOfParticipants":2,"description":"desc","genre":"JAZZ","studio":{"name":"studio"}}
+ * </pre>
+ * Коллекция записывается в файл методом {@link WriterJSON#exportToFile(File, Iterable, boolean, boolean)}
+ * массивом JSON или в формате NDJSON (по одному объекту на строке).
+ */
+public class WriterJSON {
+    /**
+     * Хранит формат даты создания группы (ISO-8601 со смещением часового пояса).
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    /**
+     * Хранит шестнадцатеричные цифры для экранирования управляющих символов.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * Хранит размер буферов при записи в файл.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Статический метод для записи коллекции в файл. Элементы кодируются по одному и сразу передаются в поток,
+     * документ целиком в памяти не строится.
+     * <p>
+     * @param file файл, в который происходит запись (перезаписывается)
+     * @param bands записываемые элементы
+     * @param ndjson true - по одному объекту на строке (NDJSON), false - массив JSON
+     * @param gzip true - сжимать файл в формате gzip
+     * @return количество байт JSON до сжатия
+     * @throws IOException если файл недоступен для записи
+     */
+    public static long exportToFile(File file, Iterable<MusicBand> bands, boolean ndjson, boolean gzip) throws IOException{
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            OutputStream target = Channels.newOutputStream(channel);
+            target = gzip ? new GZIPOutputStream(target, BUFFER_SIZE) : new BufferedOutputStream(target, BUFFER_SIZE);
+            CountingOutputStream counter = new CountingOutputStream(target);
+            try(Writer out = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8), BUFFER_SIZE)){
+                if(!ndjson){
+                    out.write('[');
+                }
+                boolean first = true;
+                for(MusicBand band : bands){
+                    if(!ndjson){
+                        out.write(first ? "\n" : ",\n");
+                    }
+                    writeBand(out, band);
+                    if(ndjson){
+                        out.write('\n');
+                    }
+                    first = false;
+                }
+                if(!ndjson){
+                    out.write(first ? "]\n" : "\n]\n");
+                }
+            }
+            return counter.count;
+        }
+    }
+
+    /**
+     * Статический метод для записи одного элемента в виде JSON-объекта.
+     * <p>
+     * @param out поток, в который происходит запись
+     * @param band записываемый элемент
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeBand(Writer out, MusicBand band) throws IOException{
+        out.write("{\"id\":");
+        out.write(Long.toString(band.getId()));
+        out.write(",\"name\":");
+        writeString(out, band.getName());
+        out.write(",\"coordinates\":{\"x\":");
+        writeDouble(out, band.getCoordinates().getX());
+        out.write(",\"y\":");
+        out.write(Integer.toString(band.getCoordinates().getY()));
+        out.write("},\"creationDate\":\"");
+        DATE_FORMATTER.formatTo(band.getCreationDate(), out);
+        out.write("\",\"numberOfParticipants\":");
+        out.write(Integer.toString(band.getNumberOfParticipants()));
+        out.write(",\"description\":");
+        writeString(out, band.getDescription());
+        out.write(",\"genre\":\"");
+        out.write(band.getGenre().name());
+        out.write("\",\"studio\":{\"name\":");
+        writeString(out, band.getStudio().getName());
+        out.write("}}");
+    }
+
+    /**
+     * Статический метод для записи строки в виде JSON-строки (в кавычках, с экранированием).
+     * <p>
+     * @param out поток, в который происходит запись
+     * @param s записываемая строка
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeString(Writer out, String s) throws IOException{
+        out.write('"');
+        int start = 0;
+        int length = s.length();
+        for(int i = 0; i < length; i++){
+            char c = s.charAt(i);
+            if(c >= 0x20 && c != '"' && c != '\\'){
+                continue;
+            }
+            out.write(s, start, i - start);
+            switch (c){
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                }
+            }
+            start = i + 1;
+        }
+        out.write(s, start, length - start);
+        out.write('"');
+    }
+
+    /**
+     * Статический метод для записи числа типа double. Значения NaN и бесконечности записываются как {@code null}.
+     * <p>
+     * @param out поток, в который происходит запись
+     * @param value записываемое число
+     * @throws IOException если поток недоступен для записи
+     */
+    public static void writeDouble(Writer out, double value) throws IOException{
+        if(Double.isNaN(value) || Double.isInfinite(value)){
+            out.write("null");
+        }else{
+            out.write(Double.toString(value));
+        }
+    }
+
+    /**
+     * Поток, считающий количество записанных байт.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        /**
+         * Хранит количество записанных байт.
+         */
+        private long count;
+
+        /**
+         * Создает поток поверх указанного.
+         * @param out Поток, в который передаются байты
+         */
+        private CountingOutputStream(OutputStream out){
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException{
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException{
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет кэш строковых представлений {@link MusicBand#toString()}: сброс сохраненной строки каждым сеттером
+ * и ограничение количества сохраненных строк емкостью кэша.
+ */
+class MusicBandRenderTest {
+    /**
+     * Создает элемент.
+     * @param key Ключ
+     * @return элемент
+     */
+    private static MusicBand band(long key){
+        return new MusicBand(key, "Band " + key, new Coordinates(1.0, 1), ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                3, "description " + key, MusicGenre.JAZZ, new Studio("Studio"));
+    }
+
+    /**
+     * Проверяет, что после изменения поля строковое представление создается заново и содержит новое значение.
+     * @param band Элемент
+     * @param setter Изменение поля
+     * @param expected Строка, которая должна появиться в представлении
+     */
+    private static void assertRenderedAgain(MusicBand band, Consumer<MusicBand> setter, String expected){
+        String before = band.toString();
+        assertSame(before, band.getCachedString());
+        setter.accept(band);
+        assertNull(band.getCachedString());
+        String after = band.toString();
+        assertNotEquals(before, after);
+        assertTrue(after.contains(expected), after);
+        assertSame(after, band.toString());
+    }
+
+    @Test
+    void everySetterInvalidatesCachedString(){
+        MusicBand band = band(1);
+        assertRenderedAgain(band, b -> b.setId(2L), "id=2\n");
+        assertRenderedAgain(band, b -> b.setName("Renamed"), "name=Renamed\n");
+        assertRenderedAgain(band, b -> b.setCoordinates(new Coordinates(7.5, 8)), "coordinates=" + new Coordinates(7.5, 8) + "\n");
+        assertRenderedAgain(band, b -> b.setNumberOfParticipants(42), "numberOfParticipants=42\n");
+        assertRenderedAgain(band, b -> b.setDescription("Changed"), "description=Changed\n");
+        assertRenderedAgain(band, b -> b.setGenre(MusicGenre.SOUL), "genre=SOUL\n");
+        assertRenderedAgain(band, b -> b.setStudio(new Studio("Other")), "studio=" + new Studio("Other") + "\n");
+    }
+
+    @Test
+    void cachedStringsAreBoundedByCapacity(){
+        int capacity = MusicBand.getRenderCacheCapacity();
+        List<MusicBand> bands = new ArrayList<>();
+        for(long key = 1; key <= capacity + capacity / 2; key++){
+            MusicBand band = band(key);
+            band.toString();
+            bands.add(band);
+        }
+        long cached = bands.stream().filter(band -> band.getCachedString() != null).count();
+        assertTrue(cached <= capacity, cached + " cached strings");
+        // Последние выведенные группы еще в кэше, первые вытеснены
+        assertSame(bands.get(bands.size() - 1).toString(), bands.get(bands.size() - 1).getCachedString());
+        assertNull(bands.get(0).getCachedString());
+
+        // Повторный вывод вытесненной группы создает равную строку и снова сохраняет ее
+        String again = bands.get(0).toString();
+        assertEquals(band(1).toString(), again);
+        assertSame(again, bands.get(0).getCachedString());
+        assertTrue(bands.stream().filter(band -> band.getCachedString() != null).count() <= capacity);
+    }
+
+    @Test
+    void referencedStringsGetSecondChance(){
+        int capacity = MusicBand.getRenderCacheCapacity();
+        MusicBand kept = band(1);
+        String text = kept.toString();
+        // Обращение отмечает строку. За раунд стрелка проходит меньше круга, за три раунда - больше круга,
+        // поэтому строка вытеснилась бы без второго шанса
+        for(int round = 0; round < 3; round++){
+            assertSame(text, kept.toString());
+            for(long key = 0; key < capacity / 2; key++){
+                band(key + 2).toString();
+            }
+        }
+        assertSame(text, kept.getCachedString());
+    }
+}
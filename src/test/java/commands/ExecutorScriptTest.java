@@ -0,0 +1,154 @@
+package commands;
+
+import classes.MusicBand;
+import engine.CollectionEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Проверяет атомарное выполнение скриптов {@link Executor#execute_script(File, boolean)}: фиксацию изменений
+ * при отсутствии ошибок и откат при ошибочной команде, в том числе когда строки элемента совпадают с названиями команд.
+ */
+class ExecutorScriptTest {
+    /**
+     * Хранит временный каталог для CSV-файла и скриптов.
+     */
+    @TempDir
+    Path directory;
+    /**
+     * Хранит исполнителя команд над коллекцией из трех элементов.
+     */
+    private Executor executor;
+    /**
+     * Хранит элементы коллекции до выполнения скрипта.
+     */
+    private List<MusicBand> before;
+
+    @BeforeEach
+    void createExecutor() throws IOException{
+        Path csv = directory.resolve("bands.csv");
+        Files.writeString(csv, """
+                id(Long),name(String),x(Double),y(Integer),creationDate(dd-MM-yyyy HH-mm-ss z),numberOfParticipants(int),description(String),genre(MusicGenre),studioName(String)
+                1,"Alpha",1.5,2,01-01-2020 00-00-00 UTC,3,"first",JAZZ,"Studio"
+                2,"Beta",2.5,3,01-01-2020 00-00-00 UTC,4,"second",ROCK,"Studio"
+                3,"Gamma",3.5,4,01-01-2020 00-00-00 UTC,5,"third",SOUL,"Studio"
+                """);
+        executor = new Executor(csv.toFile(), List.of());
+        before = new ArrayList<>(engine().show());
+    }
+
+    /**
+     * Возвращает ядро исполнителя.
+     * @return ядро
+     */
+    private CollectionEngine engine(){
+        return executor.getEngine();
+    }
+
+    /**
+     * Создает скрипт из указанных строк и выполняет его атомарно.
+     * @param lines Строки скрипта
+     */
+    private void runAtomic(String... lines) throws IOException{
+        Path script = Files.write(directory.resolve("script.txt"), List.of(lines));
+        executor.execute_script(script.toFile(), true);
+    }
+
+    /**
+     * Возвращает 7 строк элемента в формате скрипта.
+     * @param name Название
+     * @return строки элемента
+     */
+    private static String[] element(String name){
+        return new String[]{name, "1.0", "1", "2", "description", "JAZZ", "Studio"};
+    }
+
+    /**
+     * Возвращает строки команды с элементом.
+     * @param command Команда с аргументом
+     * @param name Название элемента
+     * @return строки команды
+     */
+    private static List<String> withElement(String command, String name){
+        List<String> lines = new ArrayList<>();
+        lines.add(command);
+        lines.addAll(List.of(element(name)));
+        return lines;
+    }
+
+    /**
+     * Создает скрипт из групп строк и выполняет его атомарно.
+     * @param groups Группы строк
+     */
+    @SafeVarargs
+    private void runAtomic(List<String>... groups) throws IOException{
+        List<String> lines = new ArrayList<>();
+        for(List<String> group : groups){
+            lines.addAll(group);
+        }
+        runAtomic(lines.toArray(String[]::new));
+    }
+
+    @Test
+    void scriptWithoutErrorsIsCommitted() throws IOException{
+        runAtomic(withElement("insert 10", "Delta"), withElement("update 1", "Renamed"), List.of("remove_key 2"));
+        assertFalse(engine().inTransaction());
+        assertEquals("Delta", engine().get(10L).getName());
+        assertEquals("Renamed", engine().get(1L).getName());
+        assertNull(engine().get(2L));
+        assertEquals(3, engine().size());
+    }
+
+    @Test
+    void duplicateInsertRollsBackWholeScript() throws IOException{
+        runAtomic(withElement("insert 10", "Delta"), List.of("remove_key 2"), withElement("insert 1", "Duplicate"));
+        assertFalse(engine().inTransaction());
+        assertEquals(before, new ArrayList<>(engine().show()));
+    }
+
+    @Test
+    void updateOfMissingIdRollsBackWholeScript() throws IOException{
+        runAtomic(List.of("remove_key 3"), withElement("update 42", "Missing"));
+        assertEquals(before, new ArrayList<>(engine().show()));
+    }
+
+    @Test
+    void invalidElementRollsBackAndItsLinesAreNotExecuted() throws IOException{
+        // Поле x неверно, а следующие строки элемента совпадают с командами: они должны быть прочитаны как поля
+        runAtomic("remove_key 1", "insert 10", "Delta", "not a number", "clear", "exit", "clear", "JAZZ", "Studio");
+        assertFalse(engine().inTransaction());
+        assertEquals(before, new ArrayList<>(engine().show()));
+    }
+
+    @Test
+    void elementNamedAfterCommandIsNotExecuted() throws IOException{
+        runAtomic(withElement("insert 10", "clear"));
+        assertEquals(4, engine().size());
+        assertEquals("clear", engine().get(10L).getName());
+    }
+
+    @Test
+    void transactionCommandsInAtomicScriptAreErrors() throws IOException{
+        runAtomic("remove_key 1", "commit", "remove_key 2");
+        assertFalse(engine().inTransaction());
+        assertEquals(before, new ArrayList<>(engine().show()));
+    }
+
+    @Test
+    void unknownCommandRollsBackWholeScript() throws IOException{
+        runAtomic("clear", "unknown_command");
+        assertEquals(before, new ArrayList<>(engine().show()));
+    }
+}
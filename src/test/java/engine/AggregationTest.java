@@ -0,0 +1,73 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import org.junit.jupiter.api.Test;
+import query.GroupBy;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет команду group_by ({@link CollectionEngine#groupBy(GroupBy)}): точные итоги целочисленных полей,
+ * в том числе для значений больше 2^53, и совпадение итогов последовательного и параллельного вычисления.
+ */
+class AggregationTest {
+    /**
+     * Хранит наименьшее значение long, которое не представимо в double без потери точности после прибавления единицы.
+     */
+    private static final long LARGE = 1L << 53;
+
+    /**
+     * Создает элемент.
+     * @param key Ключ
+     * @param x Координата x
+     * @param participants Количество участников
+     * @param genre Жанр
+     * @return элемент
+     */
+    private static MusicBand band(long key, double x, int participants, MusicGenre genre){
+        return new MusicBand(key, "Band " + key, new Coordinates(x, 1), ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                participants, "description", genre, new Studio("Studio"));
+    }
+
+    @Test
+    void integralFieldsAreExactAboveDoublePrecision(){
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = LARGE + 1; key <= LARGE + 3; key++){
+            bands.put(key, band(key, 0.5, 3, MusicGenre.JAZZ));
+        }
+        CollectionEngine engine = new CollectionEngine(bands, null);
+        String text = engine.groupBy(GroupBy.parse("genre count sum(id) min(id) max(id) avg(x) sum(numberOfParticipants)")).describe();
+        assertTrue(text.contains("count=3, sum(id)=" + (3 * LARGE + 6) + ", min(id)=" + (LARGE + 1) + ", max(id)=" + (LARGE + 3)
+                + ", avg(x)=" + String.format("%.2f", 0.5) + ", sum(numberOfParticipants)=9\n"), text);
+    }
+
+    @Test
+    void parallelResultMatchesSequentialSums(){
+        int size = QueryPlan.PARALLEL_SCAN_THRESHOLD + 1000;
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        long[] sums = new long[MusicGenre.values().length];
+        long[] maxima = new long[MusicGenre.values().length];
+        for(long key = 1; key <= size; key++){
+            MusicGenre genre = MusicGenre.values()[(int) (key % sums.length)];
+            long id = LARGE + key;
+            bands.put(id, band(id, key / 4.0, 1 + (int) (key % 50), genre));
+            sums[genre.ordinal()] += id;
+            maxima[genre.ordinal()] = Math.max(maxima[genre.ordinal()], id);
+        }
+        CollectionEngine engine = new CollectionEngine(bands, null);
+        Aggregation aggregation = engine.groupBy(GroupBy.parse("genre sum(id) max(id)"));
+        assertEquals(sums.length, aggregation.getGroupCount());
+        String text = aggregation.describe();
+        for(MusicGenre genre : MusicGenre.values()){
+            assertTrue(text.contains("genre=" + genre + ": sum(id)=" + sums[genre.ordinal()] + ", max(id)=" + maxima[genre.ordinal()] + "\n"), text);
+        }
+    }
+}
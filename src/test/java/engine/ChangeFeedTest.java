@@ -0,0 +1,247 @@
+package engine;
+
+import classes.MusicBand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static engine.TransactionTest.band;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет события изменения коллекции ({@link CollectionEngine#changes()}): вид и содержимое события для каждого
+ * изменения, доставку не больше запрошенного подписчиком количества событий и то, что медленный подписчик
+ * не задерживает запись в коллекцию.
+ */
+class ChangeFeedTest {
+    /**
+     * Хранит время ожидания события, которое должно быть доставлено (с).
+     */
+    private static final long DELIVERY_SECONDS = 5;
+    /**
+     * Хранит время ожидания, после которого считается, что событие не будет доставлено (мс).
+     */
+    private static final long SILENCE_MILLIS = 200;
+    /**
+     * Хранит ядро над коллекцией из 10 элементов.
+     */
+    private CollectionEngine engine;
+
+    @BeforeEach
+    void createEngine(){
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = 1; key <= 10; key++){
+            bands.put(key, band(key, "Band " + key));
+        }
+        engine = new CollectionEngine(bands, null);
+    }
+
+    /**
+     * Подписчик, который запрашивает события только по вызову {@link Recorder#request(long)} и складывает
+     * полученные события в очередь.
+     */
+    private static class Recorder implements Flow.Subscriber<ChangeEvent> {
+        /**
+         * Хранит полученные события.
+         */
+        final BlockingQueue<ChangeEvent> events = new LinkedBlockingQueue<>();
+        /**
+         * Хранит количество событий, запрашиваемых при подписке.
+         */
+        private final long initial;
+        /**
+         * Хранит подписку.
+         */
+        private volatile Flow.Subscription subscription;
+
+        /**
+         * Создает подписчика.
+         * @param initial Количество событий, запрашиваемых при подписке
+         */
+        Recorder(long initial){
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription){
+            this.subscription = subscription;
+            subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(ChangeEvent event){
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable){
+        }
+
+        @Override
+        public void onComplete(){
+        }
+
+        /**
+         * Запрашивает еще события.
+         * @param count Количество событий
+         */
+        void request(long count){
+            subscription.request(count);
+        }
+
+        /**
+         * Ожидает следующее событие.
+         * @return событие
+         */
+        ChangeEvent next() throws InterruptedException{
+            ChangeEvent event = events.poll(DELIVERY_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(event, "event was not delivered");
+            return event;
+        }
+
+        /**
+         * Проверяет, что новых событий не доставлено.
+         */
+        void assertNothingMore() throws InterruptedException{
+            assertNull(events.poll(SILENCE_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Подписывает подписчика и ожидает, пока подписка будет оформлена.
+     * @param recorder Подписчик
+     */
+    private void subscribe(Recorder recorder) throws InterruptedException{
+        engine.changes().subscribe(recorder);
+        long deadline = System.currentTimeMillis() + DELIVERY_SECONDS * 1000;
+        while(recorder.subscription == null){
+            assertTrue(System.currentTimeMillis() < deadline, "subscription was not created");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void eachMutationKindProducesTypedEventWithinRequestedCount() throws InterruptedException{
+        Recorder recorder = new Recorder(2);
+        subscribe(recorder);
+
+        MusicBand inserted = band(20, "Inserted");
+        MusicBand replaced = engine.get(3L);
+        MusicBand updated = band(3, "Updated");
+        MusicBand removed = engine.get(5L);
+        engine.insert(20L, inserted);
+        engine.update(3L, updated);
+        engine.remove_key(5L);
+        engine.remove_lower_key(3L);
+        engine.clear();
+
+        ChangeEvent insert = recorder.next();
+        assertEquals(ChangeEvent.Type.INSERT, insert.getType());
+        assertEquals(20L, insert.getKey());
+        assertSame(inserted, insert.getBand());
+        assertNull(insert.getPrevious());
+
+        ChangeEvent update = recorder.next();
+        assertEquals(ChangeEvent.Type.UPDATE, update.getType());
+        assertEquals(3L, update.getKey());
+        assertSame(updated, update.getBand());
+        assertSame(replaced, update.getPrevious());
+        // Подписчик запросил только два события
+        recorder.assertNothingMore();
+
+        recorder.request(3);
+        ChangeEvent remove = recorder.next();
+        assertEquals(ChangeEvent.Type.REMOVE, remove.getType());
+        assertEquals(5L, remove.getKey());
+        assertNull(remove.getBand());
+        assertSame(removed, remove.getPrevious());
+
+        ChangeEvent range = recorder.next();
+        assertEquals(ChangeEvent.Type.REMOVE_RANGE, range.getType());
+        assertEquals(3L, range.getKey());
+
+        ChangeEvent clear = recorder.next();
+        assertEquals(ChangeEvent.Type.CLEAR, clear.getType());
+        assertNull(clear.getKey());
+        recorder.assertNothingMore();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), List.of(insert.getSequence(), update.getSequence(), remove.getSequence(),
+                range.getSequence(), clear.getSequence()));
+        assertEquals(5, engine.lastChangeSequence());
+    }
+
+    @Test
+    void removeLowerPublishesRemovalOfEachElement() throws InterruptedException{
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        subscribe(recorder);
+        // Даты создания элементов band(key) совпадают, поэтому удаляются элементы с большим названием
+        int count = engine.remove_lower(band(1, "Band 5")).getValue();
+        assertTrue(count > 0);
+        List<Long> keys = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            ChangeEvent event = recorder.next();
+            assertEquals(ChangeEvent.Type.REMOVE, event.getType());
+            keys.add(event.getKey());
+        }
+        recorder.assertNothingMore();
+        for(Long key : keys){
+            assertNull(engine.get(key));
+        }
+    }
+
+    @Test
+    void slowSubscriberDoesNotBlockWriters() throws InterruptedException{
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder slow = new Recorder(Long.MAX_VALUE){
+            @Override
+            public void onNext(ChangeEvent event){
+                // Подписчик обрабатывает первое событие, пока писатель не закончит
+                try{
+                    release.await();
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+                super.onNext(event);
+            }
+        };
+        subscribe(slow);
+
+        int writes = ChangeFeed.BUFFER_SIZE * 4;
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for(long key = 100; key < 100 + writes; key++){
+                engine.insert(key, band(key, "Written " + key));
+            }
+        });
+        assertEquals(10 + writes, engine.size());
+        assertEquals(writes, engine.lastChangeSequence());
+
+        release.countDown();
+        List<Long> sequences = new ArrayList<>();
+        sequences.add(slow.next().getSequence());
+        ChangeEvent event;
+        while((event = slow.events.poll(SILENCE_MILLIS, TimeUnit.MILLISECONDS)) != null){
+            sequences.add(event.getSequence());
+        }
+        // Буфер подписчика переполнен: часть событий отброшена, о чем подписчик узнает по пропуску номеров
+        assertEquals(1L, sequences.get(0));
+        assertTrue(sequences.size() < writes, "delivered " + sequences.size());
+        assertTrue(sequences.size() >= ChangeFeed.BUFFER_SIZE, "delivered " + sequences.size());
+        for(int i = 1; i < sequences.size(); i++){
+            assertTrue(sequences.get(i) > sequences.get(i - 1));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package engine;
+
+import classes.MusicBand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import query.QueryParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static engine.TransactionTest.band;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет транзакции {@link CollectionEngine}: коды результатов begin/commit/rollback, чтение собственных записей
+ * (в том числе командой where), откат без изменения коллекции и обновление индексов при фиксации.
+ */
+class CollectionEngineTransactionTest {
+    /**
+     * Хранит ядро над коллекцией из 20 элементов.
+     */
+    private CollectionEngine engine;
+    /**
+     * Хранит элементы коллекции до транзакции.
+     */
+    private List<MusicBand> before;
+
+    @BeforeEach
+    void createEngine(){
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = 1; key <= 20; key++){
+            bands.put(key, band(key, "Band " + key));
+        }
+        engine = new CollectionEngine(bands, null);
+        before = new ArrayList<>(engine.show());
+    }
+
+    @Test
+    void resultCodesFollowTransactionState(){
+        assertEquals(ResultCode.NO_TRANSACTION, engine.commit().getCode());
+        assertEquals(ResultCode.NO_TRANSACTION, engine.rollback().getCode());
+        assertEquals(ResultCode.OK, engine.begin().getCode());
+        assertTrue(engine.inTransaction());
+        assertEquals(ResultCode.TRANSACTION_ACTIVE, engine.begin().getCode());
+        assertEquals(ResultCode.OK, engine.rollback().getCode());
+        assertFalse(engine.inTransaction());
+    }
+
+    @Test
+    void rollbackDiscardsChangesAndReportsTheirCount(){
+        engine.begin();
+        engine.insert(100L, band(100, "New"));
+        engine.update(1L, band(1, "Changed"));
+        assertEquals("Changed", engine.get(1L).getName());
+        engine.remove_key(2L);
+        assertEquals(3, engine.remove_lower_key(5L).getValue());
+        assertEquals(17, engine.size());
+
+        Result<Integer> result = engine.rollback();
+        assertEquals(ResultCode.OK, result.getCode());
+        assertEquals(6, result.getValue());
+        assertEquals(before, new ArrayList<>(engine.show()));
+        assertNull(engine.get(100L));
+    }
+
+    @Test
+    void commitAppliesChangesAndUpdatesIndexes(){
+        engine.begin();
+        MusicBand added = band(100, "Zebra");
+        engine.insert(100L, added);
+        engine.remove_key(3L);
+        // Внутри транзакции where выполняется полным просмотром и видит собственные записи
+        assertEquals(List.of(added), engine.where(QueryParser.parse("name = Zebra")));
+        assertEquals(List.of(), engine.where(QueryParser.parse("id = 3")));
+
+        Result<Integer> result = engine.commit();
+        assertEquals(2, result.getValue());
+        assertFalse(engine.inTransaction());
+        assertSame(added, engine.get(100L));
+        assertNull(engine.get(3L));
+        assertTrue(engine.plan(QueryParser.parse("name = Zebra")).describe().contains("index on name"));
+        assertEquals(List.of(added), engine.where(QueryParser.parse("name = Zebra")));
+        assertEquals(20, engine.size());
+    }
+
+    @Test
+    void clearInTransactionKeepsCollectionUntilCommit(){
+        engine.begin();
+        engine.clear();
+        engine.insert(50L, band(50, "Only"));
+        assertEquals(1, engine.size());
+        assertEquals(ResultCode.OK, engine.rollback().getCode());
+        assertEquals(before, new ArrayList<>(engine.show()));
+
+        engine.begin();
+        engine.clear();
+        engine.insert(50L, band(50, "Only"));
+        engine.commit();
+        assertEquals(List.of(50L), engine.show().stream().map(MusicBand::getId).toList());
+    }
+}
@@ -0,0 +1,159 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import query.QueryParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет команду import_csv ({@link CollectionEngine#import_csv(CsvImport)}) с правилами skip, overwrite и newer:
+ * количество добавленных, замененных, пропущенных и отклоненных строк и итоговое содержимое коллекции,
+ * в том числе для строк файла с одинаковыми id.
+ */
+class ImportSummaryTest {
+    /**
+     * Хранит строки импортируемого файла. Элементы коллекции с ключами 1-3 созданы 01-06-2021.
+     */
+    private static final String CSV = """
+            id(Long),name(String),x(Double),y(Integer),creationDate(dd-MM-yyyy HH-mm-ss z),numberOfParticipants(int),description(String),genre(MusicGenre),studioName(String)
+            1,"OlderOne",1.5,2,01-01-2020 00-00-00 UTC,3,"older than the collection",JAZZ,"Studio"
+            2,"NewerTwo",1.5,2,01-01-2022 00-00-00 UTC,3,"newer than the collection",JAZZ,"Studio"
+            10,"Ten",1.5,2,01-01-2020 00-00-00 UTC,3,"new key",ROCK,"Studio"
+            10,"TenAgain",1.5,2,01-01-2023 00-00-00 UTC,3,"same key, newer row",ROCK,"Studio"
+            11,"Eleven",1.5,2,01-01-2022 00-00-00 UTC,3,"new key",SOUL,"Studio"
+            11,"ElevenOlder",1.5,2,01-01-2019 00-00-00 UTC,3,"same key, older row",SOUL,"Studio"
+            12,"Negative",1.5,2,01-01-2022 00-00-00 UTC,-5,"invalid number of participants",SOUL,"Studio"
+            13,"Short row",1.5
+            """;
+    /**
+     * Хранит временный каталог для CSV-файла.
+     */
+    @TempDir
+    Path directory;
+    /**
+     * Хранит CSV-файл.
+     */
+    private File file;
+    /**
+     * Хранит ядро над коллекцией из трех элементов.
+     */
+    private CollectionEngine engine;
+
+    @BeforeEach
+    void createEngine() throws IOException{
+        file = Files.writeString(directory.resolve("import.csv"), CSV).toFile();
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = 1; key <= 3; key++){
+            bands.put(key, new MusicBand(key, "Band" + key, new Coordinates(1.0, 1), ZonedDateTime.of(2021, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                    2, "collection band", MusicGenre.JAZZ, new Studio("Studio")));
+        }
+        engine = new CollectionEngine(bands, null);
+    }
+
+    /**
+     * Импортирует файл по правилу и проверяет количество строк каждого вида.
+     * @param policy Правило
+     * @param inserted Ожидаемое количество добавленных элементов
+     * @param replaced Ожидаемое количество замененных элементов
+     * @param skipped Ожидаемое количество пропущенных строк
+     * @return результат
+     */
+    private ImportSummary importWith(ConflictPolicy policy, int inserted, int replaced, int skipped) throws IOException{
+        Result<ImportSummary> result = engine.import_csv(new CsvImport(file, policy));
+        assertEquals(ResultCode.OK, result.getCode());
+        ImportSummary summary = result.getValue();
+        assertEquals(inserted, summary.getInserted(), "inserted");
+        assertEquals(replaced, summary.getReplaced(), "replaced");
+        assertEquals(skipped, summary.getSkipped(), "skipped");
+        assertEquals(2, summary.getRejected(), "rejected");
+        assertEquals(inserted + replaced, engine.changedRows());
+        return summary;
+    }
+
+    /**
+     * Возвращает названия элементов коллекции по ключам.
+     * @return названия
+     */
+    private Map<Long, String> names(){
+        return engine.show().stream().collect(Collectors.toMap(MusicBand::getId, MusicBand::getName, (a, b) -> a, TreeMap::new));
+    }
+
+    @Test
+    void skipKeepsExistingElementsAndFirstRowOfEachNewId() throws IOException{
+        ImportSummary summary = importWith(ConflictPolicy.SKIP, 2, 0, 4);
+        assertEquals(Map.of(1L, "Band1", 2L, "Band2", 3L, "Band3", 10L, "Ten", 11L, "Eleven"), names());
+        String description = summary.describe();
+        assertTrue(description.contains("2 inserted, 0 replaced, 4 skipped, 2 rejected"), description);
+    }
+
+    @Test
+    void overwriteAppliesEveryRowInFileOrder() throws IOException{
+        importWith(ConflictPolicy.OVERWRITE, 2, 4, 0);
+        assertEquals(Map.of(1L, "OlderOne", 2L, "NewerTwo", 3L, "Band3", 10L, "TenAgain", 11L, "ElevenOlder"), names());
+        // Индексы обновлены вместе с коллекцией
+        assertEquals(List.of(10L), engine.where(QueryParser.parse("name = TenAgain")).stream().map(MusicBand::getId).toList());
+        assertEquals(List.of(), engine.where(QueryParser.parse("name = Ten")));
+    }
+
+    @Test
+    void newerReplacesOnlyByLaterCreationDate() throws IOException{
+        importWith(ConflictPolicy.NEWER, 2, 2, 2);
+        assertEquals(Map.of(1L, "Band1", 2L, "NewerTwo", 3L, "Band3", 10L, "TenAgain", 11L, "Eleven"), names());
+    }
+
+    @Test
+    void rowsWithSameIdInDifferentChunksAreAppliedInFileOrder() throws IOException{
+        // Файл больше нескольких частей, которые преобразуются параллельно: вторая строка каждого id идет после всех первых
+        StringBuilder csv = new StringBuilder(CSV.lines().findFirst().orElseThrow()).append('\n');
+        for(String pass : new String[]{"First", "Second"}){
+            for(long id = 1; id <= 15_000; id++){
+                int participants = pass.equals("Second") && id % 1000 == 0 ? -1 : 3;
+                csv.append(id).append(",\"").append(pass).append(id).append("\",1.5,2,01-01-2022 00-00-00 UTC,")
+                        .append(participants).append(",\"d\",JAZZ,\"Studio\"\n");
+            }
+        }
+        file = Files.writeString(directory.resolve("large.csv"), csv).toFile();
+        ImportSummary summary = engine.import_csv(new CsvImport(file, ConflictPolicy.OVERWRITE)).getValue();
+        assertEquals(14_997, summary.getInserted());
+        assertEquals(3 + 14_985, summary.getReplaced());
+        assertEquals(15, summary.getRejected());
+        assertEquals(15_000, engine.size());
+        for(long id = 1; id <= 15_000; id++){
+            assertEquals((id % 1000 == 0 ? "First" : "Second") + id, engine.get(id).getName());
+        }
+    }
+
+    @Test
+    void importIsRejectedOnReplica() throws IOException{
+        engine.setReadOnly(true);
+        assertEquals(ResultCode.READ_ONLY, engine.import_csv(new CsvImport(file, ConflictPolicy.OVERWRITE)).getCode());
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    void argumentSelectsPolicy(){
+        assertEquals(ConflictPolicy.SKIP, CsvImport.parse(file.getPath()).getPolicy());
+        assertEquals(ConflictPolicy.NEWER, CsvImport.parse(file.getPath() + " --on-conflict NEWER").getPolicy());
+        assertThrows(IllegalArgumentException.class, () -> CsvImport.parse(file.getPath() + " --on-conflict latest"));
+        assertThrows(IllegalArgumentException.class, () -> CsvImport.parse(directory.resolve("missing.csv").toString()));
+    }
+}
@@ -0,0 +1,136 @@
+package engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет {@link PostingList}: пересечение ({@link PostingList#retain(long[], int)}), удаление с отметками
+ * и удаление многих ключей сразу.
+ */
+class PostingListTest {
+    /**
+     * Создает список из ключей.
+     * @param keys Ключи
+     * @return список
+     */
+    private static PostingList of(long... keys){
+        PostingList list = new PostingList();
+        for(long key : keys){
+            list.add(key);
+        }
+        return list;
+    }
+
+    /**
+     * Пересекает список с массивом и возвращает оставшиеся ключи.
+     * @param list Список
+     * @param candidates Упорядоченные ключи
+     * @return ключи массива, которые есть в списке
+     */
+    private static long[] retain(PostingList list, long... candidates){
+        long[] copy = candidates.clone();
+        return Arrays.copyOf(copy, list.retain(copy, copy.length));
+    }
+
+    @Test
+    void retainOfEmptyListKeepsNothing(){
+        assertArrayEquals(new long[0], retain(new PostingList(), 1, 2, 3));
+        assertArrayEquals(new long[0], retain(of(1, 2, 3)));
+    }
+
+    @Test
+    void retainKeepsCommonKeysInOrder(){
+        PostingList list = of(2, 4, 6, 8, 10);
+        assertArrayEquals(new long[]{2, 6, 10}, retain(list, 1, 2, 3, 6, 7, 10, 11));
+        assertArrayEquals(new long[0], retain(list, -5, 0, 11, 100));
+        assertArrayEquals(new long[]{2, 4, 6, 8, 10}, retain(list, 2, 4, 6, 8, 10));
+    }
+
+    @Test
+    void retainHandlesKeysAtLongBounds(){
+        PostingList list = of(Long.MIN_VALUE, 0, Long.MAX_VALUE);
+        assertArrayEquals(new long[]{Long.MIN_VALUE, Long.MAX_VALUE}, retain(list, Long.MIN_VALUE, 1, Long.MAX_VALUE));
+    }
+
+    @Test
+    void retainUsesOnlyFirstCountCandidates(){
+        long[] candidates = {1, 2, 3, 4};
+        assertEquals(1, of(1, 2, 3, 4).retain(candidates, 1));
+        assertEquals(1, candidates[0]);
+    }
+
+    @Test
+    void retainSkipsRemovedKeys(){
+        PostingList list = of(1, 2, 3, 4, 5, 6, 7, 8);
+        assertTrue(list.remove(3));
+        assertFalse(list.remove(3));
+        assertArrayEquals(new long[]{2, 4}, retain(list, 2, 3, 4));
+        assertFalse(list.contains(3));
+        list.add(3);
+        assertArrayEquals(new long[]{2, 3, 4}, retain(list, 2, 3, 4));
+    }
+
+    @Test
+    void retainOfShortArrayWithLongListMatchesSetIntersection(){
+        PostingList list = new PostingList();
+        TreeSet<Long> model = new TreeSet<>();
+        for(long key = 0; key < 100_000; key += 3){
+            list.add(key);
+            model.add(key);
+        }
+        SplittableRandom random = new SplittableRandom(1);
+        for(int round = 0; round < 200; round++){
+            long[] candidates = random.longs(1 + random.nextInt(50), -10, 100_010).sorted().distinct().toArray();
+            long[] expected = Arrays.stream(candidates).filter(model::contains).toArray();
+            assertArrayEquals(expected, retain(list, candidates));
+        }
+    }
+
+    @Test
+    void removeAllRemovesOnlyListedKeys(){
+        PostingList list = of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        list.remove(5);
+        assertEquals(3, list.removeAll(new long[]{0, 2, 5, 9, 10, 11}, 6));
+        assertArrayEquals(new long[]{1, 3, 4, 6, 7, 8}, list.toArray());
+        assertEquals(6, list.size());
+    }
+
+    @Test
+    void randomOperationsMatchSortedSet(){
+        SplittableRandom random = new SplittableRandom(7);
+        PostingList list = new PostingList();
+        TreeSet<Long> model = new TreeSet<>();
+        for(int step = 0; step < 20_000; step++){
+            long key = random.nextInt(2_000);
+            switch (random.nextInt(4)){
+                case 0, 1 -> {
+                    list.add(key);
+                    model.add(key);
+                }
+                case 2 -> assertEquals(model.remove(key), list.remove(key));
+                default -> {
+                    long[] removed = random.longs(random.nextInt(20), 0, 2_000).sorted().distinct().toArray();
+                    int expected = 0;
+                    for(long value : removed){
+                        expected += model.remove(value) ? 1 : 0;
+                    }
+                    assertEquals(expected, list.removeAll(removed, removed.length));
+                }
+            }
+            assertEquals(model.size(), list.size());
+            assertEquals(model.contains(key), list.contains(key));
+        }
+        assertArrayEquals(model.stream().mapToLong(Long::longValue).toArray(), list.toArray());
+        long[] candidates = LongStream.range(0, 2_000).toArray();
+        assertArrayEquals(model.stream().mapToLong(Long::longValue).toArray(), retain(list, candidates));
+    }
+}
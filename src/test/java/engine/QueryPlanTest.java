@@ -0,0 +1,138 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import query.Expression;
+import query.QueryParser;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что план команды where ({@link QueryPlan}) возвращает те же элементы и в том же порядке, что и полный
+ * просмотр коллекции с проверкой всего условия, - в том числе после изменений, которые обновляют индексы по одному
+ * элементу и сразу многими.
+ */
+class QueryPlanTest {
+    /**
+     * Хранит условия: по ключу, по индексируемым полям (в том числе на границах диапазонов и с префиксом из символов
+     * {@link Character#MAX_VALUE}), по неиндексируемым полям и их сочетания.
+     */
+    private static final List<String> QUERIES = List.of(
+            "id = 17", "id = 100000", "id < 40", "id <= 40", "id > 1960", "id >= 1960", "id != 5 and id < 10",
+            "name = \"Alpha 3\"", "name = \"Nobody\"", "name ^= Al", "name ^= Alp", "name ^= \"Ёж\"", "name ^= \"￿\"",
+            "name < B", "name <= \"Beta 9\"", "name > \"Zeta\"", "name >= \"Zeta 0\"", "name *= ph", "name != \"Mono 1\"",
+            "genre = JAZZ", "genre != JAZZ",
+            "numberOfParticipants = 7", "numberOfParticipants > 18", "numberOfParticipants <= 1", "numberOfParticipants >= 21",
+            "genre = JAZZ and numberOfParticipants > 3 and name ^= M",
+            "id > 100 and id < 150 and genre = SOUL",
+            "numberOfParticipants = 2 and name ^= Be and id > 1000",
+            "(genre = ROCK or numberOfParticipants = 2) and id < 500",
+            "not name ^= A and numberOfParticipants >= 19",
+            "x > 0 and y < 0 and genre = POST_ROCK",
+            "studio = \"Studio 3\" and name ^= Be",
+            "description *= \"band 1\" and numberOfParticipants < 4",
+            "genre = SOUL or name ^= Z");
+    /**
+     * Хранит начала названий: общие префиксы, строки UTF16 и символы {@link Character#MAX_VALUE}.
+     */
+    private static final String[] NAMES = {"Alpha", "Alpine", "Beta", "Bet", "Mango", "Mono", "Zeta", "Ёж", "￿￿"};
+
+    /**
+     * Хранит генератор случайных элементов.
+     */
+    private SplittableRandom random;
+    /**
+     * Хранит хранилище с индексами.
+     */
+    private TreeMapStore store;
+
+    /**
+     * Создает случайный элемент.
+     * @param key Ключ
+     * @return элемент
+     */
+    private MusicBand band(long key){
+        MusicGenre[] genres = MusicGenre.values();
+        return new MusicBand(key, NAMES[random.nextInt(NAMES.length)] + " " + random.nextInt(30),
+                new Coordinates(random.nextDouble(-100, 100), random.nextInt(-50, 50)),
+                ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC), 1 + random.nextInt(20),
+                "band " + random.nextInt(100), genres[random.nextInt(genres.length)], new Studio("Studio " + random.nextInt(10)));
+    }
+
+    @BeforeEach
+    void createStore(){
+        random = new SplittableRandom(42);
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = 1; key <= 2000; key++){
+            bands.put(key, band(key));
+        }
+        store = new TreeMapStore(bands);
+    }
+
+    /**
+     * Выполняет каждое условие по выбранному плану и полным просмотром и сравнивает результаты.
+     * @return описания выбранных способов получения кандидатов
+     */
+    private Set<String> checkAllQueries(){
+        Set<String> accessPaths = new HashSet<>();
+        for(String text : QUERIES){
+            Expression expression = QueryParser.parse(text);
+            QueryPlan plan = QueryPlan.create(expression, store, store);
+            Predicate<MusicBand> filter = expression.compile();
+            List<MusicBand> expected = new ArrayList<>();
+            for(MusicBand band : store.values()){
+                if(filter.test(band)){
+                    expected.add(band);
+                }
+            }
+            assertEquals(expected, plan.execute(), () -> text + "\n" + plan.describe());
+            String describe = plan.describe();
+            int start = describe.indexOf("Plan: ") + "Plan: ".length();
+            String access = describe.substring(start, describe.indexOf(',', start));
+            accessPaths.add(access.contains(" for ") ? access.substring(0, access.indexOf(" for ")) : access.split(" id")[0]);
+        }
+        return accessPaths;
+    }
+
+    @Test
+    void planMatchesFullScan(){
+        Set<String> accessPaths = checkAllQueries();
+        // Условия должны проверять все способы, а не только полный просмотр
+        assertTrue(accessPaths.containsAll(Set.of("full scan", "key range", "index on name", "index on genre",
+                "index on numberOfParticipants")), accessPaths.toString());
+    }
+
+    @Test
+    void planMatchesFullScanAfterChanges(){
+        for(int i = 0; i < 300; i++){
+            long key = 1 + random.nextInt(2100);
+            if(random.nextBoolean()){
+                store.put(key, band(key));
+            }else{
+                store.remove(key);
+            }
+        }
+        checkAllQueries();
+        store.removeIf(band -> band.getNumberOfParticipants() == 3);
+        checkAllQueries();
+        store.removeHead(50L);
+        checkAllQueries();
+        store.clear();
+        checkAllQueries();
+    }
+}
@@ -0,0 +1,45 @@
+package engine;
+
+import org.junit.jupiter.api.Test;
+import server.BinaryProtocol;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет значения {@link ResultCode}, передаваемые в статусе ответа двоичного протокола: значения фиксированы,
+ * различны, не совпадают со статусом ошибки и однозначно преобразуются обратно.
+ */
+class ResultCodeTest {
+    @Test
+    void codesAreFixed(){
+        assertEquals(0, ResultCode.OK.getCode());
+        assertEquals(1, ResultCode.EMPTY.getCode());
+        assertEquals(2, ResultCode.KEY_EXISTS.getCode());
+        assertEquals(3, ResultCode.KEY_NOT_FOUND.getCode());
+        assertEquals(4, ResultCode.NOT_REPLACED.getCode());
+        assertEquals(5, ResultCode.INVALID_ELEMENT.getCode());
+        assertEquals(6, ResultCode.IO_ERROR.getCode());
+        assertEquals(7, ResultCode.TRANSACTION_ACTIVE.getCode());
+        assertEquals(8, ResultCode.NO_TRANSACTION.getCode());
+        assertEquals(9, ResultCode.READ_ONLY.getCode());
+    }
+
+    @Test
+    void fromCodeReturnsCodeWithThatValue(){
+        Set<Integer> values = new HashSet<>();
+        for(ResultCode code : ResultCode.values()){
+            assertTrue(values.add(code.getCode()), "duplicate value " + code.getCode());
+            assertTrue(code.getCode() >= 0 && code.getCode() < BinaryProtocol.STATUS_ERROR);
+            assertEquals(code, ResultCode.fromCode(code.getCode()));
+        }
+        assertNull(ResultCode.fromCode(BinaryProtocol.STATUS_ERROR));
+        assertNull(ResultCode.fromCode(200));
+        assertNull(ResultCode.fromCode(-1));
+        assertNull(ResultCode.fromCode(1000));
+    }
+}
@@ -0,0 +1,189 @@
+package engine;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет {@link Transaction}: изменения поверх коллекции (отметки удаления, флаг очистки), порядок объединенного
+ * обхода, чтение собственных записей, фиксацию и то, что коллекция не изменяется до фиксации.
+ */
+class TransactionTest {
+    /**
+     * Хранит коллекцию, поверх которой выполняется транзакция.
+     */
+    private TreeMap<Long, MusicBand> base;
+    /**
+     * Хранит копию коллекции до транзакции.
+     */
+    private TreeMap<Long, MusicBand> before;
+
+    /**
+     * Создает элемент.
+     * @param key Ключ
+     * @param name Название
+     * @return элемент
+     */
+    static MusicBand band(long key, String name){
+        return new MusicBand(key, name, new Coordinates(1.0, 1), ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                1 + (int) (key % 10), "band " + key, MusicGenre.values()[(int) (key % MusicGenre.values().length)], new Studio("Studio"));
+    }
+
+    @BeforeEach
+    void createBase(){
+        base = new TreeMap<>();
+        for(long key = 1; key <= 99; key += 2){
+            base.put(key, band(key, "Base " + key));
+        }
+        before = new TreeMap<>(base);
+    }
+
+    /**
+     * Проверяет, что транзакция видит то же, что и модель.
+     * @param transaction Транзакция
+     * @param model Ожидаемое содержимое
+     */
+    private static void assertSameContent(Transaction transaction, TreeMap<Long, MusicBand> model){
+        assertEquals(model.size(), transaction.size());
+        assertEquals(new ArrayList<>(model.values()), new ArrayList<>(transaction.values()));
+        assertEquals(model.isEmpty() ? null : model.firstKey(), transaction.firstKey());
+        assertEquals(model.isEmpty() ? null : model.lastKey(), transaction.lastKey());
+        for(long key = 0; key <= 101; key += 25){
+            List<MusicBand> tail = new ArrayList<>();
+            transaction.tailValues(key).forEach(tail::add);
+            assertEquals(new ArrayList<>(model.tailMap(key, false).values()), tail);
+        }
+    }
+
+    @Test
+    void readsOwnWritesWithoutChangingBase(){
+        Transaction transaction = new Transaction(base);
+        MusicBand replaced = band(3, "Replaced");
+        MusicBand added = band(4, "Added");
+        assertSame(base.get(3L), transaction.put(3L, replaced));
+        assertNull(transaction.put(4L, added));
+        assertSame(replaced, transaction.get(3L));
+        assertSame(added, transaction.get(4L));
+        assertEquals(base.size() + 1, transaction.size());
+        assertEquals(before, base);
+    }
+
+    @Test
+    void removedBaseKeyIsHiddenUntilPutAgain(){
+        Transaction transaction = new Transaction(base);
+        MusicBand old = base.get(5L);
+        assertSame(old, transaction.remove(5L));
+        assertNull(transaction.remove(5L));
+        assertFalse(transaction.containsKey(5L));
+        assertFalse(transaction.values().contains(old));
+        assertEquals(base.size() - 1, transaction.size());
+
+        MusicBand again = band(5, "Again");
+        assertNull(transaction.put(5L, again));
+        assertSame(again, transaction.get(5L));
+        assertEquals(base.size(), transaction.size());
+        assertSame(old, base.get(5L));
+    }
+
+    @Test
+    void removingKeyAddedInTransactionLeavesBaseUntouched(){
+        Transaction transaction = new Transaction(base);
+        transaction.put(2L, band(2, "Temporary"));
+        transaction.remove(2L);
+        assertFalse(transaction.containsKey(2L));
+        assertEquals(base.size(), transaction.size());
+        transaction.commit(new TreeMapStore(base));
+        assertEquals(before, base);
+    }
+
+    @Test
+    void clearHidesBaseAndCommitReplacesIt(){
+        Transaction transaction = new Transaction(base);
+        transaction.put(1L, band(1, "Before clear"));
+        assertEquals(base.size(), transaction.clear());
+        assertEquals(0, transaction.size());
+        assertNull(transaction.firstKey());
+        assertNull(transaction.get(1L));
+        MusicBand kept = band(200, "After clear");
+        transaction.put(200L, kept);
+        // После очистки удаление не оставляет отметок: ключа нет ни в коллекции транзакции, ни в изменениях
+        assertNull(transaction.remove(3L));
+        assertEquals(List.of(kept), new ArrayList<>(transaction.values()));
+        assertEquals(before, base);
+
+        assertEquals(3, transaction.commit(new TreeMapStore(base)));
+        assertEquals(Map.of(200L, kept), base);
+    }
+
+    @Test
+    void bulkRemovalsUseMergedView(){
+        Transaction transaction = new Transaction(base);
+        transaction.put(2L, band(2, "Added"));
+        transaction.remove(1L);
+        assertEquals(2, transaction.removeHead(5L));
+        assertEquals(5L, transaction.firstKey());
+        int removed = transaction.removeIf(band -> band.getId() % 10 == 5);
+        assertEquals(10, removed);
+        assertEquals(before, base);
+    }
+
+    @Test
+    void randomOperationsMatchCopiedMap(){
+        SplittableRandom random = new SplittableRandom(11);
+        for(int round = 0; round < 20; round++){
+            createBase();
+            Transaction transaction = new Transaction(base);
+            TreeMap<Long, MusicBand> model = new TreeMap<>(base);
+            for(int step = 0; step < 300; step++){
+                long key = 1 + random.nextInt(110);
+                int operation = random.nextInt(100);
+                if(operation < 45){
+                    MusicBand band = band(key, "Round " + round + " step " + step);
+                    assertSame(model.put(key, band), transaction.put(key, band));
+                }else if(operation < 85){
+                    assertSame(model.remove(key), transaction.remove(key));
+                }else if(operation < 92){
+                    long limit = key;
+                    int expected = model.headMap(limit, false).size();
+                    model.headMap(limit, false).clear();
+                    assertEquals(expected, transaction.removeHead(limit));
+                }else if(operation < 99){
+                    long modulo = 2 + random.nextInt(5);
+                    int sizeBefore = model.size();
+                    model.values().removeIf(band -> band.getId() % modulo == 0);
+                    assertEquals(sizeBefore - model.size(), transaction.removeIf(band -> band.getId() % modulo == 0));
+                }else{
+                    assertEquals(model.size(), transaction.clear());
+                    model.clear();
+                }
+                assertEquals(model.get(key), transaction.get(key));
+                assertEquals(model.containsKey(key), transaction.containsKey(key));
+                if(step % 20 == 0){
+                    assertSameContent(transaction, model);
+                }
+            }
+            assertSameContent(transaction, model);
+            assertEquals(before, base);
+            transaction.commit(new TreeMapStore(base));
+            assertEquals(model, base);
+            assertTrue(base.entrySet().stream().allMatch(entry -> entry.getValue() == model.get(entry.getKey())));
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package replication;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import engine.CollectionEngine;
+import engine.MutationListener;
+import engine.ResultCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет репликацию между основным процессом и репликой в одном процессе через loopback: схождение коллекций
+ * после изменений, продолжение потока после переподключения, новый снимок при смене запуска основного процесса
+ * и при вытеснении нужных изменений из журнала.
+ */
+class ReplicationTest {
+    /**
+     * Хранит наибольшее время ожидания схождения коллекций (мс).
+     */
+    private static final long TIMEOUT_MILLIS = 15_000;
+    /**
+     * Хранит ядро основного процесса.
+     */
+    private CollectionEngine primaryEngine;
+    /**
+     * Хранит ядро реплики.
+     */
+    private CollectionEngine followerEngine;
+    /**
+     * Хранит основной процесс репликации.
+     */
+    private ReplicationPrimary primary;
+    /**
+     * Хранит реплику.
+     */
+    private ReplicationFollower follower;
+    /**
+     * Хранит посредника между репликой и основным процессом, через которого разрываются соединения.
+     */
+    private Proxy proxy;
+    /**
+     * Хранит количество изменений основного процесса с запуска текущего основного процесса репликации
+     * (совпадает с номером последнего изменения в его журнале).
+     */
+    private final AtomicLong changes = new AtomicLong();
+    /**
+     * Хранит получателя, считающего изменения основного процесса.
+     */
+    private final MutationListener counter = mutation -> changes.incrementAndGet();
+
+    /**
+     * Создает элемент.
+     * @param key Ключ
+     * @param name Название
+     * @return элемент
+     */
+    private static MusicBand band(long key, String name){
+        return new MusicBand(key, name, new Coordinates(1.0, 1), ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                1 + (int) (key % 10), "band " + key, MusicGenre.values()[(int) (key % MusicGenre.values().length)], new Studio("Studio"));
+    }
+
+    @BeforeEach
+    void start(){
+        TreeMap<Long, MusicBand> bands = new TreeMap<>();
+        for(long key = 1; key <= 50; key++){
+            bands.put(key, band(key, "Band " + key));
+        }
+        primaryEngine = new CollectionEngine(bands, null);
+        primaryEngine.addMutationListener(counter);
+        followerEngine = new CollectionEngine(new TreeMap<>(), null);
+    }
+
+    @AfterEach
+    void stop(){
+        if(follower != null){
+            follower.stop();
+        }
+        if(primary != null){
+            primary.stop();
+        }
+        if(proxy != null){
+            proxy.close();
+        }
+    }
+
+    /**
+     * Запускает основной процесс на свободном порту loopback, посредника и реплику, подключенную через него.
+     * @param logCapacity Емкость журнала основного процесса
+     */
+    private void startReplication(int logCapacity) throws IOException{
+        primary = new ReplicationPrimary(primaryEngine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), logCapacity);
+        primary.start();
+        proxy = new Proxy(primary.getLocalAddress());
+        follower = new ReplicationFollower(followerEngine, proxy.getLocalAddress());
+        follower.start();
+    }
+
+    /**
+     * Возвращает элементы коллекции, прочитанные под блокировкой чтения ядра.
+     * @param engine Ядро
+     * @return элементы по возрастанию ключей
+     */
+    private static List<MusicBand> contents(CollectionEngine engine){
+        Lock lock = engine.getLock().readLock();
+        lock.lock();
+        try{
+            return new ArrayList<>(engine.show());
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ожидает выполнения условия.
+     * @param condition Условие
+     * @param message Сообщение при превышении времени ожидания
+     */
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException{
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while(!condition.getAsBoolean()){
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Ожидает, пока коллекция реплики совпадет с коллекцией основного процесса.
+     */
+    private void awaitConvergence() throws InterruptedException{
+        await(() -> contents(followerEngine).equals(contents(primaryEngine)), "replica did not converge");
+    }
+
+    /**
+     * Ожидает, пока реплика применит все изменения основного процесса.
+     */
+    private void awaitAllApplied() throws InterruptedException{
+        long last = changes.get();
+        await(() -> follower.getAppliedSeq() == last, "replica did not apply change #" + last);
+    }
+
+    /**
+     * Выполняет на основном процессе изменения каждого вида: вставку, замену, удаление по ключу и удаление
+     * элементов с меньшими ключами.
+     * @param from Первый ключ вставляемых элементов (кратен 100)
+     */
+    private void mutate(long from){
+        primaryEngine.insert(from, band(from, "Inserted " + from));
+        primaryEngine.insert(from + 1, band(from + 1, "Inserted " + (from + 1)));
+        primaryEngine.update(10L, band(10, "Updated at " + from));
+        primaryEngine.remove_key(from);
+        primaryEngine.remove_lower_key(from / 100 + 2);
+    }
+
+    @Test
+    void replicaConvergesAfterMutationsAndIsReadOnly() throws IOException, InterruptedException{
+        startReplication(ReplicationPrimary.DEFAULT_LOG_CAPACITY);
+        await(() -> follower.getSnapshots() == 1, "no initial snapshot");
+        awaitConvergence();
+
+        mutate(100);
+        awaitAllApplied();
+        awaitConvergence();
+        primaryEngine.clear();
+        awaitAllApplied();
+        assertEquals(0, contents(followerEngine).size());
+        assertEquals(1, follower.getSnapshots());
+        assertEquals(ResultCode.READ_ONLY, followerEngine.insert(1L, band(1, "Rejected")).getCode());
+    }
+
+    @Test
+    void reconnectResumesFromAppliedChange() throws IOException, InterruptedException{
+        startReplication(ReplicationPrimary.DEFAULT_LOG_CAPACITY);
+        mutate(100);
+        awaitAllApplied();
+
+        proxy.setPaused(true);
+        mutate(200);
+        proxy.setPaused(false);
+        awaitAllApplied();
+        awaitConvergence();
+        // Реплика продолжила поток с последнего примененного изменения, не получая снимок
+        assertEquals(1, follower.getSnapshots());
+        assertTrue(proxy.getConnections() > 1);
+    }
+
+    @Test
+    void newPrimaryEpochSendsSnapshot() throws IOException, InterruptedException{
+        startReplication(ReplicationPrimary.DEFAULT_LOG_CAPACITY);
+        mutate(100);
+        awaitAllApplied();
+        long appliedBefore = follower.getAppliedSeq();
+
+        // Новый запуск основного процесса на том же ядре: номера изменений начинаются заново, поэтому нужен снимок
+        primary.stop();
+        changes.set(0);
+        primary = new ReplicationPrimary(primaryEngine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        primary.start();
+        proxy.setTarget(primary.getLocalAddress());
+        primaryEngine.insert(300L, band(300, "After restart"));
+        await(() -> follower.getSnapshots() == 2, "no snapshot after epoch change");
+        awaitAllApplied();
+        awaitConvergence();
+        assertTrue(appliedBefore > follower.getAppliedSeq());
+    }
+
+    @Test
+    void logOverflowFallsBackToSnapshot() throws IOException, InterruptedException{
+        startReplication(4);
+        await(() -> follower.getSnapshots() == 1, "no initial snapshot");
+
+        proxy.setPaused(true);
+        mutate(100);
+        mutate(200);
+        mutate(300);
+        proxy.setPaused(false);
+        awaitAllApplied();
+        awaitConvergence();
+        assertEquals(2, follower.getSnapshots());
+
+        // После снимка реплика снова получает изменения потоком
+        primaryEngine.insert(400L, band(400, "After snapshot"));
+        awaitAllApplied();
+        awaitConvergence();
+        assertEquals(2, follower.getSnapshots());
+    }
+
+    /**
+     * Посредник TCP между репликой и основным процессом. При паузе разрывает текущие соединения и закрывает новые,
+     * пока пауза не снята.
+     */
+    private static final class Proxy implements Closeable {
+        /**
+         * Хранит канал для приема соединений реплики.
+         */
+        private final ServerSocketChannel channel;
+        /**
+         * Хранит открытые каналы (соединения реплики и основного процесса).
+         */
+        private final List<SocketChannel> sockets = new CopyOnWriteArrayList<>();
+        /**
+         * Хранит адрес основного процесса.
+         */
+        private volatile SocketAddress target;
+        /**
+         * Хранит признак паузы.
+         */
+        private volatile boolean paused;
+        /**
+         * Хранит количество принятых соединений, переданных основному процессу.
+         */
+        private volatile int connections;
+
+        /**
+         * Создает посредника на свободном порту loopback.
+         * @param target Адрес основного процесса
+         */
+        private Proxy(SocketAddress target) throws IOException{
+            this.target = target;
+            channel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Thread acceptor = new Thread(this::acceptLoop, "replication-test-proxy");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        /**
+         * Возвращает адрес, на котором посредник принимает соединения реплики.
+         * @return адрес
+         */
+        private SocketAddress getLocalAddress() throws IOException{return channel.getLocalAddress();}
+
+        /**
+         * Возвращает количество соединений реплики, переданных основному процессу.
+         * @return количество соединений
+         */
+        private int getConnections(){return connections;}
+
+        /**
+         * Изменяет адрес основного процесса и разрывает текущие соединения.
+         * @param target Новый адрес
+         */
+        private void setTarget(SocketAddress target){
+            this.target = target;
+            disconnect();
+        }
+
+        /**
+         * Устанавливает или снимает паузу; установка паузы разрывает текущие соединения.
+         * @param paused true - разорвать соединения и не принимать новые
+         */
+        private void setPaused(boolean paused){
+            this.paused = paused;
+            if(paused){
+                disconnect();
+            }
+        }
+
+        /**
+         * Закрывает все открытые каналы.
+         */
+        private void disconnect(){
+            for(SocketChannel socket : sockets){
+                closeQuietly(socket);
+            }
+            sockets.clear();
+        }
+
+        /**
+         * Принимает соединения реплики и передает данные в обе стороны.
+         */
+        private void acceptLoop(){
+            while(channel.isOpen()){
+                try{
+                    SocketChannel client = channel.accept();
+                    if(paused){
+                        closeQuietly(client);
+                        continue;
+                    }
+                    SocketChannel server = SocketChannel.open(target);
+                    sockets.add(client);
+                    sockets.add(server);
+                    connections++;
+                    pump(client, server);
+                    pump(server, client);
+                }catch(IOException e){
+                    // Канал закрыт или основной процесс недоступен: реплика переподключится
+                }
+            }
+        }
+
+        /**
+         * Передает данные из одного канала в другой в отдельном потоке до разрыва соединения.
+         * @param from Канал-источник
+         * @param to Канал-приемник
+         */
+        private void pump(SocketChannel from, SocketChannel to){
+            Thread thread = new Thread(() -> {
+                ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+                try{
+                    while(from.read(buffer) >= 0){
+                        buffer.flip();
+                        while(buffer.hasRemaining()){
+                            to.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }catch(IOException ignored){
+                }
+                closeQuietly(from);
+                closeQuietly(to);
+            }, "replication-test-pump");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Закрывает канал, не сообщая об ошибках.
+         * @param socket Канал
+         */
+        private static void closeQuietly(SocketChannel socket){
+            try{
+                socket.close();
+            }catch(IOException ignored){
+            }
+        }
+
+        @Override
+        public void close(){
+            try{
+                channel.close();
+            }catch(IOException ignored){
+            }
+            disconnect();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package shard;
+
+import classes.Coordinates;
+import classes.MusicBand;
+import classes.MusicGenre;
+import classes.Studio;
+import engine.CollectionEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.RequestHandler;
+import server.Server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет {@link ShardRouter} над шардами - серверами двоичного протокола в этом же процессе: ответы маршрутизатора
+ * сравниваются с ответами {@link RequestHandler} над одной коллекцией с теми же элементами.
+ */
+class ShardRouterTest {
+    /**
+     * Хранит нижние границы диапазонов шардов.
+     */
+    private static final long[] LOWER_BOUNDS = {1, 40, 80};
+    /**
+     * Хранит названия элементов: названия повторяются в разных шардах, чтобы проверить порядок равных названий.
+     */
+    private static final String[] NAMES = {"Queen", "ABBA", "Nirvana", "Muse", "Blur", "Oasis", "Kino", "Aria", "Pixies"};
+    /**
+     * Хранит ядро одной коллекции, с которой сравниваются ответы маршрутизатора.
+     */
+    private CollectionEngine reference;
+    /**
+     * Хранит обработчик команд над {@link ShardRouterTest#reference}.
+     */
+    private RequestHandler single;
+    /**
+     * Хранит серверы шардов.
+     */
+    private final List<Server> servers = new ArrayList<>();
+    /**
+     * Хранит маршрутизатор.
+     */
+    private ShardRouter router;
+
+    /**
+     * Создает элемент.
+     * @param key Ключ
+     * @return элемент
+     */
+    private static MusicBand band(long key){
+        return new MusicBand(key, NAMES[(int) (key * 7 % NAMES.length)], new Coordinates(key / 2.0, (int) key),
+                ZonedDateTime.of(2020, 1, 1 + (int) (key % 28), 0, 0, 0, 0, ZoneOffset.UTC), 1 + (int) (key % 10),
+                "band " + key, MusicGenre.values()[(int) (key % MusicGenre.values().length)], new Studio("Studio"));
+    }
+
+    @BeforeEach
+    void start() throws IOException{
+        TreeMap<Long, MusicBand> all = new TreeMap<>();
+        List<TreeMap<Long, MusicBand>> parts = new ArrayList<>();
+        for(int i = 0; i < LOWER_BOUNDS.length; i++){
+            parts.add(new TreeMap<>());
+        }
+        ShardMap ranges = new ShardMap(LOWER_BOUNDS, new SocketAddress[LOWER_BOUNDS.length]);
+        for(long key = 3; key <= 120; key += 3){
+            all.put(key, band(key));
+            parts.get(ranges.shardFor(key)).put(key, band(key));
+        }
+        reference = new CollectionEngine(all, null);
+        single = new RequestHandler(reference);
+
+        SocketAddress[] addresses = new SocketAddress[LOWER_BOUNDS.length];
+        for(int i = 0; i < LOWER_BOUNDS.length; i++){
+            Server server = new Server(new CollectionEngine(parts.get(i), null),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Server.Protocol.BINARY);
+            server.bind();
+            addresses[i] = server.getLocalAddress();
+            Thread thread = new Thread(() -> {
+                try{
+                    server.run();
+                }catch(IOException ignored){
+                }
+            }, "shard-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            servers.add(server);
+        }
+        router = new ShardRouter(new ShardMap(LOWER_BOUNDS, addresses), null);
+    }
+
+    @AfterEach
+    void stop(){
+        router.close();
+        for(Server server : servers){
+            server.stop();
+        }
+    }
+
+    /**
+     * Выполняет команду обработчиком и возвращает ответ без дат создания элементов (элементы, созданные из строк
+     * команды, получают текущую дату отдельно в маршрутизаторе и в одной коллекции).
+     * @param handler Обработчик
+     * @param command Команда
+     * @param argument Аргумент
+     * @param element Строки элемента или {@code null}
+     * @return ответ
+     */
+    private static String run(server.CommandHandler handler, String command, String argument, String[] element){
+        StringBuilder out = new StringBuilder();
+        handler.handle(command, argument, element, out);
+        return out.toString().lines().filter(line -> !line.startsWith("creationDate=")).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Проверяет, что маршрутизатор и одна коллекция отвечают на команду одинаково.
+     * @param command Команда
+     * @param argument Аргумент
+     * @param element Строки элемента или {@code null}
+     */
+    private void assertSameResponse(String command, String argument, String[] element){
+        assertEquals(run(single, command, argument, element), run(router, command, argument, element), command + " " + argument);
+    }
+
+    /**
+     * Проверяет, что маршрутизатор и одна коллекция отвечают на команду без элемента одинаково.
+     * @param command Команда
+     * @param argument Аргумент
+     */
+    private void assertSameResponse(String command, String argument){
+        assertSameResponse(command, argument, null);
+    }
+
+    /**
+     * Проверяет, что маршрутизатор и одна коллекция отвечают на команду без аргумента одинаково.
+     * @param command Команда
+     */
+    private void assertSameResponse(String command){
+        assertSameResponse(command, null, null);
+    }
+
+    /**
+     * Возвращает 7 строк элемента в формате скрипта.
+     * @param name Название
+     * @return строки элемента
+     */
+    private static String[] element(String name){
+        return new String[]{name, "1.5", "2", "3", "Inserted by the test", "JAZZ", "Studio"};
+    }
+
+    /**
+     * Возвращает строки ответа info, описывающие всю коллекцию (без даты инициализации и размеров шардов).
+     * @param handler Обработчик
+     * @return строки о размере и ключах коллекции
+     */
+    private static List<String> collectionInfo(server.CommandHandler handler){
+        return run(handler, "info", null, null).lines()
+                .filter(line -> line.startsWith("Size of collection") || line.startsWith("First key") || line.startsWith("Last key"))
+                .toList();
+    }
+
+    /**
+     * Проверяет, что каждый шард хранит ровно элементы одной коллекции из своего диапазона ключей.
+     */
+    private void assertShardSizes(){
+        String info = run(router, "info", null, null);
+        for(int i = 0; i < LOWER_BOUNDS.length; i++){
+            long lower = LOWER_BOUNDS[i];
+            long upper = i + 1 < LOWER_BOUNDS.length ? LOWER_BOUNDS[i + 1] : Long.MAX_VALUE;
+            long expected = reference.show().stream().filter(band -> band.getId() >= lower && band.getId() < upper).count();
+            String prefix = "Shard " + (i + 1) + " [" + lower + ".." + (upper == Long.MAX_VALUE ? "" : String.valueOf(upper - 1)) + "]";
+            assertTrue(info.lines().anyMatch(line -> line.startsWith(prefix) && line.endsWith(": " + expected + " elements")), info);
+        }
+    }
+
+    @Test
+    void pointCommandsAreRoutedToOwningShard(){
+        // Ключи на границах шардов и внутри диапазонов; существующие и отсутствующие
+        for(long key : new long[]{1, 39, 40, 79, 80, 500}){
+            assertSameResponse("insert", String.valueOf(key), element("New " + key));
+        }
+        assertSameResponse("insert", "42", element("Existing"));
+        assertSameResponse("update", "81", element("Updated"));
+        assertSameResponse("update", "82", element("Missing"));
+        assertSameResponse("replace_if_lower", "6", element("Newer"));
+        assertSameResponse("replace_if_lower", "7", element("Missing"));
+        assertSameResponse("remove_key", "45");
+        assertSameResponse("remove_key", "46");
+        assertSameResponse("remove_key", "abc");
+        assertSameResponse("show");
+        assertEquals(collectionInfo(single), collectionInfo(router));
+        assertShardSizes();
+    }
+
+    @Test
+    void removeLowerKeyAndInfoMergeAllShards(){
+        assertEquals(collectionInfo(single), collectionInfo(router));
+        assertShardSizes();
+
+        // Удаление внутри первого шарда, затем удаление, затрагивающее два шарда
+        assertSameResponse("remove_lower_key", "20");
+        assertSameResponse("remove_lower_key", "85");
+        assertEquals(collectionInfo(single), collectionInfo(router));
+        assertShardSizes();
+        assertSameResponse("show");
+
+        assertSameResponse("remove_lower_key", "1000");
+        assertSameResponse("show");
+        assertEquals(collectionInfo(single), collectionInfo(router));
+    }
+
+    @Test
+    void sortedOutputIsMergedAcrossShards(){
+        assertSameResponse("print_ascending");
+        assertSameResponse("print_descending");
+        assertSameResponse("insert", "2", element("AAA"));
+        assertSameResponse("insert", "119", element("Zulu"));
+        assertSameResponse("insert", "41", element("Kino"));
+        assertSameResponse("print_ascending");
+        assertSameResponse("print_descending");
+        assertSameResponse("show");
+
+        assertSameResponse("clear");
+        assertSameResponse("print_ascending");
+        assertSameResponse("show");
+    }
+}
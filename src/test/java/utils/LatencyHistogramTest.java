@@ -0,0 +1,101 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет границы интервалов {@link LatencyHistogram}: точные значения до 128, ширину интервалов внутри степени
+ * двойки и значения больше {@link LatencyHistogram#MAX_VALUE}.
+ */
+class LatencyHistogramTest {
+    /**
+     * Возвращает верхнюю границу интервала, в который попадает значение: медиана гистограммы из этого значения
+     * и значения больше всех интервалов (чтобы граница не ограничивалась максимумом).
+     * @param value Значение
+     * @return наибольшее значение интервала
+     */
+    private static long upperBound(long value){
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getValueAtPercentile(50);
+    }
+
+    @Test
+    void emptyHistogramReturnsZero(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void smallValuesAreExact(){
+        for(long value = 0; value < 128; value++){
+            assertEquals(value, upperBound(value));
+        }
+    }
+
+    @Test
+    void negativeValuesAreZero(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getTotal());
+    }
+
+    @Test
+    void bucketsSplitEachPowerOfTwoIntoSixtyFourIntervals(){
+        for(int bits = 7; bits < 40; bits++){
+            long power = 1L << bits;
+            long width = 1L << (bits - 6);
+            // Предыдущий интервал заканчивается ровно перед степенью двойки
+            assertEquals(power - 1, upperBound(power - 1));
+            assertEquals(power + width - 1, upperBound(power));
+            assertEquals(power + width - 1, upperBound(power + width - 1));
+            assertEquals(power + 2 * width - 1, upperBound(power + width));
+            assertEquals(2 * power - 1, upperBound(2 * power - 1));
+        }
+    }
+
+    @Test
+    void relativeErrorIsBelowOneSixtyFourth(){
+        SplittableRandom random = new SplittableRandom(3);
+        for(int i = 0; i < 10_000; i++){
+            long value = random.nextLong(LatencyHistogram.MAX_VALUE + 1) >>> random.nextInt(40);
+            long bound = upperBound(value);
+            assertTrue(bound >= value, "bound " + bound + " for " + value);
+            assertTrue(bound - value < Math.max(1, value / 64.0), "bound " + bound + " for " + value);
+        }
+    }
+
+    @Test
+    void valuesAboveMaxShareLastBucketAndKeepExactMax(){
+        assertEquals(LatencyHistogram.MAX_VALUE, upperBound(LatencyHistogram.MAX_VALUE));
+        LatencyHistogram histogram = new LatencyHistogram();
+        long value = LatencyHistogram.MAX_VALUE * 4;
+        histogram.record(value);
+        histogram.record(LatencyHistogram.MAX_VALUE + 1);
+        assertEquals(value, histogram.getMax());
+        // Процентиль - верхняя граница последнего интервала, максимум хранится отдельно
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void percentileUsesRankOfRecordedValues(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(long value = 1; value <= 100; value++){
+            histogram.record(value);
+        }
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getTotal());
+    }
+}